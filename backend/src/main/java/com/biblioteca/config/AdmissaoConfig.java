@@ -0,0 +1,30 @@
+package com.biblioteca.config;
+
+import com.biblioteca.controller.FiltroAdmissao;
+import com.biblioteca.service.admissao.ControleAdmissao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registra o {@link FiltroAdmissao} só para {@code /api/*}, antes dos demais filtros, para
+ * que uma requisição recusada custe o mínimo. Desligado com
+ * {@code biblioteca.admissao.habilitado=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "biblioteca.admissao.habilitado", havingValue = "true", matchIfMissing = true)
+public class AdmissaoConfig {
+
+    @Bean
+    public FilterRegistrationBean<FiltroAdmissao> filtroAdmissao(ControleAdmissao controle,
+            @Value("${biblioteca.admissao.cliente.cabecalho:}") String cabecalhoCliente) {
+        FilterRegistrationBean<FiltroAdmissao> registro =
+                new FilterRegistrationBean<>(new FiltroAdmissao(controle, cabecalhoCliente));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+}
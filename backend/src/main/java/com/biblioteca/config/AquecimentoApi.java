@@ -0,0 +1,158 @@
+package com.biblioteca.config;
+
+import com.biblioteca.controller.LivroController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Aquece a API antes de a aplicação se declarar pronta: chama pelo próprio servidor HTTP,
+ * em {@code biblioteca.aquecimento.iteracoes} rodadas, os endpoints de leitura do
+ * {@link LivroController} (JSON, CBOR e Smile, com e sem gzip) e um PUT de um livro que
+ * não existe, que passa pela desserialização e pela validação sem gravar nada. Assim as
+ * classes já estão carregadas e os caminhos quentes compilados pelo JIT quando chega a
+ * primeira requisição de verdade.
+ *
+ * Roda dentro do {@link ApplicationReadyEvent}, e o Spring Boot só publica
+ * {@code ReadinessState.ACCEPTING_TRAFFIC} depois que os ouvintes desse evento terminam:
+ * enquanto isso {@code /actuator/health/readiness} responde 503. O aquecimento nunca
+ * impede a inicialização; uma falha só o interrompe. Com
+ * {@code biblioteca.aquecimento.encerrar=true} a aplicação termina logo depois, o que serve
+ * de execução de treino para o arquivo CDS gerado no perfil Maven {@code inicio-rapido}.
+ */
+@Component
+public class AquecimentoApi {
+
+    private static final Logger log = LoggerFactory.getLogger(AquecimentoApi.class);
+
+    private static final String CBOR = "application/cbor";
+    private static final String SMILE = FormatosBinariosConfig.APPLICATION_SMILE_VALUE;
+    private static final String JSON = "application/json";
+
+    // Válido, para passar pela validação; o id 0 nunca existe e a atualização não grava nada
+    private static final String LIVRO_INEXISTENTE =
+            "{\"titulo\":\"Aquecimento\",\"autor\":\"Aquecimento\",\"isbn\":\"9780000000002\",\"anoPublicacao\":2000}";
+
+    private static final List<String> TERMOS = List.of("a", "o", "de", "da", "silva", "java", "historia", "1");
+
+    private final int iteracoes;
+    private final Duration duracaoMaxima;
+    private final boolean encerrar;
+    private final String contexto;
+
+    public AquecimentoApi(@Value("${biblioteca.aquecimento.iteracoes:0}") int iteracoes,
+                          @Value("${biblioteca.aquecimento.duracao-maxima:PT30S}") Duration duracaoMaxima,
+                          @Value("${biblioteca.aquecimento.encerrar:false}") boolean encerrar,
+                          @Value("${server.servlet.context-path:}") String contexto) {
+        this.iteracoes = iteracoes;
+        this.duracaoMaxima = duracaoMaxima;
+        this.encerrar = encerrar;
+        this.contexto = contexto;
+    }
+
+    @EventListener
+    public void aoIniciar(ApplicationReadyEvent evento) {
+        ConfigurableApplicationContext aplicacao = evento.getApplicationContext();
+        if (iteracoes > 0 && aplicacao instanceof WebServerApplicationContext web && web.getWebServer() != null) {
+            aquecer(web.getWebServer().getPort());
+        }
+        if (encerrar) {
+            log.info("Aquecimento concluído; encerrando a aplicação (biblioteca.aquecimento.encerrar=true)");
+            System.exit(SpringApplication.exit(aplicacao));
+        }
+    }
+
+    private void aquecer(int porta) {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        String base = "http://localhost:" + porta + contexto + "/api/livros";
+        long inicio = System.nanoTime();
+        long limite = inicio + duracaoMaxima.toNanos();
+        long primeiraRodadaMs = 0;
+        long ultimaRodadaMs = 0;
+        long requisicoes = 0;
+        long falhasServidor = 0;
+        String cursor = null;
+        int rodada = 0;
+        try {
+            for (; rodada < iteracoes && System.nanoTime() < limite; rodada++) {
+                long inicioRodada = System.nanoTime();
+                String termo = TERMOS.get(rodada % TERMOS.size());
+                boolean gzip = rodada % 2 == 1;
+
+                HttpResponse<Void> pesquisa = enviar(http, get(base + "/pesquisa?termo=" + termo + "&limite=10", JSON, gzip));
+                cursor = pesquisa.headers().firstValue(LivroController.CABECALHO_CURSOR).orElse(cursor);
+                List<HttpRequest> pedidos = List.of(
+                        get(base + "?limite=20", JSON, gzip),
+                        get(base + "?limite=20&fields=id,titulo,autor", CBOR, gzip),
+                        get(base + "?limite=20", SMILE, gzip),
+                        get(base + "/disponiveis?limite=20", JSON, gzip),
+                        get(base + "/buscar?termo=" + termo, JSON, gzip),
+                        get(base + "/buscar?termo=" + termo + "&fields=id,titulo", CBOR, gzip),
+                        get(base + "/pesquisa?disponivel=true&ordenar=titulo&limite=10", JSON, gzip),
+                        get(base + "/" + (rodada % 50 + 1), JSON, gzip),
+                        get(base + "/estatisticas", JSON, gzip),
+                        get(base + "/sugestoes?prefixo=" + termo, JSON, gzip),
+                        get(base + "/cache/metricas", JSON, gzip),
+                        HttpRequest.newBuilder(URI.create(base + "/0"))
+                                .header("Content-Type", JSON)
+                                .PUT(HttpRequest.BodyPublishers.ofString(LIVRO_INEXISTENTE))
+                                .build());
+                requisicoes++;
+                falhasServidor += pesquisa.statusCode() >= 500 ? 1 : 0;
+                for (HttpRequest pedido : pedidos) {
+                    falhasServidor += enviar(http, pedido).statusCode() >= 500 ? 1 : 0;
+                    requisicoes++;
+                }
+                if (cursor != null) {
+                    falhasServidor += enviar(http, get(base + "/changes?since=" + cursor + "&limite=10", JSON, gzip))
+                            .statusCode() >= 500 ? 1 : 0;
+                    requisicoes++;
+                }
+
+                ultimaRodadaMs = (System.nanoTime() - inicioRodada) / 1_000_000;
+                if (rodada == 0) {
+                    primeiraRodadaMs = ultimaRodadaMs;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Aquecimento da API interrompido: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Aquecimento da API interrompido");
+        }
+        if (falhasServidor > 0) {
+            log.warn("Aquecimento da API: {} respostas com erro do servidor", falhasServidor);
+        }
+        log.info("Aquecimento da API: {} rodadas, {} requisições em {} ms (primeira rodada {} ms, última {} ms)",
+                rodada, requisicoes, (System.nanoTime() - inicio) / 1_000_000, primeiraRodadaMs, ultimaRodadaMs);
+    }
+
+    private static HttpRequest get(String url, String aceita, boolean gzip) {
+        HttpRequest.Builder pedido = HttpRequest.newBuilder(URI.create(url)).header("Accept", aceita);
+        if (gzip) {
+            pedido.header("Accept-Encoding", "gzip");
+        }
+        return pedido.GET().build();
+    }
+
+    private static HttpResponse<Void> enviar(HttpClient http, HttpRequest pedido) throws IOException, InterruptedException {
+        return http.send(pedido, HttpResponse.BodyHandlers.discarding());
+    }
+}
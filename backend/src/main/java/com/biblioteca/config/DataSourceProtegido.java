@@ -0,0 +1,80 @@
+package com.biblioteca.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limita quantas threads podem estar com uma conexão ou esperando por uma.
+ *
+ * Com threads virtuais não existe mais o teto implícito do pool de threads do Tomcat:
+ * milhares de requisições podem ficar presas na fila do Hikari até o connection-timeout.
+ * Aqui são admitidas no máximo as conexões do pool mais uma fila limitada; além disso o
+ * pedido é recusado na hora com {@link SQLTransientConnectionException}.
+ */
+public class DataSourceProtegido extends DelegatingDataSource {
+
+    @FunctionalInterface
+    private interface FonteConexao {
+        Connection obter() throws SQLException;
+    }
+
+    private final Semaphore permissoes;
+    private final int maximoConcorrente;
+
+    public DataSourceProtegido(DataSource alvo, int maximoConcorrente) {
+        super(alvo);
+        this.permissoes = new Semaphore(maximoConcorrente);
+        this.maximoConcorrente = maximoConcorrente;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return adquirir(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return adquirir(() -> super.getConnection(username, password));
+    }
+
+    public int disponiveis() {
+        return permissoes.availablePermits();
+    }
+
+    private Connection adquirir(FonteConexao fonte) throws SQLException {
+        if (!permissoes.tryAcquire()) {
+            throw new SQLTransientConnectionException(
+                    "Limite de " + maximoConcorrente + " pedidos de conexão simultâneos atingido");
+        }
+        try {
+            return liberarAoFechar(fonte.obter());
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    private Connection liberarAoFechar(Connection conexao) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, metodo, argumentos) -> {
+                    try {
+                        return metodo.invoke(conexao, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (metodo.getName().equals("close") && liberada.compareAndSet(false, true)) {
+                            permissoes.release();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,32 @@
+package com.biblioteca.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Conversores CBOR e Smile para clientes que pedem um formato binário no {@code Accept}.
+ *
+ * Os mappers saem do mesmo {@link Jackson2ObjectMapperBuilder} do JSON (módulos, datas
+ * em ISO-8601), então os três formatos trazem os mesmos campos com os mesmos valores.
+ * O builder do Spring Boot é prototype: cada conversor recebe uma instância própria.
+ */
+@Configuration
+public class FormatosBinariosConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.cbor().build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.smile().build());
+    }
+}
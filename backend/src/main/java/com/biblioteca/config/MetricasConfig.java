@@ -0,0 +1,43 @@
+package com.biblioteca.config;
+
+import com.biblioteca.service.busca.IndiceBusca;
+import com.biblioteca.service.estatistica.EstatisticasCatalogo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas dos índices em memória do catálogo.
+ *
+ * Latência por endpoint ({@code http.server.requests}), por método do repositório
+ * ({@code spring.data.repository.invocations}), pool Hikari e JVM são registradas
+ * pela autoconfiguração do Actuator; os histogramas ficam em application.properties.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public MeterBinder metricasIndices(IndiceBusca indiceBusca, EstatisticasCatalogo estatisticasCatalogo) {
+        return registry -> {
+            Gauge.builder("biblioteca.indice.livros", indiceBusca, IndiceBusca::tamanho)
+                    .tag("indice", "busca")
+                    .description("Livros no índice de busca")
+                    .register(registry);
+            Gauge.builder("biblioteca.indice.pronto", indiceBusca, indice -> indice.isPronto() ? 1 : 0)
+                    .tag("indice", "busca")
+                    .description("1 quando a carga inicial do índice terminou")
+                    .register(registry);
+            Gauge.builder("biblioteca.indice.pronto", estatisticasCatalogo, indice -> indice.isPronto() ? 1 : 0)
+                    .tag("indice", "estatisticas")
+                    .description("1 quando a carga inicial do índice terminou")
+                    .register(registry);
+            Gauge.builder("biblioteca.catalogo.livros", estatisticasCatalogo, EstatisticasCatalogo::total)
+                    .description("Livros no catálogo segundo os contadores em memória")
+                    .register(registry);
+            Gauge.builder("biblioteca.catalogo.disponiveis", estatisticasCatalogo, EstatisticasCatalogo::disponiveis)
+                    .description("Livros disponíveis segundo os contadores em memória")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.biblioteca.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de execução com threads virtuais (Java 21), ativado por
+ * {@code biblioteca.threads.virtuais=true}.
+ *
+ * Cada requisição do Tomcat, e as chamadas JDBC feitas por ela, rodam numa thread
+ * virtual, assim como o processamento assíncrono do MVC (ex.: {@code /stream}). Como as
+ * threads deixam de limitar a concorrência, o DataSource passa a ser protegido por
+ * {@link DataSourceProtegido}, com o tamanho do pool mais {@code biblioteca.datasource.fila-maxima}.
+ *
+ * O projeto ainda compila para Java 17, então o executor é obtido por reflexão; para
+ * compilar e empacotar para Java 21 use o perfil Maven {@code java21}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "biblioteca.threads.virtuais", havingValue = "true")
+public class ThreadsVirtuaisConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadsVirtuaisConfig.class);
+
+    private final ExecutorService executorVirtual = criarExecutorVirtual();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> executorTomcatVirtual() {
+        log.info("Requisições HTTP atendidas em threads virtuais");
+        return protocolHandler -> protocolHandler.setExecutor(executorVirtual);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(executorVirtual);
+    }
+
+    @Bean
+    public static BeanPostProcessor protecaoDataSource(@Value("${biblioteca.datasource.fila-maxima:100}") int filaMaxima) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int maximo = hikari.getMaximumPoolSize() + filaMaxima;
+                    log.info("DataSource limitado a {} pedidos de conexão simultâneos", maximo);
+                    return new DataSourceProtegido(hikari, maximo);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executorVirtual.shutdown();
+    }
+
+    static ExecutorService criarExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("biblioteca.threads.virtuais=true exige Java 21 ou superior", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e);
+        }
+    }
+}
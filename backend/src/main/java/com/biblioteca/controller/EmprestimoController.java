@@ -0,0 +1,81 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.dto.NovoEmprestimo;
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.service.emprestimo.EmprestimoConflitoException;
+import com.biblioteca.service.emprestimo.EmprestimoService;
+import com.biblioteca.service.emprestimo.LivroOcupadoException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/emprestimos")
+public class EmprestimoController {
+    
+    @Autowired
+    private EmprestimoService emprestimoService;
+    
+    @PostMapping
+    public ResponseEntity<?> emprestar(@Valid @RequestBody NovoEmprestimo pedido) {
+        try {
+            Emprestimo emprestimo = emprestimoService.emprestar(pedido.livroId(), pedido.membro(), pedido.devolverAte());
+            return ResponseEntity.created(URI.create("/api/emprestimos/" + emprestimo.getId())).body(emprestimo);
+        } catch (RuntimeException e) {
+            return erro(e);
+        }
+    }
+    
+    @PostMapping("/{id}/devolucao")
+    public ResponseEntity<?> devolver(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(emprestimoService.devolver(id));
+        } catch (RuntimeException e) {
+            return erro(e);
+        }
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<Emprestimo> buscarPorId(@PathVariable Long id) {
+        return emprestimoService.buscarPorId(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Histórico de um livro ou de um membro, do mais recente para o mais antigo
+    @GetMapping
+    public ResponseEntity<?> listar(@RequestParam(required = false) Long livroId,
+                                    @RequestParam(required = false) String membro) {
+        if ((livroId == null) == (membro == null || membro.isBlank())) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", "Informe livroId ou membro");
+            return ResponseEntity.badRequest().body(erro);
+        }
+        List<Emprestimo> emprestimos = livroId != null
+                ? emprestimoService.historicoDoLivro(livroId)
+                : emprestimoService.historicoDoMembro(membro);
+        return ResponseEntity.ok(emprestimos);
+    }
+    
+    private static ResponseEntity<Map<String, String>> erro(RuntimeException e) {
+        Map<String, String> erro = new HashMap<>();
+        erro.put("erro", e.getMessage());
+        if (e instanceof EmprestimoConflitoException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+        }
+        if (e instanceof LivroOcupadoException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(erro);
+        }
+        return ResponseEntity.badRequest().body(erro);
+    }
+}
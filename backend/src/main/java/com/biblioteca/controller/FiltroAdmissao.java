@@ -0,0 +1,142 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.service.admissao.ControleAdmissao;
+import com.biblioteca.service.admissao.FaixaAdmissao;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aplica o {@link ControleAdmissao} às requisições da API antes de chegarem aos controllers.
+ *
+ * Recusa com 429 quando o cliente passou da sua taxa e com 503 quando a faixa da requisição
+ * está no limite, sempre com {@code Retry-After} e sem tocar no banco. O cliente é
+ * identificado pelo cabeçalho {@code biblioteca.admissao.cliente.cabecalho} (ex.:
+ * {@code X-Real-IP} atrás do nginx) ou, sem ele, pelo endereço da conexão.
+ */
+public class FiltroAdmissao extends OncePerRequestFilter {
+
+    private final ControleAdmissao controle;
+    private final String cabecalhoCliente;
+
+    public FiltroAdmissao(ControleAdmissao controle, String cabecalhoCliente) {
+        this.controle = controle;
+        this.cabecalhoCliente = cabecalhoCliente;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod()) || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        FaixaAdmissao faixa = FaixaAdmissao.classificar(request.getMethod(), request.getRequestURI());
+
+        long espera = controle.consumirToken(cliente(request), faixa);
+        if (espera > 0) {
+            long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + TimeUnit.SECONDS.toNanos(1) - 1));
+            recusar(response, HttpStatus.TOO_MANY_REQUESTS, segundos, "Muitas requisições, tente novamente");
+            return;
+        }
+        if (!controle.entrar(faixa)) {
+            recusar(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Servidor sobrecarregado, tente novamente");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        AtomicBoolean liberado = new AtomicBoolean();
+        boolean sucesso = false;
+        try {
+            chain.doFilter(request, response);
+            sucesso = true;
+        } finally {
+            if (sucesso && request.isAsyncStarted()) {
+                // Respostas em streaming (ex.: /stream) só terminam quando o processamento assíncrono acaba
+                request.getAsyncContext().addListener(new LiberacaoAssincrona(faixa, inicio, liberado));
+            } else {
+                liberar(faixa, inicio, sucesso && response.getStatus() < 500, liberado);
+            }
+        }
+    }
+
+    private void liberar(FaixaAdmissao faixa, long inicio, boolean comLatencia, AtomicBoolean liberado) {
+        if (!liberado.compareAndSet(false, true)) {
+            return;
+        }
+        if (comLatencia) {
+            controle.sair(faixa, System.nanoTime() - inicio);
+        } else {
+            controle.abandonar(faixa);
+        }
+    }
+
+    private String cliente(HttpServletRequest request) {
+        if (StringUtils.hasText(cabecalhoCliente)) {
+            String valor = request.getHeader(cabecalhoCliente);
+            if (StringUtils.hasText(valor)) {
+                // X-Forwarded-For traz a cadeia de proxies; o primeiro é o cliente
+                int virgula = valor.indexOf(',');
+                return (virgula < 0 ? valor : valor.substring(0, virgula)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void recusar(HttpServletResponse response, HttpStatus status, long segundos, String mensagem)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"erro\":\"" + mensagem + "\"}");
+    }
+
+    private class LiberacaoAssincrona implements AsyncListener {
+
+        private final FaixaAdmissao faixa;
+        private final long inicio;
+        private final AtomicBoolean liberado;
+
+        LiberacaoAssincrona(FaixaAdmissao faixa, long inicio, AtomicBoolean liberado) {
+            this.faixa = faixa;
+            this.inicio = inicio;
+            this.liberado = liberado;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            liberar(faixa, inicio, response.getStatus() < 500, liberado);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar(faixa, inicio, false, liberado);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar(faixa, inicio, false, liberado);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -1,56 +1,267 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.config.FormatosBinariosConfig;
+import com.biblioteca.dto.Alteracoes;
+import com.biblioteca.dto.CampoLivro;
+import com.biblioteca.dto.Estatisticas;
+import com.biblioteca.dto.FiltroPesquisa;
+import com.biblioteca.dto.Pagina;
+import com.biblioteca.dto.ResultadoImportacao;
+import com.biblioteca.dto.ResultadoPesquisa;
+import com.biblioteca.dto.StatusOperacao;
+import com.biblioteca.dto.Sugestao;
 import com.biblioteca.model.Livro;
+import com.biblioteca.service.CursorExpiradoException;
+import com.biblioteca.service.ImportacaoService;
+import com.biblioteca.service.IsbnDuplicadoException;
 import com.biblioteca.service.LivroService;
+import com.biblioteca.service.escrita.FilaEscrita;
+import com.biblioteca.service.escrita.FilaEscritaCheiaException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/livros")
 @CrossOrigin(origins = "*")
 public class LivroController {
     
+    // Cursor de sincronização correspondente à listagem completa
+    public static final String CABECALHO_CURSOR = "X-Catalogo-Cursor";
+    
+    private static final String CABECALHO_PREFER = "Prefer";
+    private static final String PREFERENCIA_ASSINCRONA = "respond-async";
+    
     @Autowired
     private LivroService livroService;
     
-    @GetMapping
-    public ResponseEntity<List<Livro>> listarTodos() {
-        List<Livro> livros = livroService.listarTodos();
-        return ResponseEntity.ok(livros);
+    @Autowired
+    private ImportacaoService importacaoService;
+    
+    @Autowired
+    private FilaEscrita filaEscrita;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private HttpMessageConverters conversores;
+    
+    @Autowired
+    private ContentNegotiationManager negociacao;
+    
+    // Formatos das listagens, em ordem de preferência quando o Accept aceita qualquer um
+    private List<FormatoLista> formatosLista;
+    
+    @PostConstruct
+    void carregarFormatosLista() {
+        Map<MediaType, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put(MediaType.APPLICATION_JSON, objectMapper);
+        for (HttpMessageConverter<?> conversor : conversores.getConverters()) {
+            if (conversor instanceof MappingJackson2CborHttpMessageConverter cbor) {
+                mappers.putIfAbsent(MediaType.APPLICATION_CBOR, cbor.getObjectMapper());
+            } else if (conversor instanceof MappingJackson2SmileHttpMessageConverter smile) {
+                mappers.putIfAbsent(FormatosBinariosConfig.APPLICATION_SMILE, smile.getObjectMapper());
+            }
+        }
+        formatosLista = mappers.entrySet().stream()
+                .map(formato -> new FormatoLista(formato.getKey(), formato.getValue()))
+                .toList();
+    }
+    
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                            FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> listarTodos(@RequestParam(required = false) String fields,
+                                                             NativeWebRequest requisicao)
+            throws HttpMediaTypeNotAcceptableException {
+        List<CampoLivro> campos = CampoLivro.interpretar(fields);
+        FormatoLista formato = negociarFormato(requisicao);
+        // Lido antes da listagem, e só quando há corpo: o que mudar depois chega por /changes a partir dele
+        Supplier<HttpHeaders> cabecalhos = () -> {
+            HttpHeaders comCursor = formato.cabecalhos();
+            comCursor.set(CABECALHO_CURSOR, livroService.cursorAlteracoes());
+            return comCursor;
+        };
+        return condicional(requisicao, livroService.etagCatalogo(formato.recurso("livros", campos)), cabecalhos,
+                () -> lista(formato, campos, consumidor -> livroService.percorrerCampos(campos, false, consumidor)));
+    }
+    
+    @GetMapping(params = "limite", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                                               FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> listarPagina(@RequestParam(required = false) String apos,
+                                                              @RequestParam int limite,
+                                                              @RequestParam(required = false) String fields,
+                                                              NativeWebRequest requisicao)
+            throws HttpMediaTypeNotAcceptableException {
+        List<CampoLivro> campos = CampoLivro.interpretar(fields);
+        FormatoLista formato = negociarFormato(requisicao);
+        Pagina<Object[]> pagina = livroService.listarPagina(apos, limite, campos);
+        return ResponseEntity.ok()
+                .headers(formato.cabecalhos())
+                .body(pagina(formato, campos, pagina));
+    }
+    
+    @GetMapping("/changes")
+    public ResponseEntity<?> listarAlteracoes(@RequestParam String since,
+                                              @RequestParam(defaultValue = "" + LivroService.LIMITE_MAXIMO_PAGINA) int limite) {
+        try {
+            Alteracoes alteracoes = livroService.listarAlteracoes(since, limite);
+            return ResponseEntity.ok(alteracoes);
+        } catch (CursorExpiradoException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.GONE).body(erro);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            return ResponseEntity.badRequest().body(erro);
+        }
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTodos() {
+        // Um livro por linha, escrito à medida que as linhas são lidas do banco
+        StreamingResponseBody corpo = saida -> {
+            SequenceWriter escritor = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(saida);
+            livroService.percorrerTodos(livro -> {
+                try {
+                    escritor.write(livro);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            escritor.flush();
+            saida.write('\n');
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Livro> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<Livro> buscarPorId(@PathVariable Long id, WebRequest requisicao) {
         Optional<Livro> livro = livroService.buscarPorId(id);
-        return livro.map(ResponseEntity::ok)
-                   .orElse(ResponseEntity.notFound().build());
+        if (livro.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return condicional(requisicao, etagLivro(livro.get()), livro::get);
+    }
+    
+    @GetMapping(value = "/buscar", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                                               FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> buscar(@RequestParam String termo,
+                                                        @RequestParam(defaultValue = "" + LivroService.LIMITE_PADRAO_BUSCA) int limite,
+                                                        @RequestParam(required = false) String fields,
+                                                        NativeWebRequest requisicao)
+            throws HttpMediaTypeNotAcceptableException {
+        List<CampoLivro> campos = CampoLivro.interpretar(fields);
+        FormatoLista formato = negociarFormato(requisicao);
+        List<Object[]> linhas = livroService.buscarPorTermo(termo, limite, campos);
+        return ResponseEntity.ok()
+                .headers(formato.cabecalhos())
+                .body(lista(formato, campos, linhas::forEach));
     }
     
-    @GetMapping("/buscar")
-    public ResponseEntity<List<Livro>> buscar(@RequestParam String termo) {
-        List<Livro> livros = livroService.buscarPorTermo(termo);
-        return ResponseEntity.ok(livros);
+    @GetMapping("/pesquisa")
+    public ResponseEntity<ResultadoPesquisa> pesquisar(@RequestParam(required = false) String termo,
+                                                       @RequestParam(required = false) String autor,
+                                                       @RequestParam(required = false) String editora,
+                                                       @RequestParam(required = false) Integer anoMin,
+                                                       @RequestParam(required = false) Integer anoMax,
+                                                       @RequestParam(required = false) Boolean disponivel,
+                                                       @RequestParam(required = false) String ordenar,
+                                                       @RequestParam(defaultValue = "" + LivroService.LIMITE_PADRAO_BUSCA) int limite,
+                                                       @RequestParam(defaultValue = "0") int deslocamento,
+                                                       @RequestParam(required = false) String fields) {
+        List<CampoLivro> campos = CampoLivro.interpretar(fields);
+        boolean temTermo = termo != null && !termo.isBlank();
+        FiltroPesquisa filtro = new FiltroPesquisa(temTermo ? termo : null, vazioComoNulo(autor), vazioComoNulo(editora),
+                anoMin, anoMax, disponivel, FiltroPesquisa.Ordenacao.interpretar(ordenar, temTermo), limite, deslocamento);
+        // Para que o cliente acompanhe por /changes o que mudar depois desta pesquisa
+        String cursor = livroService.cursorAlteracoes();
+        return ResponseEntity.ok()
+                .header(CABECALHO_CURSOR, cursor)
+                .body(livroService.pesquisar(filtro, campos));
     }
     
-    @GetMapping("/disponiveis")
-    public ResponseEntity<List<Livro>> listarDisponiveis() {
-        List<Livro> livros = livroService.buscarDisponiveis();
-        return ResponseEntity.ok(livros);
+    @GetMapping(value = "/disponiveis", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                                                    FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> listarDisponiveis(@RequestParam(required = false) String fields,
+                                                                   NativeWebRequest requisicao)
+            throws HttpMediaTypeNotAcceptableException {
+        List<CampoLivro> campos = CampoLivro.interpretar(fields);
+        FormatoLista formato = negociarFormato(requisicao);
+        return condicional(requisicao, livroService.etagCatalogo(formato.recurso("disponiveis", campos)),
+                formato::cabecalhos,
+                () -> lista(formato, campos, consumidor -> livroService.percorrerCampos(campos, true, consumidor)));
+    }
+    
+    @GetMapping(value = "/disponiveis", params = "limite",
+                produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+                            FormatosBinariosConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<StreamingResponseBody> listarDisponiveisPagina(@RequestParam(required = false) String apos,
+                                                                         @RequestParam int limite,
+                                                                         @RequestParam(required = false) String fields,
+                                                                         NativeWebRequest requisicao)
+            throws HttpMediaTypeNotAcceptableException {
+        List<CampoLivro> campos = CampoLivro.interpretar(fields);
+        FormatoLista formato = negociarFormato(requisicao);
+        Pagina<Object[]> pagina = livroService.listarDisponiveis(apos, limite, campos);
+        return ResponseEntity.ok()
+                .headers(formato.cabecalhos())
+                .body(pagina(formato, campos, pagina));
     }
     
     @PostMapping
-    public ResponseEntity<?> criar(@Valid @RequestBody Livro livro) {
+    public ResponseEntity<?> criar(@Valid @RequestBody Livro livro,
+                                   @RequestHeader(value = CABECALHO_PREFER, required = false) String prefer) {
+        if (assincrono(prefer)) {
+            return aceitar(() -> filaEscrita.criar(livro));
+        }
         try {
             Livro novoLivro = livroService.salvar(livro);
             return ResponseEntity.status(HttpStatus.CREATED).body(novoLivro);
+        } catch (IsbnDuplicadoException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
         } catch (RuntimeException e) {
             Map<String, String> erro = new HashMap<>();
             erro.put("erro", e.getMessage());
@@ -58,11 +269,47 @@ public class LivroController {
         }
     }
     
+    @PostMapping(value = "/importacao", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importarJson(InputStream corpo) {
+        try {
+            ResultadoImportacao resultado = importacaoService.importarJson(corpo);
+            return ResponseEntity.ok(resultado);
+        } catch (IOException | IllegalArgumentException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", "Arquivo de importação inválido: " + e.getMessage());
+            return ResponseEntity.badRequest().body(erro);
+        }
+    }
+    
+    @PostMapping(value = "/importacao", consumes = "text/csv")
+    public ResponseEntity<?> importarCsv(InputStream corpo) {
+        try {
+            ResultadoImportacao resultado = importacaoService.importarCsv(corpo);
+            return ResponseEntity.ok(resultado);
+        } catch (IOException | IllegalArgumentException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", "Arquivo de importação inválido: " + e.getMessage());
+            return ResponseEntity.badRequest().body(erro);
+        }
+    }
+    
     @PutMapping("/{id}")
-    public ResponseEntity<?> atualizar(@PathVariable Long id, @Valid @RequestBody Livro livro) {
+    public ResponseEntity<?> atualizar(@PathVariable Long id, @Valid @RequestBody Livro livro,
+                                       @RequestHeader(value = CABECALHO_PREFER, required = false) String prefer) {
+        if (assincrono(prefer)) {
+            return aceitar(() -> filaEscrita.atualizar(id, livro));
+        }
         try {
             Livro livroAtualizado = livroService.atualizar(id, livro);
             return ResponseEntity.ok(livroAtualizado);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", "O livro foi alterado por outra pessoa; recarregue e tente novamente");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
+        } catch (IsbnDuplicadoException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(erro);
         } catch (RuntimeException e) {
             Map<String, String> erro = new HashMap<>();
             erro.put("erro", e.getMessage());
@@ -71,7 +318,11 @@ public class LivroController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deletar(@PathVariable Long id) {
+    public ResponseEntity<?> deletar(@PathVariable Long id,
+                                     @RequestHeader(value = CABECALHO_PREFER, required = false) String prefer) {
+        if (assincrono(prefer)) {
+            return aceitar(() -> filaEscrita.deletar(id));
+        }
         try {
             livroService.deletar(id);
             Map<String, String> sucesso = new HashMap<>();
@@ -84,12 +335,178 @@ public class LivroController {
         }
     }
     
+    @GetMapping("/operacoes/{id}")
+    public ResponseEntity<StatusOperacao> statusOperacao(@PathVariable String id) {
+        return filaEscrita.status(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/estatisticas")
-    public ResponseEntity<Map<String, Long>> obterEstatisticas() {
-        Map<String, Long> estatisticas = new HashMap<>();
-        estatisticas.put("total", livroService.contarTotal());
-        estatisticas.put("disponiveis", livroService.contarDisponiveis());
-        return ResponseEntity.ok(estatisticas);
+    public ResponseEntity<Estatisticas> obterEstatisticas(WebRequest requisicao) {
+        return condicional(requisicao, livroService.etagCatalogo("estatisticas"), livroService::obterEstatisticas);
+    }
+    
+    @GetMapping("/sugestoes")
+    public ResponseEntity<List<Sugestao>> sugerir(@RequestParam String prefixo,
+                                                  @RequestParam(defaultValue = "8") int limite) {
+        return ResponseEntity.ok(livroService.sugerir(prefixo, limite));
+    }
+    
+    @GetMapping("/cache/metricas")
+    public ResponseEntity<Map<String, Object>> obterMetricasCache() {
+        return ResponseEntity.ok(livroService.metricasCache());
+    }
+    
+    private static String vazioComoNulo(String valor) {
+        return valor == null || valor.isBlank() ? null : valor;
+    }
+    
+    // Prefer: respond-async (RFC 7240) pede a escrita pela fila assíncrona
+    private static boolean assincrono(String prefer) {
+        return prefer != null && prefer.toLowerCase(Locale.ROOT).contains(PREFERENCIA_ASSINCRONA);
+    }
+    
+    private static ResponseEntity<?> aceitar(Supplier<StatusOperacao> operacao) {
+        try {
+            StatusOperacao status = operacao.get();
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/livros/operacoes/" + status.id()))
+                    .header("Preference-Applied", PREFERENCIA_ASSINCRONA)
+                    .body(status);
+        } catch (FilaEscritaCheiaException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(erro);
+        } catch (RuntimeException e) {
+            Map<String, String> erro = new HashMap<>();
+            erro.put("erro", e.getMessage());
+            return ResponseEntity.badRequest().body(erro);
+        }
+    }
+    
+    // Campos ou cursor inválidos nas listagens, que respondem com StreamingResponseBody
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> parametroInvalido(IllegalArgumentException e) {
+        Map<String, String> erro = new HashMap<>();
+        erro.put("erro", e.getMessage());
+        return ResponseEntity.badRequest().body(erro);
+    }
+    
+    /**
+     * Responde 304 se o cliente já tem a versão da ETag, sem produzir o corpo; senão
+     * devolve o corpo com a ETag e {@code Cache-Control: no-cache} (sempre revalidar).
+     */
+    private static <T> ResponseEntity<T> condicional(WebRequest requisicao, String etag, Supplier<T> corpo) {
+        return condicional(requisicao, etag, HttpHeaders::new, corpo);
+    }
+    
+    private static <T> ResponseEntity<T> condicional(WebRequest requisicao, String etag,
+                                                     Supplier<HttpHeaders> cabecalhos, Supplier<T> corpo) {
+        // ETag fraca: com a compressão os bytes variam conforme o Accept-Encoding, e o
+        // Tomcat não comprime respostas com ETag forte. O If-None-Match aceita as duas.
+        if (requisicao.checkNotModified("W/" + etag)) {
+            // Status 304 e cabeçalhos já preenchidos pelo WebRequest
+            return null;
+        }
+        // A ETag já foi gravada na resposta pelo checkNotModified; repeti-la aqui a
+        // duplicaria nas respostas em streaming, que não mesclam os cabeçalhos
+        return ResponseEntity.ok()
+                .headers(cabecalhos.get())
+                .cacheControl(CacheControl.noCache())
+                .body(corpo.get());
+    }
+    
+    /**
+     * Array escrito direto na resposta, um livro por vez, à medida que o produtor entrega
+     * as linhas, sem montar a lista nem entidades em memória.
+     */
+    private static StreamingResponseBody lista(FormatoLista formato, List<CampoLivro> campos,
+                                               Consumer<Consumer<Object[]>> produtor) {
+        return saida -> {
+            try (JsonGenerator gerador = formato.criarGerador(saida)) {
+                gerador.writeStartArray();
+                produtor.accept(linha -> {
+                    try {
+                        escreverLinha(gerador, campos, linha);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gerador.writeEndArray();
+            }
+        };
+    }
+    
+    // {"itens": [...], "proximoCursor": ...} das listagens paginadas por cursor
+    private static StreamingResponseBody pagina(FormatoLista formato, List<CampoLivro> campos, Pagina<Object[]> pagina) {
+        return saida -> {
+            try (JsonGenerator gerador = formato.criarGerador(saida)) {
+                gerador.writeStartObject();
+                gerador.writeFieldName("itens");
+                gerador.writeStartArray();
+                for (Object[] linha : pagina.itens()) {
+                    escreverLinha(gerador, campos, linha);
+                }
+                gerador.writeEndArray();
+                gerador.writeStringField("proximoCursor", pagina.proximoCursor());
+                gerador.writeEndObject();
+            }
+        };
+    }
+    
+    /**
+     * Primeiro formato de lista aceito pelo cliente; sem Accept, ou aceitando qualquer tipo, é JSON.
+     */
+    private FormatoLista negociarFormato(NativeWebRequest requisicao) throws HttpMediaTypeNotAcceptableException {
+        for (MediaType aceito : negociacao.resolveMediaTypes(requisicao)) {
+            for (FormatoLista formato : formatosLista) {
+                if (aceito.includes(formato.tipo())) {
+                    return formato;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(formatosLista.stream().map(FormatoLista::tipo).toList());
+    }
+    
+    private static void escreverLinha(JsonGenerator gerador, List<CampoLivro> campos, Object[] linha) throws IOException {
+        gerador.writeStartObject();
+        for (int i = 0; i < linha.length; i++) {
+            gerador.writeFieldName(campos.get(i).nome());
+            gerador.writeObject(linha[i]);
+        }
+        gerador.writeEndObject();
+    }
+    
+    private static String etagLivro(Livro livro) {
+        long versao = livro.getVersao() == null ? 0 : livro.getVersao();
+        return "\"livro-" + livro.getId() + "-" + versao + "\"";
+    }
+    
+    /**
+     * Formato de uma listagem: JSON, CBOR ou Smile. Os três usam o mesmo gerador de
+     * streaming do Jackson, só muda a fábrica do mapper.
+     */
+    private record FormatoLista(MediaType tipo, ObjectMapper mapper) {
+        
+        JsonGenerator criarGerador(OutputStream saida) throws IOException {
+            // O fluxo da resposta é fechado pelo Spring, não pelo gerador
+            return mapper.getFactory().createGenerator(saida)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+        
+        HttpHeaders cabecalhos() {
+            HttpHeaders cabecalhos = new HttpHeaders();
+            cabecalhos.setContentType(tipo);
+            cabecalhos.setVary(List.of(HttpHeaders.ACCEPT));
+            return cabecalhos;
+        }
+        
+        // Cada formato e conjunto de campos é uma representação diferente, com ETag própria
+        String recurso(String listagem, List<CampoLivro> campos) {
+            return listagem + "-" + CampoLivro.assinatura(campos) + "-" + tipo.getSubtype();
+        }
     }
 }
-
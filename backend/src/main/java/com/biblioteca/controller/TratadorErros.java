@@ -0,0 +1,31 @@
+package com.biblioteca.controller;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+
+/**
+ * Erros comuns a todos os endpoints que não são tratados no próprio controller.
+ */
+@RestControllerAdvice
+public class TratadorErros {
+
+    // Falta de conexão com o banco (pool esgotado ou fila cheia) é sobrecarga temporária
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<Map<String, String>> erroDeBanco(RuntimeException e) {
+        if (NestedExceptionUtils.getRootCause(e) instanceof SQLTransientConnectionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("erro", "Servidor sobrecarregado, tente novamente"));
+        }
+        throw e;
+    }
+}
@@ -0,0 +1,13 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Livro;
+
+import java.util.List;
+
+/**
+ * Alterações do catálogo desde um cursor: livros criados ou alterados (no estado atual)
+ * e ids removidos. O cliente guarda {@code cursor} para a próxima chamada; se
+ * {@code temMais} for verdadeiro, deve chamar de novo imediatamente.
+ */
+public record Alteracoes(List<Livro> alterados, List<Long> removidos, String cursor, boolean temMais) {
+}
@@ -0,0 +1,103 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Livro;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Campos de um livro que podem ser pedidos nas listagens ({@code fields=titulo,autor,...}).
+ *
+ * O nome de cada campo é o mesmo no JSON e no atributo da entidade, então a consulta
+ * seleciona só essas colunas. O id vem sempre primeiro, mesmo quando não é pedido:
+ * é a chave usada pelos clientes e pelo cursor de paginação.
+ */
+public enum CampoLivro {
+
+    ID("id", Livro::getId),
+    TITULO("titulo", Livro::getTitulo),
+    AUTOR("autor", Livro::getAutor),
+    ISBN("isbn", Livro::getIsbn),
+    ANO_PUBLICACAO("anoPublicacao", Livro::getAnoPublicacao),
+    EDITORA("editora", Livro::getEditora),
+    DESCRICAO("descricao", Livro::getDescricao),
+    DISPONIVEL("disponivel", Livro::getDisponivel),
+    VERSAO("versao", Livro::getVersao),
+    ATUALIZADO_EM("atualizadoEm", Livro::getAtualizadoEm);
+
+    // Resumo devolvido pelas listagens quando o cliente não escolhe os campos
+    public static final List<CampoLivro> RESUMO = List.of(ID, TITULO, AUTOR, ANO_PUBLICACAO, DISPONIVEL);
+
+    private final String nome;
+    private final Function<Livro, Object> leitor;
+
+    CampoLivro(String nome, Function<Livro, Object> leitor) {
+        this.nome = nome;
+        this.leitor = leitor;
+    }
+
+    public String nome() {
+        return nome;
+    }
+
+    /**
+     * Interpreta o parâmetro {@code fields}; vazio ou ausente devolve o {@link #RESUMO}.
+     */
+    public static List<CampoLivro> interpretar(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return RESUMO;
+        }
+        List<CampoLivro> campos = new ArrayList<>();
+        campos.add(ID);
+        for (String nome : fields.split(",")) {
+            CampoLivro campo = porNome(nome.trim());
+            if (!campos.contains(campo)) {
+                campos.add(campo);
+            }
+        }
+        return List.copyOf(campos);
+    }
+
+    /**
+     * Identifica o conjunto de campos de forma compacta, para compor ETags.
+     */
+    public static String assinatura(List<CampoLivro> campos) {
+        StringBuilder assinatura = new StringBuilder(campos.size());
+        campos.forEach(campo -> assinatura.append(Character.forDigit(campo.ordinal(), Character.MAX_RADIX)));
+        return assinatura.toString();
+    }
+
+    /**
+     * Valores dos campos de um livro já carregado, na mesma ordem das consultas por projeção.
+     */
+    public static Object[] valores(List<CampoLivro> campos, Livro livro) {
+        Object[] valores = new Object[campos.size()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = campos.get(i).leitor.apply(livro);
+        }
+        return valores;
+    }
+
+    /**
+     * Uma linha de projeção como objeto JSON, com os nomes dos campos como chaves.
+     */
+    public static Map<String, Object> mapa(List<CampoLivro> campos, Object[] linha) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (int i = 0; i < linha.length; i++) {
+            mapa.put(campos.get(i).nome, linha[i]);
+        }
+        return mapa;
+    }
+
+    private static CampoLivro porNome(String nome) {
+        for (CampoLivro campo : values()) {
+            if (campo.nome.equals(nome)) {
+                return campo;
+            }
+        }
+        throw new IllegalArgumentException("Campo desconhecido em fields: " + nome);
+    }
+}
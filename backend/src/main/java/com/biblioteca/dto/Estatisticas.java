@@ -0,0 +1,15 @@
+package com.biblioteca.dto;
+
+import java.util.Map;
+
+/**
+ * Estatísticas do catálogo. Os mapas por autor e por editora trazem apenas os mais
+ * frequentes; o mapa por década é completo.
+ */
+public record Estatisticas(long total,
+                           long disponiveis,
+                           long indisponiveis,
+                           Map<String, Long> porAutor,
+                           Map<String, Long> porEditora,
+                           Map<Integer, Long> porDecada) {
+}
@@ -0,0 +1,54 @@
+package com.biblioteca.dto;
+
+import java.util.Locale;
+
+/**
+ * Filtros combinados da pesquisa facetada. Campos {@code null} não filtram; {@code autor}
+ * e {@code editora} casam com o valor exato (como aparece nas facetas) e o intervalo de
+ * anos é inclusivo.
+ */
+public record FiltroPesquisa(String termo,
+                             String autor,
+                             String editora,
+                             Integer anoMinimo,
+                             Integer anoMaximo,
+                             Boolean disponivel,
+                             Ordenacao ordenacao,
+                             int limite,
+                             int deslocamento) {
+
+    public enum Ordenacao {
+        RELEVANCIA("relevancia"),
+        TITULO("titulo"),
+        ANO("ano"),
+        ANO_DECRESCENTE("-ano"),
+        ID("id");
+
+        private final String nome;
+
+        Ordenacao(String nome) {
+            this.nome = nome;
+        }
+
+        /**
+         * Interpreta o parâmetro {@code ordenar}; ausente ordena por relevância quando há
+         * termo e por id nos demais casos.
+         */
+        public static Ordenacao interpretar(String ordenar, boolean temTermo) {
+            if (ordenar == null || ordenar.isBlank()) {
+                return temTermo ? RELEVANCIA : ID;
+            }
+            String normalizado = ordenar.trim().toLowerCase(Locale.ROOT);
+            for (Ordenacao ordenacao : values()) {
+                if (ordenacao.nome.equals(normalizado)) {
+                    return ordenacao;
+                }
+            }
+            throw new IllegalArgumentException("Ordenação desconhecida: " + ordenar);
+        }
+    }
+
+    public boolean temTermo() {
+        return termo != null && !termo.isBlank();
+    }
+}
@@ -0,0 +1,15 @@
+package com.biblioteca.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+/**
+ * Pedido de empréstimo; sem {@code devolverAte}, vale o prazo padrão
+ * ({@code biblioteca.emprestimos.prazo-padrao}).
+ */
+public record NovoEmprestimo(@NotNull(message = "Livro é obrigatório") Long livroId,
+                             @NotBlank(message = "Membro é obrigatório") String membro,
+                             LocalDate devolverAte) {
+}
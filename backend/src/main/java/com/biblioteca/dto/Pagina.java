@@ -0,0 +1,10 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados com paginação por cursor.
+ * O {@code proximoCursor} é opaco para o cliente e vale {@code null} na última página.
+ */
+public record Pagina<T>(List<T> itens, String proximoCursor) {
+}
@@ -0,0 +1,18 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+
+/**
+ * Resumo de uma importação em lote. A lista de erros é limitada; {@code rejeitados}
+ * traz sempre a contagem completa.
+ */
+public record ResultadoImportacao(long recebidos,
+                                  long importados,
+                                  long rejeitados,
+                                  List<Erro> erros,
+                                  long duracaoMs,
+                                  double livrosPorSegundo) {
+
+    public record Erro(long linha, String isbn, String mensagem) {
+    }
+}
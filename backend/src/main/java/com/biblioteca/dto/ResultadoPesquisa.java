@@ -0,0 +1,22 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uma página da pesquisa facetada. {@code total} conta todos os livros que atendem aos
+ * filtros, não só os da página; as facetas também são calculadas sobre todos eles.
+ */
+public record ResultadoPesquisa(long total, List<Map<String, Object>> itens, Facetas facetas) {
+
+    /**
+     * Contagens por valor entre os livros encontrados. Por autor e por editora vêm apenas
+     * os mais frequentes; por década, todas.
+     */
+    public record Facetas(long disponiveis,
+                          long indisponiveis,
+                          Map<String, Long> porAutor,
+                          Map<String, Long> porEditora,
+                          Map<Integer, Long> porDecada) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.biblioteca.dto;
+
+import java.time.Instant;
+
+/**
+ * Situação de uma escrita aceita de forma assíncrona ({@code Prefer: respond-async}).
+ * {@code livroId} é preenchido quando a operação termina (na criação, é o id gerado) e
+ * {@code erro} apenas quando ela falha.
+ */
+public record StatusOperacao(String id,
+                             Tipo tipo,
+                             Estado estado,
+                             Long livroId,
+                             String erro,
+                             Instant recebidaEm,
+                             Instant concluidaEm) {
+
+    public enum Tipo {
+        CRIACAO,
+        ATUALIZACAO,
+        REMOCAO
+    }
+
+    public enum Estado {
+        PENDENTE,
+        CONCLUIDA,
+        FALHOU
+    }
+
+    public static StatusOperacao pendente(String id, Tipo tipo, Long livroId) {
+        return new StatusOperacao(id, tipo, Estado.PENDENTE, livroId, null, Instant.now(), null);
+    }
+
+    public StatusOperacao concluida(Long livroId) {
+        return new StatusOperacao(id, tipo, Estado.CONCLUIDA, livroId, null, recebidaEm, Instant.now());
+    }
+
+    public StatusOperacao falhou(String erro) {
+        return new StatusOperacao(id, tipo, Estado.FALHOU, livroId, erro, recebidaEm, Instant.now());
+    }
+}
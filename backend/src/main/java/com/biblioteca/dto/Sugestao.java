@@ -0,0 +1,8 @@
+package com.biblioteca.dto;
+
+/**
+ * Sugestão de preenchimento da busca: um título ou autor do catálogo ({@code tipo}
+ * "titulo" ou "autor") e em quantos livros ele aparece.
+ */
+public record Sugestao(String texto, String tipo, int livros) {
+}
@@ -0,0 +1,72 @@
+package com.biblioteca.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Entrada do registro de alterações do catálogo, usado na sincronização incremental.
+ *
+ * O id vem de uma sequência e define a ordem das alterações. Remoções ficam registradas
+ * como marcas ({@code removido = true}) para que os clientes também fiquem sabendo delas.
+ *
+ * Com várias réplicas sobre o mesmo banco a tabela também serve de outbox: {@code origem}
+ * identifica o nó que fez a escrita e os demais aplicam a alteração nos seus índices. Cada
+ * nó reserva blocos de ids da sequência, então entre nós diferentes a ordem dos ids não é a
+ * das escritas; quem precisa dessa ordem usa {@code registradoEm} com uma margem.
+ */
+@Entity
+@Table(name = "livros_alteracoes", indexes = {
+    // Última alteração de cada livro, consultada na compactação
+    @Index(name = "idx_livros_alteracoes_livro", columnList = "livroId, id"),
+    // Leitura das alterações recentes pelos outros nós
+    @Index(name = "idx_livros_alteracoes_registro", columnList = "registradoEm")
+})
+public class AlteracaoLivro {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livros_alteracoes_seq")
+    @SequenceGenerator(name = "livros_alteracoes_seq", sequenceName = "livros_alteracoes_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long livroId;
+    
+    @Column(nullable = false)
+    private boolean removido;
+    
+    @Column(nullable = false)
+    private Instant registradoEm;
+    
+    @Column(length = 64)
+    private String origem;
+
+    public AlteracaoLivro() {}
+
+    public AlteracaoLivro(Long livroId, boolean removido, Instant registradoEm, String origem) {
+        this.livroId = livroId;
+        this.removido = removido;
+        this.registradoEm = registradoEm;
+        this.origem = origem;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getLivroId() {
+        return livroId;
+    }
+
+    public boolean isRemovido() {
+        return removido;
+    }
+
+    public Instant getRegistradoEm() {
+        return registradoEm;
+    }
+
+    public String getOrigem() {
+        return origem;
+    }
+}
@@ -0,0 +1,85 @@
+package com.biblioteca.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Empréstimo de um livro a um membro. Fica aberto até a devolução ({@code devolvidoEm}
+ * nulo) e é mantido depois dela como histórico do livro e do membro.
+ *
+ * Um livro tem no máximo um empréstimo aberto: ele só é criado depois de o livro passar
+ * de disponível para indisponível numa atualização condicional.
+ */
+@Entity
+@Table(name = "emprestimos", indexes = {
+    @Index(name = "idx_emprestimos_livro", columnList = "livroId, id"),
+    @Index(name = "idx_emprestimos_membro", columnList = "membro, id")
+})
+public class Emprestimo {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emprestimos_seq")
+    @SequenceGenerator(name = "emprestimos_seq", sequenceName = "emprestimos_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long livroId;
+    
+    @Column(nullable = false)
+    private String membro;
+    
+    @Column(nullable = false)
+    private Instant retiradoEm;
+    
+    @Column(nullable = false)
+    private LocalDate devolverAte;
+    
+    private Instant devolvidoEm;
+
+    public Emprestimo() {}
+
+    public Emprestimo(Long livroId, String membro, Instant retiradoEm, LocalDate devolverAte) {
+        this.livroId = livroId;
+        this.membro = membro;
+        this.retiradoEm = retiradoEm;
+        this.devolverAte = devolverAte;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getLivroId() {
+        return livroId;
+    }
+
+    public String getMembro() {
+        return membro;
+    }
+
+    public Instant getRetiradoEm() {
+        return retiradoEm;
+    }
+
+    public LocalDate getDevolverAte() {
+        return devolverAte;
+    }
+
+    public Instant getDevolvidoEm() {
+        return devolvidoEm;
+    }
+
+    public void setDevolvidoEm(Instant devolvidoEm) {
+        this.devolvidoEm = devolvidoEm;
+    }
+
+    public boolean isAberto() {
+        return devolvidoEm == null;
+    }
+}
@@ -3,24 +3,37 @@ package com.biblioteca.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
 
 @Entity
-@Table(name = "livros")
+@Table(name = "livros", indexes = {
+    @Index(name = "idx_livros_titulo_minusculo", columnList = "tituloMinusculo"),
+    @Index(name = "idx_livros_autor_minusculo", columnList = "autorMinusculo"),
+    @Index(name = "idx_livros_disponivel", columnList = "disponivel, id"),
+    @Index(name = "idx_livros_ano_publicacao", columnList = "anoPublicacao")
+})
 public class Livro {
     
+    // Sequência com alocação em blocos: permite ao Hibernate agrupar inserts em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livros_seq")
+    @SequenceGenerator(name = "livros_seq", sequenceName = "livros_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Título é obrigatório")
+    @Size(max = 255, message = "Título deve ter no máximo 255 caracteres")
     @Column(nullable = false)
     private String titulo;
     
     @NotBlank(message = "Autor é obrigatório")
+    @Size(max = 255, message = "Autor deve ter no máximo 255 caracteres")
     @Column(nullable = false)
     private String autor;
     
     @NotBlank(message = "ISBN é obrigatório")
+    @Size(max = 255, message = "ISBN deve ter no máximo 255 caracteres")
     @Column(nullable = false, unique = true)
     private String isbn;
     
@@ -28,6 +41,7 @@ public class Livro {
     @Column(nullable = false)
     private Integer anoPublicacao;
     
+    @Size(max = 255, message = "Editora deve ter no máximo 255 caracteres")
     private String editora;
     
     @Column(columnDefinition = "TEXT")
@@ -35,6 +49,24 @@ public class Livro {
     
     @Column(nullable = false)
     private Boolean disponivel = true;
+    
+    // Controle de concorrência otimista: incrementada pelo Hibernate a cada atualização
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+    
+    private Instant atualizadoEm;
+    
+    // Cópias em minúsculas calculadas pelo banco (colunas geradas), indexadas para que
+    // as buscas por prefixo sem diferenciar maiúsculas usem o índice. Só servem para
+    // consultas: não são lidas de volta após gravar e não fazem parte do JSON
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (LOWER(titulo))")
+    private String tituloMinusculo;
+    
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (LOWER(autor))")
+    private String autorMinusculo;
 
     // Construtores
     public Livro() {}
@@ -46,6 +78,12 @@ public class Livro {
         this.anoPublicacao = anoPublicacao;
     }
 
+    @PrePersist
+    @PreUpdate
+    void registrarAlteracao() {
+        atualizadoEm = Instant.now();
+    }
+
     // Getters e Setters
     public Long getId() {
         return id;
@@ -110,5 +148,21 @@ public class Livro {
     public void setDisponivel(Boolean disponivel) {
         this.disponivel = disponivel;
     }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    public Instant getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(Instant atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
 }
 
@@ -0,0 +1,50 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.AlteracaoLivro;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface AlteracaoLivroRepository extends JpaRepository<AlteracaoLivro, Long> {
+    
+    List<AlteracaoLivro> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long desde, Long ate, Pageable pageable);
+    
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM AlteracaoLivro a")
+    long maiorId();
+    
+    // Entradas com id até o cursor registradas depois do instante: cada nó tem o seu bloco
+    // de ids, então um id menor que outro já entregue ainda pode aparecer
+    @Query("SELECT a FROM AlteracaoLivro a WHERE a.id > :aposId AND a.id <= :ateId "
+            + "AND a.registradoEm >= :desde ORDER BY a.id")
+    List<AlteracaoLivro> findRegistradasDesde(@Param("aposId") Long aposId, @Param("ateId") Long ateId,
+                                              @Param("desde") Instant desde, Pageable pageable);
+    
+    @Query("SELECT MIN(a.id) FROM AlteracaoLivro a WHERE a.registradoEm >= :desde")
+    Long menorIdRegistradoDesde(@Param("desde") Instant desde);
+    
+    // Alterações gravadas por outros nós, lidas pelo barramento da replicação
+    @Query("SELECT a FROM AlteracaoLivro a WHERE a.registradoEm >= :desde AND a.origem <> :origem "
+            + "AND a.id > :aposId ORDER BY a.id")
+    List<AlteracaoLivro> findRecentesDeOutraOrigem(@Param("desde") Instant desde, @Param("origem") String origem,
+                                                   @Param("aposId") Long aposId, Pageable pageable);
+    
+    // Entradas substituídas por uma alteração mais nova do mesmo livro
+    @Modifying
+    @Query("DELETE FROM AlteracaoLivro a WHERE a.id <= :ate AND a.id < "
+            + "(SELECT MAX(b.id) FROM AlteracaoLivro b WHERE b.livroId = a.livroId)")
+    int removerSubstituidas(@Param("ate") Long ate);
+    
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM AlteracaoLivro a WHERE a.removido = true AND a.registradoEm < :limite")
+    long maiorIdRemocaoAntesDe(@Param("limite") Instant limite);
+    
+    @Modifying
+    @Query("DELETE FROM AlteracaoLivro a WHERE a.removido = true AND a.id <= :ate")
+    int removerRemocoesAte(@Param("ate") Long ate);
+}
@@ -0,0 +1,26 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Emprestimo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmprestimoRepository extends JpaRepository<Emprestimo, Long> {
+    
+    // Histórico mais recente primeiro (idx_emprestimos_livro e idx_emprestimos_membro)
+    List<Emprestimo> findByLivroIdOrderByIdDesc(Long livroId, Pageable pageable);
+    
+    List<Emprestimo> findByMembroOrderByIdDesc(String membro, Pageable pageable);
+    
+    // Só encerra um empréstimo ainda aberto: duas devoluções simultâneas não se sobrepõem
+    @Modifying
+    @Query("UPDATE Emprestimo e SET e.devolvidoEm = :agora WHERE e.id = :id AND e.devolvidoEm IS NULL")
+    int encerrar(@Param("id") Long id, @Param("agora") Instant agora);
+}
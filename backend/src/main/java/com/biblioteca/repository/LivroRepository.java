@@ -1,24 +1,81 @@
 package com.biblioteca.repository;
 
 import com.biblioteca.model.Livro;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
-public interface LivroRepository extends JpaRepository<Livro, Long> {
+public interface LivroRepository extends JpaRepository<Livro, Long>, LivroRepositoryCustom {
     
     Optional<Livro> findByIsbn(String isbn);
     
-    List<Livro> findByTituloContainingIgnoreCase(String titulo);
+    @Query("SELECT l.isbn FROM Livro l WHERE l.isbn IN :isbns")
+    Set<String> findIsbnsExistentes(@Param("isbns") Collection<String> isbns);
     
-    List<Livro> findByAutorContainingIgnoreCase(String autor);
+    // Buscas por prefixo nas colunas geradas em minúsculas (idx_livros_*_minusculo);
+    // o prefixo deve chegar em minúsculas
+    List<Livro> findByTituloMinusculoStartingWithOrderByTituloMinusculoAsc(String prefixo, Pageable pageable);
     
-    List<Livro> findByDisponivel(Boolean disponivel);
+    List<Livro> findByAutorMinusculoStartingWithOrderByAutorMinusculoAsc(String prefixo, Pageable pageable);
+    
+    // Percorre idx_livros_disponivel (disponivel, id) já na ordem do id
+    List<Livro> findByDisponivelOrderByIdAsc(Boolean disponivel);
+    
+    long countByDisponivel(Boolean disponivel);
+    
+    // Troca a disponibilidade só se ela ainda for a esperada, sem ler o livro antes; a versão
+    // avança para que um PUT com a versão anterior seja recusado como alteração concorrente
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Livro l SET l.disponivel = :nova, l.versao = l.versao + 1, l.atualizadoEm = :agora " +
+           "WHERE l.id = :id AND l.disponivel = :esperada")
+    int trocarDisponibilidade(@Param("id") Long id, @Param("esperada") boolean esperada,
+                              @Param("nova") boolean nova, @Param("agora") Instant agora);
+    
+    @Query("SELECT l.disponivel FROM Livro l WHERE l.id = :id")
+    Optional<Boolean> disponibilidade(@Param("id") Long id);
+    
+    // Versão confirmada no banco. Consulta nativa de um escalar: não devolve a entidade que
+    // o contexto de persistência da transação que acabou de confirmar ainda guarda
+    @Query(value = "SELECT versao FROM livros WHERE id = :id", nativeQuery = true)
+    Optional<Long> versaoConfirmada(@Param("id") Long id);
+    
+    @Query("SELECT l.autor, COUNT(l) FROM Livro l GROUP BY l.autor")
+    List<Object[]> contarPorAutor();
+    
+    @Query("SELECT l.editora, COUNT(l) FROM Livro l WHERE l.editora IS NOT NULL GROUP BY l.editora")
+    List<Object[]> contarPorEditora();
+    
+    // MOD segue o sinal do ano; o segundo MOD arredonda para baixo também anos negativos
+    // (-5 fica na década -10), como EstatisticasCatalogo.decada
+    @Query("SELECT l.anoPublicacao - MOD(MOD(l.anoPublicacao, 10) + 10, 10), COUNT(l) FROM Livro l " +
+           "GROUP BY l.anoPublicacao - MOD(MOD(l.anoPublicacao, 10) + 10, 10)")
+    List<Object[]> contarPorDecada();
+    
+    // Paginação por cursor (keyset): usa a chave primária em vez de OFFSET
+    List<Livro> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Percorre a tabela inteira sem materializar tudo em memória;
+    // deve ser consumido dentro de uma transação e fechado ao final
+    @Query("SELECT l FROM Livro l ORDER BY l.id")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Livro> streamTodos();
     
     @Query("SELECT l FROM Livro l WHERE " +
            "LOWER(l.titulo) LIKE LOWER(CONCAT('%', :termo, '%')) OR " +
@@ -26,4 +83,3 @@ public interface LivroRepository extends JpaRepository<Livro, Long> {
            "LOWER(l.editora) LIKE LOWER(CONCAT('%', :termo, '%'))")
     List<Livro> buscarPorTermo(@Param("termo") String termo);
 }
-
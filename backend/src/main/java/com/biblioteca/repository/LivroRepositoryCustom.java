@@ -0,0 +1,21 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.dto.CampoLivro;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas por projeção: leem apenas as colunas dos campos pedidos, sem montar entidades.
+ * Cada linha traz os valores na ordem de {@code campos}.
+ */
+public interface LivroRepositoryCustom {
+    
+    // Deve ser consumido dentro de uma transação e fechado ao final
+    Stream<Object[]> projetar(List<CampoLivro> campos, Boolean disponivel);
+    
+    List<Object[]> projetarApos(List<CampoLivro> campos, long aposId, int limite, Boolean disponivel);
+    
+    List<Object[]> projetarPorIds(List<CampoLivro> campos, Collection<Long> ids);
+}
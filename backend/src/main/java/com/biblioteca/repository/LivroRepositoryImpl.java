@@ -0,0 +1,56 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.dto.CampoLivro;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class LivroRepositoryImpl implements LivroRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Stream<Object[]> projetar(List<CampoLivro> campos, Boolean disponivel) {
+        String filtro = disponivel == null ? "" : " WHERE l.disponivel = :disponivel";
+        TypedQuery<Object[]> consulta = entityManager.createQuery(
+                selecionar(campos) + filtro + " ORDER BY l.id", Object[].class);
+        if (disponivel != null) {
+            consulta.setParameter("disponivel", disponivel);
+        }
+        return consulta.setHint(HibernateHints.HINT_FETCH_SIZE, 500).getResultStream();
+    }
+    
+    @Override
+    public List<Object[]> projetarApos(List<CampoLivro> campos, long aposId, int limite, Boolean disponivel) {
+        String filtro = disponivel == null ? "" : " AND l.disponivel = :disponivel";
+        TypedQuery<Object[]> consulta = entityManager.createQuery(
+                selecionar(campos) + " WHERE l.id > :apos" + filtro + " ORDER BY l.id", Object[].class);
+        if (disponivel != null) {
+            consulta.setParameter("disponivel", disponivel);
+        }
+        return consulta.setParameter("apos", aposId)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+    
+    @Override
+    public List<Object[]> projetarPorIds(List<CampoLivro> campos, Collection<Long> ids) {
+        return entityManager.createQuery(selecionar(campos) + " WHERE l.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+    
+    // Os nomes vêm do enum, nunca da requisição
+    private static String selecionar(List<CampoLivro> campos) {
+        return campos.stream()
+                .map(campo -> "l." + campo.nome())
+                .collect(Collectors.joining(", ", "SELECT ", " FROM Livro l"));
+    }
+}
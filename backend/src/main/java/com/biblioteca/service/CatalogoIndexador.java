@@ -0,0 +1,95 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Carrega todos os {@link IndiceCatalogo} com uma única passada pela tabela antes de o
+ * servidor aceitar requisições e repassa a eles cada alteração confirmada no catálogo.
+ * Depois de aplicar a alteração em todos os índices, avança a {@link VersaoCatalogo}.
+ *
+ * Os callbacks de duas escritas do mesmo livro podem rodar fora da ordem dos commits, e o
+ * estado que veio no evento pode já ter sido substituído. Sob uma trava escolhida pelo id,
+ * o evento é conferido com a versão confirmada no banco: o livro é indexado se ela for a do
+ * evento, removido se a linha não existe mais, e nada muda se já há uma versão mais nova,
+ * porque o callback dela ainda vai aplicá-la ou já aplicou.
+ */
+@Component
+public class CatalogoIndexador implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoIndexador.class);
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    // ReentrantLock e não synchronized: não prende a thread de plataforma das threads virtuais
+    private final ReentrantLock[] travas = new ReentrantLock[64];
+
+    @Autowired(required = false)
+    private List<IndiceCatalogo> indices = List.of();
+
+    public CatalogoIndexador() {
+        for (int i = 0; i < travas.length; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (indices.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        long[] total = {0};
+        indices.forEach(IndiceCatalogo::limpar);
+        livroService.percorrerTodos(livro -> {
+            indices.forEach(indice -> indice.indexar(livro));
+            total[0]++;
+        });
+        indices.forEach(IndiceCatalogo::carregamentoConcluido);
+        versaoCatalogo.avancar();
+        log.info("Índices do catálogo carregados: {} livros em {} ms",
+                total[0], (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarLivro(LivroAlteradoEvent evento) {
+        ReentrantLock trava = travas[Math.floorMod(Long.hashCode(evento.id() * 0x9E3779B97F4A7C15L), travas.length)];
+        trava.lock();
+        try {
+            // Lida depois do commit, na mesma conexão: enxerga as escritas já confirmadas
+            Optional<Long> confirmada = livroRepository.versaoConfirmada(evento.id());
+            Livro livro = evento.livro();
+            if (confirmada.isPresent() && (livro == null || !confirmada.get().equals(livro.getVersao()))) {
+                // Há uma versão mais nova, cujo próprio evento a aplica
+                return;
+            }
+            for (IndiceCatalogo indice : indices) {
+                if (confirmada.isEmpty()) {
+                    indice.remover(evento.id());
+                } else {
+                    indice.indexar(livro);
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+        versaoCatalogo.avancar();
+    }
+}
@@ -0,0 +1,12 @@
+package com.biblioteca.service;
+
+/**
+ * O cursor de sincronização é anterior ao que o registro de alterações ainda guarda
+ * (ou de outra execução do servidor): o cliente precisa recarregar o catálogo inteiro.
+ */
+public class CursorExpiradoException extends RuntimeException {
+
+    public CursorExpiradoException() {
+        super("Cursor de sincronização expirado; recarregue o catálogo completo");
+    }
+}
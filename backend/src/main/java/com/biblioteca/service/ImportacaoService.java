@@ -0,0 +1,353 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.ResultadoImportacao;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importação de catálogos grandes a partir de JSON (array ou NDJSON) ou CSV.
+ *
+ * A entrada é lida em streaming e gravada em lotes de {@code biblioteca.importacao.tamanho-lote}
+ * livros: cada lote verifica os ISBNs duplicados com uma única consulta e é inserido numa
+ * transação própria, aproveitando o batch do JDBC. Linhas inválidas são rejeitadas
+ * individualmente sem interromper a importação.
+ */
+@Service
+public class ImportacaoService {
+
+    public static final int MAXIMO_ERROS_REPORTADOS = 1000;
+
+    private static final List<String> COLUNAS_CSV = List.of(
+            "titulo", "autor", "isbn", "anoPublicacao", "editora", "descricao", "disponivel");
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int tamanhoLote;
+
+    public ImportacaoService(PlatformTransactionManager transactionManager,
+                             @Value("${biblioteca.importacao.tamanho-lote:500}") int tamanhoLote) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    private record Linha(long numero, Livro livro, String erro) {
+    }
+
+    public ResultadoImportacao importarJson(InputStream entrada) throws IOException {
+        Importacao importacao = new Importacao();
+        try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+            JsonToken primeiro = parser.nextToken();
+            // Aceita um array JSON ou uma sequência de objetos (NDJSON)
+            boolean array = primeiro == JsonToken.START_ARRAY;
+            JsonToken token = array ? parser.nextToken() : primeiro;
+            long numero = 0;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                numero++;
+                JsonNode no = parser.readValueAsTree();
+                importacao.adicionar(converter(numero, no));
+                token = parser.nextToken();
+            }
+        }
+        return importacao.concluir();
+    }
+
+    public ResultadoImportacao importarCsv(InputStream entrada) throws IOException {
+        Importacao importacao = new Importacao();
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            String cabecalho = leitor.readLine();
+            if (cabecalho == null) {
+                return importacao.concluir();
+            }
+            List<String> colunas = dividirCsv(cabecalho.replace("\uFEFF", "")).stream().map(String::trim).toList();
+            if (!colunas.containsAll(List.of("titulo", "autor", "isbn", "anoPublicacao"))) {
+                throw new IllegalArgumentException("Cabeçalho CSV deve conter as colunas " + COLUNAS_CSV);
+            }
+            LeitorCsv registros = new LeitorCsv(leitor);
+            String registro;
+            while ((registro = registros.proximo()) != null) {
+                if (registros.aspasAbertas()) {
+                    importacao.adicionar(new Linha(registros.inicio(), null, "Campo entre aspas não foi fechado"));
+                } else if (!registro.isBlank()) {
+                    importacao.adicionar(converter(registros.inicio(), colunas, dividirCsv(registro)));
+                }
+            }
+        }
+        return importacao.concluir();
+    }
+
+    private Linha converter(long numero, JsonNode no) {
+        try {
+            return new Linha(numero, objectMapper.treeToValue(no, Livro.class), null);
+        } catch (JsonProcessingException e) {
+            return new Linha(numero, null, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private Linha converter(long numero, List<String> colunas, List<String> valores) {
+        if (valores.size() != colunas.size()) {
+            return new Linha(numero, null, "Esperadas " + colunas.size() + " colunas, encontradas " + valores.size());
+        }
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < colunas.size(); i++) {
+            String valor = valores.get(i).trim();
+            campos.put(colunas.get(i), valor.isEmpty() ? null : valor);
+        }
+        Livro livro = new Livro(campos.get("titulo"), campos.get("autor"), campos.get("isbn"), null);
+        livro.setEditora(campos.get("editora"));
+        livro.setDescricao(campos.get("descricao"));
+        if (campos.get("disponivel") != null) {
+            livro.setDisponivel(Boolean.parseBoolean(campos.get("disponivel")));
+        }
+        if (campos.get("anoPublicacao") != null) {
+            try {
+                livro.setAnoPublicacao(Integer.valueOf(campos.get("anoPublicacao")));
+            } catch (NumberFormatException e) {
+                return new Linha(numero, null, "Ano de publicação inválido: " + campos.get("anoPublicacao"));
+            }
+        }
+        return new Linha(numero, livro, null);
+    }
+
+    /**
+     * Divide um registro CSV respeitando campos entre aspas e aspas escapadas (""); um
+     * campo entre aspas pode conter vírgulas e quebras de linha.
+     */
+    static List<String> dividirCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    /**
+     * Lê os registros de um CSV linha a linha: enquanto houver aspas abertas, a quebra de
+     * linha faz parte do campo e o registro continua na linha seguinte. Os erros citam a
+     * linha em que o registro começa.
+     */
+    static final class LeitorCsv {
+
+        static final int TAMANHO_MAXIMO_REGISTRO = 1 << 20;
+
+        private final BufferedReader leitor;
+        private long linha = 1;
+        private long inicio;
+        private boolean aspasAbertas;
+
+        LeitorCsv(BufferedReader leitor) {
+            this.leitor = leitor;
+        }
+
+        String proximo() throws IOException {
+            String texto = leitor.readLine();
+            if (texto == null) {
+                return null;
+            }
+            inicio = ++linha;
+            aspasAbertas = aspasImpares(texto);
+            if (!aspasAbertas) {
+                return texto;
+            }
+            StringBuilder registro = new StringBuilder(texto);
+            while (aspasAbertas && (texto = leitor.readLine()) != null) {
+                linha++;
+                registro.append('\n').append(texto);
+                if (registro.length() > TAMANHO_MAXIMO_REGISTRO) {
+                    throw new IllegalArgumentException("Registro CSV da linha " + inicio
+                            + " passa de " + TAMANHO_MAXIMO_REGISTRO + " caracteres; verifique as aspas");
+                }
+                aspasAbertas ^= aspasImpares(texto);
+            }
+            return registro.toString();
+        }
+
+        long inicio() {
+            return inicio;
+        }
+
+        // Só é verdadeiro se o arquivo terminou no meio de um campo entre aspas
+        boolean aspasAbertas() {
+            return aspasAbertas;
+        }
+
+        // Aspas escapadas ("") contam duas vezes e não mudam a paridade
+        private static boolean aspasImpares(String texto) {
+            return texto.chars().filter(c -> c == '"').count() % 2 == 1;
+        }
+    }
+
+    /**
+     * Estado de uma importação em andamento: acumula o lote atual e os totais.
+     */
+    private class Importacao {
+
+        private final long inicio = System.nanoTime();
+        private final List<Linha> lote = new ArrayList<>(tamanhoLote);
+        private final List<ResultadoImportacao.Erro> erros = new ArrayList<>();
+        private long recebidos;
+        private long importados;
+        private long rejeitados;
+
+        void adicionar(Linha linha) {
+            recebidos++;
+            if (linha.erro() != null) {
+                rejeitar(linha, linha.erro());
+                return;
+            }
+            lote.add(linha);
+            if (lote.size() >= tamanhoLote) {
+                gravarLote();
+            }
+        }
+
+        ResultadoImportacao concluir() {
+            if (!lote.isEmpty()) {
+                gravarLote();
+            }
+            long duracaoNanos = System.nanoTime() - inicio;
+            double porSegundo = duracaoNanos == 0 ? 0 : importados * 1_000_000_000.0 / duracaoNanos;
+            erros.sort(Comparator.comparingLong(ResultadoImportacao.Erro::linha));
+            return new ResultadoImportacao(recebidos, importados, rejeitados, List.copyOf(erros),
+                    duracaoNanos / 1_000_000, porSegundo);
+        }
+
+        private void gravarLote() {
+            List<Linha> validas = new ArrayList<>(lote.size());
+            Set<String> isbnsDoLote = new HashSet<>();
+            for (Linha linha : lote) {
+                Livro livro = linha.livro();
+                // A importação sempre cria livros novos, mesmo de linhas exportadas com id e versão
+                livro.setId(null);
+                livro.setVersao(null);
+                if (livro.getDisponivel() == null) {
+                    livro.setDisponivel(true);
+                }
+                Set<ConstraintViolation<Livro>> violacoes = validator.validate(livro);
+                if (!violacoes.isEmpty()) {
+                    rejeitar(linha, violacoes.stream().map(ConstraintViolation::getMessage)
+                            .sorted().collect(Collectors.joining("; ")));
+                } else if (!isbnsDoLote.add(livro.getIsbn())) {
+                    rejeitar(linha, "ISBN repetido no arquivo");
+                } else {
+                    validas.add(linha);
+                }
+            }
+            lote.clear();
+            if (validas.isEmpty()) {
+                return;
+            }
+
+            Set<String> existentes = livroRepository.findIsbnsExistentes(isbnsDoLote);
+            List<Linha> novas = new ArrayList<>(validas.size());
+            for (Linha linha : validas) {
+                if (existentes.contains(linha.livro().getIsbn())) {
+                    rejeitar(linha, "Já existe um livro com este ISBN");
+                } else {
+                    novas.add(linha);
+                }
+            }
+
+            try {
+                inserir(novas.stream().map(Linha::livro).toList());
+                importados += novas.size();
+            } catch (DataIntegrityViolationException e) {
+                // Outro cliente gravou um dos ISBNs entre a verificação e o insert, ou o banco
+                // recusou uma linha: refaz o lote linha a linha para isolar as rejeitadas
+                for (Linha linha : novas) {
+                    // O insert desfeito deixou id e versão atribuídos
+                    linha.livro().setId(null);
+                    linha.livro().setVersao(null);
+                    try {
+                        inserir(List.of(linha.livro()));
+                        importados++;
+                    } catch (DataIntegrityViolationException erro) {
+                        rejeitar(linha, motivo(linha.livro(), erro));
+                    }
+                }
+            }
+        }
+
+        // Grava pelo repositório para que os erros do flush cheguem traduzidos pelo Spring
+        private void inserir(List<Livro> livros) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Livro> salvos = livroRepository.saveAllAndFlush(livros);
+                salvos.forEach(livro -> eventPublisher.publishEvent(LivroAlteradoEvent.criado(livro)));
+            });
+        }
+
+        private String motivo(Livro livro, DataIntegrityViolationException erro) {
+            if (livroRepository.findByIsbn(livro.getIsbn()).isPresent()) {
+                return "Já existe um livro com este ISBN";
+            }
+            return "Recusado pelo banco: " + erro.getMostSpecificCause().getMessage();
+        }
+
+        private void rejeitar(Linha linha, String mensagem) {
+            rejeitados++;
+            if (erros.size() < MAXIMO_ERROS_REPORTADOS) {
+                String isbn = linha.livro() != null ? linha.livro().getIsbn() : null;
+                erros.add(new ResultadoImportacao.Erro(linha.numero(), isbn, mensagem));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Livro;
+
+/**
+ * Estrutura em memória derivada da tabela de livros.
+ * É carregada uma vez na inicialização pelo {@link CatalogoIndexador} e depois
+ * mantida incrementalmente a partir dos {@link LivroAlteradoEvent}.
+ */
+public interface IndiceCatalogo {
+
+    /**
+     * Inclui o livro ou substitui a versão já indexada com o mesmo id.
+     */
+    void indexar(Livro livro);
+
+    void remover(Long id);
+
+    void limpar();
+
+    /**
+     * Chamado quando a carga inicial termina; antes disso o índice pode estar incompleto.
+     */
+    default void carregamentoConcluido() {
+    }
+}
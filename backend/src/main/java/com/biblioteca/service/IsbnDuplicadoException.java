@@ -0,0 +1,12 @@
+package com.biblioteca.service;
+
+/**
+ * Já existe outro livro com o ISBN informado, seja pelo índice em memória, seja pela
+ * constraint única da tabela (duas gravações concorrentes do mesmo ISBN).
+ */
+public class IsbnDuplicadoException extends RuntimeException {
+
+    public IsbnDuplicadoException() {
+        super("Já existe um livro com este ISBN");
+    }
+}
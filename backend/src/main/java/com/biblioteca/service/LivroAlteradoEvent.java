@@ -0,0 +1,41 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Livro;
+
+/**
+ * Publicado pelo {@link LivroService} a cada escrita no catálogo.
+ * Em remoções {@code livro} é {@code null}; nos demais casos traz o estado já persistido.
+ *
+ * Com {@code remoto = true} a escrita foi feita por outro nó e o evento só atualiza o
+ * estado em memória deste (índices, cache e versão); ela já está no registro de alterações.
+ */
+public record LivroAlteradoEvent(Long id, TipoAlteracao tipo, Livro livro, boolean remoto) {
+
+    public enum TipoAlteracao {
+        CRIADO,
+        ATUALIZADO,
+        REMOVIDO
+    }
+
+    public static LivroAlteradoEvent criado(Livro livro) {
+        return new LivroAlteradoEvent(livro.getId(), TipoAlteracao.CRIADO, livro, false);
+    }
+
+    public static LivroAlteradoEvent atualizado(Livro livro) {
+        return new LivroAlteradoEvent(livro.getId(), TipoAlteracao.ATUALIZADO, livro, false);
+    }
+
+    public static LivroAlteradoEvent removido(Long id) {
+        return new LivroAlteradoEvent(id, TipoAlteracao.REMOVIDO, null, false);
+    }
+
+    /**
+     * Alteração feita por outro nó: {@code livro} é o estado lido do banco, ou {@code null}
+     * se ele não existe mais.
+     */
+    public static LivroAlteradoEvent remoto(Long id, Livro livro) {
+        return livro == null
+                ? new LivroAlteradoEvent(id, TipoAlteracao.REMOVIDO, null, true)
+                : new LivroAlteradoEvent(id, TipoAlteracao.ATUALIZADO, livro, true);
+    }
+}
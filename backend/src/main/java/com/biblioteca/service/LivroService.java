@@ -1,66 +1,279 @@
 package com.biblioteca.service;
 
+import com.biblioteca.dto.Alteracoes;
+import com.biblioteca.dto.CampoLivro;
+import com.biblioteca.dto.Estatisticas;
+import com.biblioteca.dto.FiltroPesquisa;
+import com.biblioteca.dto.Pagina;
+import com.biblioteca.dto.ResultadoPesquisa;
+import com.biblioteca.dto.Sugestao;
 import com.biblioteca.model.Livro;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.busca.IndiceBusca;
+import com.biblioteca.service.cache.Coalescedor;
+import com.biblioteca.service.cache.LivroCache;
+import com.biblioteca.service.disponibilidade.IndiceDisponibilidade;
+import com.biblioteca.service.estatistica.EstatisticasCatalogo;
+import com.biblioteca.service.facetas.IndiceFacetas;
+import com.biblioteca.service.isbn.IndiceIsbn;
+import com.biblioteca.service.sugestoes.IndiceSugestoes;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LivroService {
     
+    public static final int LIMITE_MAXIMO_PAGINA = 1000;
+    
+    public static final int LIMITE_PADRAO_BUSCA = 50;
+    
     @Autowired
     private LivroRepository livroRepository;
     
+    @Autowired
+    private IndiceBusca indiceBusca;
+    
+    @Autowired
+    private LivroCache livroCache;
+    
+    @Autowired
+    private Coalescedor coalescedor;
+    
+    @Autowired
+    private EstatisticasCatalogo estatisticasCatalogo;
+    
+    @Autowired
+    private IndiceIsbn indiceIsbn;
+    
+    @Autowired
+    private IndiceFacetas indiceFacetas;
+    
+    @Autowired
+    private IndiceDisponibilidade indiceDisponibilidade;
+    
+    @Autowired
+    private IndiceSugestoes indiceSugestoes;
+    
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+    
+    @Autowired
+    private RegistroAlteracoes registroAlteracoes;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     public List<Livro> listarTodos() {
         return livroRepository.findAll();
     }
     
+    public Pagina<Livro> listarPagina(String cursor, int limite) {
+        long aposId = cursor == null || cursor.isBlank() ? 0L : decodificarCursor(cursor);
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        
+        // Busca um registro a mais para saber se existe próxima página
+        List<Livro> livros = livroRepository.findByIdGreaterThanOrderByIdAsc(aposId, PageRequest.of(0, tamanho + 1));
+        if (livros.size() <= tamanho) {
+            return new Pagina<>(livros, null);
+        }
+        List<Livro> pagina = livros.subList(0, tamanho);
+        return new Pagina<>(pagina, codificarCursor(pagina.get(tamanho - 1).getId()));
+    }
+    
+    @Transactional(readOnly = true)
+    public void percorrerTodos(Consumer<Livro> consumidor) {
+        try (Stream<Livro> livros = livroRepository.streamTodos()) {
+            livros.forEach(livro -> {
+                consumidor.accept(livro);
+                // Desanexa para que o contexto de persistência não cresça com a tabela
+                entityManager.detach(livro);
+            });
+        }
+    }
+    
+    /**
+     * Percorre o catálogo em ordem de id lendo só as colunas de {@code campos}; com
+     * {@code somenteDisponiveis}, apenas os livros disponíveis.
+     */
+    @Transactional(readOnly = true)
+    public void percorrerCampos(List<CampoLivro> campos, boolean somenteDisponiveis, Consumer<Object[]> consumidor) {
+        try (Stream<Object[]> linhas = livroRepository.projetar(campos, somenteDisponiveis ? Boolean.TRUE : null)) {
+            linhas.forEach(consumidor);
+        }
+    }
+    
+    public Pagina<Object[]> listarPagina(String cursor, int limite, List<CampoLivro> campos) {
+        return coalescedor.executar("listarPagina", Arrays.asList(cursor, limite, campos),
+                () -> projetarPagina(cursor, limite, campos));
+    }
+    
+    private Pagina<Object[]> projetarPagina(String cursor, int limite, List<CampoLivro> campos) {
+        long aposId = cursor == null || cursor.isBlank() ? 0L : decodificarCursor(cursor);
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        
+        List<Object[]> linhas = livroRepository.projetarApos(campos, aposId, tamanho + 1, null);
+        if (linhas.size() <= tamanho) {
+            return new Pagina<>(linhas, null);
+        }
+        List<Object[]> pagina = linhas.subList(0, tamanho);
+        // O id é sempre o primeiro campo da projeção
+        return new Pagina<>(pagina, codificarCursor((Long) pagina.get(tamanho - 1)[0]));
+    }
+    
+    // O carregamento de um id ausente do cache já é único: o Caffeine faz os demais esperarem
     public Optional<Livro> buscarPorId(Long id) {
-        return livroRepository.findById(id);
+        return livroCache.buscarPorId(id, livroRepository::findById);
     }
     
     public Optional<Livro> buscarPorIsbn(String isbn) {
-        return livroRepository.findByIsbn(isbn);
+        return livroCache.buscarPorIsbn(isbn, chave -> coalescedor.executar("buscarPorIsbn", List.of(chave),
+                () -> livroRepository.findByIsbn(chave)));
     }
     
-    public List<Livro> buscarPorTitulo(String titulo) {
-        return livroRepository.findByTituloContainingIgnoreCase(titulo);
+    /**
+     * Livros cujo título começa com o prefixo (sem diferenciar maiúsculas), em ordem de título.
+     */
+    public List<Livro> buscarPorTitulo(String prefixo) {
+        return livroRepository.findByTituloMinusculoStartingWithOrderByTituloMinusculoAsc(
+                minusculas(prefixo), PageRequest.of(0, LIMITE_MAXIMO_PAGINA));
     }
     
-    public List<Livro> buscarPorAutor(String autor) {
-        return livroRepository.findByAutorContainingIgnoreCase(autor);
+    /**
+     * Livros cujo autor começa com o prefixo (sem diferenciar maiúsculas), em ordem de autor.
+     */
+    public List<Livro> buscarPorAutor(String prefixo) {
+        return livroRepository.findByAutorMinusculoStartingWithOrderByAutorMinusculoAsc(
+                minusculas(prefixo), PageRequest.of(0, LIMITE_MAXIMO_PAGINA));
     }
     
     public List<Livro> buscarDisponiveis() {
-        return livroRepository.findByDisponivel(true);
+        if (!indiceDisponibilidade.isPronto()) {
+            return livroRepository.findByDisponivelOrderByIdAsc(true);
+        }
+        return buscarPorIdsNaOrdem(indiceDisponibilidade.proximos(0L, Integer.MAX_VALUE));
+    }
+    
+    /**
+     * Página de livros disponíveis em ordem de id: os ids saem do bitmap de disponibilidade
+     * e só as linhas da página são lidas do banco.
+     */
+    public Pagina<Object[]> listarDisponiveis(String cursor, int limite, List<CampoLivro> campos) {
+        return coalescedor.executar("listarDisponiveis", Arrays.asList(cursor, limite, campos),
+                () -> projetarDisponiveis(cursor, limite, campos));
+    }
+    
+    private Pagina<Object[]> projetarDisponiveis(String cursor, int limite, List<CampoLivro> campos) {
+        long aposId = cursor == null || cursor.isBlank() ? 0L : decodificarCursor(cursor);
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        
+        List<Object[]> linhas;
+        if (indiceDisponibilidade.isPronto()) {
+            List<Long> ids = indiceDisponibilidade.proximos(aposId, tamanho + 1);
+            linhas = projetarNaOrdem(campos, ids);
+        } else {
+            linhas = livroRepository.projetarApos(campos, aposId, tamanho + 1, true);
+        }
+        if (linhas.size() <= tamanho) {
+            return new Pagina<>(linhas, null);
+        }
+        List<Object[]> pagina = linhas.subList(0, tamanho);
+        return new Pagina<>(pagina, codificarCursor((Long) pagina.get(tamanho - 1)[0]));
     }
     
     public List<Livro> buscarPorTermo(String termo) {
-        return livroRepository.buscarPorTermo(termo);
+        return buscarPorTermo(termo, LIMITE_PADRAO_BUSCA);
+    }
+    
+    public List<Livro> buscarPorTermo(String termo, int limite) {
+        return coalescedor.executar("buscarPorTermo", Arrays.asList(termo, limite),
+                () -> carregarPorTermo(termo, limite));
     }
     
+    private List<Livro> carregarPorTermo(String termo, int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        if (!indiceBusca.isPronto()) {
+            // Índice ainda em carga: recorre à consulta no banco
+            return livroRepository.buscarPorTermo(termo).stream().limit(tamanho).toList();
+        }
+        return buscarPorIdsNaOrdem(indiceBusca.buscar(termo, tamanho));
+    }
+    
+    public List<Object[]> buscarPorTermo(String termo, int limite, List<CampoLivro> campos) {
+        return coalescedor.executar("projetarPorTermo", Arrays.asList(termo, limite, campos),
+                () -> projetarPorTermo(termo, limite, campos));
+    }
+    
+    private List<Object[]> projetarPorTermo(String termo, int limite, List<CampoLivro> campos) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        if (!indiceBusca.isPronto()) {
+            return livroRepository.buscarPorTermo(termo).stream()
+                    .limit(tamanho)
+                    .map(livro -> CampoLivro.valores(campos, livro))
+                    .toList();
+        }
+        return projetarNaOrdem(campos, indiceBusca.buscar(termo, tamanho));
+    }
+    
+    /**
+     * Pesquisa com filtros combinados: os filtros, a ordenação e as facetas são resolvidos
+     * nos índices em memória e só os livros da página são lidos do banco.
+     */
+    public ResultadoPesquisa pesquisar(FiltroPesquisa filtro, List<CampoLivro> campos) {
+        Map<Long, Float> pontuacao = filtro.temTermo() ? indiceBusca.pontuacoes(filtro.termo()) : null;
+        IndiceFacetas.Resultado resultado = indiceFacetas.pesquisar(limitar(filtro), pontuacao);
+        List<Map<String, Object>> itens = projetarNaOrdem(campos, resultado.ids()).stream()
+                .map(linha -> CampoLivro.mapa(campos, linha))
+                .toList();
+        return new ResultadoPesquisa(resultado.total(), itens, resultado.facetas());
+    }
+    
+    @Transactional
     public Livro salvar(Livro livro) {
-        // Verificar se já existe um livro com o mesmo ISBN
-        if (livro.getId() == null && livroRepository.findByIsbn(livro.getIsbn()).isPresent()) {
-            throw new RuntimeException("Já existe um livro com este ISBN");
+        boolean novo = livro.getId() == null;
+        if (isbnDeOutroLivro(livro.getIsbn(), livro.getId())) {
+            throw new IsbnDuplicadoException();
         }
-        return livroRepository.save(livro);
+        Livro salvo = gravar(livro);
+        eventPublisher.publishEvent(novo ? LivroAlteradoEvent.criado(salvo) : LivroAlteradoEvent.atualizado(salvo));
+        return salvo;
     }
     
+    @Transactional
     public Livro atualizar(Long id, Livro livroAtualizado) {
         Optional<Livro> livroExistente = livroRepository.findById(id);
         if (livroExistente.isPresent()) {
             Livro livro = livroExistente.get();
             
-            // Verificar se o ISBN foi alterado e se já existe
-            if (!livro.getIsbn().equals(livroAtualizado.getIsbn())) {
-                Optional<Livro> livroComMesmoIsbn = livroRepository.findByIsbn(livroAtualizado.getIsbn());
-                if (livroComMesmoIsbn.isPresent() && !livroComMesmoIsbn.get().getId().equals(id)) {
-                    throw new RuntimeException("Já existe um livro com este ISBN");
-                }
+            // O cliente enviou a versão que leu: recusa se outra escrita veio antes
+            if (livroAtualizado.getVersao() != null && !livroAtualizado.getVersao().equals(livro.getVersao())) {
+                throw new ObjectOptimisticLockingFailureException(Livro.class, id);
+            }
+            
+            if (isbnDeOutroLivro(livroAtualizado.getIsbn(), id)) {
+                throw new IsbnDuplicadoException();
             }
             
             livro.setTitulo(livroAtualizado.getTitulo());
@@ -70,26 +283,144 @@ public class LivroService {
             livro.setEditora(livroAtualizado.getEditora());
             livro.setDescricao(livroAtualizado.getDescricao());
             livro.setDisponivel(livroAtualizado.getDisponivel());
-            
-            return livroRepository.save(livro);
+            Livro salvo = gravar(livro);
+            eventPublisher.publishEvent(LivroAlteradoEvent.atualizado(salvo));
+            return salvo;
         }
         throw new RuntimeException("Livro não encontrado");
     }
     
+    @Transactional
     public void deletar(Long id) {
         if (livroRepository.existsById(id)) {
             livroRepository.deleteById(id);
+            eventPublisher.publishEvent(LivroAlteradoEvent.removido(id));
         } else {
             throw new RuntimeException("Livro não encontrado");
         }
     }
     
+    /**
+     * ETag forte de uma representação do catálogo inteiro; muda a cada escrita confirmada.
+     */
+    public String etagCatalogo(String recurso) {
+        return versaoCatalogo.etag(recurso);
+    }
+    
+    /**
+     * Cursor de sincronização do estado atual; deve ser obtido antes de ler o catálogo.
+     */
+    public String cursorAlteracoes() {
+        return registroAlteracoes.cursorAtual();
+    }
+    
+    public Alteracoes listarAlteracoes(String cursor, int limite) {
+        return registroAlteracoes.listarDesde(cursor, Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA)));
+    }
+    
+    public Map<String, Object> metricasCache() {
+        return livroCache.metricas();
+    }
+    
     public long contarTotal() {
-        return livroRepository.count();
+        return estatisticasCatalogo.isPronto()
+                ? estatisticasCatalogo.total()
+                : coalescedor.executar("contarTotal", List.of(), livroRepository::count);
     }
     
     public long contarDisponiveis() {
-        return livroRepository.findByDisponivel(true).size();
+        if (indiceDisponibilidade.isPronto()) {
+            return indiceDisponibilidade.quantidade();
+        }
+        return estatisticasCatalogo.isPronto()
+                ? estatisticasCatalogo.disponiveis()
+                : coalescedor.executar("contarDisponiveis", List.of(), () -> livroRepository.countByDisponivel(true));
+    }
+    
+    public Estatisticas obterEstatisticas() {
+        return coalescedor.executar("obterEstatisticas", List.of(), estatisticasCatalogo::obter);
+    }
+    
+    /**
+     * Títulos e autores que começam com o prefixo, para o preenchimento da busca. Vem só do
+     * índice em memória; enquanto ele carrega, a lista fica vazia.
+     */
+    public List<Sugestao> sugerir(String prefixo, int limite) {
+        return indiceSugestoes.sugerir(prefixo, limite);
+    }
+    
+    /**
+     * O índice em memória pode estar atrasado (um livro que trocou de ISBN ou foi removido
+     * em outra transação ou instância): um acerto nele só é confirmado no banco antes do
+     * 409. Um ISBN que o índice não conhece segue direto para a constraint única.
+     */
+    private boolean isbnDeOutroLivro(String isbn, Long id) {
+        if (!indiceIsbn.pertenceAOutroLivro(isbn, id)) {
+            return false;
+        }
+        return livroRepository.findByIsbn(isbn)
+                .map(dono -> !dono.getId().equals(id))
+                .orElse(false);
+    }
+    
+    /**
+     * Grava contando com a constraint única do ISBN em vez de consultá-lo antes: o índice
+     * em memória já recusou as duplicatas conhecidas, e uma gravação concorrente do mesmo
+     * ISBN falha aqui no flush (e não no commit), onde ainda dá para responder 409.
+     */
+    private Livro gravar(Livro livro) {
+        try {
+            return livroRepository.saveAndFlush(livro);
+        } catch (DataIntegrityViolationException e) {
+            throw new IsbnDuplicadoException();
+        }
+    }
+    
+    private List<Livro> buscarPorIdsNaOrdem(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Livro> porId = livroRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Livro::getId, Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+    
+    // O id é sempre o primeiro campo da projeção
+    private List<Object[]> projetarNaOrdem(List<CampoLivro> campos, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Object[]> porId = livroRepository.projetarPorIds(campos, ids).stream()
+                .collect(Collectors.toMap(linha -> (Long) linha[0], Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+    
+    private static FiltroPesquisa limitar(FiltroPesquisa filtro) {
+        return new FiltroPesquisa(filtro.termo(), filtro.autor(), filtro.editora(), filtro.anoMinimo(),
+                filtro.anoMaximo(), filtro.disponivel(), filtro.ordenacao(),
+                Math.max(1, Math.min(filtro.limite(), LIMITE_MAXIMO_PAGINA)), Math.max(0, filtro.deslocamento()));
+    }
+    
+    // Mesmo resultado do LOWER() do H2 usado nas colunas geradas
+    private static String minusculas(String texto) {
+        return texto == null ? "" : texto.toLowerCase(Locale.ROOT);
+    }
+    
+    private static String codificarCursor(long id) {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(id).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    private static long decodificarCursor(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+        if (bytes.length != Long.BYTES) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
     }
 }
-
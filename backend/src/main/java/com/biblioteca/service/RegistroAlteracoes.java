@@ -0,0 +1,380 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.Alteracoes;
+import com.biblioteca.model.AlteracaoLivro;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.AlteracaoLivroRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.replicacao.BarramentoAlteracoes;
+import com.biblioteca.service.replicacao.IdentidadeNo;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registro de alterações do catálogo para sincronização incremental.
+ *
+ * Cada {@link LivroAlteradoEvent} vira uma linha em {@code livros_alteracoes} na mesma
+ * transação da escrita. Os ids vêm de uma sequência reservada em blocos, mas transações
+ * concorrentes podem confirmar fora de ordem; por isso a leitura só vai até o "horizonte":
+ * o maior id abaixo do qual nenhuma transação que registrou alteração ainda está em
+ * andamento. Assim um cliente nunca avança o cursor para além de uma alteração que ainda
+ * vai aparecer. O registro não trava nada: antes de receber o id, cada transação anota em
+ * {@code emAndamento} o menor id que pode receber, e o horizonte fica abaixo da menor anotação.
+ *
+ * Periodicamente as entradas substituídas por outra mais nova do mesmo livro são apagadas,
+ * e as marcas de remoção mais antigas que a retenção também; cursores anteriores a elas
+ * passam a exigir recarga completa.
+ *
+ * Com replicação ({@code biblioteca.replicacao.barramento}) as transações dos outros nós
+ * não aparecem em {@code emAndamento}, e como cada nó tem o seu bloco de ids, outro nó pode
+ * registrar um id menor que um já entregue. O cursor então também guarda quando foi lido e
+ * as faixas de ids que já entregou dentro de {@code biblioteca.replicacao.margem}; a leitura
+ * seguinte começa pelas entradas com id até o cursor registradas a partir desse instante
+ * menos a margem que ainda não foram entregues, no limite da página. As alterações recebidas
+ * de outros nós não são registradas de novo.
+ */
+@Component
+public class RegistroAlteracoes {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroAlteracoes.class);
+
+    // Menor id que uma transação em andamento pode ter recebido; a ordem desempata anotações iguais
+    private record Reserva(long minimo, long ordem) implements Comparable<Reserva> {
+
+        static final Reserva PRIMEIRA = new Reserva(Long.MIN_VALUE, Long.MIN_VALUE);
+
+        @Override
+        public int compareTo(Reserva outra) {
+            int comparacao = Long.compare(minimo, outra.minimo);
+            return comparacao != 0 ? comparacao : Long.compare(ordem, outra.ordem);
+        }
+    }
+
+    // Sem replicação, lidoEm e entregues ficam nulos
+    private record Cursor(long id, Instant lidoEm, Faixas entregues) {
+    }
+
+    // Faixas guardadas no cursor; passando disso, as mais baixas saem e podem ser repetidas
+    static final int MAXIMO_FAIXAS = 64;
+
+    @Autowired
+    private AlteracaoLivroRepository alteracaoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private IdentidadeNo identidadeNo;
+
+    @Autowired(required = false)
+    private BarramentoAlteracoes barramento;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration retencao;
+
+    private final Duration margemReplicacao;
+
+    // Cursores de outra execução do servidor não valem (a sequência pode ter recomeçado);
+    // réplicas sobre o mesmo banco configuram a mesma época para aceitar os cursores umas das outras
+    private final String epoca;
+
+    // Transações que registraram alteração e ainda não concluíram
+    private final ConcurrentSkipListSet<Reserva> emAndamento = new ConcurrentSkipListSet<>();
+    private final AtomicLong reservas = new AtomicLong();
+    private final AtomicLong ultimoRegistrado = new AtomicLong();
+    private volatile long compactadoAte;
+
+    public RegistroAlteracoes(PlatformTransactionManager transactionManager,
+                              @Value("${biblioteca.alteracoes.retencao:P7D}") Duration retencao,
+                              @Value("${biblioteca.alteracoes.epoca:}") String epoca,
+                              @Value("${biblioteca.replicacao.margem:PT5S}") Duration margemReplicacao) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retencao = retencao;
+        this.epoca = epoca.isBlank() ? Long.toString(System.currentTimeMillis(), 36) : epoca;
+        this.margemReplicacao = margemReplicacao;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        long maior = alteracaoRepository.maiorId();
+        ultimoRegistrado.accumulateAndGet(maior, Math::max);
+        compactadoAte = maior;
+    }
+
+    @EventListener
+    public void registrar(LivroAlteradoEvent evento) {
+        if (evento.remoto()) {
+            return;
+        }
+        AlteracaoLivro alteracao = new AlteracaoLivro(evento.id(),
+                evento.tipo() == LivroAlteradoEvent.TipoAlteracao.REMOVIDO, Instant.now(), identidadeNo.id());
+        // Os ids saem em ordem crescente neste nó, então o que o persist atribuir fica acima
+        // do último registrado; anotar antes fecha a janela em que um leitor calcularia o
+        // horizonte sem enxergar esta transação
+        Reserva reserva = new Reserva(ultimoRegistrado.get() + 1, reservas.incrementAndGet());
+        emAndamento.add(reserva);
+        try {
+            entityManager.persist(alteracao);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    emAndamento.remove(reserva);
+                }
+            });
+        } catch (RuntimeException e) {
+            emAndamento.remove(reserva);
+            throw e;
+        }
+        ultimoRegistrado.accumulateAndGet(alteracao.getId(), Math::max);
+    }
+
+    public String cursorAtual() {
+        Instant agora = Instant.now();
+        return codificar(horizonte(), agora, new Faixas());
+    }
+
+    public Alteracoes listarDesde(String cursor, int limite) {
+        Cursor anterior = decodificar(cursor);
+        long desde = anterior.id();
+        if (desde < compactadoAte) {
+            throw new CursorExpiradoException();
+        }
+        Instant agora = Instant.now();
+        long ate = horizonte();
+        // Primeiro as que outros nós confirmaram abaixo do cursor, para não ficarem atrás de
+        // uma sequência de páginas cheias
+        List<AlteracaoLivro> entradas = barramento == null ? new ArrayList<>() : tardias(anterior, limite);
+        boolean temMais = entradas.size() == limite;
+        int restante = limite - entradas.size();
+        List<AlteracaoLivro> novas = alteracaoRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                desde, ate, PageRequest.of(0, restante + 1));
+        if (novas.size() > restante) {
+            temMais = true;
+            novas = novas.subList(0, restante);
+            ate = restante == 0 ? desde : novas.get(restante - 1).getId();
+        }
+        entradas.addAll(novas);
+
+        Faixas entregues = anterior.entregues();
+        if (barramento != null) {
+            entradas.forEach(entrada -> entregues.adicionar(entrada.getId()));
+            // Abaixo da menor entrada registrada dentro da margem nenhuma voltará a ser lida
+            Long menor = alteracaoRepository.menorIdRegistradoDesde(agora.minus(margemReplicacao));
+            entregues.descartarAbaixoDe(menor == null ? ate + 1 : menor);
+            entregues.limitar(MAXIMO_FAIXAS);
+        }
+
+        // Última alteração de cada livro, na ordem dos ids. Entre nós ela pode não ser a das
+        // escritas, mas um livro removido não volta: sem a linha no banco, sai como removido
+        Map<Long, Boolean> removidoPorLivro = new LinkedHashMap<>();
+        for (AlteracaoLivro entrada : entradas) {
+            removidoPorLivro.remove(entrada.getLivroId());
+            removidoPorLivro.put(entrada.getLivroId(), entrada.isRemovido());
+        }
+        List<Long> alteradosIds = removidoPorLivro.entrySet().stream()
+                .filter(entrada -> !entrada.getValue()).map(Map.Entry::getKey).toList();
+        Map<Long, Livro> livros = livroRepository.findAllById(alteradosIds).stream()
+                .collect(Collectors.toMap(Livro::getId, Function.identity()));
+
+        List<Livro> alterados = new ArrayList<>(livros.size());
+        List<Long> removidos = new ArrayList<>();
+        removidoPorLivro.forEach((livroId, removido) -> {
+            Livro livro = livros.get(livroId);
+            if (removido || livro == null) {
+                // Removido depois desta alteração: a marca chega numa próxima página
+                removidos.add(livroId);
+            } else {
+                alterados.add(livro);
+            }
+        });
+        return new Alteracoes(alterados, removidos, codificar(ate, agora, entregues), temMais);
+    }
+
+    /**
+     * Até {@code limite} entradas com id até o cursor, registradas dentro da margem, que o
+     * cliente ainda não recebeu. A leitura salta cada faixa já entregue.
+     */
+    private List<AlteracaoLivro> tardias(Cursor anterior, int limite) {
+        Instant desde = anterior.lidoEm().minus(margemReplicacao);
+        List<AlteracaoLivro> tardias = new ArrayList<>();
+        long aposId = 0;
+        List<AlteracaoLivro> pagina;
+        do {
+            pagina = alteracaoRepository.findRegistradasDesde(aposId, anterior.id(), desde, PageRequest.of(0, limite));
+            for (AlteracaoLivro entrada : pagina) {
+                if (entrada.getId() <= aposId) {
+                    continue;
+                }
+                Long fim = anterior.entregues().fimDaFaixa(entrada.getId());
+                aposId = fim != null ? fim : entrada.getId();
+                if (fim == null) {
+                    tardias.add(entrada);
+                    if (tardias.size() == limite) {
+                        return tardias;
+                    }
+                }
+            }
+        } while (pagina.size() == limite);
+        return tardias;
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.alteracoes.compactacao:PT10M}",
+               initialDelayString = "${biblioteca.alteracoes.compactacao:PT10M}")
+    public void compactar() {
+        long ate = horizonte();
+        transactionTemplate.executeWithoutResult(status -> {
+            int substituidas = alteracaoRepository.removerSubstituidas(ate);
+            long marcas = Math.min(ate, alteracaoRepository.maiorIdRemocaoAntesDe(Instant.now().minus(retencao)));
+            int remocoes = 0;
+            if (marcas > compactadoAte) {
+                remocoes = alteracaoRepository.removerRemocoesAte(marcas);
+                compactadoAte = marcas;
+            }
+            if (substituidas + remocoes > 0) {
+                log.info("Registro de alterações compactado: {} substituídas e {} remoções antigas apagadas",
+                        substituidas, remocoes);
+            }
+        });
+    }
+
+    private long horizonte() {
+        // Nessa ordem: uma transação que já aparece no último registrado já está anotada
+        long ultimo = ultimoRegistrado.get();
+        if (barramento != null) {
+            // Entradas de outros nós abaixo deste id que ainda não confirmaram chegam pela margem
+            ultimo = Math.max(ultimo, alteracaoRepository.maiorId());
+        }
+        Reserva primeira = emAndamento.ceiling(Reserva.PRIMEIRA);
+        return primeira == null ? ultimo : Math.min(ultimo, primeira.minimo() - 1);
+    }
+
+    private String codificar(long id, Instant lidoEm, Faixas entregues) {
+        String cursor = epoca + "." + Long.toString(id, 36);
+        if (barramento == null) {
+            return cursor;
+        }
+        cursor += "." + Long.toString(lidoEm.toEpochMilli(), 36);
+        return entregues.vazia() ? cursor : cursor + "." + entregues.codificar(id);
+    }
+
+    private Cursor decodificar(String cursor) {
+        String[] partes = cursor == null ? new String[0] : cursor.split("\\.", -1);
+        if (partes.length < 2 || partes.length > 4) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        if (!epoca.equals(partes[0])) {
+            throw new CursorExpiradoException();
+        }
+        try {
+            long id = Long.parseLong(partes[1], 36);
+            if (barramento == null) {
+                return new Cursor(id, null, null);
+            }
+            if (partes.length < 3) {
+                // Sem o instante da leitura não dá para saber o que outros nós registraram depois
+                throw new CursorExpiradoException();
+            }
+            Instant lidoEm = Instant.ofEpochMilli(Long.parseLong(partes[2], 36));
+            return new Cursor(id, lidoEm, partes.length == 4 ? Faixas.decodificar(partes[3], id) : new Faixas());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Ids já entregues, agrupados em faixas de ids consecutivos (início → fim). No cursor,
+     * cada faixa vira a distância do seu fim até o id do cursor e o seu comprimento, em
+     * base 36: {@code "3-1x_a"}.
+     */
+    static final class Faixas {
+
+        private final TreeMap<Long, Long> faixas = new TreeMap<>();
+
+        void adicionar(long id) {
+            Map.Entry<Long, Long> anterior = faixas.floorEntry(id);
+            if (anterior != null && anterior.getValue() >= id) {
+                return;
+            }
+            long inicio = anterior != null && anterior.getValue() == id - 1 ? anterior.getKey() : id;
+            Long fimSeguinte = faixas.remove(id + 1);
+            faixas.put(inicio, fimSeguinte != null ? fimSeguinte : id);
+        }
+
+        // Fim da faixa que contém o id, ou null se ele não foi entregue
+        Long fimDaFaixa(long id) {
+            Map.Entry<Long, Long> faixa = faixas.floorEntry(id);
+            return faixa != null && faixa.getValue() >= id ? faixa.getValue() : null;
+        }
+
+        void descartarAbaixoDe(long minimo) {
+            Map.Entry<Long, Long> cortada = faixas.lowerEntry(minimo);
+            faixas.headMap(minimo).clear();
+            if (cortada != null && cortada.getValue() >= minimo) {
+                faixas.put(minimo, cortada.getValue());
+            }
+        }
+
+        void limitar(int maximo) {
+            while (faixas.size() > maximo) {
+                faixas.pollFirstEntry();
+            }
+        }
+
+        boolean vazia() {
+            return faixas.isEmpty();
+        }
+
+        String codificar(long base) {
+            StringJoiner texto = new StringJoiner("_");
+            faixas.descendingMap().forEach((inicio, fim) -> {
+                String distancia = Long.toString(base - fim, 36);
+                texto.add(fim > inicio ? distancia + "-" + Long.toString(fim - inicio, 36) : distancia);
+            });
+            return texto.toString();
+        }
+
+        static Faixas decodificar(String texto, long base) {
+            Faixas faixas = new Faixas();
+            for (String faixa : texto.split("_", -1)) {
+                String[] partes = faixa.split("-", -1);
+                if (partes.length > 2) {
+                    throw new IllegalArgumentException("Cursor inválido");
+                }
+                long fim = base - Long.parseLong(partes[0], 36);
+                long comprimento = partes.length == 2 ? Long.parseLong(partes[1], 36) : 0;
+                faixas.faixas.put(fim - comprimento, fim);
+            }
+            return faixas;
+        }
+    }
+}
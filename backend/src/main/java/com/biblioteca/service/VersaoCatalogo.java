@@ -0,0 +1,32 @@
+package com.biblioteca.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão monotônica do catálogo, usada nas ETags das listagens e das estatísticas.
+ *
+ * Só avança depois que uma alteração confirmada foi aplicada aos índices em memória.
+ * Como a versão é lida antes dos dados, uma resposta nunca leva uma versão mais nova
+ * que o seu conteúdo. O instante de inicialização entra na ETag para que versões de
+ * uma execução anterior do servidor não sejam confundidas com as atuais.
+ */
+@Component
+public class VersaoCatalogo {
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong versao = new AtomicLong();
+
+    public long atual() {
+        return versao.get();
+    }
+
+    public void avancar() {
+        versao.incrementAndGet();
+    }
+
+    public String etag(String recurso) {
+        return "\"" + recurso + "-" + epoca + "-" + versao.get() + "\"";
+    }
+}
@@ -0,0 +1,36 @@
+package com.biblioteca.service.admissao;
+
+/**
+ * Balde de tokens de um cliente: enche {@code taxa} tokens por segundo até {@code capacidade}
+ * (a rajada aceita) e cada requisição consome um. O reabastecimento é calculado na hora do
+ * consumo, sem thread de fundo.
+ */
+class BaldeTokens {
+
+    private final double capacidade;
+    private final double tokensPorNano;
+
+    private double tokens;
+    private long atualizadoEm;
+
+    BaldeTokens(double capacidade, double taxaPorSegundo, long agoraNanos) {
+        this.capacidade = capacidade;
+        this.tokensPorNano = taxaPorSegundo / 1_000_000_000d;
+        this.tokens = capacidade;
+        this.atualizadoEm = agoraNanos;
+    }
+
+    /**
+     * Consome um token e devolve 0, ou, sem token disponível, devolve em quantos
+     * nanossegundos o próximo estará.
+     */
+    synchronized long consumir(long agoraNanos) {
+        tokens = Math.min(capacidade, tokens + (agoraNanos - atualizadoEm) * tokensPorNano);
+        atualizadoEm = agoraNanos;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPorNano);
+    }
+}
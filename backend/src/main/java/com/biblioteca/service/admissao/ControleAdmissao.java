@@ -0,0 +1,154 @@
+package com.biblioteca.service.admissao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decide se uma requisição da API entra ou é recusada na hora, antes de ocupar uma thread
+ * do Tomcat por muito tempo ou uma conexão do Hikari.
+ *
+ * <ol>
+ *   <li>Cada cliente tem um {@link BaldeTokens} com {@code biblioteca.admissao.cliente.taxa}
+ *       requisições por segundo e rajada de {@code biblioteca.admissao.cliente.rajada}; sem
+ *       token, a resposta é 429 com o tempo até o próximo.</li>
+ *   <li>Cada {@link FaixaAdmissao} tem um {@link LimiteAdaptativo} de requisições simultâneas,
+ *       até {@code biblioteca.admissao.limite-maximo.<faixa>}; com a faixa cheia, a resposta
+ *       é 503.</li>
+ * </ol>
+ *
+ * Os baldes dos clientes ficam num cache do Caffeine limitado a
+ * {@code biblioteca.admissao.cliente.maximo} entradas; um balde parado tempo suficiente para
+ * encher de novo pode ser descartado sem mudar nada.
+ */
+@Component
+@ConditionalOnProperty(name = "biblioteca.admissao.habilitado", havingValue = "true", matchIfMissing = true)
+public class ControleAdmissao implements MeterBinder {
+
+    private final double taxa;
+    private final double rajada;
+    private final Cache<String, BaldeTokens> baldes;
+    private final Map<FaixaAdmissao, LimiteAdaptativo> limites = new EnumMap<>(FaixaAdmissao.class);
+
+    private final Map<FaixaAdmissao, AtomicLong> admitidas = new EnumMap<>(FaixaAdmissao.class);
+    private final Map<FaixaAdmissao, AtomicLong> recusadasCliente = new EnumMap<>(FaixaAdmissao.class);
+    private final Map<FaixaAdmissao, AtomicLong> recusadasConcorrencia = new EnumMap<>(FaixaAdmissao.class);
+
+    public ControleAdmissao(@Value("${biblioteca.admissao.cliente.taxa:200}") double taxa,
+                            @Value("${biblioteca.admissao.cliente.rajada:400}") double rajada,
+                            @Value("${biblioteca.admissao.cliente.maximo:100000}") long maximoClientes,
+                            @Value("${biblioteca.admissao.tolerancia:2.0}") double tolerancia,
+                            @Value("${biblioteca.admissao.limite-maximo.leitura:100}") int maximoLeitura,
+                            @Value("${biblioteca.admissao.limite-maximo.consulta:48}") int maximoConsulta,
+                            @Value("${biblioteca.admissao.limite-maximo.escrita:24}") int maximoEscrita) {
+        if (taxa <= 0 || rajada < 1) {
+            throw new IllegalArgumentException("biblioteca.admissao.cliente.taxa deve ser positiva e a rajada ao menos 1");
+        }
+        this.taxa = taxa;
+        this.rajada = rajada;
+        // Depois de rajada / taxa segundos parado o balde está cheio, igual a um novo
+        Duration enchimento = Duration.ofMillis((long) Math.ceil(rajada / taxa * 1000));
+        this.baldes = Caffeine.newBuilder()
+                .maximumSize(maximoClientes)
+                .expireAfterAccess(enchimento.compareTo(Duration.ofMinutes(1)) > 0 ? enchimento : Duration.ofMinutes(1))
+                .build();
+        limites.put(FaixaAdmissao.LEITURA, limite(maximoLeitura, tolerancia));
+        limites.put(FaixaAdmissao.CONSULTA, limite(maximoConsulta, tolerancia));
+        limites.put(FaixaAdmissao.ESCRITA, limite(maximoEscrita, tolerancia));
+        for (FaixaAdmissao faixa : FaixaAdmissao.values()) {
+            admitidas.put(faixa, new AtomicLong());
+            recusadasCliente.put(faixa, new AtomicLong());
+            recusadasConcorrencia.put(faixa, new AtomicLong());
+        }
+    }
+
+    // Começa na metade do máximo e nunca desce abaixo de um décimo dele
+    private static LimiteAdaptativo limite(int maximo, double tolerancia) {
+        return new LimiteAdaptativo(Math.max(1, maximo / 2), Math.max(1, maximo / 10), maximo, tolerancia);
+    }
+
+    /**
+     * Consome um token do cliente. Devolve 0 se havia token, ou o tempo em nanossegundos
+     * até o próximo, caso em que a requisição deve ser recusada com 429.
+     */
+    public long consumirToken(String cliente, FaixaAdmissao faixa) {
+        long agora = System.nanoTime();
+        long espera = baldes.get(cliente, chave -> new BaldeTokens(rajada, taxa, agora)).consumir(agora);
+        if (espera > 0) {
+            recusadasCliente.get(faixa).incrementAndGet();
+        }
+        return espera;
+    }
+
+    /**
+     * Ocupa um lugar na faixa; {@code false} se ela está no limite e a requisição deve ser
+     * recusada com 503. Quem entrar precisa chamar {@link #sair} ou {@link #abandonar}.
+     */
+    public boolean entrar(FaixaAdmissao faixa) {
+        if (limites.get(faixa).adquirir()) {
+            admitidas.get(faixa).incrementAndGet();
+            return true;
+        }
+        recusadasConcorrencia.get(faixa).incrementAndGet();
+        return false;
+    }
+
+    public void sair(FaixaAdmissao faixa, long latenciaNanos) {
+        limites.get(faixa).liberar(latenciaNanos);
+    }
+
+    /** Libera o lugar de uma requisição que terminou em erro, sem usar a sua latência. */
+    public void abandonar(FaixaAdmissao faixa) {
+        limites.get(faixa).descartar();
+    }
+
+    public int limite(FaixaAdmissao faixa) {
+        return limites.get(faixa).limite();
+    }
+
+    public int emAndamento(FaixaAdmissao faixa) {
+        return limites.get(faixa).emAndamento();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (FaixaAdmissao faixa : FaixaAdmissao.values()) {
+            FunctionCounter.builder("biblioteca.admissao.admitidas", admitidas.get(faixa), AtomicLong::get)
+                    .tag("faixa", faixa.nome())
+                    .description("Requisições admitidas pelo controle de admissão")
+                    .register(registry);
+            FunctionCounter.builder("biblioteca.admissao.recusadas", recusadasCliente.get(faixa), AtomicLong::get)
+                    .tag("faixa", faixa.nome())
+                    .tag("motivo", "cliente")
+                    .description("Requisições recusadas com 429 (taxa do cliente) ou 503 (faixa no limite)")
+                    .register(registry);
+            FunctionCounter.builder("biblioteca.admissao.recusadas", recusadasConcorrencia.get(faixa), AtomicLong::get)
+                    .tag("faixa", faixa.nome())
+                    .tag("motivo", "concorrencia")
+                    .description("Requisições recusadas com 429 (taxa do cliente) ou 503 (faixa no limite)")
+                    .register(registry);
+            Gauge.builder("biblioteca.admissao.limite", this, controle -> controle.limite(faixa))
+                    .tag("faixa", faixa.nome())
+                    .description("Limite atual de requisições simultâneas da faixa")
+                    .register(registry);
+            Gauge.builder("biblioteca.admissao.em.andamento", this, controle -> controle.emAndamento(faixa))
+                    .tag("faixa", faixa.nome())
+                    .description("Requisições da faixa em andamento")
+                    .register(registry);
+        }
+        Gauge.builder("biblioteca.admissao.clientes", baldes, Cache::estimatedSize)
+                .description("Clientes com balde de tokens em memória")
+                .register(registry);
+    }
+}
@@ -0,0 +1,40 @@
+package com.biblioteca.service.admissao;
+
+import java.util.regex.Pattern;
+
+/**
+ * Faixas de prioridade do controle de admissão. Cada faixa tem o seu próprio limite de
+ * requisições simultâneas, então uma rajada de buscas ou de importações esgota só a sua
+ * faixa e não tira lugar das leituras baratas.
+ */
+public enum FaixaAdmissao {
+
+    /** Leituras pontuais servidas do cache ou da memória: {@code /{id}}, estatísticas, sugestões, operações. */
+    LEITURA("leitura"),
+
+    /** Varreduras e listagens: busca, pesquisa, páginas, {@code /changes}, {@code /stream}. */
+    CONSULTA("consulta"),
+
+    /** Criações, atualizações, remoções, importações e empréstimos. */
+    ESCRITA("escrita");
+
+    private static final Pattern LEITURA_PONTUAL = Pattern.compile(
+            "/api/(livros|emprestimos)/\\d+|/api/livros/operacoes/[^/]+|/api/livros/estatisticas|/api/livros/sugestoes|/api/livros/cache/metricas");
+
+    private final String nome;
+
+    FaixaAdmissao(String nome) {
+        this.nome = nome;
+    }
+
+    public String nome() {
+        return nome;
+    }
+
+    public static FaixaAdmissao classificar(String metodo, String caminho) {
+        if (!"GET".equals(metodo) && !"HEAD".equals(metodo)) {
+            return ESCRITA;
+        }
+        return LEITURA_PONTUAL.matcher(caminho).matches() ? LEITURA : CONSULTA;
+    }
+}
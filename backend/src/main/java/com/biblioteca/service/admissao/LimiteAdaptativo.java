@@ -0,0 +1,91 @@
+package com.biblioteca.service.admissao;
+
+/**
+ * Limite de requisições simultâneas de uma faixa que se ajusta pela latência observada
+ * (algoritmo de gradiente, como o Gradient2 do concurrency-limits da Netflix).
+ *
+ * São mantidas duas médias móveis exponenciais da latência: uma curta, que reflete a fila
+ * de agora, e uma longa, que aproxima a latência sem fila. A cada requisição concluída o
+ * gradiente {@code tolerancia * longa / curta}, limitado entre 0,5 e 1, multiplica o limite;
+ * somar {@code sqrt(limite)} deixa espaço para uma fila pequena e faz o limite crescer
+ * enquanto a latência está saudável. O resultado é suavizado e fica entre o mínimo e o
+ * máximo. Se menos da metade do limite estava em uso, a amostra não diz nada sobre a
+ * capacidade e o limite não cresce.
+ */
+class LimiteAdaptativo {
+
+    private static final double PESO_CURTA = 0.1;
+    private static final double PESO_LONGA = 1 / 600d;
+    private static final double SUAVIZACAO = 0.2;
+    private static final int AMOSTRAS_INICIAIS = 10;
+
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+
+    private double limite;
+    private int emAndamento;
+    private double latenciaCurta;
+    private double latenciaLonga;
+    private long amostras;
+
+    LimiteAdaptativo(int inicial, int minimo, int maximo, double tolerancia) {
+        if (minimo < 1 || minimo > maximo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Limites inválidos: inicial " + inicial + ", mínimo " + minimo
+                    + ", máximo " + maximo);
+        }
+        this.limite = inicial;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.tolerancia = tolerancia;
+    }
+
+    synchronized boolean adquirir() {
+        if (emAndamento >= (int) limite) {
+            return false;
+        }
+        emAndamento++;
+        return true;
+    }
+
+    /**
+     * Libera o lugar de uma requisição admitida; a latência entra no ajuste do limite.
+     */
+    synchronized void liberar(long latenciaNanos) {
+        int emUso = emAndamento--;
+        amostras++;
+        if (amostras <= AMOSTRAS_INICIAIS) {
+            // Média simples até haver amostras para as médias móveis
+            latenciaCurta += (latenciaNanos - latenciaCurta) / amostras;
+            latenciaLonga = latenciaCurta;
+            return;
+        }
+        latenciaCurta += (latenciaNanos - latenciaCurta) * PESO_CURTA;
+        latenciaLonga += (latenciaNanos - latenciaLonga) * PESO_LONGA;
+        // A carga caiu depois de um período lento: a média longa volta mais rápido
+        if (latenciaLonga / latenciaCurta > 2) {
+            latenciaLonga *= 0.95;
+        }
+        if (emUso < limite / 2) {
+            return;
+        }
+        double gradiente = Math.max(0.5, Math.min(1.0, tolerancia * latenciaLonga / latenciaCurta));
+        double novo = limite * gradiente + Math.sqrt(limite);
+        limite = Math.max(minimo, Math.min(maximo, limite * (1 - SUAVIZACAO) + novo * SUAVIZACAO));
+    }
+
+    /**
+     * Libera o lugar sem usar a latência, para requisições que terminaram em erro.
+     */
+    synchronized void descartar() {
+        emAndamento--;
+    }
+
+    synchronized int limite() {
+        return (int) limite;
+    }
+
+    synchronized int emAndamento() {
+        return emAndamento;
+    }
+}
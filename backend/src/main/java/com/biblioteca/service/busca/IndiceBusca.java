@@ -0,0 +1,201 @@
+package com.biblioteca.service.busca;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.IndiceCatalogo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória sobre título, autor, editora e descrição.
+ *
+ * Cada termo normalizado aponta para os livros que o contêm, com um peso que depende
+ * do campo. Os termos ficam ordenados, então um termo da consulta também casa por
+ * prefixo ("macha" encontra "machado"), com peso menor que o casamento exato.
+ * Todos os termos da consulta precisam casar; o resultado vem ordenado por relevância.
+ */
+@Component
+public class IndiceBusca implements IndiceCatalogo {
+
+    private static final float PESO_TITULO = 3.0f;
+    private static final float PESO_AUTOR = 2.0f;
+    private static final float PESO_EDITORA = 1.0f;
+    private static final float PESO_DESCRICAO = 0.5f;
+    private static final float FATOR_PREFIXO = 0.5f;
+
+    // Prefixos muito curtos expandiriam para boa parte do vocabulário
+    private static final int TAMANHO_MINIMO_PREFIXO = 3;
+
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termosPorLivro = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean pronto;
+
+    @Override
+    public void indexar(Livro livro) {
+        Map<String, Float> pesos = new HashMap<>();
+        acumular(pesos, livro.getTitulo(), PESO_TITULO);
+        acumular(pesos, livro.getAutor(), PESO_AUTOR);
+        acumular(pesos, livro.getEditora(), PESO_EDITORA);
+        acumular(pesos, livro.getDescricao(), PESO_DESCRICAO);
+
+        lock.writeLock().lock();
+        try {
+            removerTermos(livro.getId());
+            pesos.forEach((termo, peso) ->
+                    postings.computeIfAbsent(termo, t -> new HashMap<>()).put(livro.getId(), peso));
+            termosPorLivro.put(livro.getId(), pesos.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remover(Long id) {
+        lock.writeLock().lock();
+        try {
+            removerTermos(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            pronto = false;
+            postings.clear();
+            termosPorLivro.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void carregamentoConcluido() {
+        pronto = true;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return termosPorLivro.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os ids dos livros que casam com todos os termos da consulta,
+     * do mais relevante para o menos relevante.
+     */
+    public List<Long> buscar(String consulta, int limite) {
+        if (limite <= 0) {
+            return List.of();
+        }
+        Map<Long, Float> pontuacao = pontuacoes(consulta);
+        return pontuacao.isEmpty() ? List.of() : melhores(pontuacao, limite);
+    }
+
+    /**
+     * Todos os livros que casam com todos os termos da consulta, com a relevância de cada um.
+     */
+    public Map<Long, Float> pontuacoes(String consulta) {
+        Set<String> termos = new LinkedHashSet<>(NormalizadorTexto.tokenizar(consulta));
+        if (termos.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Float> pontuacao = null;
+        lock.readLock().lock();
+        try {
+            for (String termo : termos) {
+                Map<Long, Float> doTermo = pontuar(termo);
+                if (pontuacao == null) {
+                    pontuacao = doTermo;
+                } else {
+                    pontuacao.keySet().retainAll(doTermo.keySet());
+                    pontuacao.replaceAll((id, valor) -> valor + doTermo.get(id));
+                }
+                if (pontuacao.isEmpty()) {
+                    return Map.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return pontuacao;
+    }
+
+    private Map<Long, Float> pontuar(String termo) {
+        Map<Long, Float> resultado = new HashMap<>();
+        Map<String, Map<Long, Float>> candidatos = termo.length() < TAMANHO_MINIMO_PREFIXO
+                ? exato(termo)
+                : postings.subMap(termo, true, termo + Character.MAX_VALUE, false);
+        candidatos.forEach((indexado, livros) -> {
+            float fator = indexado.equals(termo) ? 1.0f : FATOR_PREFIXO;
+            // Um termo da consulta conta uma vez por livro: vale o melhor termo indexado
+            livros.forEach((id, peso) -> resultado.merge(id, peso * fator, Math::max));
+        });
+        return resultado;
+    }
+
+    private Map<String, Map<Long, Float>> exato(String termo) {
+        Map<Long, Float> livros = postings.get(termo);
+        return livros == null ? Map.of() : Map.of(termo, livros);
+    }
+
+    private static List<Long> melhores(Map<Long, Float> pontuacao, int limite) {
+        Comparator<Map.Entry<Long, Float>> ordem = Map.Entry.<Long, Float>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Float>> fila = new PriorityQueue<>(ordem.reversed());
+        for (Map.Entry<Long, Float> entrada : pontuacao.entrySet()) {
+            fila.offer(entrada);
+            if (fila.size() > limite) {
+                fila.poll();
+            }
+        }
+        List<Map.Entry<Long, Float>> ordenados = new ArrayList<>(fila);
+        ordenados.sort(ordem);
+        return ordenados.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private void removerTermos(Long id) {
+        Set<String> termos = termosPorLivro.remove(id);
+        if (termos == null) {
+            return;
+        }
+        for (String termo : termos) {
+            Map<Long, Float> livros = postings.get(termo);
+            if (livros != null) {
+                livros.remove(id);
+                if (livros.isEmpty()) {
+                    postings.remove(termo);
+                }
+            }
+        }
+    }
+
+    private static void acumular(Map<String, Float> pesos, String texto, float peso) {
+        for (String termo : NormalizadorTexto.tokenizar(texto)) {
+            pesos.merge(termo, peso, Float::sum);
+        }
+    }
+}
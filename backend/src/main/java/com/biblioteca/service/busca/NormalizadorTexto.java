@@ -0,0 +1,43 @@
+package com.biblioteca.service.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto em português para busca: minúsculas, sem acentos
+ * ("Aluísio" vira "aluisio") e sem palavras vazias.
+ */
+public final class NormalizadorTexto {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos",
+            "em", "na", "no", "nas", "nos", "um", "uma", "para", "por", "com");
+
+    private NormalizadorTexto() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (!token.isEmpty() && !PALAVRAS_VAZIAS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,113 @@
+package com.biblioteca.service.cache;
+
+import com.biblioteca.service.VersaoCatalogo;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Junta leituras idênticas e simultâneas numa única execução ("single flight").
+ *
+ * A primeira chamada com uma chave (operação, argumentos e versão do catálogo) executa a
+ * consulta; as que chegam enquanto ela está em andamento esperam e recebem o mesmo
+ * resultado, ou a mesma exceção. Assim que a execução termina a chave é removida: nada fica
+ * guardado, e a próxima chamada consulta o banco de novo. Como a versão do catálogo faz parte
+ * da chave, quem chega depois de uma alteração confirmada não aproveita uma execução
+ * iniciada antes dela. Dentro de uma transação a chamada não é compartilhada, para continuar
+ * vendo as próprias escritas.
+ *
+ * O resultado é entregue a vários chamadores ao mesmo tempo e não deve ser modificado.
+ */
+@Component
+public class Coalescedor implements MeterBinder {
+
+    private record Chave(String operacao, List<Object> argumentos, long versao) {
+    }
+
+    private final VersaoCatalogo versaoCatalogo;
+    private final Map<Chave, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+
+    private final AtomicLong execucoes = new AtomicLong();
+    private final AtomicLong compartilhadas = new AtomicLong();
+
+    public Coalescedor(VersaoCatalogo versaoCatalogo) {
+        this.versaoCatalogo = versaoCatalogo;
+    }
+
+    /**
+     * Executa {@code consulta} ou aguarda a execução idêntica que já está em andamento. Os
+     * argumentos precisam de {@code equals}/{@code hashCode} por valor.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T executar(String operacao, List<?> argumentos, Supplier<T> consulta) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return consulta.get();
+        }
+        Chave chave = new Chave(operacao, new ArrayList<>(argumentos), versaoCatalogo.atual());
+        CompletableFuture<Object> nova = new CompletableFuture<>();
+        CompletableFuture<Object> existente = emAndamento.putIfAbsent(chave, nova);
+        if (existente != null) {
+            compartilhadas.incrementAndGet();
+            return (T) aguardar(existente);
+        }
+        execucoes.incrementAndGet();
+        try {
+            T resultado = consulta.get();
+            nova.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, nova);
+        }
+    }
+
+    public long execucoes() {
+        return execucoes.get();
+    }
+
+    public long compartilhadas() {
+        return compartilhadas.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.coalescencia.execucoes", execucoes, AtomicLong::get)
+                .description("Leituras executadas no banco pelo coalescedor")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.coalescencia.compartilhadas", compartilhadas, AtomicLong::get)
+                .description("Leituras que aproveitaram uma execução idêntica em andamento")
+                .register(registry);
+        Gauge.builder("biblioteca.coalescencia.em.andamento", emAndamento, Map::size)
+                .description("Execuções em andamento com chamadores esperando ou podendo se juntar")
+                .register(registry);
+    }
+
+    private static Object aguardar(CompletableFuture<Object> execucao) {
+        try {
+            return execucao.join();
+        } catch (CompletionException e) {
+            // Repassa a mesma exceção que a execução original lançou
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+}
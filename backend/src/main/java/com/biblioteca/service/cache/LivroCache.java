@@ -0,0 +1,148 @@
+package com.biblioteca.service.cache;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.LivroAlteradoEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Cache de leitura para consultas por id e por ISBN.
+ *
+ * Usa o Caffeine (política W-TinyLFU, que considera recência e frequência), limitado
+ * por quantidade de entradas e com expiração após escrita. As entradas são invalidadas
+ * quando o livro é atualizado ou removido. Os livros em cache são instâncias destacadas
+ * compartilhadas entre requisições e não devem ser modificadas.
+ *
+ * Uma busca por ISBN que não está no cache só descobre o id depois de ler o banco, então
+ * não passa pelo carregamento atômico do Caffeine. Para que uma invalidação feita durante
+ * essa leitura não seja desfeita pelo resultado antigo, cada invalidação avança uma
+ * sequência e marca a faixa do id com ela; o resultado só entra no cache se a faixa do id
+ * não foi marcada depois que a leitura começou.
+ *
+ * As estatísticas dos dois caches são publicadas no Micrometer com os nomes
+ * {@code livros-por-id} e {@code livros-por-isbn}.
+ */
+@Component
+public class LivroCache implements MeterBinder {
+
+    private static final int FAIXAS_INVALIDACAO = 256;
+
+    private final Cache<Long, Livro> porId;
+    private final Cache<String, Long> idPorIsbn;
+    private final AtomicLong sequenciaInvalidacao = new AtomicLong();
+    // Última invalidação de cada faixa de ids
+    private final AtomicLongArray invalidadaEm = new AtomicLongArray(FAIXAS_INVALIDACAO);
+
+    public LivroCache(@Value("${biblioteca.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                      @Value("${biblioteca.cache.expiracao:10m}") Duration expiracao) {
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build();
+        this.idPorIsbn = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Livro> buscarPorId(Long id, Function<Long, Optional<Livro>> carregador) {
+        return Optional.ofNullable(porId.get(id, chave -> carregador.apply(chave).orElse(null)));
+    }
+
+    public Optional<Livro> buscarPorIsbn(String isbn, Function<String, Optional<Livro>> carregador) {
+        Long id = idPorIsbn.getIfPresent(isbn);
+        if (id != null) {
+            Livro livro = porId.getIfPresent(id);
+            if (livro != null && isbn.equals(livro.getIsbn())) {
+                return Optional.of(livro);
+            }
+            // Mapeamento antigo (ISBN alterado ou livro removido): descarta e recarrega
+            idPorIsbn.invalidate(isbn);
+        }
+        long inicio = sequenciaInvalidacao.get();
+        Optional<Livro> livro = carregador.apply(isbn);
+        livro.ifPresent(carregado -> armazenar(carregado, inicio));
+        return livro;
+    }
+
+    public void invalidar(Long id) {
+        // Marca antes de invalidar: um armazenar em andamento para este id ou vê a marca, ou
+        // termina antes e tem a entrada removida logo abaixo
+        invalidadaEm.accumulateAndGet(faixa(id), sequenciaInvalidacao.incrementAndGet(), Math::max);
+        Livro anterior = porId.getIfPresent(id);
+        porId.invalidate(id);
+        if (anterior != null) {
+            idPorIsbn.invalidate(anterior.getIsbn());
+        }
+    }
+
+    public void limpar() {
+        long sequencia = sequenciaInvalidacao.incrementAndGet();
+        for (int i = 0; i < FAIXAS_INVALIDACAO; i++) {
+            invalidadaEm.accumulateAndGet(i, sequencia, Math::max);
+        }
+        porId.invalidateAll();
+        idPorIsbn.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarLivro(LivroAlteradoEvent evento) {
+        if (evento.tipo() != LivroAlteradoEvent.TipoAlteracao.CRIADO) {
+            invalidar(evento.id());
+        }
+    }
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("porId", metricas(porId));
+        metricas.put("porIsbn", metricas(idPorIsbn));
+        return metricas;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, porId, "livros-por-id");
+        CaffeineCacheMetrics.monitor(registry, idPorIsbn, "livros-por-isbn");
+    }
+
+    private static Map<String, Object> metricas(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("tamanho", cache.estimatedSize());
+        metricas.put("acertos", stats.hitCount());
+        metricas.put("falhas", stats.missCount());
+        metricas.put("despejos", stats.evictionCount());
+        metricas.put("taxaAcerto", stats.hitRate());
+        return metricas;
+    }
+
+    private void armazenar(Livro livro, long inicio) {
+        // Dentro do compute, uma invalidação do mesmo id espera este armazenamento terminar
+        Livro armazenado = porId.asMap().compute(livro.getId(),
+                (id, atual) -> invalidadaEm.get(faixa(id)) > inicio ? atual : livro);
+        if (armazenado == livro) {
+            idPorIsbn.put(livro.getIsbn(), livro.getId());
+        }
+    }
+
+    private static int faixa(Long id) {
+        return Math.floorMod(Long.hashCode(id * 0x9E3779B97F4A7C15L), FAIXAS_INVALIDACAO);
+    }
+}
@@ -0,0 +1,275 @@
+package com.biblioteca.service.disponibilidade;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.IndiceCatalogo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap comprimido, no estilo Roaring, com os ids dos livros disponíveis.
+ *
+ * Os ids são divididos em blocos de 65.536 pelos bits altos; cada bloco guarda os 16 bits
+ * baixos num array ordenado enquanto tem até {@value #LIMITE_ARRAY} ids e num bitmap de
+ * 8 KB acima disso. Com ids de sequência, blocos densos ocupam 1 bit por livro e blocos
+ * esparsos (ids altos, remoções em massa) 2 bytes por livro disponível.
+ *
+ * A contagem é mantida a cada alteração e as páginas em ordem de id saem dos blocos sem
+ * varrer o que vem antes do cursor.
+ */
+@Component
+public class IndiceDisponibilidade implements IndiceCatalogo {
+
+    static final int LIMITE_ARRAY = 4096;
+
+    private static final int BITS_BLOCO = 16;
+    private static final int MASCARA_BLOCO = (1 << BITS_BLOCO) - 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Bloco> blocos = new TreeMap<>();
+    private volatile long quantidade;
+    private volatile boolean pronto;
+
+    @Override
+    public void indexar(Livro livro) {
+        if (Boolean.TRUE.equals(livro.getDisponivel())) {
+            adicionar(livro.getId());
+        } else {
+            remover(livro.getId());
+        }
+    }
+
+    @Override
+    public void remover(Long id) {
+        lock.writeLock().lock();
+        try {
+            Long chave = id >>> BITS_BLOCO;
+            Bloco bloco = blocos.get(chave);
+            if (bloco != null && bloco.remover((int) (id & MASCARA_BLOCO))) {
+                quantidade--;
+                if (bloco.cardinalidade() == 0) {
+                    blocos.remove(chave);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            pronto = false;
+            blocos.clear();
+            quantidade = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void carregamentoConcluido() {
+        pronto = true;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public long quantidade() {
+        return quantidade;
+    }
+
+    public boolean contem(long id) {
+        lock.readLock().lock();
+        try {
+            Bloco bloco = blocos.get(id >>> BITS_BLOCO);
+            return bloco != null && bloco.contem((int) (id & MASCARA_BLOCO));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Até {@code limite} ids disponíveis maiores que {@code aposId}, em ordem crescente.
+     */
+    public List<Long> proximos(long aposId, int limite) {
+        List<Long> ids = new ArrayList<>(Math.min(limite, 1024));
+        if (aposId == Long.MAX_VALUE) {
+            return ids;
+        }
+        long inicio = Math.max(0, aposId + 1);
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Bloco> entrada : blocos.tailMap(inicio >>> BITS_BLOCO, true).entrySet()) {
+                long base = entrada.getKey() << BITS_BLOCO;
+                int baixo = base < inicio ? (int) (inicio & MASCARA_BLOCO) : 0;
+                Bloco bloco = entrada.getValue();
+                for (baixo = bloco.proximo(baixo); baixo >= 0; baixo = bloco.proximo(baixo + 1)) {
+                    if (ids.size() == limite) {
+                        return ids;
+                    }
+                    ids.add(base | baixo);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memória ocupada pelos blocos, sem contar o mapa que os organiza.
+     */
+    public long bytes() {
+        lock.readLock().lock();
+        try {
+            return blocos.values().stream().mapToLong(Bloco::bytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void adicionar(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (blocos.computeIfAbsent(id >>> BITS_BLOCO, chave -> new Bloco()).adicionar((int) (id & MASCARA_BLOCO))) {
+                quantidade++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Os 16 bits baixos dos ids de um bloco: array ordenado de {@code char} enquanto esparso,
+     * bitmap de 1024 {@code long} quando passa de {@value #LIMITE_ARRAY} valores.
+     */
+    private static final class Bloco {
+
+        private static final int PALAVRAS = (1 << BITS_BLOCO) / Long.SIZE;
+
+        private char[] valores = new char[4];
+        private long[] palavras;
+        private int cardinalidade;
+
+        int cardinalidade() {
+            return cardinalidade;
+        }
+
+        boolean contem(int baixo) {
+            if (palavras != null) {
+                return (palavras[baixo >>> 6] & (1L << baixo)) != 0;
+            }
+            return Arrays.binarySearch(valores, 0, cardinalidade, (char) baixo) >= 0;
+        }
+
+        boolean adicionar(int baixo) {
+            if (palavras != null) {
+                long bit = 1L << baixo;
+                if ((palavras[baixo >>> 6] & bit) != 0) {
+                    return false;
+                }
+                palavras[baixo >>> 6] |= bit;
+                cardinalidade++;
+                return true;
+            }
+            int posicao = Arrays.binarySearch(valores, 0, cardinalidade, (char) baixo);
+            if (posicao >= 0) {
+                return false;
+            }
+            if (cardinalidade == LIMITE_ARRAY) {
+                paraBitmap();
+                return adicionar(baixo);
+            }
+            posicao = -posicao - 1;
+            if (cardinalidade == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(LIMITE_ARRAY, valores.length * 2));
+            }
+            System.arraycopy(valores, posicao, valores, posicao + 1, cardinalidade - posicao);
+            valores[posicao] = (char) baixo;
+            cardinalidade++;
+            return true;
+        }
+
+        boolean remover(int baixo) {
+            if (palavras != null) {
+                long bit = 1L << baixo;
+                if ((palavras[baixo >>> 6] & bit) == 0) {
+                    return false;
+                }
+                palavras[baixo >>> 6] &= ~bit;
+                cardinalidade--;
+                // Abaixo da metade do limite, para não alternar a cada inclusão e remoção
+                if (cardinalidade <= LIMITE_ARRAY / 2) {
+                    paraArray();
+                }
+                return true;
+            }
+            int posicao = Arrays.binarySearch(valores, 0, cardinalidade, (char) baixo);
+            if (posicao < 0) {
+                return false;
+            }
+            System.arraycopy(valores, posicao + 1, valores, posicao, cardinalidade - posicao - 1);
+            cardinalidade--;
+            return true;
+        }
+
+        /**
+         * Menor valor a partir de {@code baixo}, ou -1 se não houver.
+         */
+        int proximo(int baixo) {
+            if (baixo > MASCARA_BLOCO) {
+                return -1;
+            }
+            if (palavras != null) {
+                int indice = baixo >>> 6;
+                long palavra = palavras[indice] & (-1L << baixo);
+                while (palavra == 0) {
+                    if (++indice == PALAVRAS) {
+                        return -1;
+                    }
+                    palavra = palavras[indice];
+                }
+                return indice * Long.SIZE + Long.numberOfTrailingZeros(palavra);
+            }
+            int posicao = Arrays.binarySearch(valores, 0, cardinalidade, (char) baixo);
+            if (posicao < 0) {
+                posicao = -posicao - 1;
+            }
+            return posicao < cardinalidade ? valores[posicao] : -1;
+        }
+
+        long bytes() {
+            return palavras != null ? (long) palavras.length * Long.BYTES : (long) valores.length * Character.BYTES;
+        }
+
+        private void paraBitmap() {
+            palavras = new long[PALAVRAS];
+            for (int i = 0; i < cardinalidade; i++) {
+                palavras[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            valores = null;
+        }
+
+        private void paraArray() {
+            valores = new char[Math.max(4, cardinalidade)];
+            int posicao = 0;
+            for (int indice = 0; indice < PALAVRAS; indice++) {
+                long palavra = palavras[indice];
+                while (palavra != 0) {
+                    valores[posicao++] = (char) (indice * Long.SIZE + Long.numberOfTrailingZeros(palavra));
+                    palavra &= palavra - 1;
+                }
+            }
+            palavras = null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.biblioteca.service.emprestimo;
+
+/**
+ * O empréstimo não pode ser feito ou encerrado no estado atual: o livro já está emprestado
+ * (ou indisponível) ou o empréstimo já foi devolvido.
+ */
+public class EmprestimoConflitoException extends RuntimeException {
+
+    public EmprestimoConflitoException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -0,0 +1,208 @@
+package com.biblioteca.service.emprestimo;
+
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.LivroAlteradoEvent;
+import com.biblioteca.service.LivroService;
+import com.biblioteca.service.disponibilidade.IndiceDisponibilidade;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Empréstimos e devoluções de livros.
+ *
+ * A disponibilidade muda por uma atualização condicional
+ * ({@code UPDATE ... SET disponivel = false WHERE id = ? AND disponivel = true}), sem ler
+ * o livro antes: de dois empréstimos simultâneos só um altera a linha, e o outro recebe
+ * 409. A alteração publica o {@link LivroAlteradoEvent} de sempre, então o registro de
+ * alterações, os índices e o cache acompanham.
+ *
+ * As operações de um mesmo livro passam por uma de {@code biblioteca.emprestimos.travas}
+ * travas, escolhida pelo id, que é mantida durante a transação. Pedidos concorrentes pelo
+ * mesmo título esperam na JVM, sem segurar uma conexão bloqueada no lock da linha, e
+ * livros diferentes quase sempre caem em travas diferentes. Um livro que o bitmap de
+ * disponibilidade já mostra emprestado é recusado sem trava, depois de uma leitura da
+ * coluna que o confirma: o bitmap pode estar atrás de uma devolução recém-confirmada, e
+ * se o banco já o mostra disponível o pedido segue para a atualização condicional.
+ */
+@Service
+public class EmprestimoService implements MeterBinder {
+
+    private static final String LIVRO_INDISPONIVEL = "Livro indisponível para empréstimo";
+    private static final String JA_DEVOLVIDO = "Empréstimo já devolvido";
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private IndiceDisponibilidade indiceDisponibilidade;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+    // ReentrantLock e não synchronized: não prende a thread de plataforma das threads virtuais
+    private final ReentrantLock[] travas;
+    private final Duration esperaTrava;
+    private final Period prazoPadrao;
+
+    private final AtomicLong emprestimos = new AtomicLong();
+    private final AtomicLong recusados = new AtomicLong();
+    private final AtomicLong devolucoes = new AtomicLong();
+
+    public EmprestimoService(PlatformTransactionManager transactionManager,
+                             @Value("${biblioteca.emprestimos.travas:64}") int travas,
+                             @Value("${biblioteca.emprestimos.espera-trava:2s}") Duration esperaTrava,
+                             @Value("${biblioteca.emprestimos.prazo-padrao:P14D}") Period prazoPadrao) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.travas = new ReentrantLock[Math.max(1, travas)];
+        for (int i = 0; i < this.travas.length; i++) {
+            this.travas[i] = new ReentrantLock();
+        }
+        this.esperaTrava = esperaTrava;
+        this.prazoPadrao = prazoPadrao;
+    }
+
+    /**
+     * Empresta o livro ao membro até {@code devolverAte} (ou pelo prazo padrão).
+     *
+     * @throws EmprestimoConflitoException se o livro não está disponível
+     * @throws LivroOcupadoException       se a trava do livro não foi obtida a tempo
+     */
+    public Emprestimo emprestar(Long livroId, String membro, LocalDate devolverAte) {
+        if (membro == null || membro.isBlank()) {
+            throw new IllegalArgumentException("Membro é obrigatório");
+        }
+        LocalDate hoje = LocalDate.now();
+        LocalDate prazo = devolverAte != null ? devolverAte : hoje.plus(prazoPadrao);
+        if (prazo.isBefore(hoje)) {
+            throw new IllegalArgumentException("A data de devolução não pode estar no passado");
+        }
+        // Títulos disputados: a maioria dos pedidos chega com o livro já emprestado
+        if (indiceDisponibilidade.isPronto() && !indiceDisponibilidade.contem(livroId)
+                && livroRepository.disponibilidade(livroId).filter(disponivel -> !disponivel).isPresent()) {
+            recusados.incrementAndGet();
+            throw new EmprestimoConflitoException(LIVRO_INDISPONIVEL);
+        }
+        Emprestimo emprestimo = comTrava(livroId, () -> transactionTemplate.execute(status -> {
+            Instant agora = Instant.now();
+            if (livroRepository.trocarDisponibilidade(livroId, true, false, agora) == 0) {
+                if (!livroRepository.existsById(livroId)) {
+                    throw new RuntimeException("Livro não encontrado");
+                }
+                recusados.incrementAndGet();
+                throw new EmprestimoConflitoException(LIVRO_INDISPONIVEL);
+            }
+            Emprestimo novo = emprestimoRepository.save(new Emprestimo(livroId, membro.trim(), agora, prazo));
+            publicarAlteracao(livroId);
+            return novo;
+        }));
+        emprestimos.incrementAndGet();
+        return emprestimo;
+    }
+
+    /**
+     * Encerra o empréstimo e devolve o livro ao acervo.
+     *
+     * @throws EmprestimoConflitoException se o empréstimo já foi devolvido
+     * @throws LivroOcupadoException       se a trava do livro não foi obtida a tempo
+     */
+    public Emprestimo devolver(Long id) {
+        Emprestimo emprestimo = emprestimoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Empréstimo não encontrado"));
+        if (!emprestimo.isAberto()) {
+            throw new EmprestimoConflitoException(JA_DEVOLVIDO);
+        }
+        Long livroId = emprestimo.getLivroId();
+        comTrava(livroId, () -> transactionTemplate.execute(status -> {
+            Instant agora = Instant.now();
+            if (emprestimoRepository.encerrar(id, agora) == 0) {
+                throw new EmprestimoConflitoException(JA_DEVOLVIDO);
+            }
+            // Zero se o livro foi removido ou marcado disponível por um PUT nesse meio tempo
+            if (livroRepository.trocarDisponibilidade(livroId, false, true, agora) > 0) {
+                publicarAlteracao(livroId);
+            }
+            emprestimo.setDevolvidoEm(agora);
+            return emprestimo;
+        }));
+        devolucoes.incrementAndGet();
+        return emprestimo;
+    }
+
+    public Optional<Emprestimo> buscarPorId(Long id) {
+        return emprestimoRepository.findById(id);
+    }
+
+    public List<Emprestimo> historicoDoLivro(Long livroId) {
+        return emprestimoRepository.findByLivroIdOrderByIdDesc(livroId,
+                PageRequest.of(0, LivroService.LIMITE_MAXIMO_PAGINA));
+    }
+
+    public List<Emprestimo> historicoDoMembro(String membro) {
+        return emprestimoRepository.findByMembroOrderByIdDesc(membro.trim(),
+                PageRequest.of(0, LivroService.LIMITE_MAXIMO_PAGINA));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.emprestimos.operacoes", emprestimos, AtomicLong::get)
+                .tag("resultado", "emprestado")
+                .description("Empréstimos realizados")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.emprestimos.operacoes", recusados, AtomicLong::get)
+                .tag("resultado", "indisponivel")
+                .description("Empréstimos recusados por o livro já estar emprestado")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.emprestimos.operacoes", devolucoes, AtomicLong::get)
+                .tag("resultado", "devolvido")
+                .description("Devoluções registradas")
+                .register(registry);
+    }
+
+    private void publicarAlteracao(Long livroId) {
+        // O UPDATE não passa pelo contexto de persistência: o livro é lido já alterado
+        livroRepository.findById(livroId)
+                .ifPresent(livro -> eventPublisher.publishEvent(LivroAlteradoEvent.atualizado(livro)));
+    }
+
+    private <T> T comTrava(Long livroId, Supplier<T> operacao) {
+        ReentrantLock trava = travas[Math.floorMod(Long.hashCode(livroId * 0x9E3779B97F4A7C15L), travas.length)];
+        try {
+            if (!trava.tryLock(esperaTrava.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new LivroOcupadoException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LivroOcupadoException();
+        }
+        try {
+            return operacao.get();
+        } finally {
+            trava.unlock();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.biblioteca.service.emprestimo;
+
+/**
+ * Outras operações de empréstimo do mesmo livro (ou de livros na mesma faixa de travas)
+ * não terminaram dentro da espera configurada: o cliente deve tentar novamente.
+ */
+public class LivroOcupadoException extends RuntimeException {
+
+    public LivroOcupadoException() {
+        super("Livro com muitas operações simultâneas; tente novamente em instantes");
+    }
+}
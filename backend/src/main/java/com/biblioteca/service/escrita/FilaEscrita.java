@@ -0,0 +1,299 @@
+package com.biblioteca.service.escrita;
+
+import com.biblioteca.dto.StatusOperacao;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.LivroService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escritas assíncronas (write-behind) para rajadas de criações, atualizações e remoções.
+ *
+ * Cada operação aceita vai para uma de {@code biblioteca.escrita.filas} filas limitadas:
+ * atualizações e remoções são distribuídas pelo id do livro, e as escritas de um mesmo
+ * livro ficam na mesma fila e são gravadas na ordem de chegada; criações, que ainda não
+ * têm id, pelo ISBN. Um ISBN disputado por escritas em filas diferentes é resolvido pela
+ * constraint única da coluna, que recusa a segunda. Uma thread por fila junta o que estiver pendente (até
+ * {@code biblioteca.escrita.tamanho-lote}) e grava tudo numa única transação, com um
+ * só commit por lote. Se o lote falhar (ISBN duplicado, versão
+ * desatualizada, livro removido), ele é desfeito e as operações são regravadas uma a uma,
+ * para que só as inválidas falhem.
+ *
+ * O resultado de cada operação fica disponível por {@code biblioteca.escrita.retencao-status}.
+ * As filas ficam em memória: ao encerrar, o que estiver pendente é gravado antes de o
+ * servidor parar, mas uma queda do processo perde as operações ainda não gravadas.
+ */
+@Component
+public class FilaEscrita implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(FilaEscrita.class);
+
+    static final long MAXIMO_STATUS = 100_000;
+
+    private static final long ESPERA_MS = 200;
+    private static final long TEMPO_ENCERRAMENTO_MS = 30_000;
+
+    @Autowired
+    private LivroService livroService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Operacao(String id, StatusOperacao.Tipo tipo, Long livroId, Livro dados) {
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final List<Pista> pistas;
+    private final int tamanhoLote;
+    private final Cache<String, StatusOperacao> status;
+
+    private final AtomicLong concluidas = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+
+    private volatile boolean aceitando = true;
+
+    public FilaEscrita(PlatformTransactionManager transactionManager,
+                       @Value("${biblioteca.escrita.filas:4}") int filas,
+                       @Value("${biblioteca.escrita.capacidade-fila:2500}") int capacidadeFila,
+                       @Value("${biblioteca.escrita.tamanho-lote:200}") int tamanhoLote,
+                       @Value("${biblioteca.escrita.retencao-status:1h}") Duration retencaoStatus) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+        this.pistas = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            pistas.add(new Pista(i, capacidadeFila));
+        }
+        this.status = Caffeine.newBuilder()
+                .maximumSize(MAXIMO_STATUS)
+                .expireAfterWrite(retencaoStatus)
+                .build();
+    }
+
+    @PostConstruct
+    void iniciar() {
+        pistas.forEach(pista -> pista.thread.start());
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        aceitando = false;
+        long limite = System.currentTimeMillis() + TEMPO_ENCERRAMENTO_MS;
+        for (Pista pista : pistas) {
+            pista.thread.join(Math.max(1, limite - System.currentTimeMillis()));
+        }
+        // Aceitas durante o encerramento, depois que a thread da fila já tinha saído
+        for (Pista pista : pistas) {
+            List<Operacao> restantes = new ArrayList<>();
+            pista.fila.drainTo(restantes);
+            if (!restantes.isEmpty()) {
+                gravar(restantes);
+            }
+        }
+    }
+
+    public StatusOperacao criar(Livro livro) {
+        return enfileirar(StatusOperacao.Tipo.CRIACAO, null, livro, livro.getIsbn().hashCode());
+    }
+
+    public StatusOperacao atualizar(Long id, Livro livro) {
+        exigirExistente(id);
+        return enfileirar(StatusOperacao.Tipo.ATUALIZACAO, id, livro, espalhar(id));
+    }
+
+    public StatusOperacao deletar(Long id) {
+        exigirExistente(id);
+        return enfileirar(StatusOperacao.Tipo.REMOCAO, id, null, espalhar(id));
+    }
+
+    public Optional<StatusOperacao> status(String id) {
+        return Optional.ofNullable(status.getIfPresent(id));
+    }
+
+    public int pendentes() {
+        return pistas.stream().mapToInt(pista -> pista.fila.size()).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("biblioteca.escrita.pendentes", this, FilaEscrita::pendentes)
+                .description("Escritas assíncronas aguardando gravação")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.escrita.operacoes", concluidas, AtomicLong::get)
+                .tag("resultado", "concluida")
+                .description("Escritas assíncronas gravadas")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.escrita.operacoes", falhas, AtomicLong::get)
+                .tag("resultado", "falhou")
+                .description("Escritas assíncronas recusadas")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.escrita.lotes", lotes, AtomicLong::get)
+                .description("Lotes gravados numa única transação")
+                .register(registry);
+    }
+
+    // Só para responder 404 já na chamada; a fila não depende do que o cache diz do livro
+    private void exigirExistente(Long id) {
+        if (livroService.buscarPorId(id).isEmpty()) {
+            throw new RuntimeException("Livro não encontrado");
+        }
+    }
+
+    // Ids sequenciais espalhados pelas filas
+    private static int espalhar(Long id) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L);
+    }
+
+    private StatusOperacao enfileirar(StatusOperacao.Tipo tipo, Long livroId, Livro dados, int chave) {
+        if (!aceitando) {
+            throw new FilaEscritaCheiaException("Servidor encerrando; tente novamente em instantes");
+        }
+        StatusOperacao pendente = StatusOperacao.pendente(UUID.randomUUID().toString(), tipo, livroId);
+        // Registrado antes de entrar na fila, para que a conclusão nunca chegue antes
+        status.put(pendente.id(), pendente);
+        Pista pista = pistas.get(Math.floorMod(chave, pistas.size()));
+        if (!pista.fila.offer(new Operacao(pendente.id(), tipo, livroId, dados))) {
+            status.invalidate(pendente.id());
+            throw new FilaEscritaCheiaException("Fila de escrita cheia; tente novamente em instantes");
+        }
+        return pendente;
+    }
+
+    private void gravar(List<Operacao> lote) {
+        try {
+            List<Long> ids = transactionTemplate.execute(transacao -> {
+                // Sem flush automático antes das consultas do lote; cada gravação já faz o
+                // seu, e um ISBN repetido dentro do próprio lote falha ali e cai na
+                // regravação individual abaixo.
+                entityManager.setFlushMode(FlushModeType.COMMIT);
+                List<Long> gravados = new ArrayList<>(lote.size());
+                for (Operacao operacao : lote) {
+                    gravados.add(executar(operacao));
+                }
+                return gravados;
+            });
+            for (int i = 0; i < lote.size(); i++) {
+                concluir(lote.get(i), ids.get(i));
+            }
+            lotes.incrementAndGet();
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                falhar(lote.get(0), e);
+                return;
+            }
+            log.debug("Lote de {} escritas desfeito ({}); gravando uma a uma", lote.size(), e.getMessage());
+            for (Operacao operacao : lote) {
+                try {
+                    concluir(operacao, transactionTemplate.execute(transacao -> executar(operacao)));
+                } catch (RuntimeException erro) {
+                    falhar(operacao, erro);
+                }
+            }
+        }
+    }
+
+    private Long executar(Operacao operacao) {
+        return switch (operacao.tipo()) {
+            // Cópia: se o lote for desfeito, a entidade persistida fica com id e versão
+            case CRIACAO -> livroService.salvar(copiar(operacao.dados())).getId();
+            case ATUALIZACAO -> livroService.atualizar(operacao.livroId(), operacao.dados()).getId();
+            case REMOCAO -> {
+                livroService.deletar(operacao.livroId());
+                yield operacao.livroId();
+            }
+        };
+    }
+
+    private void concluir(Operacao operacao, Long livroId) {
+        concluidas.incrementAndGet();
+        status.asMap().computeIfPresent(operacao.id(), (id, atual) -> atual.concluida(livroId));
+    }
+
+    private void falhar(Operacao operacao, RuntimeException erro) {
+        falhas.incrementAndGet();
+        log.debug("Escrita assíncrona {} ({}) recusada: {}", operacao.id(), operacao.tipo(), erro.getMessage());
+        status.asMap().computeIfPresent(operacao.id(), (id, atual) -> atual.falhou(mensagem(erro)));
+    }
+
+    private static String mensagem(RuntimeException erro) {
+        if (erro instanceof OptimisticLockingFailureException) {
+            return "O livro foi alterado por outra pessoa; recarregue e tente novamente";
+        }
+        if (erro instanceof DataIntegrityViolationException) {
+            return "Já existe um livro com este ISBN";
+        }
+        return erro.getMessage();
+    }
+
+    private static Livro copiar(Livro livro) {
+        Livro copia = new Livro(livro.getTitulo(), livro.getAutor(), livro.getIsbn(), livro.getAnoPublicacao());
+        copia.setEditora(livro.getEditora());
+        copia.setDescricao(livro.getDescricao());
+        copia.setDisponivel(livro.getDisponivel());
+        return copia;
+    }
+
+    private final class Pista implements Runnable {
+
+        private final BlockingQueue<Operacao> fila;
+        private final Thread thread;
+
+        Pista(int numero, int capacidade) {
+            this.fila = new ArrayBlockingQueue<>(capacidade);
+            this.thread = new Thread(this, "escrita-" + numero);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Operacao> lote = new ArrayList<>(tamanhoLote);
+            while (aceitando || !fila.isEmpty()) {
+                try {
+                    Operacao primeira = fila.poll(ESPERA_MS, TimeUnit.MILLISECONDS);
+                    if (primeira == null) {
+                        continue;
+                    }
+                    lote.add(primeira);
+                    fila.drainTo(lote, tamanhoLote - 1);
+                    gravar(lote);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Falha inesperada ao gravar lote de escritas", e);
+                    lote.forEach(operacao -> falhar(operacao, e));
+                } finally {
+                    lote.clear();
+                }
+            }
+        }
+    }
+}
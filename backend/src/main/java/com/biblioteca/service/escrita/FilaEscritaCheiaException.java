@@ -0,0 +1,12 @@
+package com.biblioteca.service.escrita;
+
+/**
+ * A fila de escrita assíncrona daquele livro está cheia (ou o servidor está encerrando):
+ * o cliente deve tentar novamente mais tarde.
+ */
+public class FilaEscritaCheiaException extends RuntimeException {
+
+    public FilaEscritaCheiaException(String mensagem) {
+        super(mensagem);
+    }
+}
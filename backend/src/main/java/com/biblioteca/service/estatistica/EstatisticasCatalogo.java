@@ -0,0 +1,303 @@
+package com.biblioteca.service.estatistica;
+
+import com.biblioteca.dto.Estatisticas;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.IndiceCatalogo;
+import com.biblioteca.service.VersaoCatalogo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores do catálogo mantidos a cada escrita, para que as estatísticas não
+ * precisem consultar o banco.
+ *
+ * Guarda um resumo compacto de cada livro indexado para poder desfazer a contribuição
+ * anterior quando o livro muda ou sai do catálogo. Periodicamente os contadores são
+ * conferidos com agregações no banco.
+ *
+ * A conferência não para as escritas: uma alteração pode ser confirmada entre a leitura dos
+ * contadores e a consulta, ou chegar atrasada pela replicação. Por isso a diferença é
+ * calculada contra os valores lidos antes da consulta e somada aos contadores, sem
+ * sobrescrevê-los. Um contador que mudou enquanto a consulta rodava fica para a próxima
+ * conferência, e a diferença só é corrigida quando aparece igual em duas conferências
+ * seguidas: a das escritas em andamento muda de uma para outra, a de um erro de contagem não.
+ */
+@Component
+public class EstatisticasCatalogo implements IndiceCatalogo {
+
+    private static final Logger log = LoggerFactory.getLogger(EstatisticasCatalogo.class);
+
+    public static final int MAXIMO_POR_CATEGORIA = 20;
+
+    private record Resumo(String autor, String editora, Integer decada, boolean disponivel) {
+    }
+
+    // Identifica um contador entre conferências: total, disponíveis ou uma chave de um grupo
+    private record Contador(String grupo, Object chave) {
+    }
+
+    private record Contagens(long total,
+                             long disponiveis,
+                             Map<String, Long> porAutor,
+                             Map<String, Long> porEditora,
+                             Map<Integer, Long> porDecada) {
+    }
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    private final Map<Long, Resumo> resumos = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final LongAdder disponiveis = new LongAdder();
+    private final Map<String, LongAdder> porAutor = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> porEditora = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> porDecada = new ConcurrentHashMap<>();
+
+    // Documento pronto para o endpoint, refeito apenas quando algum contador muda
+    private final AtomicLong versao = new AtomicLong();
+    private volatile long versaoDocumento = -1;
+    private volatile Estatisticas documento;
+    private volatile boolean pronto;
+    // Diferença de cada contador que divergiu na conferência anterior
+    private volatile Map<Contador, Long> divergentes = Map.of();
+
+    @Override
+    public void indexar(Livro livro) {
+        Resumo novo = new Resumo(livro.getAutor(), livro.getEditora(), decada(livro.getAnoPublicacao()),
+                Boolean.TRUE.equals(livro.getDisponivel()));
+        resumos.compute(livro.getId(), (id, anterior) -> {
+            if (anterior != null) {
+                contabilizar(anterior, -1);
+            }
+            contabilizar(novo, 1);
+            return novo;
+        });
+    }
+
+    @Override
+    public void remover(Long id) {
+        resumos.computeIfPresent(id, (chave, anterior) -> {
+            contabilizar(anterior, -1);
+            return null;
+        });
+    }
+
+    @Override
+    public void limpar() {
+        pronto = false;
+        resumos.clear();
+        total.reset();
+        disponiveis.reset();
+        porAutor.clear();
+        porEditora.clear();
+        porDecada.clear();
+        divergentes = Map.of();
+        versao.incrementAndGet();
+    }
+
+    @Override
+    public void carregamentoConcluido() {
+        pronto = true;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public long disponiveis() {
+        return disponiveis.sum();
+    }
+
+    /**
+     * Estatísticas a partir dos contadores; antes da carga inicial, a partir do banco.
+     */
+    public Estatisticas obter() {
+        if (!pronto) {
+            return montar(contarNoBanco());
+        }
+        long atual = versao.get();
+        Estatisticas pronta = documento;
+        if (pronta != null && versaoDocumento == atual) {
+            return pronta;
+        }
+        pronta = montar(new Contagens(total.sum(), disponiveis.sum(),
+                somas(porAutor), somas(porEditora), somas(porDecada)));
+        documento = pronta;
+        versaoDocumento = atual;
+        return pronta;
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.estatisticas.reconciliacao:PT5M}",
+               initialDelayString = "${biblioteca.estatisticas.reconciliacao:PT5M}")
+    public void reconciliar() {
+        if (!pronto) {
+            return;
+        }
+        Contagens antes = new Contagens(total.sum(), disponiveis.sum(),
+                valores(porAutor), valores(porEditora), valores(porDecada));
+        Contagens banco = contarNoBanco();
+        Contagens depois = new Contagens(total.sum(), disponiveis.sum(),
+                valores(porAutor), valores(porEditora), valores(porDecada));
+        if (!pronto) {
+            return;
+        }
+        Map<Contador, Long> agora = new HashMap<>();
+        long corrigidos = ajustar(new Contador("total", null), total,
+                        antes.total(), depois.total(), banco.total(), agora)
+                + ajustar(new Contador("disponiveis", null), disponiveis,
+                        antes.disponiveis(), depois.disponiveis(), banco.disponiveis(), agora)
+                + ajustar("autor", porAutor, antes.porAutor(), depois.porAutor(), banco.porAutor(), agora)
+                + ajustar("editora", porEditora, antes.porEditora(), depois.porEditora(), banco.porEditora(), agora)
+                + ajustar("decada", porDecada, antes.porDecada(), depois.porDecada(), banco.porDecada(), agora);
+        divergentes = agora;
+        if (corrigidos > 0) {
+            versao.incrementAndGet();
+            versaoCatalogo.avancar();
+            log.warn("Estatísticas do catálogo reconciliadas com o banco: {} contadores corrigidos", corrigidos);
+        } else if (!agora.isEmpty()) {
+            log.debug("{} contadores diferentes do banco; conferidos de novo na próxima reconciliação", agora.size());
+        }
+    }
+
+    private void contabilizar(Resumo resumo, int sinal) {
+        total.add(sinal);
+        if (resumo.disponivel()) {
+            disponiveis.add(sinal);
+        }
+        if (resumo.autor() != null) {
+            porAutor.computeIfAbsent(resumo.autor(), chave -> new LongAdder()).add(sinal);
+        }
+        if (resumo.editora() != null) {
+            porEditora.computeIfAbsent(resumo.editora(), chave -> new LongAdder()).add(sinal);
+        }
+        if (resumo.decada() != null) {
+            porDecada.computeIfAbsent(resumo.decada(), chave -> new LongAdder()).add(sinal);
+        }
+        versao.incrementAndGet();
+    }
+
+    private Contagens contarNoBanco() {
+        return new Contagens(
+                livroRepository.count(),
+                livroRepository.countByDisponivel(true),
+                agrupar(livroRepository.contarPorAutor()),
+                agrupar(livroRepository.contarPorEditora()),
+                agrupar(livroRepository.contarPorDecada()));
+    }
+
+    private static Estatisticas montar(Contagens contagens) {
+        return new Estatisticas(
+                contagens.total(),
+                contagens.disponiveis(),
+                contagens.total() - contagens.disponiveis(),
+                maiores(contagens.porAutor()),
+                maiores(contagens.porEditora()),
+                new TreeMap<>(contagens.porDecada()));
+    }
+
+    private static Map<String, Long> maiores(Map<String, Long> contagens) {
+        Map<String, Long> maiores = new LinkedHashMap<>();
+        contagens.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAXIMO_POR_CATEGORIA)
+                .forEach(entrada -> maiores.put(entrada.getKey(), entrada.getValue()));
+        return maiores;
+    }
+
+    private static <K> Map<K, Long> somas(Map<K, LongAdder> contadores) {
+        Map<K, Long> somas = new HashMap<>();
+        contadores.forEach((chave, contador) -> {
+            long soma = contador.sum();
+            if (soma > 0) {
+                somas.put(chave, soma);
+            }
+        });
+        return somas;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Map<K, Long> agrupar(List<Object[]> linhas) {
+        Map<K, Long> contagens = new HashMap<>();
+        for (Object[] linha : linhas) {
+            if (linha[0] != null) {
+                contagens.put((K) linha[0], ((Number) linha[1]).longValue());
+            }
+        }
+        return contagens;
+    }
+
+    // Soma a diferença contra o valor lido antes da consulta, para não apagar escritas
+    // aplicadas depois dela; só corrige a que já apareceu igual na conferência anterior
+    private long ajustar(Contador contador, LongAdder valor, long antes, long depois, long esperado,
+                         Map<Contador, Long> agora) {
+        long diferenca = esperado - antes;
+        if (diferenca == 0 || depois != antes) {
+            // Sem diferença, ou o contador mudou durante a consulta e não dá para comparar
+            return 0;
+        }
+        Long anterior = divergentes.get(contador);
+        if (anterior == null || anterior != diferenca) {
+            agora.put(contador, diferenca);
+            return 0;
+        }
+        valor.add(diferenca);
+        return 1;
+    }
+
+    private <K> long ajustar(String grupo, Map<K, LongAdder> contadores, Map<K, Long> antes, Map<K, Long> depois,
+                             Map<K, Long> esperados, Map<Contador, Long> agora) {
+        Set<K> chaves = new HashSet<>(antes.keySet());
+        chaves.addAll(esperados.keySet());
+        long corrigidos = 0;
+        for (K chave : chaves) {
+            long anterior = antes.getOrDefault(chave, 0L);
+            long esperado = esperados.getOrDefault(chave, 0L);
+            if (anterior != esperado) {
+                corrigidos += ajustar(new Contador(grupo, chave), contadores.computeIfAbsent(chave, k -> new LongAdder()),
+                        anterior, depois.getOrDefault(chave, 0L), esperado, agora);
+            }
+        }
+        return corrigidos;
+    }
+
+    // Inclui valores negativos, que somas() omite, para que também sejam corrigidos
+    private static <K> Map<K, Long> valores(Map<K, LongAdder> contadores) {
+        Map<K, Long> valores = new HashMap<>();
+        contadores.forEach((chave, contador) -> {
+            long soma = contador.sum();
+            if (soma != 0) {
+                valores.put(chave, soma);
+            }
+        });
+        return valores;
+    }
+
+    // Mesma regra da consulta contarPorDecada: arredonda para baixo, também para anos negativos
+    private static Integer decada(Integer ano) {
+        return ano == null ? null : ano - Math.floorMod(ano, 10);
+    }
+}
@@ -0,0 +1,417 @@
+package com.biblioteca.service.facetas;
+
+import com.biblioteca.dto.FiltroPesquisa;
+import com.biblioteca.dto.ResultadoPesquisa;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.IndiceCatalogo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Índice colunar em memória para a pesquisa facetada.
+ *
+ * Cada livro ocupa uma posição; os atributos filtráveis ficam em arrays paralelos (autor e
+ * editora codificados por dicionário, ano, título em minúsculas para ordenar) e há um
+ * {@link BitSet} das posições ocupadas e outro das disponíveis. Termo e disponibilidade são
+ * interseções de bitmaps; autor, editora e intervalo de anos são uma única varredura das
+ * colunas nas posições que sobraram, e as facetas saem de uma passada pelo resultado.
+ *
+ * Não há bitmap por autor ou editora: com dezenas de milhares de valores distintos, um
+ * bitmap descomprimido por valor custaria valores × livros bits. As colunas codificadas
+ * ocupam 4 bytes por livro qualquer que seja o número de valores.
+ */
+@Component
+public class IndiceFacetas implements IndiceCatalogo {
+
+    public static final int MAXIMO_POR_FACETA = 20;
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final int SEM_VALOR = -1;
+
+    /**
+     * Ids da página pedida, já em ordem, com o total encontrado e as facetas de todos eles.
+     */
+    public record Resultado(long total, List<Long> ids, ResultadoPesquisa.Facetas facetas) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> posicaoPorId = new HashMap<>();
+    private final Deque<Integer> posicoesLivres = new ArrayDeque<>();
+    private final BitSet ocupadas = new BitSet();
+    private final BitSet disponiveis = new BitSet();
+    private final Dicionario autores = new Dicionario();
+    private final Dicionario editoras = new Dicionario();
+
+    private long[] ids = new long[CAPACIDADE_INICIAL];
+    private int[] codigosAutor = new int[CAPACIDADE_INICIAL];
+    private int[] codigosEditora = new int[CAPACIDADE_INICIAL];
+    private int[] anos = new int[CAPACIDADE_INICIAL];
+    private String[] titulos = new String[CAPACIDADE_INICIAL];
+    private int proximaPosicao;
+    private volatile boolean pronto;
+
+    @Override
+    public void indexar(Livro livro) {
+        lock.writeLock().lock();
+        try {
+            Integer existente = posicaoPorId.get(livro.getId());
+            int posicao;
+            if (existente != null) {
+                posicao = existente;
+                desmarcar(posicao);
+            } else {
+                posicao = alocar();
+                posicaoPorId.put(livro.getId(), posicao);
+            }
+            ids[posicao] = livro.getId();
+            codigosAutor[posicao] = autores.marcar(livro.getAutor());
+            codigosEditora[posicao] = editoras.marcar(livro.getEditora());
+            anos[posicao] = livro.getAnoPublicacao() == null ? Integer.MIN_VALUE : livro.getAnoPublicacao();
+            titulos[posicao] = livro.getTitulo() == null ? "" : livro.getTitulo().toLowerCase(Locale.ROOT);
+            disponiveis.set(posicao, Boolean.TRUE.equals(livro.getDisponivel()));
+            ocupadas.set(posicao);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remover(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer posicao = posicaoPorId.remove(id);
+            if (posicao != null) {
+                desmarcar(posicao);
+                ocupadas.clear(posicao);
+                disponiveis.clear(posicao);
+                titulos[posicao] = null;
+                posicoesLivres.push(posicao);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            pronto = false;
+            posicaoPorId.clear();
+            posicoesLivres.clear();
+            ocupadas.clear();
+            disponiveis.clear();
+            autores.limpar();
+            editoras.limpar();
+            Arrays.fill(titulos, null);
+            proximaPosicao = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void carregamentoConcluido() {
+        pronto = true;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /**
+     * Aplica os filtros e devolve a página pedida, em ordem, com o total e as facetas.
+     *
+     * @param pontuacao relevância de cada livro que casa com o termo, ou {@code null} se a
+     *                  pesquisa não tem termo
+     */
+    public Resultado pesquisar(FiltroPesquisa filtro, Map<Long, Float> pontuacao) {
+        lock.readLock().lock();
+        try {
+            BitSet encontrados = filtrar(filtro, pontuacao);
+            ResultadoPesquisa.Facetas facetas = contarFacetas(encontrados);
+            List<Long> pagina = ordenar(encontrados, filtro, pontuacao);
+            return new Resultado(encontrados.cardinality(), pagina, facetas);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memória aproximada das colunas, bitmaps e dicionários, sem contar os textos (títulos
+     * e valores do dicionário).
+     */
+    public long bytes() {
+        lock.readLock().lock();
+        try {
+            long colunas = (long) ids.length * (Long.BYTES + 3 * Integer.BYTES + Integer.BYTES);
+            long bitmaps = (ocupadas.size() + disponiveis.size()) / Byte.SIZE;
+            // Entrada do HashMap (~48 bytes) e Integer por livro
+            long posicoes = (long) posicaoPorId.size() * 64;
+            return colunas + bitmaps + posicoes + autores.bytes() + editoras.bytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Autores distintos no índice. */
+    public int autoresDistintos() {
+        lock.readLock().lock();
+        try {
+            return autores.tamanho();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet filtrar(FiltroPesquisa filtro, Map<Long, Float> pontuacao) {
+        BitSet encontrados = (BitSet) ocupadas.clone();
+        if (pontuacao != null) {
+            BitSet doTermo = new BitSet();
+            pontuacao.keySet().forEach(id -> {
+                Integer posicao = posicaoPorId.get(id);
+                if (posicao != null) {
+                    doTermo.set(posicao);
+                }
+            });
+            encontrados.and(doTermo);
+        }
+        if (filtro.disponivel() != null) {
+            if (filtro.disponivel()) {
+                encontrados.and(disponiveis);
+            } else {
+                encontrados.andNot(disponiveis);
+            }
+        }
+        int autor = filtro.autor() == null ? SEM_VALOR : autores.codigo(filtro.autor());
+        int editora = filtro.editora() == null ? SEM_VALOR : editoras.codigo(filtro.editora());
+        if ((filtro.autor() != null && autor == SEM_VALOR) || (filtro.editora() != null && editora == SEM_VALOR)) {
+            encontrados.clear();
+            return encontrados;
+        }
+        boolean porAno = filtro.anoMinimo() != null || filtro.anoMaximo() != null;
+        if (autor != SEM_VALOR || editora != SEM_VALOR || porAno) {
+            int minimo = filtro.anoMinimo() == null ? Integer.MIN_VALUE + 1 : filtro.anoMinimo();
+            int maximo = filtro.anoMaximo() == null ? Integer.MAX_VALUE : filtro.anoMaximo();
+            for (int posicao = encontrados.nextSetBit(0); posicao >= 0; posicao = encontrados.nextSetBit(posicao + 1)) {
+                if ((autor != SEM_VALOR && codigosAutor[posicao] != autor)
+                        || (editora != SEM_VALOR && codigosEditora[posicao] != editora)
+                        || (porAno && (anos[posicao] < minimo || anos[posicao] > maximo))) {
+                    encontrados.clear(posicao);
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    private ResultadoPesquisa.Facetas contarFacetas(BitSet encontrados) {
+        int quantidade = encontrados.cardinality();
+        Map<Integer, Long> porDecada = new TreeMap<>();
+        for (int posicao = encontrados.nextSetBit(0); posicao >= 0; posicao = encontrados.nextSetBit(posicao + 1)) {
+            if (anos[posicao] != Integer.MIN_VALUE) {
+                porDecada.merge(anos[posicao] - Math.floorMod(anos[posicao], 10), 1L, Long::sum);
+            }
+        }
+        BitSet encontradosDisponiveis = (BitSet) encontrados.clone();
+        encontradosDisponiveis.and(disponiveis);
+        long quantidadeDisponiveis = encontradosDisponiveis.cardinality();
+        return new ResultadoPesquisa.Facetas(
+                quantidadeDisponiveis,
+                quantidade - quantidadeDisponiveis,
+                contar(autores, codigosAutor, encontrados, quantidade),
+                contar(editoras, codigosEditora, encontrados, quantidade),
+                porDecada);
+    }
+
+    // Poucos resultados perto do número de valores: conta num mapa só os códigos que
+    // aparecem, em vez de alocar um contador para cada valor do dicionário
+    private static Map<String, Long> contar(Dicionario dicionario, int[] codigos, BitSet encontrados,
+                                            int quantidade) {
+        if ((long) quantidade * 4 < dicionario.capacidade()) {
+            Map<Integer, Long> porCodigo = new HashMap<>();
+            for (int posicao = encontrados.nextSetBit(0); posicao >= 0; posicao = encontrados.nextSetBit(posicao + 1)) {
+                if (codigos[posicao] != SEM_VALOR) {
+                    porCodigo.merge(codigos[posicao], 1L, Long::sum);
+                }
+            }
+            return maiores(dicionario, porCodigo.keySet().stream().mapToInt(Integer::intValue), porCodigo::get);
+        }
+        long[] porCodigo = new long[dicionario.capacidade()];
+        for (int posicao = encontrados.nextSetBit(0); posicao >= 0; posicao = encontrados.nextSetBit(posicao + 1)) {
+            if (codigos[posicao] != SEM_VALOR) {
+                porCodigo[codigos[posicao]]++;
+            }
+        }
+        return maiores(dicionario, IntStream.range(0, porCodigo.length).filter(codigo -> porCodigo[codigo] > 0),
+                codigo -> porCodigo[codigo]);
+    }
+
+    private List<Long> ordenar(BitSet encontrados, FiltroPesquisa filtro, Map<Long, Float> pontuacao) {
+        long quantidade = (long) filtro.deslocamento() + filtro.limite();
+        Comparator<Integer> ordem = comparador(filtro.ordenacao(), pontuacao);
+        // Só as primeiras (deslocamento + limite) posições precisam ser ordenadas
+        PriorityQueue<Integer> melhores = new PriorityQueue<>(ordem.reversed());
+        for (int posicao = encontrados.nextSetBit(0); posicao >= 0; posicao = encontrados.nextSetBit(posicao + 1)) {
+            melhores.offer(posicao);
+            if (melhores.size() > quantidade) {
+                melhores.poll();
+            }
+        }
+        List<Integer> ordenadas = new ArrayList<>(melhores);
+        ordenadas.sort(ordem);
+        return ordenadas.stream()
+                .skip(filtro.deslocamento())
+                .map(posicao -> ids[posicao])
+                .toList();
+    }
+
+    private Comparator<Integer> comparador(FiltroPesquisa.Ordenacao ordenacao, Map<Long, Float> pontuacao) {
+        Comparator<Integer> porId = Comparator.comparingLong(posicao -> ids[posicao]);
+        return switch (ordenacao) {
+            case RELEVANCIA -> pontuacao == null
+                    ? porId
+                    : Comparator.<Integer, Float>comparing(posicao -> pontuacao.get(ids[posicao])).reversed()
+                            .thenComparing(porId);
+            case TITULO -> Comparator.<Integer, String>comparing(posicao -> titulos[posicao]).thenComparing(porId);
+            case ANO -> Comparator.<Integer>comparingInt(posicao -> anos[posicao]).thenComparing(porId);
+            case ANO_DECRESCENTE -> Comparator.<Integer>comparingInt(posicao -> anos[posicao]).reversed()
+                    .thenComparing(porId);
+            case ID -> porId;
+        };
+    }
+
+    private void desmarcar(int posicao) {
+        autores.desmarcar(codigosAutor[posicao]);
+        editoras.desmarcar(codigosEditora[posicao]);
+        codigosAutor[posicao] = SEM_VALOR;
+        codigosEditora[posicao] = SEM_VALOR;
+    }
+
+    private int alocar() {
+        if (!posicoesLivres.isEmpty()) {
+            return posicoesLivres.pop();
+        }
+        if (proximaPosicao == ids.length) {
+            int capacidade = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidade);
+            codigosAutor = Arrays.copyOf(codigosAutor, capacidade);
+            codigosEditora = Arrays.copyOf(codigosEditora, capacidade);
+            anos = Arrays.copyOf(anos, capacidade);
+            titulos = Arrays.copyOf(titulos, capacidade);
+        }
+        return proximaPosicao++;
+    }
+
+    private static Map<String, Long> maiores(Dicionario dicionario, IntStream codigos, IntToLongFunction contagens) {
+        // Menor contagem primeiro; no empate, sai antes o valor que viria por último
+        Comparator<Integer> ordem = Comparator.<Integer>comparingLong(contagens::applyAsLong)
+                .thenComparing(dicionario::valor, Comparator.reverseOrder());
+        PriorityQueue<Integer> maiores = new PriorityQueue<>(ordem);
+        codigos.forEach(codigo -> {
+            maiores.offer(codigo);
+            if (maiores.size() > MAXIMO_POR_FACETA) {
+                maiores.poll();
+            }
+        });
+        List<Integer> ordenados = new ArrayList<>(maiores);
+        ordenados.sort(ordem.reversed());
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        ordenados.forEach(codigo -> resultado.put(dicionario.valor(codigo), contagens.applyAsLong(codigo)));
+        return resultado;
+    }
+
+    /**
+     * Valores distintos de uma coluna de texto, cada um com um código e quantos livros o
+     * têm. Quando um valor deixa de ser usado ele sai do dicionário e o código volta a ser
+     * distribuído.
+     */
+    private static final class Dicionario {
+
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final Deque<Integer> codigosLivres = new ArrayDeque<>();
+        private String[] valores = new String[16];
+        private int[] usos = new int[16];
+        private int proximoCodigo;
+
+        int marcar(String valor) {
+            if (valor == null) {
+                return SEM_VALOR;
+            }
+            int codigo = codigos.computeIfAbsent(valor, this::novoCodigo);
+            usos[codigo]++;
+            return codigo;
+        }
+
+        void desmarcar(int codigo) {
+            if (codigo != SEM_VALOR && --usos[codigo] == 0) {
+                codigos.remove(valores[codigo]);
+                valores[codigo] = null;
+                codigosLivres.push(codigo);
+            }
+        }
+
+        int codigo(String valor) {
+            Integer codigo = codigos.get(valor);
+            return codigo == null ? SEM_VALOR : codigo;
+        }
+
+        String valor(int codigo) {
+            return valores[codigo];
+        }
+
+        int tamanho() {
+            return codigos.size();
+        }
+
+        /** Maior código já distribuído mais um: o tamanho de um array indexado por código. */
+        int capacidade() {
+            return proximoCodigo;
+        }
+
+        long bytes() {
+            // Entrada do HashMap e Integer por valor, mais as duas colunas por código
+            return (long) codigos.size() * 64 + (long) valores.length * (8 + Integer.BYTES);
+        }
+
+        void limpar() {
+            codigos.clear();
+            codigosLivres.clear();
+            valores = new String[16];
+            usos = new int[16];
+            proximoCodigo = 0;
+        }
+
+        private int novoCodigo(String valor) {
+            int codigo;
+            if (!codigosLivres.isEmpty()) {
+                codigo = codigosLivres.pop();
+            } else {
+                if (proximoCodigo == valores.length) {
+                    valores = Arrays.copyOf(valores, valores.length * 2);
+                    usos = Arrays.copyOf(usos, usos.length * 2);
+                }
+                codigo = proximoCodigo++;
+            }
+            valores[codigo] = valor;
+            return codigo;
+        }
+    }
+}
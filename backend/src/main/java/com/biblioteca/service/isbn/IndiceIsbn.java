@@ -0,0 +1,70 @@
+package com.biblioteca.service.isbn;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.IndiceCatalogo;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ISBNs em uso no catálogo, para que um ISBN livre não precise de consulta ao banco.
+ *
+ * O índice só vê escritas já confirmadas, e pode ficar atrás delas, então não é a
+ * garantia de unicidade nem de duplicidade: uma gravação concorrente ainda não
+ * confirmada passa por ele e esbarra na constraint única da coluna, e um acerto é
+ * só um indício que quem chama confirma no banco. Enquanto a carga inicial não
+ * termina, nenhum ISBN é dado como em uso.
+ */
+@Component
+public class IndiceIsbn implements IndiceCatalogo {
+
+    private final Map<String, Long> idPorIsbn = new ConcurrentHashMap<>();
+    private final Map<Long, String> isbnPorId = new ConcurrentHashMap<>();
+    private volatile boolean pronto;
+
+    @Override
+    public synchronized void indexar(Livro livro) {
+        String anterior = isbnPorId.put(livro.getId(), livro.getIsbn());
+        if (anterior != null && !anterior.equals(livro.getIsbn())) {
+            idPorIsbn.remove(anterior, livro.getId());
+        }
+        idPorIsbn.put(livro.getIsbn(), livro.getId());
+    }
+
+    @Override
+    public synchronized void remover(Long id) {
+        String isbn = isbnPorId.remove(id);
+        if (isbn != null) {
+            idPorIsbn.remove(isbn, id);
+        }
+    }
+
+    @Override
+    public synchronized void limpar() {
+        pronto = false;
+        idPorIsbn.clear();
+        isbnPorId.clear();
+    }
+
+    @Override
+    public void carregamentoConcluido() {
+        pronto = true;
+    }
+
+    /**
+     * Se o ISBN já pertence a um livro diferente de {@code id} ({@code null} para um
+     * livro novo).
+     */
+    public boolean pertenceAOutroLivro(String isbn, Long id) {
+        if (!pronto || isbn == null) {
+            return false;
+        }
+        Long dono = idPorIsbn.get(isbn);
+        return dono != null && !dono.equals(id);
+    }
+
+    public int tamanho() {
+        return isbnPorId.size();
+    }
+}
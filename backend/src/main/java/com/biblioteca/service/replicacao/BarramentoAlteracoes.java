@@ -0,0 +1,26 @@
+package com.biblioteca.service.replicacao;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transporte das alterações do catálogo entre as réplicas do backend.
+ *
+ * O {@link ReplicacaoCatalogo} publica uma {@link InvalidacaoLivro} por escrita confirmada
+ * neste nó e aplica as que o barramento entrega vindas dos outros. A implementação é
+ * escolhida por {@code biblioteca.replicacao.barramento}; a entrega pode repetir avisos,
+ * mas não pode perder os de escritas confirmadas.
+ */
+public interface BarramentoAlteracoes {
+
+    /**
+     * Chamado depois do commit de uma escrita feita neste nó.
+     */
+    void publicar(InvalidacaoLivro invalidacao);
+
+    /**
+     * Passa a entregar ao consumidor, em lotes e numa única thread, as alterações
+     * confirmadas pelos outros nós.
+     */
+    void assinar(Consumer<List<InvalidacaoLivro>> consumidor);
+}
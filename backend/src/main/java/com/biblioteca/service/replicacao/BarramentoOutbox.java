@@ -0,0 +1,144 @@
+package com.biblioteca.service.replicacao;
+
+import com.biblioteca.model.AlteracaoLivro;
+import com.biblioteca.repository.AlteracaoLivroRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Barramento sobre o próprio registro de alterações ({@code livros_alteracoes}), que todas
+ * as réplicas já gravam na mesma transação da escrita: não há broker nem conexão entre os
+ * nós, só o banco compartilhado.
+ *
+ * Publicar não faz nada, porque a linha com a {@code origem} deste nó já foi gravada pelo
+ * {@link com.biblioteca.service.RegistroAlteracoes}. Uma thread lê a cada
+ * {@code biblioteca.replicacao.intervalo} as entradas de outras origens. Uma transação
+ * pode confirmar depois de outra que registrou mais tarde, então cada leitura volta
+ * {@code biblioteca.replicacao.margem} no tempo (a duração máxima de uma escrita mais a
+ * diferença entre os relógios dos nós) e descarta as entradas já entregues.
+ */
+@Component
+@ConditionalOnProperty(name = "biblioteca.replicacao.barramento", havingValue = "outbox")
+public class BarramentoOutbox implements BarramentoAlteracoes {
+
+    private static final Logger log = LoggerFactory.getLogger(BarramentoOutbox.class);
+
+    static final int TAMANHO_PAGINA = 1_000;
+
+    @Autowired
+    private AlteracaoLivroRepository alteracaoRepository;
+
+    @Autowired
+    private IdentidadeNo identidadeNo;
+
+    private final Duration intervalo;
+    private final Duration margem;
+
+    // Entradas já entregues dentro da margem; só a thread de leitura acessa
+    private final Map<Long, Instant> entregues = new HashMap<>();
+
+    // Começa antes da carga dos índices: o que confirmar durante a carga é reaplicado
+    private Instant ultimaLeitura = Instant.now();
+
+    private volatile Thread thread;
+    private volatile boolean ativo = true;
+
+    public BarramentoOutbox(@Value("${biblioteca.replicacao.intervalo:PT0.25S}") Duration intervalo,
+                            @Value("${biblioteca.replicacao.margem:PT5S}") Duration margem) {
+        this.intervalo = intervalo;
+        this.margem = margem;
+    }
+
+    @Override
+    public void publicar(InvalidacaoLivro invalidacao) {
+        // Já está no registro de alterações, gravada na transação da escrita
+    }
+
+    @Override
+    public synchronized void assinar(Consumer<List<InvalidacaoLivro>> consumidor) {
+        if (thread != null) {
+            throw new IllegalStateException("O barramento já tem um consumidor");
+        }
+        thread = new Thread(() -> executar(consumidor), "replicacao-outbox");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        Thread atual = thread;
+        if (atual != null) {
+            atual.interrupt();
+            atual.join(intervalo.toMillis() + 5_000);
+        }
+    }
+
+    private void executar(Consumer<List<InvalidacaoLivro>> consumidor) {
+        while (ativo) {
+            try {
+                ler(consumidor);
+                Thread.sleep(intervalo.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Banco indisponível, por exemplo: a próxima leitura cobre o mesmo período
+                log.warn("Falha ao ler as alterações dos outros nós: {}", e.toString());
+                try {
+                    Thread.sleep(intervalo.toMillis());
+                } catch (InterruptedException interrompida) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Entrega as entradas de outras origens registradas desde a leitura anterior (menos a
+     * margem) que ainda não foram entregues.
+     */
+    void ler(Consumer<List<InvalidacaoLivro>> consumidor) {
+        Instant agora = Instant.now();
+        Instant desde = ultimaLeitura.minus(margem);
+        List<InvalidacaoLivro> novas = new ArrayList<>();
+        Map<Long, Instant> lidas = new HashMap<>();
+        List<AlteracaoLivro> pagina;
+        long aposId = 0;
+        do {
+            pagina = alteracaoRepository.findRecentesDeOutraOrigem(desde, identidadeNo.id(), aposId,
+                    PageRequest.of(0, TAMANHO_PAGINA));
+            for (AlteracaoLivro entrada : pagina) {
+                if (!entregues.containsKey(entrada.getId())) {
+                    novas.add(new InvalidacaoLivro(entrada.getLivroId(), entrada.isRemovido(),
+                            entrada.getOrigem(), entrada.getRegistradoEm()));
+                    lidas.put(entrada.getId(), entrada.getRegistradoEm());
+                }
+                aposId = entrada.getId();
+            }
+        } while (pagina.size() == TAMANHO_PAGINA);
+
+        if (!novas.isEmpty()) {
+            consumidor.accept(novas);
+        }
+        // Só depois de entregar: se o consumidor falhar, a próxima leitura repete o período
+        entregues.putAll(lidas);
+        ultimaLeitura = agora;
+        entregues.values().removeIf(registradoEm -> registradoEm.isBefore(desde));
+    }
+}
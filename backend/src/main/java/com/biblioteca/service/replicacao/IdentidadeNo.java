@@ -0,0 +1,39 @@
+package com.biblioteca.service.replicacao;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Identifica este nó entre as réplicas que compartilham o banco. Vai na coluna
+ * {@code origem} do registro de alterações para que cada nó reconheça as próprias escritas.
+ *
+ * Sem {@code biblioteca.replicacao.no} é o nome da máquina mais o pid, o que já diferencia
+ * contêineres e processos na mesma máquina.
+ */
+@Component
+public class IdentidadeNo {
+
+    static final int TAMANHO_MAXIMO = 64;
+
+    private final String id;
+
+    public IdentidadeNo(@Value("${biblioteca.replicacao.no:}") String configurado) {
+        String id = configurado.isBlank() ? maquina() + ":" + ProcessHandle.current().pid() : configurado;
+        this.id = id.length() > TAMANHO_MAXIMO ? id.substring(id.length() - TAMANHO_MAXIMO) : id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    private static String maquina() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "desconhecida";
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.biblioteca.service.replicacao;
+
+import java.time.Instant;
+
+/**
+ * Aviso de que um livro mudou num nó: só o id e o tipo, sem os dados. Quem recebe lê o
+ * estado atual do banco, então aplicar o mesmo aviso mais de uma vez não tem efeito.
+ */
+public record InvalidacaoLivro(Long livroId, boolean removido, String origem, Instant registradoEm) {
+}
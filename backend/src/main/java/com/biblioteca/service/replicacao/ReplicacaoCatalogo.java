@@ -0,0 +1,108 @@
+package com.biblioteca.service.replicacao;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.LivroAlteradoEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantém o estado em memória deste nó (índices, estatísticas, cache de livros e versão do
+ * catálogo) em dia com as escritas feitas pelas outras réplicas.
+ *
+ * Cada escrita confirmada aqui vira uma {@link InvalidacaoLivro} no
+ * {@link BarramentoAlteracoes}. As que chegam dos outros nós são agrupadas por livro, os
+ * livros são lidos do banco numa consulta só e republicados como
+ * {@link LivroAlteradoEvent#remoto(Long, Livro)}, que passa pelos mesmos ouvintes de uma
+ * escrita local, exceto o registro de alterações.
+ */
+@Component
+@ConditionalOnProperty(name = "biblioteca.replicacao.barramento", havingValue = "outbox")
+public class ReplicacaoCatalogo implements MeterBinder {
+
+    @Autowired
+    private BarramentoAlteracoes barramento;
+
+    @Autowired
+    private IdentidadeNo identidadeNo;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong publicadas = new AtomicLong();
+    private final AtomicLong recebidas = new AtomicLong();
+    private final AtomicLong aplicadas = new AtomicLong();
+    private volatile long atrasoMs;
+
+    @PostConstruct
+    void iniciar() {
+        barramento.assinar(this::aplicar);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarLivro(LivroAlteradoEvent evento) {
+        if (evento.remoto()) {
+            return;
+        }
+        barramento.publicar(new InvalidacaoLivro(evento.id(),
+                evento.tipo() == LivroAlteradoEvent.TipoAlteracao.REMOVIDO, identidadeNo.id(), Instant.now()));
+        publicadas.incrementAndGet();
+    }
+
+    void aplicar(List<InvalidacaoLivro> invalidacoes) {
+        // Só o estado atual importa: várias alterações do mesmo livro viram uma leitura
+        Map<Long, InvalidacaoLivro> porLivro = new LinkedHashMap<>();
+        for (InvalidacaoLivro invalidacao : invalidacoes) {
+            porLivro.remove(invalidacao.livroId());
+            porLivro.put(invalidacao.livroId(), invalidacao);
+        }
+        Map<Long, Livro> livros = livroRepository.findAllById(porLivro.keySet()).stream()
+                .collect(Collectors.toMap(Livro::getId, Function.identity()));
+        porLivro.keySet().forEach(id -> eventPublisher.publishEvent(LivroAlteradoEvent.remoto(id, livros.get(id))));
+
+        recebidas.addAndGet(invalidacoes.size());
+        aplicadas.addAndGet(porLivro.size());
+        Instant maisAntiga = invalidacoes.stream().map(InvalidacaoLivro::registradoEm)
+                .min(Instant::compareTo).orElseThrow();
+        atrasoMs = Math.max(0, Duration.between(maisAntiga, Instant.now()).toMillis());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("biblioteca.replicacao.invalidacoes", publicadas, AtomicLong::get)
+                .tag("direcao", "publicada")
+                .description("Escritas deste nó anunciadas às outras réplicas")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.replicacao.invalidacoes", recebidas, AtomicLong::get)
+                .tag("direcao", "recebida")
+                .description("Escritas de outras réplicas recebidas pelo barramento")
+                .register(registry);
+        FunctionCounter.builder("biblioteca.replicacao.livros.aplicados", aplicadas, AtomicLong::get)
+                .description("Livros relidos do banco e aplicados ao estado em memória")
+                .register(registry);
+        Gauge.builder("biblioteca.replicacao.atraso", this, replicacao -> replicacao.atrasoMs)
+                .baseUnit("milliseconds")
+                .description("Tempo entre a escrita mais antiga do último lote recebido e a sua aplicação")
+                .register(registry);
+    }
+}
@@ -0,0 +1,194 @@
+package com.biblioteca.service.snapshot;
+
+import com.biblioteca.model.Livro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato binário do snapshot do catálogo.
+ *
+ * O arquivo é um fluxo GZIP (compressão rápida) com um cabeçalho fixo, um registro por
+ * livro e um rodapé com a quantidade de registros, conferida na leitura para detectar
+ * arquivos truncados. Inteiros usam codificação de tamanho variável e textos são UTF-8
+ * precedidos do tamanho, o que deixa o arquivo compacto sem custo de parsing.
+ */
+final class FormatoSnapshot {
+
+    static final int ASSINATURA = 0x42494231; // "BIB1"
+    static final int VERSAO_FORMATO = 1;
+
+    private static final int REGISTRO = 1;
+    private static final int FIM = 0;
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private FormatoSnapshot() {
+    }
+
+    static final class Escritor implements Closeable {
+
+        private final DataOutputStream saida;
+        private long quantidade;
+
+        Escritor(OutputStream destino, Instant geradoEm) throws IOException {
+            GZIPOutputStream gzip = new GZIPOutputStream(destino, TAMANHO_BUFFER) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+            this.saida = new DataOutputStream(new BufferedOutputStream(gzip, TAMANHO_BUFFER));
+            saida.writeInt(ASSINATURA);
+            saida.writeInt(VERSAO_FORMATO);
+            saida.writeLong(geradoEm.toEpochMilli());
+        }
+
+        void escrever(Livro livro) throws IOException {
+            saida.writeByte(REGISTRO);
+            escreverNumero(livro.getId());
+            escreverTexto(livro.getTitulo());
+            escreverTexto(livro.getAutor());
+            escreverTexto(livro.getIsbn());
+            escreverNumero(livro.getAnoPublicacao());
+            escreverTexto(livro.getEditora());
+            escreverTexto(livro.getDescricao());
+            saida.writeBoolean(Boolean.TRUE.equals(livro.getDisponivel()));
+            escreverNumero(livro.getVersao() == null ? 0 : livro.getVersao());
+            Instant atualizadoEm = livro.getAtualizadoEm();
+            saida.writeBoolean(atualizadoEm != null);
+            if (atualizadoEm != null) {
+                saida.writeLong(atualizadoEm.getEpochSecond());
+                escreverNumero(atualizadoEm.getNano());
+            }
+            quantidade++;
+        }
+
+        long quantidade() {
+            return quantidade;
+        }
+
+        @Override
+        public void close() throws IOException {
+            saida.writeByte(FIM);
+            saida.writeLong(quantidade);
+            saida.close();
+        }
+
+        private void escreverNumero(long valor) throws IOException {
+            // Zigzag + 7 bits por byte: números pequenos (inclusive negativos) ocupam 1-2 bytes
+            long codificado = (valor << 1) ^ (valor >> 63);
+            while ((codificado & ~0x7FL) != 0) {
+                saida.writeByte((int) ((codificado & 0x7F) | 0x80));
+                codificado >>>= 7;
+            }
+            saida.writeByte((int) codificado);
+        }
+
+        private void escreverTexto(String texto) throws IOException {
+            if (texto == null) {
+                escreverNumero(-1);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            escreverNumero(bytes.length);
+            saida.write(bytes);
+        }
+    }
+
+    static final class Leitor implements Closeable {
+
+        private final DataInputStream entrada;
+        private final Instant geradoEm;
+        private long quantidade;
+
+        Leitor(InputStream origem) throws IOException {
+            this.entrada = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(origem, TAMANHO_BUFFER), TAMANHO_BUFFER));
+            if (entrada.readInt() != ASSINATURA) {
+                throw new IOException("Arquivo não é um snapshot do catálogo");
+            }
+            int versao = entrada.readInt();
+            if (versao != VERSAO_FORMATO) {
+                throw new IOException("Versão de snapshot não suportada: " + versao);
+            }
+            this.geradoEm = Instant.ofEpochMilli(entrada.readLong());
+        }
+
+        Instant geradoEm() {
+            return geradoEm;
+        }
+
+        /**
+         * Próximo livro do snapshot, ou {@code null} no fim do arquivo.
+         */
+        Livro proximo() throws IOException {
+            int marcador = entrada.readUnsignedByte();
+            if (marcador == FIM) {
+                long esperado = entrada.readLong();
+                if (esperado != quantidade) {
+                    throw new IOException("Snapshot inconsistente: rodapé indica " + esperado
+                            + " livros, lidos " + quantidade);
+                }
+                return null;
+            }
+            if (marcador != REGISTRO) {
+                throw new IOException("Registro inválido no snapshot: " + marcador);
+            }
+            Livro livro = new Livro();
+            livro.setId(lerNumero());
+            livro.setTitulo(lerTexto());
+            livro.setAutor(lerTexto());
+            livro.setIsbn(lerTexto());
+            livro.setAnoPublicacao((int) lerNumero());
+            livro.setEditora(lerTexto());
+            livro.setDescricao(lerTexto());
+            livro.setDisponivel(entrada.readBoolean());
+            livro.setVersao(lerNumero());
+            if (entrada.readBoolean()) {
+                livro.setAtualizadoEm(Instant.ofEpochSecond(entrada.readLong(), lerNumero()));
+            }
+            quantidade++;
+            return livro;
+        }
+
+        @Override
+        public void close() throws IOException {
+            entrada.close();
+        }
+
+        private long lerNumero() throws IOException {
+            long codificado = 0;
+            for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+                int b = entrada.readUnsignedByte();
+                codificado |= (long) (b & 0x7F) << deslocamento;
+                if ((b & 0x80) == 0) {
+                    return (codificado >>> 1) ^ -(codificado & 1);
+                }
+            }
+            throw new IOException("Número mal formado no snapshot");
+        }
+
+        private String lerTexto() throws IOException {
+            long tamanho = lerNumero();
+            if (tamanho < 0) {
+                return null;
+            }
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Texto mal formado no snapshot");
+            }
+            byte[] bytes = new byte[(int) tamanho];
+            entrada.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
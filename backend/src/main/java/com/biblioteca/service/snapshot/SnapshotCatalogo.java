@@ -0,0 +1,269 @@
+package com.biblioteca.service.snapshot;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.VersaoCatalogo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Exporta e restaura o catálogo num snapshot binário compacto ({@link FormatoSnapshot}).
+ *
+ * A restauração acontece na inicialização, quando a tabela de livros está vazia e existe
+ * um snapshot em {@code biblioteca.snapshot.arquivo}. Ela grava direto via JDBC, em lotes
+ * com commit próprio, e termina antes de o {@code CatalogoIndexador} carregar os índices
+ * (que só roda depois que todos os singletons foram criados). A exportação roda a cada
+ * {@code biblioteca.snapshot.intervalo}, apenas se o catálogo mudou desde a última, e
+ * uma última vez ao encerrar; o arquivo é escrito ao lado e trocado atomicamente, para
+ * que um backup nunca copie um snapshot pela metade.
+ */
+@Component
+public class SnapshotCatalogo {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotCatalogo.class);
+
+    static final int TAMANHO_LOTE = 5000;
+
+    private static final String COLUNAS =
+            "id, titulo, autor, isbn, ano_publicacao, editora, descricao, disponivel, versao, atualizado_em";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    private final Path arquivo;
+
+    private volatile boolean restaurado;
+    private volatile boolean iniciado;
+    // Versão do catálogo contida no último snapshot gravado (-1: desconhecida)
+    private volatile long versaoExportada = -1;
+
+    public SnapshotCatalogo(@Value("${biblioteca.snapshot.arquivo:}") String arquivo) {
+        this.arquivo = arquivo == null || arquivo.isBlank() ? null : Path.of(arquivo);
+    }
+
+    public boolean isHabilitado() {
+        return arquivo != null;
+    }
+
+    @PostConstruct
+    void restaurarSeVazio() {
+        if (!isHabilitado()) {
+            return;
+        }
+        if (!Files.isRegularFile(arquivo)) {
+            log.info("Nenhum snapshot do catálogo em {}", arquivo);
+            return;
+        }
+        Long existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM livros", Long.class);
+        if (existentes != null && existentes > 0) {
+            log.info("Catálogo já tem {} livros no banco; snapshot {} não será restaurado", existentes, arquivo);
+            return;
+        }
+        restaurar(arquivo);
+        restaurado = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void aoIniciar() {
+        // O banco acabou de ser preenchido com o próprio snapshot: não há o que exportar
+        if (restaurado) {
+            versaoExportada = versaoCatalogo.atual();
+        }
+        iniciado = true;
+    }
+
+    /**
+     * Restaura o snapshot numa tabela de livros vazia e reposiciona a sequência de ids.
+     * Se o arquivo estiver corrompido, desfaz o que já foi gravado e falha a inicialização.
+     */
+    public long restaurar(Path origem) {
+        long inicio = System.nanoTime();
+        long total;
+        try (InputStream entrada = Files.newInputStream(origem);
+             FormatoSnapshot.Leitor leitor = new FormatoSnapshot.Leitor(entrada)) {
+            total = jdbcTemplate.execute((ConnectionCallback<Long>) conexao -> inserir(conexao, leitor));
+            log.info("Snapshot de {} restaurado: {} livros em {} ms",
+                    leitor.geradoEm(), total, (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            jdbcTemplate.update("DELETE FROM livros");
+            throw new IllegalStateException("Falha ao restaurar o snapshot " + origem
+                    + "; corrija ou remova o arquivo para iniciar com o banco vazio", e);
+        }
+        return total;
+    }
+
+    /**
+     * Grava o catálogo atual no arquivo configurado e devolve a quantidade de livros.
+     */
+    public synchronized long exportar() {
+        if (!isHabilitado()) {
+            throw new IllegalStateException("Snapshot do catálogo desabilitado");
+        }
+        long inicio = System.nanoTime();
+        // Lida antes dos dados: o snapshot contém pelo menos esta versão
+        long versao = versaoCatalogo.atual();
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        long total;
+        try {
+            if (arquivo.getParent() != null) {
+                Files.createDirectories(arquivo.getParent());
+            }
+            try (OutputStream saida = Files.newOutputStream(temporario);
+                 FormatoSnapshot.Escritor escritor = new FormatoSnapshot.Escritor(saida, Instant.now())) {
+                jdbcTemplate.query(conexao -> {
+                    PreparedStatement consulta = conexao.prepareStatement(
+                            "SELECT " + COLUNAS + " FROM livros ORDER BY id");
+                    consulta.setFetchSize(TAMANHO_LOTE);
+                    return consulta;
+                }, linha -> {
+                    try {
+                        escritor.escrever(ler(linha));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                total = escritor.quantidade();
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporario);
+            } catch (IOException erro) {
+                e.addSuppressed(erro);
+            }
+            throw new IllegalStateException("Falha ao exportar o snapshot do catálogo para " + arquivo, e);
+        }
+        versaoExportada = versao;
+        log.info("Snapshot do catálogo exportado para {}: {} livros, {} KB em {} ms",
+                arquivo, total, tamanhoEmKb(), (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.snapshot.intervalo:PT15M}",
+               initialDelayString = "${biblioteca.snapshot.intervalo:PT15M}")
+    public void exportarSeAlterado() {
+        if (isHabilitado() && versaoCatalogo.atual() != versaoExportada) {
+            exportar();
+        }
+    }
+
+    @PreDestroy
+    void aoEncerrar() {
+        // Numa inicialização que falhou o catálogo pode estar incompleto
+        if (!iniciado) {
+            return;
+        }
+        try {
+            exportarSeAlterado();
+        } catch (RuntimeException e) {
+            log.error("Não foi possível exportar o snapshot do catálogo ao encerrar", e);
+        }
+    }
+
+    private static long inserir(Connection conexao, FormatoSnapshot.Leitor leitor) throws SQLException {
+        boolean autoCommit = conexao.getAutoCommit();
+        conexao.setAutoCommit(false);
+        long total = 0;
+        long maiorId = 0;
+        try (PreparedStatement insert = conexao.prepareStatement(
+                "INSERT INTO livros (" + COLUNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            Livro livro;
+            while ((livro = leitor.proximo()) != null) {
+                preencher(insert, livro);
+                insert.addBatch();
+                maiorId = Math.max(maiorId, livro.getId());
+                if (++total % TAMANHO_LOTE == 0) {
+                    insert.executeBatch();
+                    conexao.commit();
+                }
+            }
+            insert.executeBatch();
+            conexao.commit();
+        } catch (IOException e) {
+            conexao.rollback();
+            throw new UncheckedIOException(e);
+        } catch (SQLException | RuntimeException e) {
+            conexao.rollback();
+            throw e;
+        } finally {
+            conexao.setAutoCommit(autoCommit);
+        }
+        if (maiorId > 0) {
+            // O Hibernate usa o valor da sequência como o fim de um bloco de 50 ids
+            try (Statement ajuste = conexao.createStatement()) {
+                ajuste.execute("ALTER SEQUENCE livros_seq RESTART WITH " + (maiorId + 50));
+            }
+        }
+        return total;
+    }
+
+    private static void preencher(PreparedStatement insert, Livro livro) throws SQLException {
+        insert.setLong(1, livro.getId());
+        insert.setString(2, livro.getTitulo());
+        insert.setString(3, livro.getAutor());
+        insert.setString(4, livro.getIsbn());
+        insert.setInt(5, livro.getAnoPublicacao());
+        insert.setString(6, livro.getEditora());
+        insert.setString(7, livro.getDescricao());
+        insert.setBoolean(8, livro.getDisponivel());
+        insert.setLong(9, livro.getVersao());
+        if (livro.getAtualizadoEm() != null) {
+            insert.setObject(10, OffsetDateTime.ofInstant(livro.getAtualizadoEm(), ZoneOffset.UTC));
+        } else {
+            insert.setNull(10, Types.TIMESTAMP_WITH_TIMEZONE);
+        }
+    }
+
+    private static Livro ler(ResultSet linha) throws SQLException {
+        Livro livro = new Livro();
+        livro.setId(linha.getLong(1));
+        livro.setTitulo(linha.getString(2));
+        livro.setAutor(linha.getString(3));
+        livro.setIsbn(linha.getString(4));
+        livro.setAnoPublicacao(linha.getInt(5));
+        livro.setEditora(linha.getString(6));
+        livro.setDescricao(linha.getString(7));
+        livro.setDisponivel(linha.getBoolean(8));
+        livro.setVersao(linha.getLong(9));
+        OffsetDateTime atualizadoEm = linha.getObject(10, OffsetDateTime.class);
+        livro.setAtualizadoEm(atualizadoEm == null ? null : atualizadoEm.toInstant());
+        return livro;
+    }
+
+    private long tamanhoEmKb() {
+        try {
+            return Files.size(arquivo) / 1024;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
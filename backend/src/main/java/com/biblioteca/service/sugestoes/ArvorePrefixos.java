@@ -0,0 +1,294 @@
+package com.biblioteca.service.sugestoes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Árvore de prefixos compactada (radix tree) de textos normalizados, cada um com o número
+ * de livros em que aparece.
+ *
+ * As arestas guardam trechos inteiros do texto, então a árvore tem no máximo dois nós por
+ * texto, e os filhos de cada nó ficam em arrays ordenados pelo primeiro caractere. Cada nó
+ * interno guarda os {@code k} textos mais frequentes da sua subárvore: uma consulta só
+ * desce pelo prefixo, sem percorrer a subárvore. Depois de {@link #recalcular()}, cada
+ * inclusão ou remoção recalcula essas listas apenas no caminho até a raiz.
+ *
+ * Não é thread-safe; o {@link IndiceSugestoes} controla o acesso.
+ */
+class ArvorePrefixos {
+
+    static final class Termo {
+
+        final String chave;
+        String exibicao;
+        int quantidade;
+
+        Termo(String chave, String exibicao) {
+            this.chave = chave;
+            this.exibicao = exibicao;
+        }
+    }
+
+    static final Comparator<Termo> ORDEM = Comparator.<Termo>comparingInt(termo -> termo.quantidade)
+            .reversed()
+            .thenComparing(termo -> termo.chave);
+
+    private static final Termo[] NENHUM = new Termo[0];
+
+    private static final class No {
+
+        // Folhas, a maioria dos nós, compartilham os arrays vazios
+        static final char[] SEM_LETRAS = new char[0];
+        static final No[] SEM_FILHOS = new No[0];
+
+        String rotulo;
+        char[] primeiros = SEM_LETRAS;
+        No[] filhos = SEM_FILHOS;
+        Termo termo;
+        // Os k melhores da subárvore; null numa folha, em que é o próprio termo
+        Termo[] melhores;
+
+        No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        int indice(char c) {
+            return Arrays.binarySearch(primeiros, c);
+        }
+
+        void inserirFilho(No filho) {
+            int posicao = -indice(filho.rotulo.charAt(0)) - 1;
+            primeiros = inserir(primeiros, posicao, filho.rotulo.charAt(0));
+            No[] novos = new No[filhos.length + 1];
+            System.arraycopy(filhos, 0, novos, 0, posicao);
+            novos[posicao] = filho;
+            System.arraycopy(filhos, posicao, novos, posicao + 1, filhos.length - posicao);
+            filhos = novos;
+        }
+
+        void removerFilho(int posicao) {
+            char[] letras = new char[primeiros.length - 1];
+            System.arraycopy(primeiros, 0, letras, 0, posicao);
+            System.arraycopy(primeiros, posicao + 1, letras, posicao, letras.length - posicao);
+            primeiros = letras;
+            No[] novos = new No[filhos.length - 1];
+            System.arraycopy(filhos, 0, novos, 0, posicao);
+            System.arraycopy(filhos, posicao + 1, novos, posicao, novos.length - posicao);
+            filhos = novos;
+        }
+
+        Termo[] melhores() {
+            if (melhores != null) {
+                return melhores;
+            }
+            return termo == null ? NENHUM : new Termo[] {termo};
+        }
+
+        private static char[] inserir(char[] letras, int posicao, char c) {
+            char[] novas = new char[letras.length + 1];
+            System.arraycopy(letras, 0, novas, 0, posicao);
+            novas[posicao] = c;
+            System.arraycopy(letras, posicao, novas, posicao + 1, letras.length - posicao);
+            return novas;
+        }
+    }
+
+    private final int k;
+    private final No raiz = new No("");
+    private boolean incremental;
+    private int tamanho;
+
+    ArvorePrefixos(int k) {
+        this.k = k;
+    }
+
+    /** Textos distintos na árvore. */
+    int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Soma um livro ao texto, criando-o se necessário. A exibição é a forma original do
+     * primeiro livro com esse texto. Devolve a chave guardada na árvore, para que quem
+     * precise lembrar dela não mantenha uma cópia por livro.
+     */
+    String adicionar(String chave, String exibicao) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        String resto = chave;
+        caminho.add(no);
+        while (!resto.isEmpty()) {
+            int posicao = no.indice(resto.charAt(0));
+            if (posicao < 0) {
+                No folha = new No(resto);
+                no.inserirFilho(folha);
+                no = folha;
+                caminho.add(no);
+                break;
+            }
+            No filho = no.filhos[posicao];
+            int comum = prefixoComum(filho.rotulo, resto);
+            if (comum < filho.rotulo.length()) {
+                filho = dividir(no, posicao, comum);
+            }
+            no = filho;
+            caminho.add(no);
+            resto = resto.substring(comum);
+        }
+        if (no.termo == null) {
+            no.termo = new Termo(chave, exibicao);
+            tamanho++;
+        }
+        no.termo.quantidade++;
+        atualizar(caminho);
+        return no.termo.chave;
+    }
+
+    /**
+     * Tira um livro do texto; sem mais livros, o texto sai da árvore.
+     */
+    void remover(String chave) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        String resto = chave;
+        caminho.add(no);
+        while (!resto.isEmpty()) {
+            int posicao = no.indice(resto.charAt(0));
+            if (posicao < 0 || !resto.startsWith(no.filhos[posicao].rotulo)) {
+                return;
+            }
+            no = no.filhos[posicao];
+            caminho.add(no);
+            resto = resto.substring(no.rotulo.length());
+        }
+        if (no.termo == null) {
+            return;
+        }
+        if (--no.termo.quantidade > 0) {
+            atualizar(caminho);
+            return;
+        }
+        no.termo = null;
+        tamanho--;
+        podar(caminho);
+        atualizar(caminho);
+    }
+
+    /**
+     * Os até {@code limite} textos mais frequentes que começam com o prefixo.
+     */
+    List<Termo> buscar(String prefixo, int limite) {
+        No no = raiz;
+        String resto = prefixo;
+        while (!resto.isEmpty()) {
+            int posicao = no.indice(resto.charAt(0));
+            if (posicao < 0) {
+                return List.of();
+            }
+            No filho = no.filhos[posicao];
+            int comum = prefixoComum(filho.rotulo, resto);
+            if (comum == resto.length()) {
+                // O prefixo termina no meio ou no fim da aresta: toda a subárvore casa
+                no = filho;
+                break;
+            }
+            if (comum < filho.rotulo.length()) {
+                return List.of();
+            }
+            no = filho;
+            resto = resto.substring(comum);
+        }
+        Termo[] melhores = no.melhores();
+        return List.of(Arrays.copyOf(melhores, Math.min(limite, melhores.length)));
+    }
+
+    void limpar() {
+        raiz.primeiros = No.SEM_LETRAS;
+        raiz.filhos = No.SEM_FILHOS;
+        raiz.termo = null;
+        raiz.melhores = null;
+        tamanho = 0;
+        incremental = false;
+    }
+
+    /**
+     * Calcula os melhores de todos os nós numa passada e passa a mantê-los a cada alteração.
+     * Durante a carga inicial isso sai bem mais barato que atualizar o caminho a cada texto.
+     */
+    void recalcular() {
+        recalcular(raiz);
+        incremental = true;
+    }
+
+    private void recalcular(No no) {
+        for (No filho : no.filhos) {
+            recalcular(filho);
+        }
+        calcularMelhores(no);
+    }
+
+    private void atualizar(List<No> caminho) {
+        if (!incremental) {
+            return;
+        }
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            calcularMelhores(caminho.get(i));
+        }
+    }
+
+    private void calcularMelhores(No no) {
+        if (no.filhos.length == 0) {
+            no.melhores = null;
+            return;
+        }
+        List<Termo> candidatos = new ArrayList<>();
+        if (no.termo != null) {
+            candidatos.add(no.termo);
+        }
+        for (No filho : no.filhos) {
+            candidatos.addAll(Arrays.asList(filho.melhores()));
+        }
+        candidatos.sort(ORDEM);
+        no.melhores = candidatos.subList(0, Math.min(k, candidatos.size())).toArray(NENHUM);
+    }
+
+    // Separa a aresta do filho em duas depois de "comum" caracteres e devolve o nó do meio
+    private static No dividir(No pai, int posicao, int comum) {
+        No filho = pai.filhos[posicao];
+        No meio = new No(filho.rotulo.substring(0, comum));
+        filho.rotulo = filho.rotulo.substring(comum);
+        meio.inserirFilho(filho);
+        meio.melhores = filho.melhores();
+        pai.filhos[posicao] = meio;
+        return meio;
+    }
+
+    // Retira nós sem texto e sem filhos e junta nós sem texto com um único filho
+    private static void podar(List<No> caminho) {
+        for (int i = caminho.size() - 1; i > 0; i--) {
+            No no = caminho.get(i);
+            No pai = caminho.get(i - 1);
+            if (no.termo == null && no.filhos.length == 0) {
+                pai.removerFilho(pai.indice(no.rotulo.charAt(0)));
+            } else if (no.termo == null && no.filhos.length == 1) {
+                No filho = no.filhos[0];
+                no.rotulo = no.rotulo + filho.rotulo;
+                no.termo = filho.termo;
+                no.primeiros = filho.primeiros;
+                no.filhos = filho.filhos;
+                no.melhores = filho.melhores;
+            }
+        }
+    }
+
+    private static int prefixoComum(String a, String b) {
+        int limite = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limite && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,168 @@
+package com.biblioteca.service.sugestoes;
+
+import com.biblioteca.dto.Sugestao;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.IndiceCatalogo;
+import com.biblioteca.service.busca.NormalizadorTexto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Sugestões para o campo de busca: títulos e autores que começam com o que foi digitado,
+ * dos que aparecem em mais livros para os que aparecem em menos.
+ *
+ * Títulos e autores ficam em duas {@link ArvorePrefixos}, com o texto sem acentos, em
+ * minúsculas e com a pontuação reduzida a espaços ("Memórias Póstumas" e "memorias
+ * postumas" são o mesmo texto). Uma consulta desce só pelo prefixo e lê a lista dos mais
+ * frequentes já pronta no nó, então o custo não depende do tamanho do catálogo.
+ */
+@Component
+public class IndiceSugestoes implements IndiceCatalogo {
+
+    public static final int LIMITE_MAXIMO = 10;
+
+    private static final String TITULO = "titulo";
+    private static final String AUTOR = "autor";
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private record Chaves(String titulo, String autor) {
+    }
+
+    private final ArvorePrefixos titulos = new ArvorePrefixos(LIMITE_MAXIMO);
+    private final ArvorePrefixos autores = new ArvorePrefixos(LIMITE_MAXIMO);
+    private final Map<Long, Chaves> chavesPorLivro = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean pronto;
+
+    @Override
+    public void indexar(Livro livro) {
+        Chaves novas = new Chaves(chave(livro.getTitulo()), chave(livro.getAutor()));
+        lock.writeLock().lock();
+        try {
+            Chaves anteriores = chavesPorLivro.get(livro.getId());
+            if (novas.equals(anteriores)) {
+                return;
+            }
+            if (anteriores != null) {
+                retirar(anteriores);
+            }
+            chavesPorLivro.put(livro.getId(), new Chaves(incluir(titulos, novas.titulo(), livro.getTitulo()),
+                    incluir(autores, novas.autor(), livro.getAutor())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remover(Long id) {
+        lock.writeLock().lock();
+        try {
+            Chaves anteriores = chavesPorLivro.remove(id);
+            if (anteriores != null) {
+                retirar(anteriores);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void limpar() {
+        lock.writeLock().lock();
+        try {
+            pronto = false;
+            titulos.limpar();
+            autores.limpar();
+            chavesPorLivro.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void carregamentoConcluido() {
+        lock.writeLock().lock();
+        try {
+            titulos.recalcular();
+            autores.recalcular();
+            pronto = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /** Títulos e autores distintos no índice. */
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return titulos.tamanho() + autores.tamanho();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Até {@code limite} títulos e autores que começam com o prefixo, dos mais frequentes
+     * para os menos; vazio enquanto a carga inicial não termina.
+     */
+    public List<Sugestao> sugerir(String prefixo, int limite) {
+        String chave = chavePrefixo(prefixo);
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        if (chave.isEmpty() || !pronto) {
+            return List.of();
+        }
+        List<Sugestao> sugestoes = new ArrayList<>(2 * tamanho);
+        lock.readLock().lock();
+        try {
+            for (ArvorePrefixos.Termo termo : titulos.buscar(chave, tamanho)) {
+                sugestoes.add(new Sugestao(termo.exibicao, TITULO, termo.quantidade));
+            }
+            for (ArvorePrefixos.Termo termo : autores.buscar(chave, tamanho)) {
+                sugestoes.add(new Sugestao(termo.exibicao, AUTOR, termo.quantidade));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        sugestoes.sort(Comparator.comparingInt(Sugestao::livros).reversed()
+                .thenComparing(Sugestao::texto, String.CASE_INSENSITIVE_ORDER));
+        return sugestoes.size() > tamanho ? List.copyOf(sugestoes.subList(0, tamanho)) : sugestoes;
+    }
+
+    private void retirar(Chaves chaves) {
+        if (!chaves.titulo().isEmpty()) {
+            titulos.remover(chaves.titulo());
+        }
+        if (!chaves.autor().isEmpty()) {
+            autores.remover(chaves.autor());
+        }
+    }
+
+    // Devolve a chave da árvore, compartilhada por todos os livros com o mesmo texto
+    private static String incluir(ArvorePrefixos arvore, String chave, String texto) {
+        return chave.isEmpty() ? chave : arvore.adicionar(chave, texto.strip());
+    }
+
+    static String chave(String texto) {
+        return SEPARADORES.matcher(NormalizadorTexto.normalizar(texto)).replaceAll(" ").strip();
+    }
+
+    // Como a chave, mas um separador no fim vira espaço: "dom " não sugere "domingos"
+    static String chavePrefixo(String prefixo) {
+        String normalizado = SEPARADORES.matcher(NormalizadorTexto.normalizar(prefixo)).replaceAll(" ");
+        String chave = normalizado.strip();
+        return !chave.isEmpty() && normalizado.endsWith(" ") ? chave + " " : chave;
+    }
+}
@@ -1,8 +1,8 @@
 -- Dados iniciais para teste
-INSERT INTO livros (titulo, autor, isbn, ano_publicacao, editora, descricao, disponivel) VALUES
-('Dom Casmurro', 'Machado de Assis', '978-85-359-0277-5', 1899, 'Companhia das Letras', 'Romance clássico da literatura brasileira que narra a história de Bentinho e Capitu.', true),
-('O Cortiço', 'Aluísio Azevedo', '978-85-359-0123-4', 1890, 'Ática', 'Romance naturalista que retrata a vida em um cortiço no Rio de Janeiro do século XIX.', true),
-('Iracema', 'José de Alencar', '978-85-359-0456-7', 1865, 'Martin Claret', 'Romance indianista que conta a lenda da origem do Ceará.', false),
-('O Guarani', 'José de Alencar', '978-85-359-0789-1', 1857, 'Saraiva', 'Romance que narra a história de amor entre Peri e Ceci.', true),
-('Memórias Póstumas de Brás Cubas', 'Machado de Assis', '978-85-359-0321-8', 1881, 'Companhia das Letras', 'Romance narrado por um defunto autor que conta sua vida.', true);
+INSERT INTO livros (id, titulo, autor, isbn, ano_publicacao, editora, descricao, disponivel, versao, atualizado_em) VALUES
+(NEXT VALUE FOR livros_seq, 'Dom Casmurro', 'Machado de Assis', '978-85-359-0277-5', 1899, 'Companhia das Letras', 'Romance clássico da literatura brasileira que narra a história de Bentinho e Capitu.', true, 0, CURRENT_TIMESTAMP),
+(NEXT VALUE FOR livros_seq, 'O Cortiço', 'Aluísio Azevedo', '978-85-359-0123-4', 1890, 'Ática', 'Romance naturalista que retrata a vida em um cortiço no Rio de Janeiro do século XIX.', true, 0, CURRENT_TIMESTAMP),
+(NEXT VALUE FOR livros_seq, 'Iracema', 'José de Alencar', '978-85-359-0456-7', 1865, 'Martin Claret', 'Romance indianista que conta a lenda da origem do Ceará.', false, 0, CURRENT_TIMESTAMP),
+(NEXT VALUE FOR livros_seq, 'O Guarani', 'José de Alencar', '978-85-359-0789-1', 1857, 'Saraiva', 'Romance que narra a história de amor entre Peri e Ceci.', true, 0, CURRENT_TIMESTAMP),
+(NEXT VALUE FOR livros_seq, 'Memórias Póstumas de Brás Cubas', 'Machado de Assis', '978-85-359-0321-8', 1881, 'Companhia das Letras', 'Romance narrado por um defunto autor que conta sua vida.', true, 0, CURRENT_TIMESTAMP);
 
@@ -0,0 +1,28 @@
+-- Schema inicial do catálogo (equivalente ao gerado pelo Hibernate a partir das entidades)
+
+CREATE SEQUENCE livros_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE livros_alteracoes_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE livros (
+    id BIGINT NOT NULL,
+    titulo VARCHAR(255) NOT NULL,
+    autor VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255) NOT NULL,
+    ano_publicacao INTEGER NOT NULL,
+    editora VARCHAR(255),
+    descricao TEXT,
+    disponivel BOOLEAN NOT NULL,
+    versao BIGINT NOT NULL,
+    atualizado_em TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_livros_isbn UNIQUE (isbn)
+);
+
+CREATE TABLE livros_alteracoes (
+    id BIGINT NOT NULL,
+    livro_id BIGINT NOT NULL,
+    removido BOOLEAN NOT NULL,
+    registrado_em TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
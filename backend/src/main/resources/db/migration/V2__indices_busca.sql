@@ -0,0 +1,12 @@
+-- Índices para as consultas do LivroRepository (veja @Table(indexes) em Livro e AlteracaoLivro)
+
+-- O H2 não indexa expressões: título e autor em minúsculas viram colunas geradas
+ALTER TABLE livros ADD COLUMN titulo_minusculo VARCHAR(255) GENERATED ALWAYS AS (LOWER(titulo));
+ALTER TABLE livros ADD COLUMN autor_minusculo VARCHAR(255) GENERATED ALWAYS AS (LOWER(autor));
+
+CREATE INDEX idx_livros_titulo_minusculo ON livros (titulo_minusculo);
+CREATE INDEX idx_livros_autor_minusculo ON livros (autor_minusculo);
+CREATE INDEX idx_livros_disponivel ON livros (disponivel, id);
+CREATE INDEX idx_livros_ano_publicacao ON livros (ano_publicacao);
+
+CREATE INDEX idx_livros_alteracoes_livro ON livros_alteracoes (livro_id, id);
@@ -0,0 +1,16 @@
+-- Empréstimos de livros (veja a entidade Emprestimo)
+
+CREATE SEQUENCE emprestimos_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE emprestimos (
+    id BIGINT NOT NULL,
+    livro_id BIGINT NOT NULL,
+    membro VARCHAR(255) NOT NULL,
+    retirado_em TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    devolver_ate DATE NOT NULL,
+    devolvido_em TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_emprestimos_livro ON emprestimos (livro_id, id);
+CREATE INDEX idx_emprestimos_membro ON emprestimos (membro, id);
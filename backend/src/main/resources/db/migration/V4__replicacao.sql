@@ -0,0 +1,9 @@
+-- Replicação entre nós (veja AlteracaoLivro e o pacote service.replicacao)
+
+-- Nó que gravou a alteração; os outros nós aplicam só as que não são suas
+ALTER TABLE livros_alteracoes ADD COLUMN origem VARCHAR(64);
+
+-- Um id por vez: com blocos de 50 por nó os ids deixariam de seguir a ordem das escritas
+ALTER SEQUENCE livros_alteracoes_seq INCREMENT BY 1;
+
+CREATE INDEX idx_livros_alteracoes_registro ON livros_alteracoes (registrado_em);
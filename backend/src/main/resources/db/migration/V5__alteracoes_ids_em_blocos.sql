@@ -0,0 +1,4 @@
+-- Volta a reservar os ids do registro de alterações em blocos de 50 (veja AlteracaoLivro):
+-- um id por vez custava uma ida ao banco em cada escrita. A ordem entre nós vem da margem
+-- sobre registrado_em, não mais da sequência
+ALTER SEQUENCE livros_alteracoes_seq INCREMENT BY 50;
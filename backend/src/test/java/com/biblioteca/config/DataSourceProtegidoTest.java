@@ -0,0 +1,53 @@
+package com.biblioteca.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataSourceProtegidoTest {
+
+    @Mock
+    private DataSource alvo;
+
+    @Mock
+    private Connection conexao;
+
+    @Test
+    void testRecusaAlemDoLimiteELiberaAoFechar() throws SQLException {
+        // Arrange
+        when(alvo.getConnection()).thenReturn(conexao);
+        DataSourceProtegido dataSource = new DataSourceProtegido(alvo, 1);
+
+        // Act
+        Connection primeira = dataSource.getConnection();
+
+        // Assert
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        primeira.close();
+        primeira.close();
+        verify(conexao, times(2)).close();
+        assertEquals(1, dataSource.disponiveis());
+        assertNotNull(dataSource.getConnection());
+    }
+
+    @Test
+    void testFalhaDoPoolDevolvePermissao() throws SQLException {
+        // Arrange
+        when(alvo.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+        DataSourceProtegido dataSource = new DataSourceProtegido(alvo, 1);
+
+        // Act & Assert
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.disponiveis());
+    }
+}
@@ -0,0 +1,71 @@
+package com.biblioteca.config;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.busca.IndiceBusca;
+import com.biblioteca.service.cache.LivroCache;
+import com.biblioteca.service.estatistica.EstatisticasCatalogo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasConfigTest {
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testMetricasDosIndices() {
+        // Arrange
+        IndiceBusca indiceBusca = new IndiceBusca();
+        EstatisticasCatalogo estatisticas = new EstatisticasCatalogo();
+        Livro livro = livro(1L, "9788535902778");
+        indiceBusca.indexar(livro);
+        indiceBusca.carregamentoConcluido();
+        estatisticas.indexar(livro);
+
+        // Act
+        new MetricasConfig().metricasIndices(indiceBusca, estatisticas).bindTo(registry);
+
+        // Assert
+        assertEquals(1.0, registry.get("biblioteca.indice.livros").gauge().value());
+        assertEquals(1.0, registry.get("biblioteca.indice.pronto").tag("indice", "busca").gauge().value());
+        assertEquals(0.0, registry.get("biblioteca.indice.pronto").tag("indice", "estatisticas").gauge().value());
+        assertEquals(1.0, registry.get("biblioteca.catalogo.livros").gauge().value());
+        assertEquals(1.0, registry.get("biblioteca.catalogo.disponiveis").gauge().value());
+    }
+
+    @Test
+    void testMetricasDoCache() {
+        // Arrange
+        LivroCache cache = new LivroCache(100, Duration.ofMinutes(1));
+        cache.bindTo(registry);
+        Livro livro = livro(1L, "9788535902778");
+
+        // Act
+        cache.buscarPorId(1L, id -> Optional.of(livro));
+        cache.buscarPorId(1L, id -> Optional.of(livro));
+
+        // Assert
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "livros-por-id").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "livros-por-id").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.size").tag("cache", "livros-por-id").gauge().value());
+    }
+
+    private static Livro livro(Long id, String isbn) {
+        Livro livro = new Livro("Dom Casmurro", "Machado de Assis", isbn, 1899);
+        livro.setId(id);
+        livro.setDisponivel(true);
+        return livro;
+    }
+}
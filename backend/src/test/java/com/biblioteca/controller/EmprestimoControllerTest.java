@@ -0,0 +1,94 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.service.emprestimo.EmprestimoConflitoException;
+import com.biblioteca.service.emprestimo.EmprestimoService;
+import com.biblioteca.service.emprestimo.LivroOcupadoException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EmprestimoController.class)
+class EmprestimoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmprestimoService emprestimoService;
+
+    @Test
+    void testEmprestar() throws Exception {
+        // Arrange
+        Emprestimo emprestimo = new Emprestimo(1L, "ana", Instant.now(), LocalDate.of(2030, 1, 15));
+        emprestimo.setId(7L);
+        when(emprestimoService.emprestar(1L, "ana", LocalDate.of(2030, 1, 15))).thenReturn(emprestimo);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/emprestimos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"livroId\": 1, \"membro\": \"ana\", \"devolverAte\": \"2030-01-15\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "/api/emprestimos/7"))
+                .andExpect(jsonPath("$.livroId").value(1))
+                .andExpect(jsonPath("$.devolverAte").value("2030-01-15"))
+                .andExpect(jsonPath("$.aberto").value(true));
+    }
+
+    @Test
+    void testEmprestarLivroJaEmprestado() throws Exception {
+        // Arrange
+        when(emprestimoService.emprestar(eq(1L), eq("ana"), isNull()))
+                .thenThrow(new EmprestimoConflitoException("Livro indisponível para empréstimo"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/emprestimos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"livroId\": 1, \"membro\": \"ana\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.erro").value("Livro indisponível para empréstimo"));
+    }
+
+    @Test
+    void testEmprestarSemMembro() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/emprestimos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"livroId\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        verify(emprestimoService, never()).emprestar(any(), any(), any());
+    }
+
+    @Test
+    void testDevolverComLivroOcupado() throws Exception {
+        // Arrange
+        when(emprestimoService.devolver(anyLong())).thenThrow(new LivroOcupadoException());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/emprestimos/7/devolucao"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    void testListarExigeLivroOuMembro() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/emprestimos"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Informe livroId ou membro"));
+    }
+}
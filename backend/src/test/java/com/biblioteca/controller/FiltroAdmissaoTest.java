@@ -0,0 +1,71 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.service.admissao.ControleAdmissao;
+import com.biblioteca.service.admissao.FaixaAdmissao;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroAdmissaoTest {
+
+    @Test
+    void testRecusaCom429QuandoClienteExcedeATaxa() throws ServletException, IOException {
+        // Arrange
+        ControleAdmissao controle = new ControleAdmissao(0.5, 1, 1000, 2.0, 10, 4, 2);
+        FiltroAdmissao filtro = new FiltroAdmissao(controle, "X-Forwarded-For");
+
+        // Act
+        MockHttpServletResponse primeira = executar(filtro, requisicao("GET", "/api/livros/1", "10.0.0.1, 172.16.0.1"));
+        MockHttpServletResponse segunda = executar(filtro, requisicao("GET", "/api/livros/1", "10.0.0.1"));
+        MockHttpServletResponse outroCliente = executar(filtro, requisicao("GET", "/api/livros/1", "10.0.0.2"));
+
+        // Assert
+        assertEquals(200, primeira.getStatus());
+        assertEquals(429, segunda.getStatus());
+        assertEquals("2", segunda.getHeader("Retry-After"));
+        assertTrue(segunda.getContentAsString().contains("\"erro\""));
+        assertEquals(200, outroCliente.getStatus());
+        assertEquals(0, controle.emAndamento(FaixaAdmissao.LEITURA));
+    }
+
+    @Test
+    void testRecusaCom503QuandoFaixaEstaCheia() throws ServletException, IOException {
+        // Arrange
+        ControleAdmissao controle = new ControleAdmissao(200, 400, 1000, 2.0, 10, 4, 2);
+        FiltroAdmissao filtro = new FiltroAdmissao(controle, "");
+        controle.entrar(FaixaAdmissao.CONSULTA);
+        controle.entrar(FaixaAdmissao.CONSULTA);
+
+        // Act
+        MockHttpServletResponse busca = executar(filtro, requisicao("GET", "/api/livros/buscar", null));
+        MockHttpServletResponse leitura = executar(filtro, requisicao("GET", "/api/livros/7", null));
+        MockHttpServletResponse foraDaApi = executar(filtro, requisicao("GET", "/actuator/health", null));
+
+        // Assert
+        assertEquals(503, busca.getStatus());
+        assertEquals("1", busca.getHeader("Retry-After"));
+        assertEquals(200, leitura.getStatus());
+        assertEquals(200, foraDaApi.getStatus());
+    }
+
+    private static MockHttpServletRequest requisicao(String metodo, String caminho, String encaminhadoPara) {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, caminho);
+        if (encaminhadoPara != null) {
+            request.addHeader("X-Forwarded-For", encaminhadoPara);
+        }
+        return request;
+    }
+
+    private static MockHttpServletResponse executar(FiltroAdmissao filtro, MockHttpServletRequest request)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
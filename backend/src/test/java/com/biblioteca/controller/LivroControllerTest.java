@@ -1,22 +1,50 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.dto.Alteracoes;
+import com.biblioteca.dto.CampoLivro;
+import com.biblioteca.dto.Estatisticas;
+import com.biblioteca.dto.FiltroPesquisa;
+import com.biblioteca.dto.Pagina;
+import com.biblioteca.dto.ResultadoImportacao;
+import com.biblioteca.dto.ResultadoPesquisa;
+import com.biblioteca.dto.StatusOperacao;
+import com.biblioteca.dto.Sugestao;
 import com.biblioteca.model.Livro;
+import com.biblioteca.service.CursorExpiradoException;
+import com.biblioteca.service.ImportacaoService;
+import com.biblioteca.service.IsbnDuplicadoException;
 import com.biblioteca.service.LivroService;
+import com.biblioteca.service.escrita.FilaEscrita;
+import com.biblioteca.service.escrita.FilaEscritaCheiaException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.util.function.Consumer;
+
+import java.sql.SQLTransientConnectionException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,9 +58,17 @@ class LivroControllerTest {
     @MockBean
     private LivroService livroService;
 
+    @MockBean
+    private ImportacaoService importacaoService;
+
+    @MockBean
+    private FilaEscrita filaEscrita;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    private static final String ETAG_RESUMO = "livros-" + CampoLivro.assinatura(CampoLivro.RESUMO) + "-json";
+
     private Livro livroTeste;
 
     @BeforeEach
@@ -51,18 +87,89 @@ class LivroControllerTest {
     @Test
     void testListarTodos() throws Exception {
         // Arrange
-        List<Livro> livros = Arrays.asList(livroTeste);
-        when(livroService.listarTodos()).thenReturn(livros);
+        percorrerCampos(false, CampoLivro.valores(CampoLivro.RESUMO, livroTeste));
 
-        // Act & Assert
-        mockMvc.perform(get("/api/livros"))
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].titulo").value("Dom Casmurro"))
-                .andExpect(jsonPath("$[0].autor").value("Machado de Assis"));
+                .andExpect(jsonPath("$[0].autor").value("Machado de Assis"))
+                .andExpect(jsonPath("$[0].anoPublicacao").value(1899))
+                .andExpect(jsonPath("$[0].disponivel").value(true))
+                .andExpect(jsonPath("$[0].descricao").doesNotExist())
+                .andExpect(jsonPath("$[0].isbn").doesNotExist());
+
+        verify(livroService, never()).listarTodos();
+    }
 
-        verify(livroService, times(1)).listarTodos();
+    @Test
+    void testListarTodosComCamposEscolhidos() throws Exception {
+        // Arrange
+        List<CampoLivro> campos = List.of(CampoLivro.ID, CampoLivro.ISBN, CampoLivro.DESCRICAO);
+        percorrerCampos(false, CampoLivro.valores(campos, livroTeste));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros").param("fields", "isbn, descricao,isbn"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].isbn").value("978-85-359-0277-5"))
+                .andExpect(jsonPath("$[0].descricao").value("Romance clássico da literatura brasileira"))
+                .andExpect(jsonPath("$[0].titulo").doesNotExist());
+        verify(livroService).percorrerCampos(eq(campos), eq(false), any());
+        verify(livroService).etagCatalogo("livros-" + CampoLivro.assinatura(campos) + "-json");
+    }
+
+    @Test
+    void testListarTodosEmCbor() throws Exception {
+        // Arrange
+        percorrerCampos(false, CampoLivro.valores(CampoLivro.RESUMO, livroTeste));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+        JsonNode livros = new ObjectMapper(new CBORFactory()).readTree(resultado.getResponse().getContentAsByteArray());
+        assertEquals("Dom Casmurro", livros.get(0).get("titulo").asText());
+        assertEquals(1899, livros.get(0).get("anoPublicacao").asInt());
+        verify(livroService).etagCatalogo("livros-" + CampoLivro.assinatura(CampoLivro.RESUMO) + "-cbor");
+    }
+
+    @Test
+    void testListarTodosEmFormatoNaoSuportado() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/livros").accept(MediaType.TEXT_XML))
+                .andExpect(status().isNotAcceptable());
+
+        verifyNoInteractions(livroService);
+    }
+
+    @Test
+    void testListarTodosComCampoDesconhecido() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/livros").param("fields", "titulo,senha"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Campo desconhecido em fields: senha"));
+
+        verifyNoInteractions(livroService);
     }
 
     @Test
@@ -92,6 +199,19 @@ class LivroControllerTest {
         verify(livroService, times(1)).buscarPorId(999L);
     }
 
+    @Test
+    void testBuscarPorIdSemConexaoDisponivel() throws Exception {
+        // Arrange
+        when(livroService.buscarPorId(1L)).thenThrow(new CannotCreateTransactionException("Sem conexão",
+                new SQLTransientConnectionException("Limite de 110 pedidos de conexão simultâneos atingido")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.erro").exists());
+    }
+
     @Test
     void testCriarLivro() throws Exception {
         // Arrange
@@ -124,6 +244,55 @@ class LivroControllerTest {
         verify(livroService, times(1)).salvar(any(Livro.class));
     }
 
+    @Test
+    void testCriarLivroAssincrono() throws Exception {
+        // Arrange
+        StatusOperacao pendente = StatusOperacao.pendente("op-1", StatusOperacao.Tipo.CRIACAO, null);
+        when(filaEscrita.criar(any(Livro.class))).thenReturn(pendente);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroTeste)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/livros/operacoes/op-1"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.estado").value("PENDENTE"));
+
+        verify(livroService, never()).salvar(any());
+    }
+
+    @Test
+    void testEscritaAssincronaComFilaCheia() throws Exception {
+        // Arrange
+        when(filaEscrita.deletar(1L)).thenThrow(new FilaEscritaCheiaException("Fila de escrita cheia"));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/livros/1").header("Prefer", "respond-async"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.erro").value("Fila de escrita cheia"));
+
+        verify(livroService, never()).deletar(anyLong());
+    }
+
+    @Test
+    void testStatusOperacao() throws Exception {
+        // Arrange
+        StatusOperacao concluida = StatusOperacao.pendente("op-2", StatusOperacao.Tipo.ATUALIZACAO, 1L).concluida(1L);
+        when(filaEscrita.status("op-2")).thenReturn(Optional.of(concluida));
+        when(filaEscrita.status("expirada")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/operacoes/op-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("CONCLUIDA"))
+                .andExpect(jsonPath("$.livroId").value(1));
+        mockMvc.perform(get("/api/livros/operacoes/expirada"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCriarLivroComDadosInvalidos() throws Exception {
         // Arrange
@@ -194,35 +363,311 @@ class LivroControllerTest {
     @Test
     void testBuscarPorTermo() throws Exception {
         // Arrange
-        List<Livro> livros = Arrays.asList(livroTeste);
-        when(livroService.buscarPorTermo("Machado")).thenReturn(livros);
+        List<Object[]> linhas = List.<Object[]>of(CampoLivro.valores(CampoLivro.RESUMO, livroTeste));
+        when(livroService.buscarPorTermo("Machado", LivroService.LIMITE_PADRAO_BUSCA, CampoLivro.RESUMO))
+                .thenReturn(linhas);
 
-        // Act & Assert
-        mockMvc.perform(get("/api/livros/buscar")
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros/buscar")
                         .param("termo", "Machado"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$[0].autor").value("Machado de Assis"));
 
-        verify(livroService, times(1)).buscarPorTermo("Machado");
+        verify(livroService, times(1)).buscarPorTermo("Machado", LivroService.LIMITE_PADRAO_BUSCA, CampoLivro.RESUMO);
+    }
+
+    @Test
+    void testPesquisarComFiltros() throws Exception {
+        // Arrange
+        FiltroPesquisa filtro = new FiltroPesquisa("casmurro", "Machado de Assis", null, 1800, null, true,
+                FiltroPesquisa.Ordenacao.ANO_DECRESCENTE, 10, 20);
+        ResultadoPesquisa.Facetas facetas = new ResultadoPesquisa.Facetas(1L, 0L,
+                Map.of("Machado de Assis", 1L), Map.of("Companhia das Letras", 1L), Map.of(1890, 1L));
+        when(livroService.cursorAlteracoes()).thenReturn("abc.3");
+        when(livroService.pesquisar(filtro, CampoLivro.RESUMO)).thenReturn(new ResultadoPesquisa(21L,
+                List.of(CampoLivro.mapa(CampoLivro.RESUMO, CampoLivro.valores(CampoLivro.RESUMO, livroTeste))), facetas));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/pesquisa")
+                        .param("termo", "casmurro")
+                        .param("autor", "Machado de Assis")
+                        .param("editora", "")
+                        .param("anoMin", "1800")
+                        .param("disponivel", "true")
+                        .param("ordenar", "-ano")
+                        .param("limite", "10")
+                        .param("deslocamento", "20"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(LivroController.CABECALHO_CURSOR, "abc.3"))
+                .andExpect(jsonPath("$.total").value(21))
+                .andExpect(jsonPath("$.itens[0].titulo").value("Dom Casmurro"))
+                .andExpect(jsonPath("$.facetas.disponiveis").value(1))
+                .andExpect(jsonPath("$.facetas.porAutor['Machado de Assis']").value(1));
+
+        verify(livroService, times(1)).pesquisar(filtro, CampoLivro.RESUMO);
+    }
+
+    @Test
+    void testPesquisarComOrdenacaoDesconhecida() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/pesquisa")
+                        .param("ordenar", "editora"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Ordenação desconhecida: editora"));
+
+        verify(livroService, never()).pesquisar(any(), any());
+    }
+
+    @Test
+    void testListarDisponiveisPaginado() throws Exception {
+        // Arrange
+        when(livroService.listarDisponiveis(null, 1, CampoLivro.RESUMO)).thenReturn(
+                new Pagina<>(List.<Object[]>of(CampoLivro.valores(CampoLivro.RESUMO, livroTeste)), "AAAAAAAAAAE"));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros/disponiveis").param("limite", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itens[0].titulo").value("Dom Casmurro"))
+                .andExpect(jsonPath("$.proximoCursor").value("AAAAAAAAAAE"));
+
+        verify(livroService, never()).percorrerCampos(any(), anyBoolean(), any());
     }
 
     @Test
     void testObterEstatisticas() throws Exception {
         // Arrange
-        when(livroService.contarTotal()).thenReturn(10L);
-        when(livroService.contarDisponiveis()).thenReturn(8L);
+        Estatisticas estatisticas = new Estatisticas(10L, 8L, 2L,
+                Map.of("Machado de Assis", 2L), Map.of("Companhia das Letras", 2L), Map.of(1890, 3L));
+        when(livroService.obterEstatisticas()).thenReturn(estatisticas);
 
         // Act & Assert
         mockMvc.perform(get("/api/livros/estatisticas"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.total").value(10))
-                .andExpect(jsonPath("$.disponiveis").value(8));
+                .andExpect(jsonPath("$.disponiveis").value(8))
+                .andExpect(jsonPath("$.indisponiveis").value(2))
+                .andExpect(jsonPath("$.porAutor['Machado de Assis']").value(2))
+                .andExpect(jsonPath("$.porDecada['1890']").value(3));
 
-        verify(livroService, times(1)).contarTotal();
-        verify(livroService, times(1)).contarDisponiveis();
+        verify(livroService, times(1)).obterEstatisticas();
     }
-}
 
+    @Test
+    void testSugerir() throws Exception {
+        // Arrange
+        when(livroService.sugerir("mach", 8)).thenReturn(List.of(
+                new Sugestao("Machado de Assis", "autor", 2), new Sugestao("Machado: uma biografia", "titulo", 1)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/sugestoes").param("prefixo", "mach"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].texto").value("Machado de Assis"))
+                .andExpect(jsonPath("$[0].tipo").value("autor"))
+                .andExpect(jsonPath("$[0].livros").value(2))
+                .andExpect(jsonPath("$[1].tipo").value("titulo"));
+    }
+
+    @Test
+    void testListarTodosRetornaEtag() throws Exception {
+        // Arrange
+        when(livroService.etagCatalogo(ETAG_RESUMO)).thenReturn("\"livros-abc-7\"");
+        when(livroService.cursorAlteracoes()).thenReturn("abc.3");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"livros-abc-7\""))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().string(LivroController.CABECALHO_CURSOR, "abc.3"));
+    }
+
+    @Test
+    void testListarTodosNaoModificadoNaoConsultaCatalogo() throws Exception {
+        // Arrange
+        when(livroService.etagCatalogo(ETAG_RESUMO)).thenReturn("\"livros-abc-7\"");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros").header("If-None-Match", "\"livros-abc-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(livroService, never()).percorrerCampos(any(), anyBoolean(), any());
+        verify(livroService, never()).cursorAlteracoes();
+    }
+
+    @Test
+    void testBuscarPorIdNaoModificado() throws Exception {
+        // Arrange
+        livroTeste.setVersao(2L);
+        when(livroService.buscarPorId(1L)).thenReturn(Optional.of(livroTeste));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/1").header("If-None-Match", "\"livro-1-2\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/livros/1").header("If-None-Match", "\"livro-1-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"livro-1-2\""));
+    }
+
+    @Test
+    void testAtualizarComVersaoDesatualizada() throws Exception {
+        // Arrange
+        when(livroService.atualizar(eq(1L), any(Livro.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Livro.class, 1L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/livros/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroTeste)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.erro").exists());
+    }
+
+    @Test
+    void testCriarLivroComIsbnDuplicado() throws Exception {
+        // Arrange
+        when(livroService.salvar(any(Livro.class))).thenThrow(new IsbnDuplicadoException());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livroTeste)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.erro").value("Já existe um livro com este ISBN"));
+    }
+
+    @Test
+    void testListarAlteracoes() throws Exception {
+        // Arrange
+        when(livroService.listarAlteracoes("abc.1", 1000))
+                .thenReturn(new Alteracoes(List.of(livroTeste), List.of(7L), "abc.5", false));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/changes").param("since", "abc.1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.alterados[0].titulo").value("Dom Casmurro"))
+                .andExpect(jsonPath("$.removidos[0]").value(7))
+                .andExpect(jsonPath("$.cursor").value("abc.5"));
+    }
+
+    @Test
+    void testListarAlteracoesCursorExpirado() throws Exception {
+        // Arrange
+        when(livroService.listarAlteracoes(eq("velho.1"), anyInt())).thenThrow(new CursorExpiradoException());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/changes").param("since", "velho.1"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.erro").exists());
+    }
+
+    @Test
+    void testListarPagina() throws Exception {
+        // Arrange
+        when(livroService.listarPagina(isNull(), eq(1), eq(CampoLivro.RESUMO)))
+                .thenReturn(new Pagina<>(List.<Object[]>of(CampoLivro.valores(CampoLivro.RESUMO, livroTeste)),
+                        "AAAAAAAAAAE"));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros").param("limite", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itens[0].titulo").value("Dom Casmurro"))
+                .andExpect(jsonPath("$.proximoCursor").value("AAAAAAAAAAE"));
+
+        verify(livroService, never()).percorrerCampos(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void testListarPaginaComCursorInvalido() throws Exception {
+        // Arrange
+        when(livroService.listarPagina("x", 10, CampoLivro.RESUMO)).thenThrow(new IllegalArgumentException("Cursor inválido"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros").param("apos", "x").param("limite", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Cursor inválido"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamTodos() throws Exception {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<Livro> consumidor = invocation.getArgument(0);
+            consumidor.accept(livroTeste);
+            consumidor.accept(livroTeste);
+            return null;
+        }).when(livroService).percorrerTodos(any(Consumer.class));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/livros/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+        String[] linhas = resultado.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(2, linhas.length);
+        assertEquals("Dom Casmurro", objectMapper.readTree(linhas[0]).get("titulo").asText());
+    }
+
+    @Test
+    void testObterMetricasCache() throws Exception {
+        // Arrange
+        when(livroService.metricasCache()).thenReturn(Map.of("porId", Map.of("acertos", 3)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/livros/cache/metricas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.porId.acertos").value(3));
+    }
+
+    @Test
+    void testImportarCsv() throws Exception {
+        // Arrange
+        ResultadoImportacao resultado = new ResultadoImportacao(2, 1, 1,
+                List.of(new ResultadoImportacao.Erro(3, "978-85-359-0277-5", "Já existe um livro com este ISBN")),
+                10, 100.0);
+        when(importacaoService.importarCsv(any())).thenReturn(resultado);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/livros/importacao")
+                        .contentType("text/csv")
+                        .content("titulo,autor,isbn,anoPublicacao\nA,B,C,2000\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importados").value(1))
+                .andExpect(jsonPath("$.erros[0].linha").value(3));
+
+        verify(importacaoService, times(1)).importarCsv(any());
+        verify(importacaoService, never()).importarJson(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void percorrerCampos(boolean somenteDisponiveis, Object[]... linhas) {
+        doAnswer(invocation -> {
+            Consumer<Object[]> consumidor = invocation.getArgument(2);
+            Arrays.stream(linhas).forEach(consumidor);
+            return null;
+        }).when(livroService).percorrerCampos(any(), eq(somenteDisponiveis), any(Consumer.class));
+    }
+}
@@ -0,0 +1,206 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.dto.CampoLivro;
+import com.biblioteca.model.Livro;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere, pelo EXPLAIN do H2, que as consultas do repositório usam índices.
+ *
+ * O SQL de cada método é capturado pelo Hibernate no momento da execução e repassado ao
+ * EXPLAIN com parâmetros equivalentes. Ficam de fora, por percorrerem a tabela inteira de
+ * propósito: {@code streamTodos} (carga dos índices em memória), as agregações usadas na
+ * reconciliação das estatísticas e {@code buscarPorTermo} (busca por substring, só usada
+ * enquanto o índice de busca em memória carrega).
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.biblioteca.repository.LivroRepositoryTest$CapturaSql")
+class LivroRepositoryTest {
+
+    public static class CapturaSql implements StatementInspector {
+
+        static final List<String> comandos = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            comandos.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AlteracaoLivroRepository alteracaoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        livroRepository.save(new Livro("Dom Casmurro", "Machado de Assis", "repositorio-1", 1899));
+        livroRepository.save(new Livro("Dom Quixote", "Miguel de Cervantes", "repositorio-2", 1605));
+        Livro indisponivel = new Livro("O Cortiço", "Aluísio Azevedo", "repositorio-3", 1890);
+        indisponivel.setDisponivel(false);
+        livroRepository.save(indisponivel);
+        entityManager.flush();
+        entityManager.clear();
+        CapturaSql.comandos.clear();
+    }
+
+    @Test
+    void testContagemPorDecadaArredondaAnosNegativosParaBaixo() {
+        // Arrange
+        livroRepository.save(new Livro("Ilíada", "Homero", "repositorio-4", -5));
+        livroRepository.save(new Livro("Odisseia", "Homero", "repositorio-5", -10));
+        entityManager.flush();
+
+        // Act
+        List<Object[]> linhas = livroRepository.contarPorDecada();
+
+        // Assert
+        assertTrue(linhas.stream().anyMatch(linha -> ((Number) linha[0]).intValue() == -10
+                && ((Number) linha[1]).longValue() == 2L));
+        assertTrue(linhas.stream().anyMatch(linha -> ((Number) linha[0]).intValue() == 1890
+                && ((Number) linha[1]).longValue() == 2L));
+    }
+
+    @Test
+    void testBuscaPorPrefixoIgnoraMaiusculas() {
+        // Act
+        List<Livro> porTitulo = livroRepository.findByTituloMinusculoStartingWithOrderByTituloMinusculoAsc(
+                "dom ", PageRequest.of(0, 10));
+        List<Livro> porAutor = livroRepository.findByAutorMinusculoStartingWithOrderByAutorMinusculoAsc(
+                "aluísio", PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(List.of("Dom Casmurro", "Dom Quixote"), porTitulo.stream().map(Livro::getTitulo).toList());
+        assertEquals(List.of("O Cortiço"), porAutor.stream().map(Livro::getTitulo).toList());
+    }
+
+    @Test
+    void testColunaGeradaAcompanhaAtualizacao() {
+        // Arrange
+        Livro livro = livroRepository.findByIsbn("repositorio-1").orElseThrow();
+        livro.setTitulo("Memorial de Aires");
+        entityManager.flush();
+
+        // Act
+        List<Livro> encontrados = livroRepository.findByTituloMinusculoStartingWithOrderByTituloMinusculoAsc(
+                "memorial", PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(List.of("repositorio-1"), encontrados.stream().map(Livro::getIsbn).toList());
+    }
+
+    @Test
+    void testProjecaoTrazSoOsCamposPedidos() {
+        // Act
+        List<Object[]> resumo;
+        try (var linhas = livroRepository.projetar(CampoLivro.RESUMO, null)) {
+            resumo = linhas.toList();
+        }
+        List<Object[]> soIds = livroRepository.projetarApos(List.of(CampoLivro.ID), 0L, 10, null);
+        String sql = CapturaSql.comandos.get(0);
+
+        // Assert
+        assertEquals(3, resumo.size());
+        assertArrayEquals(new Object[] {resumo.get(0)[0], "Dom Casmurro", "Machado de Assis", 1899, true},
+                resumo.get(0));
+        assertFalse(sql.contains("descricao"), sql);
+        assertFalse(sql.contains("isbn"), sql);
+        assertEquals(3, soIds.size());
+        assertEquals(1, soIds.get(0).length);
+    }
+
+    @Test
+    void testProjecaoDeDisponiveisUsaIndice() {
+        try (var linhas = livroRepository.projetar(CampoLivro.RESUMO, true)) {
+            assertEquals(2, linhas.count());
+        }
+        assertUsaIndice("IDX_LIVROS_DISPONIVEL", true);
+    }
+
+    @Test
+    void testBuscaPorTituloUsaIndice() {
+        livroRepository.findByTituloMinusculoStartingWithOrderByTituloMinusculoAsc("dom", PageRequest.of(0, 10));
+        assertUsaIndice("IDX_LIVROS_TITULO_MINUSCULO", "dom%", 10);
+    }
+
+    @Test
+    void testBuscaPorAutorUsaIndice() {
+        livroRepository.findByAutorMinusculoStartingWithOrderByAutorMinusculoAsc("machado", PageRequest.of(0, 10));
+        assertUsaIndice("IDX_LIVROS_AUTOR_MINUSCULO", "machado%", 10);
+    }
+
+    @Test
+    void testDisponiveisUsamIndice() {
+        livroRepository.findByDisponivelOrderByIdAsc(true);
+        assertUsaIndice("IDX_LIVROS_DISPONIVEL", true);
+
+        livroRepository.countByDisponivel(true);
+        assertUsaIndice("IDX_LIVROS_DISPONIVEL", true);
+    }
+
+    @Test
+    void testConsultasPorIsbnUsamIndiceUnico() {
+        livroRepository.findByIsbn("repositorio-1");
+        assertUsaIndice(null, "repositorio-1");
+
+        livroRepository.findIsbnsExistentes(Set.of("repositorio-1"));
+        assertUsaIndice(null, "repositorio-1");
+    }
+
+    @Test
+    void testPaginacaoUsaChavePrimaria() {
+        livroRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10));
+        assertUsaIndice("PRIMARY_KEY", 0L, 10);
+    }
+
+    @Test
+    void testCompactacaoDasAlteracoesUsaIndice() {
+        alteracaoRepository.removerSubstituidas(100L);
+        assertUsaIndice("IDX_LIVROS_ALTERACOES_LIVRO", 100L);
+    }
+
+    /**
+     * Executa o EXPLAIN do último comando capturado e verifica que nenhuma tabela é lida
+     * por varredura completa (e, se informado, que o índice esperado aparece no plano).
+     */
+    private void assertUsaIndice(String indice, Object... parametros) {
+        assertFalse(CapturaSql.comandos.isEmpty(), "nenhum SQL capturado");
+        String sql = CapturaSql.comandos.get(CapturaSql.comandos.size() - 1);
+        CapturaSql.comandos.clear();
+        String plano = String.join("\n", jdbcTemplate.query("EXPLAIN " + sql, instrucao -> {
+            for (int i = 0; i < parametros.length; i++) {
+                instrucao.setObject(i + 1, parametros[i]);
+            }
+        }, (linha, numero) -> linha.getString(1)));
+
+        assertFalse(plano.contains("tableScan"), () -> "varredura completa em:\n" + plano);
+        if (indice != null) {
+            assertTrue(plano.contains(indice), () -> indice + " não usado em:\n" + plano);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogoIndexadorTest {
+
+    private LivroRepository livroRepository;
+    private VersaoCatalogo versaoCatalogo;
+    private IndiceCatalogo indice;
+    private CatalogoIndexador indexador;
+
+    @BeforeEach
+    void setUp() {
+        livroRepository = mock(LivroRepository.class);
+        versaoCatalogo = mock(VersaoCatalogo.class);
+        indice = mock(IndiceCatalogo.class);
+        indexador = new CatalogoIndexador();
+        ReflectionTestUtils.setField(indexador, "livroRepository", livroRepository);
+        ReflectionTestUtils.setField(indexador, "versaoCatalogo", versaoCatalogo);
+        ReflectionTestUtils.setField(indexador, "indices", List.of(indice));
+    }
+
+    @Test
+    void testIndexaVersaoConfirmada() {
+        // Arrange
+        Livro livro = livro(3L);
+        when(livroRepository.versaoConfirmada(1L)).thenReturn(Optional.of(3L));
+
+        // Act
+        indexador.aoAlterarLivro(LivroAlteradoEvent.atualizado(livro));
+
+        // Assert
+        verify(indice).indexar(livro);
+        verify(versaoCatalogo).avancar();
+    }
+
+    @Test
+    void testAtualizacaoAtrasadaNaoSobrescreveVersaoMaisNova() {
+        // Arrange: o callback da versão 2 roda depois que a 3 já foi confirmada
+        when(livroRepository.versaoConfirmada(1L)).thenReturn(Optional.of(3L));
+
+        // Act
+        indexador.aoAlterarLivro(LivroAlteradoEvent.atualizado(livro(2L)));
+
+        // Assert
+        verify(indice, never()).indexar(any());
+        verify(indice, never()).remover(any());
+    }
+
+    @Test
+    void testAtualizacaoAtrasadaDeLivroRemovidoNaoOTrazDeVolta() {
+        // Arrange: o callback da atualização roda depois do da remoção
+        when(livroRepository.versaoConfirmada(1L)).thenReturn(Optional.empty());
+        indexador.aoAlterarLivro(LivroAlteradoEvent.removido(1L));
+
+        // Act
+        indexador.aoAlterarLivro(LivroAlteradoEvent.atualizado(livro(2L)));
+
+        // Assert
+        verify(indice, times(2)).remover(1L);
+        verify(indice, never()).indexar(any());
+    }
+
+    private static Livro livro(long versao) {
+        Livro livro = new Livro("Dom Casmurro", "Machado de Assis", "isbn-1", 1899);
+        livro.setId(1L);
+        livro.setVersao(versao);
+        return livro;
+    }
+}
@@ -0,0 +1,172 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.ResultadoImportacao;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+// Banco próprio: o @SpyBean cria outro contexto, e o create-drop dele recriaria o banco
+// compartilhado com o contexto dos demais testes
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:importacao")
+@ActiveProfiles("test")
+class ImportacaoServiceTest {
+
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @Autowired
+    private LivroService livroService;
+
+    @SpyBean
+    private LivroRepository livroRepository;
+
+    @Test
+    void testImportarCsvEmLotes() throws Exception {
+        // Arrange: 1200 linhas (mais de dois lotes), uma inválida e um ISBN repetido
+        StringBuilder csv = new StringBuilder("titulo,autor,isbn,anoPublicacao,editora,descricao,disponivel\n");
+        for (int i = 0; i < 1200; i++) {
+            csv.append("\"Livro, volume ").append(i).append("\",Autor ").append(i % 7)
+               .append(",csv-").append(i).append(",").append(1900 + i % 100).append(",Editora,,true\n");
+        }
+        csv.append(",Sem Título,csv-invalido,2000,,,\n");
+        csv.append("Repetido,Autor,csv-10,2000,,,\n");
+
+        // Act
+        ResultadoImportacao resultado = importacaoService.importarCsv(entrada(csv.toString()));
+
+        // Assert
+        assertEquals(1202, resultado.recebidos());
+        assertEquals(1200, resultado.importados());
+        assertEquals(2, resultado.rejeitados());
+        assertEquals(List.of(1202L, 1203L), resultado.erros().stream().map(ResultadoImportacao.Erro::linha).toList());
+        assertEquals("Livro, volume 3", livroRepository.findByIsbn("csv-3").orElseThrow().getTitulo());
+        assertEquals(1, livroService.buscarPorTermo("volume 1199").size());
+    }
+
+    @Test
+    void testImportarJsonRejeitaIsbnExistente() throws Exception {
+        // Arrange
+        livroService.salvar(new Livro("Existente", "Autor", "json-1", 1990));
+        String json = """
+                [
+                  {"titulo": "Novo", "autor": "Autor", "isbn": "json-2", "anoPublicacao": 2001},
+                  {"titulo": "Duplicado", "autor": "Autor", "isbn": "json-1", "anoPublicacao": 2002},
+                  {"titulo": "Ano inválido", "autor": "Autor", "isbn": "json-3", "anoPublicacao": "abc"}
+                ]
+                """;
+
+        // Act
+        ResultadoImportacao resultado = importacaoService.importarJson(entrada(json));
+
+        // Assert
+        assertEquals(3, resultado.recebidos());
+        assertEquals(1, resultado.importados());
+        assertEquals("Já existe um livro com este ISBN", resultado.erros().get(0).mensagem());
+        assertEquals(3L, resultado.erros().get(1).linha());
+        assertTrue(livroRepository.findByIsbn("json-2").isPresent());
+    }
+
+    @Test
+    void testImportarJsonIgnoraIdEVersaoDeLinhasExportadas() throws Exception {
+        // Arrange: o formato que /stream e /changes devolvem
+        String json = """
+                [{"id": 987654, "titulo": "Quincas Borba Exportado", "autor": "Machado de Assis",
+                  "isbn": "exp-1", "anoPublicacao": 1891, "versao": 2}]
+                """;
+
+        // Act
+        ResultadoImportacao resultado = importacaoService.importarJson(entrada(json));
+
+        // Assert
+        assertEquals(1, resultado.importados());
+        assertEquals(List.of(), resultado.erros());
+        Livro importado = livroRepository.findByIsbn("exp-1").orElseThrow();
+        assertNotEquals(987654L, importado.getId());
+        assertEquals(0L, importado.getVersao());
+        assertEquals(1, livroService.buscarPorTermo("Quincas Exportado").size());
+    }
+
+    @Test
+    void testIsbnGravadoPorOutroClienteDuranteOLoteRejeitaSoAquelaLinha() throws Exception {
+        // Arrange: outro cliente grava "corrida-2" logo depois da verificação dos ISBNs do lote
+        doAnswer(invocacao -> {
+            livroService.salvar(new Livro("Concorrente", "Outro", "corrida-2", 1999));
+            return Set.of();
+        }).when(livroRepository).findIsbnsExistentes(any());
+        String csv = """
+                titulo,autor,isbn,anoPublicacao
+                Primeiro,Autor,corrida-1,2001
+                Segundo,Autor,corrida-2,2002
+                Terceiro,Autor,corrida-3,2003
+                """;
+
+        // Act
+        ResultadoImportacao resultado = importacaoService.importarCsv(entrada(csv));
+
+        // Assert
+        assertEquals(2, resultado.importados());
+        assertEquals(1, resultado.rejeitados());
+        assertEquals(3L, resultado.erros().get(0).linha());
+        assertEquals("Já existe um livro com este ISBN", resultado.erros().get(0).mensagem());
+        assertEquals("Concorrente", livroRepository.findByIsbn("corrida-2").orElseThrow().getTitulo());
+        assertEquals(1, livroService.buscarPorTermo("Terceiro").size());
+    }
+
+    @Test
+    void testCampoMaiorQueAColunaERejeitadoAntesDeGravar() throws Exception {
+        // Arrange
+        String csv = "titulo,autor,isbn,anoPublicacao\n"
+                + "Curto,Autor,longo-1,2001\n"
+                + "x".repeat(300) + ",Autor,longo-2,2002\n";
+
+        // Act
+        ResultadoImportacao resultado = importacaoService.importarCsv(entrada(csv));
+
+        // Assert
+        assertEquals(1, resultado.importados());
+        assertEquals(3L, resultado.erros().get(0).linha());
+        assertEquals("Título deve ter no máximo 255 caracteres", resultado.erros().get(0).mensagem());
+    }
+
+    @Test
+    void testImportarCsvComQuebraDeLinhaDentroDeAspas() throws Exception {
+        // Arrange: a descrição ocupa três linhas do arquivo; o último registro não fecha as aspas
+        String csv = """
+                titulo,autor,isbn,anoPublicacao,descricao
+                Memórias Póstumas,Machado de Assis,multi-1,1881,"Primeira linha,
+                segunda com ""aspas""
+                e terceira"
+                Helena,Machado de Assis,multi-2,1876,Uma linha só
+                Iaiá Garcia,Machado de Assis,multi-3,1878,"sem fechar
+                """;
+
+        // Act
+        ResultadoImportacao resultado = importacaoService.importarCsv(entrada(csv));
+
+        // Assert
+        assertEquals(3, resultado.recebidos());
+        assertEquals(2, resultado.importados());
+        assertEquals(6L, resultado.erros().get(0).linha());
+        assertEquals("Campo entre aspas não foi fechado", resultado.erros().get(0).mensagem());
+        assertEquals("Primeira linha,\nsegunda com \"aspas\"\ne terceira",
+                livroRepository.findByIsbn("multi-1").orElseThrow().getDescricao());
+        assertEquals("Uma linha só", livroRepository.findByIsbn("multi-2").orElseThrow().getDescricao());
+    }
+
+    private static ByteArrayInputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,21 +1,48 @@
 package com.biblioteca.service;
 
+import com.biblioteca.dto.CampoLivro;
+import com.biblioteca.dto.FiltroPesquisa;
+import com.biblioteca.dto.Pagina;
+import com.biblioteca.dto.ResultadoPesquisa;
 import com.biblioteca.model.Livro;
 import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.busca.IndiceBusca;
+import com.biblioteca.service.cache.Coalescedor;
+import com.biblioteca.service.cache.LivroCache;
+import com.biblioteca.service.disponibilidade.IndiceDisponibilidade;
+import com.biblioteca.service.estatistica.EstatisticasCatalogo;
+import com.biblioteca.service.facetas.IndiceFacetas;
+import com.biblioteca.service.isbn.IndiceIsbn;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +51,33 @@ class LivroServiceTest {
     @Mock
     private LivroRepository livroRepository;
 
+    @Mock
+    private IndiceBusca indiceBusca;
+
+    @Mock
+    private EstatisticasCatalogo estatisticasCatalogo;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private VersaoCatalogo versaoCatalogo;
+
+    @Spy
+    private LivroCache livroCache = new LivroCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private Coalescedor coalescedor = new Coalescedor(new VersaoCatalogo());
+
+    @Spy
+    private IndiceIsbn indiceIsbn = new IndiceIsbn();
+
+    @Spy
+    private IndiceFacetas indiceFacetas = new IndiceFacetas();
+
+    @Spy
+    private IndiceDisponibilidade indiceDisponibilidade = new IndiceDisponibilidade();
+
     @InjectMocks
     private LivroService livroService;
 
@@ -71,6 +125,35 @@ class LivroServiceTest {
         verify(livroRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void testBuscarPorIdUsaCache() {
+        // Arrange
+        when(livroRepository.findById(1L)).thenReturn(Optional.of(livroTeste));
+
+        // Act
+        livroService.buscarPorId(1L);
+        Optional<Livro> resultado = livroService.buscarPorId(1L);
+
+        // Assert
+        assertSame(livroTeste, resultado.get());
+        verify(livroRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testBuscarPorIsbnUsaCacheAteInvalidacao() {
+        // Arrange
+        when(livroRepository.findByIsbn("978-85-359-0277-5")).thenReturn(Optional.of(livroTeste));
+
+        // Act
+        livroService.buscarPorIsbn("978-85-359-0277-5");
+        livroService.buscarPorIsbn("978-85-359-0277-5");
+        livroCache.aoAlterarLivro(LivroAlteradoEvent.removido(1L));
+        livroService.buscarPorIsbn("978-85-359-0277-5");
+
+        // Assert
+        verify(livroRepository, times(2)).findByIsbn("978-85-359-0277-5");
+    }
+
     @Test
     void testBuscarPorIdNaoEncontrado() {
         // Arrange
@@ -93,16 +176,18 @@ class LivroServiceTest {
         novoLivro.setIsbn("978-85-359-0123-4");
         novoLivro.setAnoPublicacao(1890);
 
-        when(livroRepository.findByIsbn(anyString())).thenReturn(Optional.empty());
-        when(livroRepository.save(any(Livro.class))).thenReturn(novoLivro);
+        indiceIsbn.indexar(livroTeste);
+        indiceIsbn.carregamentoConcluido();
+        when(livroRepository.saveAndFlush(any(Livro.class))).thenReturn(novoLivro);
 
         // Act
         Livro resultado = livroService.salvar(novoLivro);
 
         // Assert
         assertEquals(novoLivro.getTitulo(), resultado.getTitulo());
-        verify(livroRepository, times(1)).findByIsbn(novoLivro.getIsbn());
-        verify(livroRepository, times(1)).save(novoLivro);
+        verify(livroRepository, never()).findByIsbn(anyString());
+        verify(livroRepository, times(1)).saveAndFlush(novoLivro);
+        verify(eventPublisher, times(1)).publishEvent(LivroAlteradoEvent.criado(novoLivro));
     }
 
     @Test
@@ -111,16 +196,46 @@ class LivroServiceTest {
         Livro novoLivro = new Livro();
         novoLivro.setIsbn("978-85-359-0277-5"); // ISBN já existente
 
-        when(livroRepository.findByIsbn(anyString())).thenReturn(Optional.of(livroTeste));
+        indiceIsbn.indexar(livroTeste);
+        indiceIsbn.carregamentoConcluido();
+        when(livroRepository.findByIsbn("978-85-359-0277-5")).thenReturn(Optional.of(livroTeste));
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        RuntimeException exception = assertThrows(IsbnDuplicadoException.class, () -> {
             livroService.salvar(novoLivro);
         });
 
         assertEquals("Já existe um livro com este ISBN", exception.getMessage());
-        verify(livroRepository, times(1)).findByIsbn(novoLivro.getIsbn());
-        verify(livroRepository, never()).save(any(Livro.class));
+        verify(livroRepository, never()).saveAndFlush(any(Livro.class));
+    }
+
+    @Test
+    void testSalvarLivroComIsbnQueOIndiceAindaNaoLiberou() {
+        // Arrange: o índice ainda guarda o ISBN, mas o livro já trocou de ISBN no banco
+        indiceIsbn.indexar(livroTeste);
+        indiceIsbn.carregamentoConcluido();
+        Livro novoLivro = new Livro("Dom Casmurro", "Machado de Assis", "978-85-359-0277-5", 1899);
+        when(livroRepository.findByIsbn("978-85-359-0277-5")).thenReturn(Optional.empty());
+        when(livroRepository.saveAndFlush(novoLivro)).thenReturn(novoLivro);
+
+        // Act
+        Livro resultado = livroService.salvar(novoLivro);
+
+        // Assert
+        assertSame(novoLivro, resultado);
+        verify(eventPublisher).publishEvent(LivroAlteradoEvent.criado(novoLivro));
+    }
+
+    @Test
+    void testSalvarLivroComIsbnGravadoConcorrentemente() {
+        // Arrange: o índice ainda não viu o outro livro, mas a constraint única viu
+        Livro novoLivro = new Livro("O Cortiço", "Aluísio Azevedo", "978-85-359-0123-4", 1890);
+        when(livroRepository.saveAndFlush(any(Livro.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_livros_isbn"));
+
+        // Act & Assert
+        assertThrows(IsbnDuplicadoException.class, () -> livroService.salvar(novoLivro));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -134,7 +249,7 @@ class LivroServiceTest {
         livroAtualizado.setDisponivel(false);
 
         when(livroRepository.findById(1L)).thenReturn(Optional.of(livroTeste));
-        when(livroRepository.save(any(Livro.class))).thenReturn(livroAtualizado);
+        when(livroRepository.saveAndFlush(any(Livro.class))).thenReturn(livroAtualizado);
 
         // Act
         Livro resultado = livroService.atualizar(1L, livroAtualizado);
@@ -143,7 +258,38 @@ class LivroServiceTest {
         assertEquals(livroAtualizado.getTitulo(), resultado.getTitulo());
         assertEquals(livroAtualizado.getDisponivel(), resultado.getDisponivel());
         verify(livroRepository, times(1)).findById(1L);
-        verify(livroRepository, times(1)).save(any(Livro.class));
+        verify(livroRepository, times(1)).saveAndFlush(any(Livro.class));
+    }
+
+    @Test
+    void testAtualizarParaIsbnDeOutroLivro() {
+        // Arrange
+        Livro outro = new Livro("O Cortiço", "Aluísio Azevedo", "978-85-359-0123-4", 1890);
+        outro.setId(2L);
+        indiceIsbn.indexar(livroTeste);
+        indiceIsbn.indexar(outro);
+        indiceIsbn.carregamentoConcluido();
+        Livro livroAtualizado = new Livro("Dom Casmurro", "Machado de Assis", outro.getIsbn(), 1899);
+        when(livroRepository.findById(1L)).thenReturn(Optional.of(livroTeste));
+        when(livroRepository.findByIsbn(outro.getIsbn())).thenReturn(Optional.of(outro));
+
+        // Act & Assert
+        assertThrows(IsbnDuplicadoException.class, () -> livroService.atualizar(1L, livroAtualizado));
+        verify(livroRepository, never()).saveAndFlush(any(Livro.class));
+    }
+
+    @Test
+    void testAtualizarComVersaoDesatualizada() {
+        // Arrange: o cliente leu a versão 1, mas o livro já está na 3
+        livroTeste.setVersao(3L);
+        Livro livroAtualizado = new Livro("Dom Casmurro", "Machado de Assis", "978-85-359-0277-5", 1899);
+        livroAtualizado.setVersao(1L);
+        when(livroRepository.findById(1L)).thenReturn(Optional.of(livroTeste));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> livroService.atualizar(1L, livroAtualizado));
+        verify(livroRepository, never()).saveAndFlush(any(Livro.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -159,7 +305,7 @@ class LivroServiceTest {
 
         assertEquals("Livro não encontrado", exception.getMessage());
         verify(livroRepository, times(1)).findById(999L);
-        verify(livroRepository, never()).save(any(Livro.class));
+        verify(livroRepository, never()).saveAndFlush(any(Livro.class));
     }
 
     @Test
@@ -173,6 +319,7 @@ class LivroServiceTest {
         // Assert
         verify(livroRepository, times(1)).existsById(1L);
         verify(livroRepository, times(1)).deleteById(1L);
+        verify(eventPublisher, times(1)).publishEvent(LivroAlteradoEvent.removido(1L));
     }
 
     @Test
@@ -205,6 +352,159 @@ class LivroServiceTest {
         verify(livroRepository, times(1)).buscarPorTermo("Machado");
     }
 
+    @Test
+    void testBuscarPorTermoUsaIndice() {
+        // Arrange
+        Livro outro = new Livro();
+        outro.setId(5L);
+        when(indiceBusca.isPronto()).thenReturn(true);
+        when(indiceBusca.buscar("machado", 10)).thenReturn(Arrays.asList(5L, 1L));
+        when(livroRepository.findAllById(Arrays.asList(5L, 1L))).thenReturn(Arrays.asList(livroTeste, outro));
+
+        // Act
+        List<Livro> resultado = livroService.buscarPorTermo("machado", 10);
+
+        // Assert: mantém a ordem de relevância do índice
+        assertEquals(2, resultado.size());
+        assertEquals(5L, resultado.get(0).getId());
+        assertEquals(1L, resultado.get(1).getId());
+        verify(livroRepository, never()).buscarPorTermo(anyString());
+    }
+
+    @Test
+    void testPesquisarLeSoAPaginaNaOrdemDoIndice() {
+        // Arrange
+        Livro helena = new Livro("Helena", "Machado de Assis", "978-85-359-0001-1", 1876);
+        helena.setId(5L);
+        helena.setDisponivel(true);
+        indiceFacetas.indexar(livroTeste);
+        indiceFacetas.indexar(helena);
+        List<CampoLivro> campos = List.of(CampoLivro.ID, CampoLivro.TITULO);
+        when(indiceBusca.pontuacoes("machado")).thenReturn(Map.of(1L, 1.0f, 5L, 2.0f));
+        when(livroRepository.projetarPorIds(campos, Arrays.asList(5L)))
+                .thenReturn(List.<Object[]>of(new Object[] {5L, "Helena"}));
+        FiltroPesquisa filtro = new FiltroPesquisa("machado", null, null, null, null, true,
+                FiltroPesquisa.Ordenacao.RELEVANCIA, 1, 0);
+
+        // Act
+        ResultadoPesquisa resultado = livroService.pesquisar(filtro, campos);
+
+        // Assert
+        assertEquals(2, resultado.total());
+        assertEquals(1, resultado.itens().size());
+        assertEquals("Helena", resultado.itens().get(0).get("titulo"));
+        assertEquals(2L, resultado.facetas().porAutor().get("Machado de Assis"));
+        verify(livroRepository, never()).findAll();
+    }
+
+    @Test
+    void testBuscarPorTermoComProjecaoMantemOrdemDoIndice() {
+        // Arrange
+        List<CampoLivro> campos = List.of(CampoLivro.ID, CampoLivro.TITULO);
+        when(indiceBusca.isPronto()).thenReturn(true);
+        when(indiceBusca.buscar("machado", 10)).thenReturn(Arrays.asList(5L, 1L));
+        when(livroRepository.projetarPorIds(campos, Arrays.asList(5L, 1L)))
+                .thenReturn(Arrays.asList(new Object[] {1L, "Dom Casmurro"}, new Object[] {5L, "Helena"}));
+
+        // Act
+        List<Object[]> resultado = livroService.buscarPorTermo("machado", 10, campos);
+
+        // Assert
+        assertEquals(2, resultado.size());
+        assertEquals("Helena", resultado.get(0)[1]);
+        assertEquals("Dom Casmurro", resultado.get(1)[1]);
+        verify(livroRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testBuscasIdenticasSimultaneasFazemUmaConsulta() throws Exception {
+        // Arrange: a consulta ao banco fica presa até todos os clientes terem chegado
+        int clientes = 32;
+        List<CampoLivro> campos = List.of(CampoLivro.ID, CampoLivro.TITULO);
+        CountDownLatch liberarBanco = new CountDownLatch(1);
+        when(indiceBusca.isPronto()).thenReturn(true);
+        when(indiceBusca.buscar("machado", 10)).thenReturn(Arrays.asList(1L));
+        when(livroRepository.projetarPorIds(campos, Arrays.asList(1L))).thenAnswer(invocacao -> {
+            liberarBanco.await(10, TimeUnit.SECONDS);
+            return List.<Object[]>of(new Object[] {1L, "Dom Casmurro"});
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+
+        try {
+            // Act
+            List<Future<List<Object[]>>> respostas = new ArrayList<>();
+            for (int i = 0; i < clientes; i++) {
+                respostas.add(executor.submit(() -> livroService.buscarPorTermo("machado", 10, campos)));
+            }
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalescedor.compartilhadas() < clientes - 1 && System.nanoTime() < limite) {
+                Thread.sleep(1);
+            }
+            liberarBanco.countDown();
+
+            // Assert: uma única consulta, com o mesmo resultado para todos
+            for (Future<List<Object[]>> resposta : respostas) {
+                assertEquals("Dom Casmurro", resposta.get(10, TimeUnit.SECONDS).get(0)[1]);
+            }
+            verify(livroRepository, times(1)).projetarPorIds(campos, Arrays.asList(1L));
+            assertEquals(1, coalescedor.execucoes());
+            assertEquals(clientes - 1, coalescedor.compartilhadas());
+
+            // Terminada a execução nada fica guardado: a próxima busca consulta o banco de novo
+            livroService.buscarPorTermo("machado", 10, campos);
+            verify(livroRepository, times(2)).projetarPorIds(campos, Arrays.asList(1L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testListarPaginaComProjecao() {
+        // Arrange
+        when(livroRepository.projetarApos(CampoLivro.RESUMO, 0L, 2, null))
+                .thenReturn(Arrays.asList(new Object[] {4L, "A"}, new Object[] {9L, "B"}));
+        when(livroRepository.projetarApos(CampoLivro.RESUMO, 4L, 2, null))
+                .thenReturn(Arrays.<Object[]>asList(new Object[] {9L, "B"}));
+
+        // Act
+        Pagina<Object[]> pagina = livroService.listarPagina(null, 1, CampoLivro.RESUMO);
+        Pagina<Object[]> proxima = livroService.listarPagina(pagina.proximoCursor(), 1, CampoLivro.RESUMO);
+
+        // Assert: o cursor vem do id, primeiro campo da projeção
+        assertEquals(1, pagina.itens().size());
+        assertEquals(9L, proxima.itens().get(0)[0]);
+        assertNull(proxima.proximoCursor());
+    }
+
+    @Test
+    void testListarDisponiveisLeSoAPaginaDoBitmap() {
+        // Arrange
+        for (long id = 1; id <= 6; id++) {
+            Livro livro = new Livro("Título " + id, "Autor", "isbn-" + id, 2000);
+            livro.setId(id);
+            livro.setDisponivel(id % 2 == 0);
+            indiceDisponibilidade.indexar(livro);
+        }
+        indiceDisponibilidade.carregamentoConcluido();
+        when(livroRepository.projetarPorIds(CampoLivro.RESUMO, List.of(2L, 4L)))
+                .thenReturn(Arrays.asList(new Object[] {4L, "D"}, new Object[] {2L, "B"}));
+        when(livroRepository.projetarPorIds(CampoLivro.RESUMO, List.of(4L, 6L)))
+                .thenReturn(Arrays.asList(new Object[] {6L, "F"}, new Object[] {4L, "D"}));
+
+        // Act
+        Pagina<Object[]> pagina = livroService.listarDisponiveis(null, 1, CampoLivro.RESUMO);
+        Pagina<Object[]> proxima = livroService.listarDisponiveis(pagina.proximoCursor(), 2, CampoLivro.RESUMO);
+
+        // Assert
+        assertEquals(2L, pagina.itens().get(0)[0]);
+        assertEquals(2, proxima.itens().size());
+        assertEquals(6L, proxima.itens().get(1)[0]);
+        assertNull(proxima.proximoCursor());
+        assertEquals(3L, livroService.contarDisponiveis());
+        verify(livroRepository, never()).projetarApos(any(), anyLong(), anyInt(), any());
+        verify(livroRepository, never()).countByDisponivel(any());
+    }
+
     @Test
     void testContarTotal() {
         // Arrange
@@ -218,11 +518,26 @@ class LivroServiceTest {
         verify(livroRepository, times(1)).count();
     }
 
+    @Test
+    void testContarDisponiveisUsaContadores() {
+        // Arrange
+        when(estatisticasCatalogo.isPronto()).thenReturn(true);
+        when(estatisticasCatalogo.disponiveis()).thenReturn(42L);
+
+        // Act
+        long resultado = livroService.contarDisponiveis();
+
+        // Assert
+        assertEquals(42L, resultado);
+        verify(livroRepository, never()).findByDisponivelOrderByIdAsc(any());
+        verify(livroRepository, never()).countByDisponivel(any());
+    }
+
     @Test
     void testBuscarDisponiveis() {
         // Arrange
         List<Livro> livrosDisponiveis = Arrays.asList(livroTeste);
-        when(livroRepository.findByDisponivel(true)).thenReturn(livrosDisponiveis);
+        when(livroRepository.findByDisponivelOrderByIdAsc(true)).thenReturn(livrosDisponiveis);
 
         // Act
         List<Livro> resultado = livroService.buscarDisponiveis();
@@ -230,7 +545,38 @@ class LivroServiceTest {
         // Assert
         assertEquals(1, resultado.size());
         assertTrue(resultado.get(0).getDisponivel());
-        verify(livroRepository, times(1)).findByDisponivel(true);
+        verify(livroRepository, times(1)).findByDisponivelOrderByIdAsc(true);
     }
-}
 
+    @Test
+    void testListarPagina() {
+        // Arrange
+        Livro segundo = new Livro();
+        segundo.setId(2L);
+        Livro terceiro = new Livro();
+        terceiro.setId(3L);
+        when(livroRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3)))
+                .thenReturn(Arrays.asList(livroTeste, segundo, terceiro));
+
+        // Act
+        Pagina<Livro> pagina = livroService.listarPagina(null, 2);
+
+        // Assert
+        assertEquals(2, pagina.itens().size());
+        assertNotNull(pagina.proximoCursor());
+
+        // A próxima página começa depois do último id retornado
+        when(livroRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any()))
+                .thenReturn(Arrays.asList(terceiro));
+        Pagina<Livro> proxima = livroService.listarPagina(pagina.proximoCursor(), 2);
+        assertEquals(1, proxima.itens().size());
+        assertNull(proxima.proximoCursor());
+    }
+
+    @Test
+    void testListarPaginaComCursorInvalido() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> livroService.listarPagina("!!invalido", 10));
+        verify(livroRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+}
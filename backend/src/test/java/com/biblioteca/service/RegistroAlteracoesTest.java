@@ -0,0 +1,120 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.Alteracoes;
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RegistroAlteracoesTest {
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private RegistroAlteracoes registroAlteracoes;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testAlteracoesDesdeCursor() {
+        // Arrange
+        String cursor = livroService.cursorAlteracoes();
+        Livro mantido = livroService.salvar(new Livro("Quincas Borba", "Machado de Assis", "alteracoes-1", 1891));
+        Livro removido = livroService.salvar(new Livro("Helena", "Machado de Assis", "alteracoes-2", 1876));
+        Livro edicao = new Livro("Quincas Borba (2ª ed.)", "Machado de Assis", "alteracoes-1", 1891);
+        edicao.setVersao(mantido.getVersao());
+        livroService.atualizar(mantido.getId(), edicao);
+        livroService.deletar(removido.getId());
+
+        // Act
+        Alteracoes alteracoes = livroService.listarAlteracoes(cursor, 100);
+
+        // Assert: uma entrada por livro, no estado atual
+        assertEquals(List.of(mantido.getId()), alteracoes.alterados().stream().map(Livro::getId).toList());
+        assertEquals("Quincas Borba (2ª ed.)", alteracoes.alterados().get(0).getTitulo());
+        assertEquals(1L, alteracoes.alterados().get(0).getVersao());
+        assertEquals(List.of(removido.getId()), alteracoes.removidos());
+        assertFalse(alteracoes.temMais());
+
+        Alteracoes seguintes = livroService.listarAlteracoes(alteracoes.cursor(), 100);
+        assertTrue(seguintes.alterados().isEmpty());
+        assertTrue(seguintes.removidos().isEmpty());
+    }
+
+    @Test
+    void testPaginacaoECompactacao() {
+        // Arrange
+        String cursor = livroService.cursorAlteracoes();
+        Livro livro = livroService.salvar(new Livro("Ressurreição", "Machado de Assis", "alteracoes-3", 1872));
+        livroService.salvar(new Livro("A Mão e a Luva", "Machado de Assis", "alteracoes-4", 1874));
+        livroService.atualizar(livro.getId(), new Livro("Ressurreição", "Machado de Assis", "alteracoes-3", 1873));
+
+        // Act
+        Alteracoes primeira = livroService.listarAlteracoes(cursor, 1);
+        registroAlteracoes.compactar();
+        Alteracoes restante = livroService.listarAlteracoes(primeira.cursor(), 100);
+
+        // Assert: a criação substituída pela atualização some, a atualização continua lá
+        assertTrue(primeira.temMais());
+        assertEquals(List.of(livro.getId()), primeira.alterados().stream().map(Livro::getId).toList());
+        assertEquals(2, restante.alterados().size());
+        assertEquals(1873, restante.alterados().get(1).getAnoPublicacao());
+    }
+
+    @Test
+    void testCursorNaoPassaDeTransacaoEmAndamento() throws Exception {
+        // Arrange: uma transação registra a alteração e fica aberta
+        String cursor = livroService.cursorAlteracoes();
+        CountDownLatch registrou = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+        CompletableFuture<Livro> lenta = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    Livro livro = livroService.salvar(new Livro("Iaiá Garcia", "Machado de Assis", "alteracoes-5", 1878));
+                    registrou.countDown();
+                    aguardar(confirmar);
+                    return livro;
+                }));
+        assertTrue(registrou.await(10, TimeUnit.SECONDS));
+        Livro rapida = livroService.salvar(new Livro("Casa Velha", "Machado de Assis", "alteracoes-6", 1885));
+
+        // Act
+        Alteracoes antes = livroService.listarAlteracoes(cursor, 100);
+        confirmar.countDown();
+        Livro lentaConfirmada = lenta.get(10, TimeUnit.SECONDS);
+        Alteracoes depois = livroService.listarAlteracoes(antes.cursor(), 100);
+
+        // Assert: a escrita confirmada depois da aberta só aparece junto com ela
+        assertTrue(antes.alterados().isEmpty());
+        assertEquals(List.of(lentaConfirmada.getId(), rapida.getId()),
+                depois.alterados().stream().map(Livro::getId).toList());
+    }
+
+    @Test
+    void testCursorDeOutraExecucao() {
+        // Act & Assert
+        assertThrows(CursorExpiradoException.class, () -> livroService.listarAlteracoes("outra.1", 10));
+        assertThrows(IllegalArgumentException.class, () -> livroService.listarAlteracoes("invalido", 10));
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
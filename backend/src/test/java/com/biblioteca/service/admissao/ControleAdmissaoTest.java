@@ -0,0 +1,127 @@
+package com.biblioteca.service.admissao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ControleAdmissaoTest {
+
+    @Test
+    void testBaldeRecusaAlemDaRajadaEReabastece() {
+        // Arrange
+        BaldeTokens balde = new BaldeTokens(2, 10, 0);
+
+        // Act & Assert
+        assertEquals(0, balde.consumir(0));
+        assertEquals(0, balde.consumir(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), balde.consumir(0));
+        assertEquals(0, balde.consumir(TimeUnit.MILLISECONDS.toNanos(100)));
+        // Parado por muito tempo, não passa da capacidade
+        long depois = TimeUnit.SECONDS.toNanos(10);
+        assertEquals(0, balde.consumir(depois));
+        assertEquals(0, balde.consumir(depois));
+        assertTrue(balde.consumir(depois) > 0);
+    }
+
+    @Test
+    void testLimiteCresceComLatenciaEstavelECaiComFila() {
+        // Arrange
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 40, 2.0);
+
+        // Act: rodadas com a faixa cheia e latência constante
+        rodadas(limite, 30, TimeUnit.MILLISECONDS.toNanos(5));
+        int depoisDeSaudavel = limite.limite();
+        // A latência sobe dez vezes: fila se formando
+        rodadas(limite, 10, TimeUnit.MILLISECONDS.toNanos(50));
+
+        // Assert
+        assertEquals(40, depoisDeSaudavel);
+        assertTrue(limite.limite() < depoisDeSaudavel / 2, "limite " + limite.limite());
+        assertTrue(limite.limite() >= 2);
+        assertEquals(0, limite.emAndamento());
+    }
+
+    @Test
+    void testLimiteNaoCresceComPoucoUso() {
+        // Arrange
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 40, 2.0);
+
+        // Act: uma requisição por vez, bem abaixo de metade do limite
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limite.adquirir());
+            limite.liberar(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        // Assert
+        assertEquals(10, limite.limite());
+    }
+
+    @Test
+    void testFaixasTemLimitesIndependentes() {
+        // Arrange
+        ControleAdmissao controle = new ControleAdmissao(200, 400, 1000, 2.0, 10, 4, 2);
+
+        // Act: esgota a faixa de consulta
+        assertTrue(controle.entrar(FaixaAdmissao.CONSULTA));
+        assertTrue(controle.entrar(FaixaAdmissao.CONSULTA));
+        boolean consultaExtra = controle.entrar(FaixaAdmissao.CONSULTA);
+        boolean leitura = controle.entrar(FaixaAdmissao.LEITURA);
+
+        // Assert
+        assertFalse(consultaExtra);
+        assertTrue(leitura);
+        controle.abandonar(FaixaAdmissao.CONSULTA);
+        assertTrue(controle.entrar(FaixaAdmissao.CONSULTA));
+    }
+
+    @Test
+    void testClientesTemBaldesSeparadosEMetricas() {
+        // Arrange
+        ControleAdmissao controle = new ControleAdmissao(1, 1, 1000, 2.0, 10, 4, 2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        controle.bindTo(registry);
+
+        // Act
+        long primeira = controle.consumirToken("10.0.0.1", FaixaAdmissao.LEITURA);
+        long segunda = controle.consumirToken("10.0.0.1", FaixaAdmissao.LEITURA);
+        long outroCliente = controle.consumirToken("10.0.0.2", FaixaAdmissao.LEITURA);
+        controle.entrar(FaixaAdmissao.ESCRITA);
+        controle.entrar(FaixaAdmissao.ESCRITA);
+
+        // Assert
+        assertEquals(0, primeira);
+        assertTrue(segunda > 0);
+        assertEquals(0, outroCliente);
+        assertEquals(1, registry.get("biblioteca.admissao.recusadas")
+                .tags("faixa", "leitura", "motivo", "cliente").functionCounter().count());
+        assertEquals(1, registry.get("biblioteca.admissao.recusadas")
+                .tags("faixa", "escrita", "motivo", "concorrencia").functionCounter().count());
+        assertEquals(1, registry.get("biblioteca.admissao.em.andamento").tag("faixa", "escrita").gauge().value());
+    }
+
+    @Test
+    void testClassificaFaixas() {
+        assertEquals(FaixaAdmissao.LEITURA, FaixaAdmissao.classificar("GET", "/api/livros/42"));
+        assertEquals(FaixaAdmissao.LEITURA, FaixaAdmissao.classificar("GET", "/api/livros/estatisticas"));
+        assertEquals(FaixaAdmissao.CONSULTA, FaixaAdmissao.classificar("GET", "/api/livros/buscar"));
+        assertEquals(FaixaAdmissao.CONSULTA, FaixaAdmissao.classificar("GET", "/api/livros"));
+        assertEquals(FaixaAdmissao.ESCRITA, FaixaAdmissao.classificar("POST", "/api/livros/importar"));
+        assertEquals(FaixaAdmissao.ESCRITA, FaixaAdmissao.classificar("PUT", "/api/livros/42"));
+    }
+
+    // Ocupa toda a faixa e libera todas as requisições com a mesma latência
+    private static void rodadas(LimiteAdaptativo limite, int vezes, long latencia) {
+        for (int r = 0; r < vezes; r++) {
+            int admitidas = 0;
+            while (limite.adquirir()) {
+                admitidas++;
+            }
+            for (int i = 0; i < admitidas; i++) {
+                limite.liberar(latencia);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.biblioteca.service.busca;
+
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceBuscaTest {
+
+    private IndiceBusca indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceBusca();
+        indice.indexar(livro(1L, "Dom Casmurro", "Machado de Assis", "Companhia das Letras", "Bentinho e Capitu"));
+        indice.indexar(livro(2L, "O Cortiço", "Aluísio Azevedo", "Ática", "Romance naturalista"));
+        indice.indexar(livro(3L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "Companhia das Letras", null));
+        indice.indexar(livro(4L, "Machado: uma biografia", "Fulano", "Outra", null));
+        indice.carregamentoConcluido();
+    }
+
+    @Test
+    void testBuscaIgnoraAcentos() {
+        assertEquals(List.of(2L), indice.buscar("aluisio", 10));
+        assertEquals(List.of(2L), indice.buscar("CORTIÇO", 10));
+        assertEquals(List.of(3L), indice.buscar("memorias postumas", 10));
+    }
+
+    @Test
+    void testBuscaPorPrefixo() {
+        assertEquals(List.of(2L), indice.buscar("natural", 10));
+        assertEquals(List.of(1L), indice.buscar("casm", 10));
+    }
+
+    @Test
+    void testRelevanciaPrefereTitulo() {
+        // "machado" no título pesa mais que no autor
+        List<Long> resultado = indice.buscar("machado", 10);
+        assertEquals(4L, resultado.get(0));
+        assertEquals(3, resultado.size());
+    }
+
+    @Test
+    void testTodosOsTermosPrecisamCasar() {
+        assertEquals(List.of(1L), indice.buscar("machado casmurro", 10));
+        assertTrue(indice.buscar("machado naturalista", 10).isEmpty());
+    }
+
+    @Test
+    void testLimite() {
+        assertEquals(1, indice.buscar("machado", 1).size());
+    }
+
+    @Test
+    void testAtualizacaoERemocao() {
+        indice.indexar(livro(2L, "O Cortiço", "Aluísio Azevedo", "Saraiva", null));
+        assertTrue(indice.buscar("atica", 10).isEmpty());
+        assertEquals(List.of(2L), indice.buscar("saraiva", 10));
+
+        indice.remover(2L);
+        assertTrue(indice.buscar("aluisio", 10).isEmpty());
+        assertEquals(3, indice.tamanho());
+    }
+
+    private static Livro livro(Long id, String titulo, String autor, String editora, String descricao) {
+        Livro livro = new Livro(titulo, autor, "isbn-" + id, 1900);
+        livro.setId(id);
+        livro.setEditora(editora);
+        livro.setDescricao(descricao);
+        return livro;
+    }
+}
@@ -0,0 +1,119 @@
+package com.biblioteca.service.cache;
+
+import com.biblioteca.service.VersaoCatalogo;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescedorTest {
+
+    private final VersaoCatalogo versaoCatalogo = new VersaoCatalogo();
+    private final Coalescedor coalescedor = new Coalescedor(versaoCatalogo);
+
+    @Test
+    void testErroDaExecucaoChegaATodosOsQueEsperavam() throws Exception {
+        // Arrange
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // Act
+            List<Future<Object>> respostas = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                respostas.add(executor.submit(() -> coalescedor.executar("falha", List.of(), () -> {
+                    aguardar(liberar);
+                    throw new IllegalStateException("banco indisponível");
+                })));
+            }
+            esperarCompartilhadas(3);
+            liberar.countDown();
+
+            // Assert
+            for (Future<Object> resposta : respostas) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> resposta.get(10, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+            assertEquals(1, coalescedor.execucoes());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testArgumentosEVersaoDiferentesNaoCompartilham() throws Exception {
+        // Arrange
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger consultas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            // Act
+            Future<Integer> primeira = executor.submit(() -> coalescedor.executar("buscar", List.of("a"), () -> {
+                iniciou.countDown();
+                aguardar(liberar);
+                return consultas.incrementAndGet();
+            }));
+            assertTrue(iniciou.await(10, TimeUnit.SECONDS));
+            Future<Integer> outroTermo = executor.submit(() -> coalescedor.executar("buscar", List.of("b"),
+                    consultas::incrementAndGet));
+            outroTermo.get(10, TimeUnit.SECONDS);
+            // Uma alteração confirmada durante a execução: quem chega depois consulta de novo
+            versaoCatalogo.avancar();
+            Future<Integer> depoisDaAlteracao = executor.submit(() -> coalescedor.executar("buscar", List.of("a"),
+                    consultas::incrementAndGet));
+            depoisDaAlteracao.get(10, TimeUnit.SECONDS);
+            liberar.countDown();
+            primeira.get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(3, consultas.get());
+            assertEquals(0, coalescedor.compartilhadas());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDentroDeTransacaoNaoCompartilha() {
+        // Arrange
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        try {
+            // Act
+            Integer resultado = coalescedor.executar("contar", List.of(), () -> 7);
+
+            // Assert
+            assertEquals(7, resultado);
+            assertEquals(0, coalescedor.execucoes());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private void esperarCompartilhadas(long quantidade) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coalescedor.compartilhadas() < quantidade && System.nanoTime() < limite) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.biblioteca.service.cache;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.LivroAlteradoEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LivroCacheTest {
+
+    private static final String ISBN = "978-85-359-0277-5";
+
+    private final LivroCache cache = new LivroCache(100, Duration.ofMinutes(1));
+
+    @Test
+    void testInvalidacaoDuranteBuscaPorIsbnNaoDeixaVersaoAntigaNoCache() throws Exception {
+        // Arrange
+        Livro antigo = livro("Dom Casmurro");
+        Livro atualizado = livro("Dom Casmurro (edição revista)");
+        CountDownLatch leu = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // Act: a busca lê a linha antiga; a atualização confirma e invalida antes do armazenamento
+            Future<Optional<Livro>> busca = executor.submit(() -> cache.buscarPorIsbn(ISBN, isbn -> {
+                leu.countDown();
+                aguardar(liberar);
+                return Optional.of(antigo);
+            }));
+            assertTrue(leu.await(10, TimeUnit.SECONDS));
+            cache.aoAlterarLivro(LivroAlteradoEvent.atualizado(atualizado));
+            liberar.countDown();
+            busca.get(10, TimeUnit.SECONDS);
+
+            // Assert
+            AtomicInteger carregamentos = new AtomicInteger();
+            Optional<Livro> porId = cache.buscarPorId(1L, id -> {
+                carregamentos.incrementAndGet();
+                return Optional.of(atualizado);
+            });
+            assertSame(atualizado, porId.get());
+            assertEquals(1, carregamentos.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAtualizacoesConcorrentesComBuscasPorIsbnTerminamNaUltimaVersao() throws Exception {
+        // Arrange
+        AtomicReference<Livro> banco = new AtomicReference<>(livro("versão 0"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // Act: quem escreve confirma no "banco" e depois invalida, como o AFTER_COMMIT
+            Future<?> escritor = executor.submit(() -> {
+                for (int i = 1; i <= 2_000; i++) {
+                    Livro atualizado = livro("versão " + i);
+                    banco.set(atualizado);
+                    cache.aoAlterarLivro(LivroAlteradoEvent.atualizado(atualizado));
+                }
+            });
+            for (int i = 0; i < 7; i++) {
+                executor.submit(() -> {
+                    while (!escritor.isDone()) {
+                        cache.buscarPorIsbn(ISBN, isbn -> Optional.of(banco.get()));
+                    }
+                });
+            }
+            escritor.get(30, TimeUnit.SECONDS);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            // Assert
+            Livro emCache = cache.buscarPorId(1L, id -> Optional.of(banco.get())).get();
+            assertEquals("versão 2000", emCache.getTitulo());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Livro livro(String titulo) {
+        Livro livro = new Livro(titulo, "Machado de Assis", ISBN, 1899);
+        livro.setId(1L);
+        return livro;
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
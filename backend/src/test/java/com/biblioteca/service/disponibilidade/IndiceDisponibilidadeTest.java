@@ -0,0 +1,84 @@
+package com.biblioteca.service.disponibilidade;
+
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceDisponibilidadeTest {
+
+    private IndiceDisponibilidade indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceDisponibilidade();
+        indice.indexar(livro(1L, true));
+        indice.indexar(livro(2L, false));
+        indice.indexar(livro(3L, true));
+        indice.indexar(livro(70_000L, true));
+        indice.carregamentoConcluido();
+    }
+
+    @Test
+    void testContaEListaSoOsDisponiveis() {
+        // Act & Assert
+        assertEquals(3, indice.quantidade());
+        assertEquals(List.of(1L, 3L, 70_000L), indice.proximos(0L, 10));
+        assertTrue(indice.contem(3L));
+        assertFalse(indice.contem(2L));
+    }
+
+    @Test
+    void testPaginaAPartirDoCursorAtravessaBlocos() {
+        // Act & Assert
+        assertEquals(List.of(1L), indice.proximos(0L, 1));
+        assertEquals(List.of(3L, 70_000L), indice.proximos(1L, 2));
+        assertEquals(List.of(70_000L), indice.proximos(3L, 10));
+        assertEquals(List.of(), indice.proximos(70_000L, 10));
+    }
+
+    @Test
+    void testAtualizarERemoverMantemContagem() {
+        // Act
+        indice.indexar(livro(2L, true));
+        indice.indexar(livro(1L, false));
+        indice.indexar(livro(3L, true));
+        indice.remover(70_000L);
+        indice.remover(99L);
+
+        // Assert
+        assertEquals(2, indice.quantidade());
+        assertEquals(List.of(2L, 3L), indice.proximos(0L, 10));
+    }
+
+    @Test
+    void testBlocoDensoViraBitmapEVolta() {
+        // Arrange
+        int quantidade = IndiceDisponibilidade.LIMITE_ARRAY * 4;
+        indice.limpar();
+        LongStream.rangeClosed(1, quantidade).forEach(id -> indice.indexar(livro(id, true)));
+
+        // Act
+        List<Long> pagina = indice.proximos(5_000L, 3);
+        long bytesBitmap = indice.bytes();
+        LongStream.rangeClosed(1, quantidade).filter(id -> id % 10 != 0).forEach(indice::remover);
+
+        // Assert: 8 KB de bitmap no lugar de 2 bytes por id, e de volta a array quando esvazia
+        assertEquals(List.of(5_001L, 5_002L, 5_003L), pagina);
+        assertEquals(8192, bytesBitmap);
+        assertEquals(quantidade / 10, indice.quantidade());
+        assertEquals(List.of(10L, 20L, 30L), indice.proximos(0L, 3));
+        assertTrue(indice.bytes() < bytesBitmap);
+    }
+
+    private static Livro livro(Long id, boolean disponivel) {
+        Livro livro = new Livro("Título " + id, "Autor", "isbn-" + id, 2000);
+        livro.setId(id);
+        livro.setDisponivel(disponivel);
+        return livro;
+    }
+}
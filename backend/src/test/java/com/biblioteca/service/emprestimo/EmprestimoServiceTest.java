@@ -0,0 +1,134 @@
+package com.biblioteca.service.emprestimo;
+
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.LivroService;
+import com.biblioteca.service.disponibilidade.IndiceDisponibilidade;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EmprestimoServiceTest {
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private IndiceDisponibilidade indiceDisponibilidade;
+
+    @Test
+    void testEmprestimosSimultaneosDoMesmoLivro() throws Exception {
+        // Arrange
+        Livro livro = livroService.salvar(new Livro("Disputado", "Autor", "emprestimo-1", 2001));
+        int pedidos = 16;
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger conflitos = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(pedidos);
+        List<Future<Emprestimo>> resultados = new ArrayList<>();
+        for (int i = 0; i < pedidos; i++) {
+            String membro = "membro-" + i;
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    return emprestimoService.emprestar(livro.getId(), membro, null);
+                } catch (EmprestimoConflitoException e) {
+                    conflitos.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+
+        // Act
+        largada.countDown();
+        int emprestados = 0;
+        for (Future<Emprestimo> resultado : resultados) {
+            if (resultado.get(10, TimeUnit.SECONDS) != null) {
+                emprestados++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert: só um pedido troca a disponibilidade; os demais recebem conflito
+        assertEquals(1, emprestados);
+        assertEquals(pedidos - 1, conflitos.get());
+        assertFalse(livroService.buscarPorId(livro.getId()).orElseThrow().getDisponivel());
+        assertFalse(indiceDisponibilidade.contem(livro.getId()));
+        assertEquals(1, emprestimoService.historicoDoLivro(livro.getId()).size());
+    }
+
+    @Test
+    void testDevolverLiberaLivroUmaVez() {
+        // Arrange
+        Livro livro = livroService.salvar(new Livro("Devolvido", "Autor", "emprestimo-2", 2002));
+        Emprestimo emprestimo = emprestimoService.emprestar(livro.getId(), "ana", LocalDate.now().plusDays(7));
+
+        // Act
+        Emprestimo devolvido = emprestimoService.devolver(emprestimo.getId());
+
+        // Assert
+        assertNotNull(devolvido.getDevolvidoEm());
+        assertTrue(livroService.buscarPorId(livro.getId()).orElseThrow().getDisponivel());
+        assertTrue(indiceDisponibilidade.contem(livro.getId()));
+        assertThrows(EmprestimoConflitoException.class, () -> emprestimoService.devolver(emprestimo.getId()));
+        assertEquals(1, emprestimoService.historicoDoMembro("ana").stream()
+                .filter(item -> item.getLivroId().equals(livro.getId())).count());
+    }
+
+    @Test
+    void testEmprestimoAvancaVersaoDoLivro() {
+        // Arrange: edição aberta antes do empréstimo
+        Livro livro = livroService.salvar(new Livro("Editado", "Autor", "emprestimo-3", 2003));
+        Livro edicao = new Livro("Editado", "Autor", "emprestimo-3", 2003);
+        edicao.setVersao(livro.getVersao());
+        edicao.setDisponivel(true);
+
+        // Act
+        emprestimoService.emprestar(livro.getId(), "bruno", null);
+
+        // Assert: o PUT com a versão anterior não desfaz o empréstimo
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> livroService.atualizar(livro.getId(), edicao));
+        assertFalse(livroService.buscarPorId(livro.getId()).orElseThrow().getDisponivel());
+    }
+
+    @Test
+    void testBitmapAtrasadoNaoRecusaLivroDisponivel() {
+        // Arrange: o bitmap ainda não viu a devolução que o banco já confirmou
+        Livro livro = livroService.salvar(new Livro("Recém-devolvido", "Autor", "emprestimo-4", 2004));
+        indiceDisponibilidade.remover(livro.getId());
+
+        // Act
+        Emprestimo emprestimo = emprestimoService.emprestar(livro.getId(), "diana", null);
+
+        // Assert
+        assertNotNull(emprestimo.getId());
+        assertFalse(livroService.buscarPorId(livro.getId()).orElseThrow().getDisponivel());
+    }
+
+    @Test
+    void testEmprestarLivroInexistente() {
+        // Act & Assert
+        RuntimeException erro = assertThrows(RuntimeException.class,
+                () -> emprestimoService.emprestar(999_999L, "carla", null));
+        assertEquals("Livro não encontrado", erro.getMessage());
+    }
+}
@@ -0,0 +1,182 @@
+package com.biblioteca.service.escrita;
+
+import com.biblioteca.dto.StatusOperacao;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.LivroService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * As threads das filas não são iniciadas: {@code encerrar()} grava o que estiver pendente
+ * na thread do teste, o que deixa a formação dos lotes determinística.
+ */
+class FilaEscritaTest {
+
+    private PlatformTransactionManager transactionManager;
+    private LivroService livroService;
+    private final AtomicLong proximoId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        livroService = mock(LivroService.class);
+        when(livroService.salvar(any(Livro.class))).thenAnswer(invocation -> {
+            Livro livro = invocation.getArgument(0);
+            if (livro.getIsbn().equals("duplicado")) {
+                throw new RuntimeException("Já existe um livro com este ISBN");
+            }
+            livro.setId(proximoId.getAndIncrement());
+            return livro;
+        });
+    }
+
+    @Test
+    void testAgrupaOperacoesNumaTransacao() throws InterruptedException {
+        // Arrange
+        FilaEscrita fila = criarFila(1, 10);
+        StatusOperacao primeira = fila.criar(livro("isbn-1"));
+        StatusOperacao segunda = fila.criar(livro("isbn-2"));
+        StatusOperacao terceira = fila.criar(livro("isbn-3"));
+
+        // Act
+        fila.encerrar();
+
+        // Assert
+        assertEquals(StatusOperacao.Estado.PENDENTE, primeira.estado());
+        assertEquals(StatusOperacao.Estado.CONCLUIDA, fila.status(primeira.id()).orElseThrow().estado());
+        assertEquals(2L, fila.status(segunda.id()).orElseThrow().livroId());
+        assertEquals(3L, fila.status(terceira.id()).orElseThrow().livroId());
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testLoteComFalhaRegravaUmaAUma() throws InterruptedException {
+        // Arrange
+        FilaEscrita fila = criarFila(1, 10);
+        Livro valido = livro("isbn-1");
+        StatusOperacao primeira = fila.criar(valido);
+        StatusOperacao duplicada = fila.criar(livro("duplicado"));
+        StatusOperacao terceira = fila.criar(livro("isbn-3"));
+
+        // Act
+        fila.encerrar();
+
+        // Assert: o lote é desfeito e só a operação inválida falha
+        assertEquals(StatusOperacao.Estado.CONCLUIDA, fila.status(primeira.id()).orElseThrow().estado());
+        StatusOperacao falha = fila.status(duplicada.id()).orElseThrow();
+        assertEquals(StatusOperacao.Estado.FALHOU, falha.estado());
+        assertEquals("Já existe um livro com este ISBN", falha.erro());
+        assertEquals(StatusOperacao.Estado.CONCLUIDA, fila.status(terceira.id()).orElseThrow().estado());
+        // Uma transação para o lote desfeito e uma por operação, duas delas desfeitas
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        // A regravação usa uma cópia: o livro recebido não herda o id da tentativa desfeita
+        assertNull(valido.getId());
+    }
+
+    @Test
+    void testMantemOrdemDasEscritasDoMesmoIsbn() throws InterruptedException {
+        // Arrange
+        FilaEscrita fila = criarFila(4, 10);
+        Livro existente = livro("isbn-7");
+        existente.setId(7L);
+        when(livroService.buscarPorId(7L)).thenReturn(Optional.of(existente));
+        when(livroService.atualizar(eq(7L), any(Livro.class))).thenReturn(existente);
+        Livro alterado = livro("isbn-7");
+        fila.criar(livro("isbn-7"));
+        fila.atualizar(7L, alterado);
+        fila.deletar(7L);
+
+        // Act
+        fila.encerrar();
+
+        // Assert
+        InOrder ordem = inOrder(livroService);
+        ordem.verify(livroService).salvar(any(Livro.class));
+        ordem.verify(livroService).atualizar(7L, alterado);
+        ordem.verify(livroService).deletar(7L);
+    }
+
+    @Test
+    void testEscritasDoMesmoLivroFicamNaMesmaFilaMesmoQueOIsbnMude() throws InterruptedException {
+        // Arrange: o cache ainda mostra o ISBN antigo para a atualização e já o novo para a remoção
+        FilaEscrita fila = criarFila(4, 10);
+        Livro antigo = livro("isbn-7");
+        antigo.setId(7L);
+        Livro novo = livro("isbn-8");
+        novo.setId(7L);
+        when(livroService.buscarPorId(7L)).thenReturn(Optional.of(antigo), Optional.of(novo));
+        when(livroService.atualizar(eq(7L), any(Livro.class))).thenReturn(novo);
+        fila.atualizar(7L, novo);
+        fila.deletar(7L);
+
+        // Act
+        fila.encerrar();
+
+        // Assert: as duas saem da mesma fila, num único lote e na ordem de chegada
+        InOrder ordem = inOrder(livroService);
+        ordem.verify(livroService).atualizar(7L, novo);
+        ordem.verify(livroService).deletar(7L);
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    @Test
+    void testFilaCheiaRecusaOperacao() {
+        // Arrange
+        FilaEscrita fila = criarFila(1, 1);
+        fila.criar(livro("isbn-1"));
+
+        // Act & Assert
+        assertThrows(FilaEscritaCheiaException.class, () -> fila.criar(livro("isbn-2")));
+        assertEquals(1, fila.pendentes());
+    }
+
+    @Test
+    void testAtualizarLivroInexistente() {
+        // Arrange
+        FilaEscrita fila = criarFila(1, 10);
+        when(livroService.buscarPorId(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException erro = assertThrows(RuntimeException.class, () -> fila.atualizar(99L, livro("isbn-1")));
+        assertEquals("Livro não encontrado", erro.getMessage());
+        assertEquals(0, fila.pendentes());
+    }
+
+    @Test
+    void testRecusaOperacoesDepoisDeEncerrar() throws InterruptedException {
+        // Arrange
+        FilaEscrita fila = criarFila(1, 10);
+
+        // Act
+        fila.encerrar();
+
+        // Assert
+        assertThrows(FilaEscritaCheiaException.class, () -> fila.criar(livro("isbn-1")));
+    }
+
+    private FilaEscrita criarFila(int filas, int capacidade) {
+        FilaEscrita fila = new FilaEscrita(transactionManager, filas, capacidade, 100, Duration.ofHours(1));
+        ReflectionTestUtils.setField(fila, "livroService", livroService);
+        ReflectionTestUtils.setField(fila, "entityManager", mock(EntityManager.class));
+        return fila;
+    }
+
+    private static Livro livro(String isbn) {
+        return new Livro("Título " + isbn, "Autor", isbn, 2000);
+    }
+}
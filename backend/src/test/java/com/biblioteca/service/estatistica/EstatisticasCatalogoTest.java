@@ -0,0 +1,207 @@
+package com.biblioteca.service.estatistica;
+
+import com.biblioteca.dto.Estatisticas;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.VersaoCatalogo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstatisticasCatalogoTest {
+
+    @Mock
+    private LivroRepository livroRepository;
+
+    @Mock
+    private VersaoCatalogo versaoCatalogo;
+
+    @InjectMocks
+    private EstatisticasCatalogo estatisticas;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas.indexar(livro(1L, "Machado de Assis", "Companhia das Letras", 1899, true));
+        estatisticas.indexar(livro(2L, "Aluísio Azevedo", "Ática", 1890, true));
+        estatisticas.indexar(livro(3L, "Machado de Assis", "Companhia das Letras", 1881, false));
+        estatisticas.carregamentoConcluido();
+    }
+
+    @Test
+    void testContadoresSemConsultarBanco() {
+        // Act
+        Estatisticas resultado = estatisticas.obter();
+
+        // Assert
+        assertEquals(3L, resultado.total());
+        assertEquals(2L, resultado.disponiveis());
+        assertEquals(1L, resultado.indisponiveis());
+        assertEquals(2L, resultado.porAutor().get("Machado de Assis"));
+        assertEquals(2L, resultado.porDecada().get(1890));
+        assertEquals(1L, resultado.porDecada().get(1880));
+        verifyNoInteractions(livroRepository);
+    }
+
+    @Test
+    void testAtualizacaoDesfazContribuicaoAnterior() {
+        // Act
+        estatisticas.indexar(livro(3L, "Machado de Assis", "Saraiva", 1881, true));
+        estatisticas.remover(2L);
+
+        // Assert
+        Estatisticas resultado = estatisticas.obter();
+        assertEquals(2L, resultado.total());
+        assertEquals(2L, resultado.disponiveis());
+        assertEquals(1L, resultado.porEditora().get("Saraiva"));
+        assertEquals(1L, resultado.porEditora().get("Companhia das Letras"));
+        assertFalse(resultado.porAutor().containsKey("Aluísio Azevedo"));
+    }
+
+    @Test
+    void testReconciliacaoCorrigeDivergenciasQuePersistem() {
+        // Arrange: o banco tem um livro que não passou pelo serviço
+        when(livroRepository.count()).thenReturn(4L);
+        when(livroRepository.countByDisponivel(true)).thenReturn(3L);
+        when(livroRepository.contarPorAutor()).thenReturn(List.of(
+                new Object[]{"Machado de Assis", 2L},
+                new Object[]{"Aluísio Azevedo", 1L},
+                new Object[]{"José de Alencar", 1L}));
+        when(livroRepository.contarPorEditora()).thenReturn(List.of(
+                new Object[]{"Companhia das Letras", 2L},
+                new Object[]{"Ática", 1L}));
+        when(livroRepository.contarPorDecada()).thenReturn(List.of(
+                new Object[]{1890, 2L},
+                new Object[]{1880, 1L},
+                new Object[]{1860, 1L}));
+
+        // Act
+        estatisticas.reconciliar();
+        Estatisticas depoisDaPrimeira = estatisticas.obter();
+        estatisticas.reconciliar();
+
+        // Assert: a primeira conferência só anota, a segunda corrige
+        assertEquals(3L, depoisDaPrimeira.total());
+        Estatisticas resultado = estatisticas.obter();
+        assertEquals(4L, resultado.total());
+        assertEquals(3L, resultado.disponiveis());
+        assertEquals(1L, resultado.porAutor().get("José de Alencar"));
+        assertEquals(1L, resultado.porDecada().get(1860));
+        verify(versaoCatalogo).avancar();
+    }
+
+    @Test
+    void testEscritaAplicadaDuranteReconciliacaoNaoEApagada() {
+        // Arrange: um livro é confirmado e indexado enquanto a consulta ao banco roda, depois dela
+        when(livroRepository.count()).thenAnswer(invocacao -> {
+            estatisticas.indexar(livro(4L, "José de Alencar", "Ática", 1865, true));
+            return 3L;
+        });
+        when(livroRepository.countByDisponivel(true)).thenReturn(2L);
+        when(livroRepository.contarPorAutor()).thenReturn(List.of(
+                new Object[]{"Machado de Assis", 2L},
+                new Object[]{"Aluísio Azevedo", 1L}));
+        when(livroRepository.contarPorEditora()).thenReturn(List.of(
+                new Object[]{"Companhia das Letras", 2L},
+                new Object[]{"Ática", 1L}));
+        when(livroRepository.contarPorDecada()).thenReturn(List.of(
+                new Object[]{1890, 2L},
+                new Object[]{1880, 1L}));
+
+        // Act
+        estatisticas.reconciliar();
+        estatisticas.reconciliar();
+
+        // Assert: as duas conferências batem com os valores lidos antes da consulta
+        Estatisticas resultado = estatisticas.obter();
+        assertEquals(4L, resultado.total());
+        assertEquals(1L, resultado.porAutor().get("José de Alencar"));
+        assertEquals(1L, resultado.porDecada().get(1860));
+        verifyNoInteractions(versaoCatalogo);
+    }
+
+    @Test
+    void testDivergenciaPassageiraNaoECorrigida() {
+        // Arrange: na primeira conferência o banco já tem um livro que o serviço ainda não aplicou
+        when(livroRepository.count()).thenReturn(4L);
+        when(livroRepository.countByDisponivel(true)).thenReturn(3L);
+        when(livroRepository.contarPorAutor()).thenReturn(List.of(
+                new Object[]{"Machado de Assis", 2L},
+                new Object[]{"Aluísio Azevedo", 1L},
+                new Object[]{"José de Alencar", 1L}));
+        when(livroRepository.contarPorEditora()).thenReturn(List.of(
+                new Object[]{"Companhia das Letras", 2L},
+                new Object[]{"Ática", 2L}));
+        when(livroRepository.contarPorDecada()).thenReturn(List.of(
+                new Object[]{1890, 2L},
+                new Object[]{1880, 1L},
+                new Object[]{1860, 1L}));
+
+        // Act: a escrita chega (ex.: pela replicação) entre as duas conferências
+        estatisticas.reconciliar();
+        estatisticas.indexar(livro(4L, "José de Alencar", "Ática", 1865, true));
+        estatisticas.reconciliar();
+
+        // Assert
+        Estatisticas resultado = estatisticas.obter();
+        assertEquals(4L, resultado.total());
+        assertEquals(3L, resultado.disponiveis());
+        assertEquals(1L, resultado.porAutor().get("José de Alencar"));
+        verifyNoInteractions(versaoCatalogo);
+    }
+
+    @Test
+    void testDiferencaDeEscritasEmAndamentoQueMudaNaoECorrigida() {
+        // Arrange: com escritas contínuas o banco está sempre à frente, por um livro e depois por dois
+        when(livroRepository.count()).thenReturn(4L, 6L);
+        when(livroRepository.countByDisponivel(true)).thenReturn(3L, 5L);
+        when(livroRepository.contarPorAutor()).thenReturn(
+                List.of(new Object[]{"Machado de Assis", 2L}, new Object[]{"Aluísio Azevedo", 1L},
+                        new Object[]{"José de Alencar", 1L}),
+                List.of(new Object[]{"Machado de Assis", 2L}, new Object[]{"Aluísio Azevedo", 1L},
+                        new Object[]{"José de Alencar", 3L}));
+        when(livroRepository.contarPorEditora()).thenReturn(
+                List.of(new Object[]{"Companhia das Letras", 2L}, new Object[]{"Ática", 2L}),
+                List.of(new Object[]{"Companhia das Letras", 2L}, new Object[]{"Ática", 4L}));
+        when(livroRepository.contarPorDecada()).thenReturn(
+                List.of(new Object[]{1890, 2L}, new Object[]{1880, 1L}, new Object[]{1860, 1L}),
+                List.of(new Object[]{1890, 2L}, new Object[]{1880, 1L}, new Object[]{1860, 3L}));
+
+        // Act
+        estatisticas.reconciliar();
+        estatisticas.indexar(livro(4L, "José de Alencar", "Ática", 1865, true));
+        estatisticas.reconciliar();
+
+        // Assert: nenhuma das diferenças se repetiu, então nada foi somado
+        Estatisticas resultado = estatisticas.obter();
+        assertEquals(4L, resultado.total());
+        assertEquals(1L, resultado.porAutor().get("José de Alencar"));
+        assertEquals(1L, resultado.porDecada().get(1860));
+        verifyNoInteractions(versaoCatalogo);
+    }
+
+    @Test
+    void testDecadaDeAnoNegativoArredondaParaBaixo() {
+        // Act
+        estatisticas.indexar(livro(4L, "Homero", null, -5, true));
+
+        // Assert
+        assertEquals(1L, estatisticas.obter().porDecada().get(-10));
+    }
+
+    private static Livro livro(Long id, String autor, String editora, int ano, boolean disponivel) {
+        Livro livro = new Livro("Título " + id, autor, "isbn-" + id, ano);
+        livro.setId(id);
+        livro.setEditora(editora);
+        livro.setDisponivel(disponivel);
+        return livro;
+    }
+}
@@ -0,0 +1,148 @@
+package com.biblioteca.service.facetas;
+
+import com.biblioteca.dto.FiltroPesquisa;
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceFacetasTest {
+
+    private IndiceFacetas indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceFacetas();
+        indice.indexar(livro(1L, "Dom Casmurro", "Machado de Assis", "Garnier", 1899, true));
+        indice.indexar(livro(2L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "Garnier", 1881, false));
+        indice.indexar(livro(3L, "O Cortiço", "Aluísio Azevedo", "Garnier", 1890, true));
+        indice.indexar(livro(4L, "Vidas Secas", "Graciliano Ramos", "José Olympio", 1938, true));
+        indice.indexar(livro(5L, "Capitães da Areia", "Jorge Amado", null, 1937, false));
+        indice.carregamentoConcluido();
+    }
+
+    @Test
+    void testSemFiltrosDevolveTudoComFacetas() {
+        // Act
+        IndiceFacetas.Resultado resultado = indice.pesquisar(filtro(null, null, null, null, null,
+                FiltroPesquisa.Ordenacao.ID, 10, 0), null);
+
+        // Assert
+        assertEquals(5, resultado.total());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), resultado.ids());
+        assertEquals(3, resultado.facetas().disponiveis());
+        assertEquals(2, resultado.facetas().indisponiveis());
+        assertEquals(2L, resultado.facetas().porAutor().get("Machado de Assis"));
+        assertEquals("Machado de Assis", resultado.facetas().porAutor().keySet().iterator().next());
+        assertEquals(Map.of("Garnier", 3L, "José Olympio", 1L), resultado.facetas().porEditora());
+        assertEquals(Map.of(1880, 1L, 1890, 2L, 1930, 2L), resultado.facetas().porDecada());
+    }
+
+    @Test
+    void testCombinaFiltros() {
+        // Act
+        IndiceFacetas.Resultado resultado = indice.pesquisar(filtro(null, "Garnier", 1885, 1900, true,
+                FiltroPesquisa.Ordenacao.ANO, 10, 0), null);
+
+        // Assert
+        assertEquals(List.of(3L, 1L), resultado.ids());
+        assertEquals(Map.of("Aluísio Azevedo", 1L, "Machado de Assis", 1L), resultado.facetas().porAutor());
+        assertEquals(0, resultado.facetas().indisponiveis());
+    }
+
+    @Test
+    void testTermoOrdenaPorRelevancia() {
+        // Arrange
+        Map<Long, Float> pontuacao = Map.of(1L, 0.5f, 2L, 2.0f, 99L, 3.0f);
+
+        // Act
+        IndiceFacetas.Resultado resultado = indice.pesquisar(filtro("Machado de Assis", null, null, null, null,
+                FiltroPesquisa.Ordenacao.RELEVANCIA, 10, 0), pontuacao);
+
+        // Assert: o id 99 não está no índice e é ignorado
+        assertEquals(2, resultado.total());
+        assertEquals(List.of(2L, 1L), resultado.ids());
+    }
+
+    @Test
+    void testPaginaComDeslocamento() {
+        // Act
+        IndiceFacetas.Resultado resultado = indice.pesquisar(filtro(null, null, null, null, null,
+                FiltroPesquisa.Ordenacao.TITULO, 2, 2), null);
+
+        // Assert: Capitães, Dom, Memórias, O Cortiço, Vidas
+        assertEquals(5, resultado.total());
+        assertEquals(List.of(2L, 3L), resultado.ids());
+    }
+
+    @Test
+    void testAtualizarERemoverRefletemNosFiltros() {
+        // Act
+        indice.indexar(livro(1L, "Dom Casmurro", "Machado de Assis", "Globo", 1899, false));
+        indice.remover(2L);
+        IndiceFacetas.Resultado resultado = indice.pesquisar(filtro("Machado de Assis", null, null, null, null,
+                FiltroPesquisa.Ordenacao.ID, 10, 0), null);
+
+        // Assert
+        assertEquals(List.of(1L), resultado.ids());
+        assertEquals(Map.of("Globo", 1L), resultado.facetas().porEditora());
+        assertEquals(1, resultado.facetas().indisponiveis());
+    }
+
+    @Test
+    void testValorSemLivrosSaiDoDicionarioEOCodigoEReaproveitado() {
+        // Act
+        indice.remover(4L);
+        indice.indexar(livro(6L, "Iracema", "José de Alencar", "Garnier", 1865, true));
+        IndiceFacetas.Resultado antigo = indice.pesquisar(filtro("Graciliano Ramos", null, null, null, null,
+                FiltroPesquisa.Ordenacao.ID, 10, 0), null);
+        IndiceFacetas.Resultado novo = indice.pesquisar(filtro("José de Alencar", null, null, null, null,
+                FiltroPesquisa.Ordenacao.ID, 10, 0), null);
+
+        // Assert
+        assertEquals(4, indice.autoresDistintos());
+        assertEquals(0, antigo.total());
+        assertEquals(List.of(6L), novo.ids());
+        assertEquals(Map.of("José de Alencar", 1L), novo.facetas().porAutor());
+    }
+
+    @Test
+    void testMemoriaNaoCresceComOsAutoresDistintos() {
+        // Arrange: 200 mil livros de 40 mil autores e 2 mil editoras, como num acervo real
+        IndiceFacetas grande = new IndiceFacetas();
+        int livros = 200_000;
+        for (int i = 0; i < livros; i++) {
+            grande.indexar(livro((long) i + 1, "Título " + i, "Autor " + (i % 40_000), "Editora " + (i % 2_000),
+                    1900 + i % 120, i % 3 != 0));
+        }
+        grande.carregamentoConcluido();
+
+        // Act
+        IndiceFacetas.Resultado resultado = grande.pesquisar(filtro("Autor 123", null, null, null, true,
+                FiltroPesquisa.Ordenacao.ID, 10, 0), null);
+
+        // Assert: um bitmap descomprimido por autor passaria de 500 MB aqui
+        assertEquals(40_000, grande.autoresDistintos());
+        assertTrue(grande.bytes() < 120L * livros, "bytes: " + grande.bytes());
+        assertEquals(3, resultado.total());
+        assertEquals(List.of(40_124L, 80_124L, 160_124L), resultado.ids());
+    }
+
+    private static FiltroPesquisa filtro(String autor, String editora, Integer anoMinimo, Integer anoMaximo,
+                                         Boolean disponivel, FiltroPesquisa.Ordenacao ordenacao,
+                                         int limite, int deslocamento) {
+        return new FiltroPesquisa(null, autor, editora, anoMinimo, anoMaximo, disponivel, ordenacao, limite, deslocamento);
+    }
+
+    private static Livro livro(Long id, String titulo, String autor, String editora, int ano, boolean disponivel) {
+        Livro livro = new Livro(titulo, autor, "isbn-" + id, ano);
+        livro.setId(id);
+        livro.setEditora(editora);
+        livro.setDisponivel(disponivel);
+        return livro;
+    }
+}
@@ -0,0 +1,66 @@
+package com.biblioteca.service.isbn;
+
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceIsbnTest {
+
+    private IndiceIsbn indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceIsbn();
+        indice.indexar(livro(1L, "978-85-359-0277-5"));
+        indice.indexar(livro(2L, "978-85-359-0123-4"));
+        indice.carregamentoConcluido();
+    }
+
+    @Test
+    void testIsbnDeOutroLivro() {
+        // Act & Assert
+        assertTrue(indice.pertenceAOutroLivro("978-85-359-0277-5", null));
+        assertTrue(indice.pertenceAOutroLivro("978-85-359-0277-5", 2L));
+        assertFalse(indice.pertenceAOutroLivro("978-85-359-0277-5", 1L));
+        assertFalse(indice.pertenceAOutroLivro("978-00-000-0000-0", null));
+    }
+
+    @Test
+    void testTrocaDeIsbnLiberaOAnterior() {
+        // Act
+        indice.indexar(livro(1L, "978-85-359-9999-9"));
+
+        // Assert
+        assertFalse(indice.pertenceAOutroLivro("978-85-359-0277-5", null));
+        assertTrue(indice.pertenceAOutroLivro("978-85-359-9999-9", null));
+        assertEquals(2, indice.tamanho());
+    }
+
+    @Test
+    void testRemoverLiberaIsbn() {
+        // Act
+        indice.remover(2L);
+
+        // Assert
+        assertFalse(indice.pertenceAOutroLivro("978-85-359-0123-4", null));
+        assertEquals(1, indice.tamanho());
+    }
+
+    @Test
+    void testNadaEmUsoDuranteACarga() {
+        // Arrange
+        indice.limpar();
+        indice.indexar(livro(1L, "978-85-359-0277-5"));
+
+        // Act & Assert: com a carga incompleta, a decisão fica com a constraint do banco
+        assertFalse(indice.pertenceAOutroLivro("978-85-359-0277-5", null));
+    }
+
+    private static Livro livro(Long id, String isbn) {
+        Livro livro = new Livro("Título " + id, "Autor", isbn, 2000);
+        livro.setId(id);
+        return livro;
+    }
+}
@@ -0,0 +1,152 @@
+package com.biblioteca.service.replicacao;
+
+import com.biblioteca.dto.Alteracoes;
+import com.biblioteca.model.AlteracaoLivro;
+import com.biblioteca.model.Livro;
+import com.biblioteca.repository.AlteracaoLivroRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.LivroService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * As escritas do "outro nó" vão direto para as tabelas, sem passar pelo LivroService,
+ * como as de outra réplica sobre o mesmo banco.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicacao",
+        "biblioteca.replicacao.barramento=outbox",
+        "biblioteca.replicacao.intervalo=PT0.05S"
+})
+@ActiveProfiles("test")
+class ReplicacaoCatalogoTest {
+
+    private static final String OUTRO_NO = "outro-no:1";
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AlteracaoLivroRepository alteracaoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAplicaCriacaoDeOutroNo() throws InterruptedException {
+        // Arrange: sem alteração de outro nó ainda por aplicar
+        aguardar(() -> livroService.contarTotal() == livroRepository.count());
+        long totalAntes = livroService.contarTotal();
+        long entradasAntes = alteracaoRepository.count();
+
+        // Act
+        Livro livro = livroRepository.save(new Livro("Esaú e Jacó", "Machado de Assis", "replicacao-1", 1904));
+        alteracaoRepository.save(new AlteracaoLivro(livro.getId(), false, Instant.now(), OUTRO_NO));
+
+        // Assert: índices e estatísticas deste nó passam a ver o livro, sem registrar a alteração de novo
+        aguardar(() -> livroService.buscarPorTermo("esau").stream().anyMatch(l -> l.getId().equals(livro.getId())));
+        assertEquals(totalAntes + 1, livroService.contarTotal());
+        assertEquals(entradasAntes + 1, alteracaoRepository.count());
+    }
+
+    @Test
+    void testInvalidaCacheComAtualizacaoERemocaoDeOutroNo() throws InterruptedException {
+        // Arrange: livro criado por este nó e já no cache
+        Livro livro = livroService.salvar(new Livro("Memorial de Aires", "Machado de Assis", "replicacao-2", 1908));
+        assertEquals("Memorial de Aires", livroService.buscarPorId(livro.getId()).orElseThrow().getTitulo());
+
+        // Act
+        Livro alterado = livroRepository.findById(livro.getId()).orElseThrow();
+        alterado.setTitulo("Memorial de Aires (2ª ed.)");
+        livroRepository.save(alterado);
+        alteracaoRepository.save(new AlteracaoLivro(livro.getId(), false, Instant.now(), OUTRO_NO));
+
+        // Assert
+        aguardar(() -> livroService.buscarPorId(livro.getId())
+                .map(l -> l.getTitulo().endsWith("(2ª ed.)")).orElse(false));
+
+        // Act
+        livroRepository.deleteById(livro.getId());
+        alteracaoRepository.save(new AlteracaoLivro(livro.getId(), true, Instant.now(), OUTRO_NO));
+
+        // Assert
+        aguardar(() -> livroService.buscarPorId(livro.getId()).isEmpty()
+                && livroService.buscarPorIsbn("replicacao-2").isEmpty());
+    }
+
+    @Test
+    void testCursorEntregaIdMenorRegistradoDepoisPorOutroNo() throws InterruptedException {
+        // Arrange: o outro nó grava primeiro com um id do seu bloco mais novo
+        long base = alteracaoRepository.maiorId() + 1_000_000;
+        Livro primeiro = livroRepository.save(new Livro("Contos Fluminenses", "Machado de Assis", "replicacao-3", 1870));
+        registrarNoOutroNo(base + 1_000, primeiro.getId());
+        String cursor = livroService.cursorAlteracoes();
+
+        // Act: depois usa um id menor, de um bloco reservado antes
+        Livro tardio = livroRepository.save(new Livro("Histórias da Meia-Noite", "Machado de Assis", "replicacao-4", 1873));
+        registrarNoOutroNo(base + 500, tardio.getId());
+        Alteracoes alteracoes = livroService.listarAlteracoes(cursor, 100);
+
+        // Assert
+        assertTrue(alteracoes.alterados().stream().anyMatch(livro -> livro.getId().equals(tardio.getId())));
+
+        // Só termina depois que este nó aplicou as duas entradas, para não vazar para o próximo teste
+        aguardar(() -> !livroService.buscarPorTermo("fluminenses").isEmpty()
+                && !livroService.buscarPorTermo("meia-noite").isEmpty());
+    }
+
+    @Test
+    void testPaginasDeAlteracoesNaoRepetemEntradasJaEntregues() {
+        // Arrange
+        String cursor = livroService.cursorAlteracoes();
+        Set<Long> criados = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            criados.add(livroService.salvar(new Livro("Crônica " + i, "Machado de Assis", "paginas-" + i, 1890)).getId());
+        }
+
+        // Act
+        List<Long> entregues = new ArrayList<>();
+        int paginas = 0;
+        Alteracoes pagina;
+        do {
+            pagina = livroService.listarAlteracoes(cursor, 10);
+            pagina.alterados().forEach(livro -> entregues.add(livro.getId()));
+            cursor = pagina.cursor();
+            paginas++;
+        } while (pagina.temMais() && paginas < 100);
+
+        // Assert: cada livro uma vez só, mesmo com todas as entradas dentro da margem
+        assertTrue(entregues.containsAll(criados));
+        assertEquals(criados.size(), entregues.stream().filter(criados::contains).count());
+        assertTrue(livroService.listarAlteracoes(cursor, 10).alterados().isEmpty());
+    }
+
+    private void registrarNoOutroNo(long id, long livroId) {
+        jdbcTemplate.update("INSERT INTO livros_alteracoes (id, livro_id, removido, registrado_em, origem) "
+                + "VALUES (?, ?, false, ?, ?)", id, livroId, Timestamp.from(Instant.now()), OUTRO_NO);
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < limite, "O nó não aplicou a alteração a tempo");
+            Thread.sleep(20);
+        }
+    }
+}
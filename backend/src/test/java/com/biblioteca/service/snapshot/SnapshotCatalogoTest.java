@@ -0,0 +1,171 @@
+package com.biblioteca.service.snapshot;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.VersaoCatalogo;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Usa um H2 próprio criado pelas migrações do Flyway, o mesmo schema do perfil persistente.
+ */
+class SnapshotCatalogoTest {
+
+    @TempDir
+    Path diretorio;
+
+    private JdbcTemplate jdbcTemplate;
+    private VersaoCatalogo versaoCatalogo;
+    private SnapshotCatalogo snapshot;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:snapshot-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        versaoCatalogo = new VersaoCatalogo();
+        snapshot = new SnapshotCatalogo(diretorio.resolve("catalogo.snap").toString());
+        ReflectionTestUtils.setField(snapshot, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(snapshot, "versaoCatalogo", versaoCatalogo);
+    }
+
+    @Test
+    void testFormatoPreservaCamposENulos() throws IOException {
+        // Arrange
+        Livro completo = livro(7L, "978-1");
+        completo.setDescricao("Descrição com acentuação e ç — longa".repeat(3000));
+        completo.setVersao(3L);
+        completo.setAtualizadoEm(Instant.parse("2024-05-01T10:15:30.123456Z"));
+        Livro minimo = livro(-2L, "978-2");
+        minimo.setEditora(null);
+        minimo.setDescricao(null);
+        minimo.setDisponivel(false);
+        minimo.setAtualizadoEm(null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // Act
+        try (FormatoSnapshot.Escritor escritor = new FormatoSnapshot.Escritor(bytes, Instant.EPOCH)) {
+            escritor.escrever(completo);
+            escritor.escrever(minimo);
+        }
+        Livro primeiro;
+        Livro segundo;
+        Livro fim;
+        try (FormatoSnapshot.Leitor leitor = new FormatoSnapshot.Leitor(new ByteArrayInputStream(bytes.toByteArray()))) {
+            primeiro = leitor.proximo();
+            segundo = leitor.proximo();
+            fim = leitor.proximo();
+        }
+
+        // Assert
+        assertEquals(completo.getDescricao(), primeiro.getDescricao());
+        assertEquals(completo.getAtualizadoEm(), primeiro.getAtualizadoEm());
+        assertEquals(3L, primeiro.getVersao());
+        assertEquals(-2L, segundo.getId());
+        assertNull(segundo.getEditora());
+        assertNull(segundo.getDescricao());
+        assertNull(segundo.getAtualizadoEm());
+        assertFalse(segundo.getDisponivel());
+        assertNull(fim);
+    }
+
+    @Test
+    void testSnapshotTruncadoEhRecusado() throws IOException {
+        // Arrange
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FormatoSnapshot.Escritor escritor = new FormatoSnapshot.Escritor(bytes, Instant.EPOCH)) {
+            for (long id = 1; id <= 100; id++) {
+                escritor.escrever(livro(id, "978-" + id));
+            }
+        }
+        byte[] truncado = Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2);
+        Files.write(diretorio.resolve("catalogo.snap"), truncado);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> snapshot.restaurar(diretorio.resolve("catalogo.snap")));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM livros", Long.class));
+    }
+
+    @Test
+    void testExportarERestaurarCatalogo() {
+        // Arrange
+        for (long id = 1; id <= SnapshotCatalogo.TAMANHO_LOTE + 10; id++) {
+            jdbcTemplate.update("INSERT INTO livros (id, titulo, autor, isbn, ano_publicacao, editora, descricao, "
+                    + "disponivel, versao, atualizado_em) VALUES (?, ?, 'Autor', ?, 2000, NULL, 'Texto', ?, 1, "
+                    + "CURRENT_TIMESTAMP)", id * 3, "Livro " + id, "isbn-" + id, id % 2 == 0);
+        }
+        List<Map<String, Object>> antes = jdbcTemplate.queryForList("SELECT * FROM livros ORDER BY id");
+
+        // Act
+        long exportados = snapshot.exportar();
+        jdbcTemplate.update("DELETE FROM livros");
+        ReflectionTestUtils.invokeMethod(snapshot, "restaurarSeVazio");
+
+        // Assert
+        assertEquals(SnapshotCatalogo.TAMANHO_LOTE + 10, exportados);
+        assertEquals(antes, jdbcTemplate.queryForList("SELECT * FROM livros ORDER BY id"));
+        long maiorId = (SnapshotCatalogo.TAMANHO_LOTE + 10) * 3L;
+        Long proximo = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR livros_seq", Long.class);
+        assertTrue(proximo - 49 > maiorId, "a sequência deve continuar depois do maior id restaurado");
+        assertFalse(Files.exists(diretorio.resolve("catalogo.snap.tmp")));
+    }
+
+    @Test
+    void testNaoRestauraSobreCatalogoExistente() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO livros (id, titulo, autor, isbn, ano_publicacao, disponivel, versao) "
+                + "VALUES (1, 'Livro', 'Autor', 'isbn-1', 2000, true, 0)");
+        snapshot.exportar();
+        jdbcTemplate.update("UPDATE livros SET titulo = 'Alterado'");
+
+        // Act
+        ReflectionTestUtils.invokeMethod(snapshot, "restaurarSeVazio");
+
+        // Assert
+        assertEquals("Alterado", jdbcTemplate.queryForObject("SELECT titulo FROM livros", String.class));
+    }
+
+    @Test
+    void testExportaSomenteQuandoCatalogoMudou() throws IOException {
+        // Arrange
+        snapshot.exportar();
+        Path arquivo = diretorio.resolve("catalogo.snap");
+        Files.delete(arquivo);
+
+        // Act
+        snapshot.exportarSeAlterado();
+        boolean exportouSemAlteracao = Files.exists(arquivo);
+        versaoCatalogo.avancar();
+        snapshot.exportarSeAlterado();
+
+        // Assert
+        assertFalse(exportouSemAlteracao);
+        assertTrue(Files.exists(arquivo));
+    }
+
+    private static Livro livro(long id, String isbn) {
+        Livro livro = new Livro("Título " + id, "Autor", isbn, 1990);
+        livro.setId(id);
+        livro.setEditora("Editora");
+        livro.setDescricao("Descrição");
+        livro.setVersao(0L);
+        return livro;
+    }
+}
@@ -0,0 +1,140 @@
+package com.biblioteca.service.sugestoes;
+
+import com.biblioteca.dto.Sugestao;
+import com.biblioteca.model.Livro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceSugestoesTest {
+
+    private IndiceSugestoes indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceSugestoes();
+        indice.indexar(livro(1L, "Dom Casmurro", "Machado de Assis"));
+        indice.indexar(livro(2L, "O Cortiço", "Aluísio Azevedo"));
+        indice.indexar(livro(3L, "Memórias Póstumas de Brás Cubas", "Machado de Assis"));
+        indice.indexar(livro(4L, "Machado: uma biografia", "Fulano"));
+        indice.indexar(livro(5L, "Dom Quixote", "Miguel de Cervantes"));
+        indice.carregamentoConcluido();
+    }
+
+    @Test
+    void testSugereTitulosEAutoresPelaFrequencia() {
+        // Act
+        List<Sugestao> sugestoes = indice.sugerir("mach", 10);
+
+        // Assert: o autor de dois livros vem antes do título de um
+        assertEquals(List.of(new Sugestao("Machado de Assis", "autor", 2),
+                new Sugestao("Machado: uma biografia", "titulo", 1)), sugestoes);
+    }
+
+    @Test
+    void testIgnoraAcentosMaiusculasEPontuacao() {
+        assertEquals("Memórias Póstumas de Brás Cubas", indice.sugerir("MEMORIAS pos", 5).get(0).texto());
+        assertEquals("O Cortiço", indice.sugerir("o cortico", 5).get(0).texto());
+        assertEquals("Aluísio Azevedo", indice.sugerir("aluí", 5).get(0).texto());
+        assertEquals("Machado: uma biografia", indice.sugerir("machado uma", 5).get(0).texto());
+    }
+
+    @Test
+    void testLimiteEPrefixosSemResultado() {
+        assertEquals(1, indice.sugerir("dom", 1).size());
+        assertEquals(List.of("Dom Casmurro", "Dom Quixote"),
+                indice.sugerir("dom ", 10).stream().map(Sugestao::texto).toList());
+        assertTrue(indice.sugerir("xyz", 10).isEmpty());
+        assertTrue(indice.sugerir("  ", 10).isEmpty());
+    }
+
+    @Test
+    void testAtualizacaoERemocaoSaoIncrementais() {
+        // Act
+        indice.indexar(livro(4L, "Machado: uma biografia", "Machado de Assis"));
+        indice.remover(1L);
+        indice.remover(3L);
+
+        // Assert
+        assertEquals(List.of(new Sugestao("Machado de Assis", "autor", 1),
+                new Sugestao("Machado: uma biografia", "titulo", 1)), indice.sugerir("machado", 10));
+        assertEquals(List.of("Dom Quixote"), indice.sugerir("dom", 10).stream().map(Sugestao::texto).toList());
+        assertTrue(indice.sugerir("fulano", 10).isEmpty());
+    }
+
+    @Test
+    void testVazioAntesDaCarga() {
+        // Arrange
+        IndiceSugestoes novo = new IndiceSugestoes();
+        novo.indexar(livro(1L, "Dom Casmurro", "Machado de Assis"));
+
+        // Act & Assert
+        assertTrue(novo.sugerir("dom", 10).isEmpty());
+        novo.carregamentoConcluido();
+        assertEquals(1, novo.sugerir("dom", 10).size());
+    }
+
+    @Test
+    void testAlteracoesAleatoriasBatemComBuscaExaustiva() {
+        // Arrange: títulos curtos de um alfabeto pequeno, para muitos prefixos em comum
+        Random random = new Random(42);
+        Map<Long, String> titulos = new HashMap<>();
+        ArvorePrefixos arvore = new ArvorePrefixos(IndiceSugestoes.LIMITE_MAXIMO);
+        for (long id = 0; id < 300; id++) {
+            titulos.put(id, aleatorio(random));
+            arvore.adicionar(titulos.get(id), titulos.get(id));
+        }
+        arvore.recalcular();
+
+        for (int passo = 0; passo < 3000; passo++) {
+            // Act: troca, remove ou inclui um título
+            long id = random.nextInt(400);
+            String anterior = titulos.remove(id);
+            if (anterior != null) {
+                arvore.remover(anterior);
+            }
+            if (random.nextInt(3) > 0) {
+                titulos.put(id, aleatorio(random));
+                arvore.adicionar(titulos.get(id), titulos.get(id));
+            }
+
+            // Assert
+            String prefixo = aleatorio(random).substring(0, random.nextInt(4));
+            assertEquals(esperado(titulos, prefixo), arvore.buscar(prefixo, IndiceSugestoes.LIMITE_MAXIMO).stream()
+                    .map(termo -> termo.chave + "=" + termo.quantidade).toList(), "prefixo '" + prefixo + "'");
+        }
+        assertEquals(titulos.values().stream().distinct().count(), arvore.tamanho());
+    }
+
+    private static List<String> esperado(Map<Long, String> titulos, String prefixo) {
+        return titulos.values().stream()
+                .filter(titulo -> titulo.startsWith(prefixo))
+                .collect(Collectors.groupingBy(titulo -> titulo, Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(IndiceSugestoes.LIMITE_MAXIMO)
+                .map(entrada -> entrada.getKey() + "=" + entrada.getValue())
+                .toList();
+    }
+
+    private static String aleatorio(Random random) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 3 + random.nextInt(4); i > 0; i--) {
+            texto.append("abc".charAt(random.nextInt(3)));
+        }
+        return texto.toString();
+    }
+
+    private static Livro livro(Long id, String titulo, String autor) {
+        Livro livro = new Livro(titulo, autor, "isbn-" + id, 1900);
+        livro.setId(id);
+        return livro;
+    }
+}
@@ -0,0 +1,104 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.BibliotecaApplication;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.CatalogoIndexador;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.accept.ContentNegotiationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sobe o contexto Spring da aplicação sobre um H2 em memória e popula o catálogo com
+ * {@code tamanho} livros via JDBC em lote. Os benchmarks JMH usam o contexto sem servidor
+ * web; o teste de carga usa {@link #iniciarServidor(int)}, com Tomcat numa porta livre.
+ */
+public final class AmbienteCatalogo implements AutoCloseable {
+
+    private static final int LOTE_INSERCAO = 5_000;
+
+    private final ConfigurableApplicationContext contexto;
+    private final List<Long> ids;
+
+    private AmbienteCatalogo(ConfigurableApplicationContext contexto, List<Long> ids) {
+        this.contexto = contexto;
+        this.ids = ids;
+    }
+
+    public static AmbienteCatalogo iniciar(int tamanho) {
+        return iniciar(tamanho, WebApplicationType.NONE);
+    }
+
+    public static AmbienteCatalogo iniciarServidor(int tamanho) {
+        return iniciar(tamanho, WebApplicationType.SERVLET);
+    }
+
+    private static AmbienteCatalogo iniciar(int tamanho, WebApplicationType tipo) {
+        // Como argumentos de linha de comando, para prevalecer sobre o application.properties
+        SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(BibliotecaApplication.class).web(tipo);
+        if (tipo == WebApplicationType.NONE) {
+            // Sem o MVC ninguém cria o ContentNegotiationManager de que o LivroController depende
+            aplicacao.initializers(ctx -> ctx.getBeanFactory()
+                    .registerSingleton("mvcContentNegotiationManager", new ContentNegotiationManager()));
+        }
+        ConfigurableApplicationContext contexto = aplicacao
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + tamanho + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.sql.init.mode=never",
+                        "--spring.h2.console.enabled=false",
+                        "--spring.devtools.restart.enabled=false",
+                        // Cada cliente virtual do teste de carga se identifica como o nginx faria
+                        "--biblioteca.admissao.cliente.cabecalho=X-Real-IP",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        // Threads do executor assíncrono ainda ativas quando o Tomcat para
+                        "--logging.level.org.apache.catalina.loader=ERROR",
+                        "--logging.level.com.biblioteca=INFO");
+
+        JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+        GeradorCatalogo gerador = new GeradorCatalogo(42);
+        List<Object[]> lote = new ArrayList<>(LOTE_INSERCAO);
+        for (int i = 0; i < tamanho; i++) {
+            Livro livro = gerador.livro(i);
+            lote.add(new Object[]{livro.getTitulo(), livro.getAutor(), livro.getIsbn(), livro.getAnoPublicacao(),
+                    livro.getEditora(), livro.getDescricao(), livro.getDisponivel()});
+            if (lote.size() == LOTE_INSERCAO || i == tamanho - 1) {
+                jdbc.batchUpdate("INSERT INTO livros (id, titulo, autor, isbn, ano_publicacao, editora, descricao, disponivel, versao) "
+                        + "VALUES (NEXT VALUE FOR livros_seq, ?, ?, ?, ?, ?, ?, ?, 0)", lote);
+                lote.clear();
+            }
+        }
+
+        // Os índices em memória foram carregados com a tabela vazia: recarrega
+        contexto.getBean(CatalogoIndexador.class).afterSingletonsInstantiated();
+        List<Long> ids = jdbc.queryForList("SELECT id FROM livros ORDER BY id", Long.class);
+        return new AmbienteCatalogo(contexto, ids);
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    public List<Long> ids() {
+        return ids;
+    }
+
+    /**
+     * Endereço do servidor iniciado por {@link #iniciarServidor(int)}.
+     */
+    public String url() {
+        return "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        contexto.close();
+    }
+}
@@ -0,0 +1,70 @@
+package com.biblioteca.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dois resultados JMH em JSON (ex.: release anterior e atual) e termina com
+ * código 1 se algum benchmark piorou mais que a tolerância.
+ *
+ * Uso: {@code CompararResultados <base.json> <atual.json> [tolerancia-percentual]}
+ */
+public final class CompararResultados {
+
+    private CompararResultados() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararResultados <base.json> <atual.json> [tolerancia-percentual]");
+            System.exit(2);
+        }
+        double tolerancia = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> base = ler(new File(args[0]));
+        Map<String, JsonNode> atual = ler(new File(args[1]));
+
+        int regressoes = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "base", "atual", "variação");
+        for (Map.Entry<String, JsonNode> entrada : new TreeMap<>(atual).entrySet()) {
+            JsonNode anterior = base.get(entrada.getKey());
+            if (anterior == null) {
+                continue;
+            }
+            double scoreBase = anterior.path("primaryMetric").path("score").asDouble();
+            double scoreAtual = entrada.getValue().path("primaryMetric").path("score").asDouble();
+            String unidade = entrada.getValue().path("primaryMetric").path("scoreUnit").asText();
+            // Em modo throughput maior é melhor; nos demais (tempo) menor é melhor
+            boolean maiorMelhor = "thrpt".equals(entrada.getValue().path("mode").asText());
+            double variacao = (scoreAtual - scoreBase) / scoreBase * 100.0;
+            double piora = maiorMelhor ? -variacao : variacao;
+            boolean regressao = piora > tolerancia;
+            if (regressao) {
+                regressoes++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%s%n", entrada.getKey(), scoreBase, scoreAtual,
+                    variacao, unidade, regressao ? "  <-- REGRESSÃO" : "");
+        }
+
+        if (regressoes > 0) {
+            System.err.printf("%d benchmark(s) pioraram mais de %.1f%%%n", regressoes, tolerancia);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> ler(File arquivo) throws IOException {
+        Map<String, JsonNode> resultados = new LinkedHashMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(arquivo)) {
+            StringBuilder chave = new StringBuilder(resultado.path("benchmark").asText());
+            resultado.path("params").fields().forEachRemaining(parametro ->
+                    chave.append(' ').append(parametro.getKey()).append('=').append(parametro.getValue().asText()));
+            resultados.put(chave.toString(), resultado);
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,111 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Livro;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tamanho e custo de serialização das listagens em cada formato negociável (JSON, CBOR,
+ * Smile), com e sem a compressão gzip aplicada pelo servidor.
+ *
+ * O tempo é medido pelo JMH; o tamanho de cada combinação é impresso no início da
+ * execução (linhas "# tamanho").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatoRespostaBenchmark {
+
+    private static final TypeReference<List<Livro>> LISTA_LIVROS = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    public String formato;
+
+    @Param({"nenhuma", "gzip"})
+    public String compressao;
+
+    @Param({"100", "10000"})
+    public int tamanhoLista;
+
+    private ObjectMapper objectMapper;
+    private List<Livro> livros;
+    private byte[] serializado;
+
+    @Setup
+    public void iniciar() throws IOException {
+        objectMapper = new ObjectMapper(fabrica(formato)).findAndRegisterModules();
+        GeradorCatalogo gerador = new GeradorCatalogo(42);
+        livros = new ArrayList<>(tamanhoLista);
+        for (int i = 0; i < tamanhoLista; i++) {
+            Livro livro = gerador.livro(i);
+            livro.setId((long) i + 1);
+            livros.add(livro);
+        }
+        serializado = serializar();
+        System.out.printf("%n# tamanho %s/%s, %d livros: %d bytes%n",
+                formato, compressao, tamanhoLista, serializado.length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream saida = comprimir(bytes)) {
+            objectMapper.writeValue(saida, livros);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<Livro> desserializar() throws IOException {
+        try (InputStream entrada = descomprimir(new ByteArrayInputStream(serializado))) {
+            return objectMapper.readValue(entrada, LISTA_LIVROS);
+        }
+    }
+
+    private OutputStream comprimir(OutputStream saida) throws IOException {
+        // Mesmo nível de compressão padrão usado pelo Tomcat
+        return "gzip".equals(compressao) ? new GZIPOutputStream(saida) : saida;
+    }
+
+    private InputStream descomprimir(InputStream entrada) throws IOException {
+        return "gzip".equals(compressao) ? new GZIPInputStream(entrada) : entrada;
+    }
+
+    private static JsonFactory fabrica(String formato) {
+        return switch (formato) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Formato desconhecido: " + formato);
+        };
+    }
+}
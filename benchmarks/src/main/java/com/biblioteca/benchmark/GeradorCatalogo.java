@@ -0,0 +1,62 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Livro;
+
+import java.util.Random;
+
+/**
+ * Gera livros sintéticos de forma determinística, para que execuções diferentes
+ * meçam o mesmo catálogo.
+ */
+public final class GeradorCatalogo {
+
+    static final String[] PALAVRAS = {
+            "memorias", "casa", "rio", "noite", "sertao", "amor", "guerra", "cidade", "mar", "tempo",
+            "historia", "vida", "morte", "sol", "terra", "sonho", "cortico", "viagem", "jardim", "sombra",
+            "segredo", "caminho", "janela", "montanha", "estrela", "inverno", "verao", "cancao", "retrato", "ilha"
+    };
+
+    private static final String[] NOMES = {
+            "Machado", "Aluísio", "José", "Clarice", "Graciliano", "Jorge", "Cecília", "Rachel", "Érico", "Lygia"
+    };
+
+    private static final String[] SOBRENOMES = {
+            "Assis", "Azevedo", "Alencar", "Lispector", "Ramos", "Amado", "Meireles", "Queiroz", "Veríssimo", "Telles"
+    };
+
+    private final Random random;
+
+    public GeradorCatalogo(long semente) {
+        this.random = new Random(semente);
+    }
+
+    public Livro livro(long sequencia) {
+        Livro livro = new Livro(
+                titulo(),
+                NOMES[random.nextInt(NOMES.length)] + " " + SOBRENOMES[random.nextInt(SOBRENOMES.length)]
+                        + " " + random.nextInt(500),
+                "bench-" + sequencia,
+                1800 + random.nextInt(225));
+        livro.setEditora("Editora " + random.nextInt(200));
+        livro.setDescricao("Edição " + sequencia + " sobre " + titulo().toLowerCase());
+        livro.setDisponivel(random.nextInt(10) < 8);
+        return livro;
+    }
+
+    public String termo() {
+        return PALAVRAS[random.nextInt(PALAVRAS.length)];
+    }
+
+    private String titulo() {
+        int palavras = 2 + random.nextInt(3);
+        StringBuilder titulo = new StringBuilder();
+        for (int i = 0; i < palavras; i++) {
+            String palavra = PALAVRAS[random.nextInt(PALAVRAS.length)];
+            if (i > 0) {
+                titulo.append(' ');
+            }
+            titulo.append(Character.toUpperCase(palavra.charAt(0))).append(palavra.substring(1));
+        }
+        return titulo.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.dto.Sugestao;
+import com.biblioteca.model.Livro;
+import com.biblioteca.service.LivroService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caminhos quentes do {@link LivroService} sobre um catálogo de {@code tamanhoCatalogo} livros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LivroServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int tamanhoCatalogo;
+
+    private AmbienteCatalogo ambiente;
+    private LivroService livroService;
+    private List<Long> ids;
+    private final AtomicLong sequenciaNovos = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        ambiente = AmbienteCatalogo.iniciar(tamanhoCatalogo);
+        livroService = ambiente.bean(LivroService.class);
+        ids = ambiente.ids();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        ambiente.close();
+    }
+
+    @Benchmark
+    public List<Livro> buscarPorTermo() {
+        String termo = GeradorCatalogo.PALAVRAS[ThreadLocalRandom.current().nextInt(GeradorCatalogo.PALAVRAS.length)];
+        return livroService.buscarPorTermo(termo);
+    }
+
+    // Em amostras, para ver o p99 de cada consulta além da média
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public List<Sugestao> sugerir() {
+        String palavra = GeradorCatalogo.PALAVRAS[ThreadLocalRandom.current().nextInt(GeradorCatalogo.PALAVRAS.length)];
+        return livroService.sugerir(palavra.substring(0, Math.min(3, palavra.length())), 8);
+    }
+
+    @Benchmark
+    public Optional<Livro> buscarPorId() {
+        return livroService.buscarPorId(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    public Livro salvar() {
+        long sequencia = sequenciaNovos.incrementAndGet();
+        Livro livro = new Livro("Novo " + sequencia, "Autor Benchmark", "novo-" + sequencia, 2024);
+        livro.setEditora("Editora Benchmark");
+        return livroService.salvar(livro);
+    }
+
+    @Benchmark
+    public long contarDisponiveis() {
+        return livroService.contarDisponiveis();
+    }
+}
@@ -0,0 +1,54 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.model.Livro;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização JSON de listas de livros, como nas respostas de listagem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @Param({"100", "10000"})
+    public int tamanhoLista;
+
+    private ObjectMapper objectMapper;
+    private List<Livro> livros;
+
+    @Setup
+    public void iniciar() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        GeradorCatalogo gerador = new GeradorCatalogo(42);
+        livros = new ArrayList<>(tamanhoLista);
+        for (int i = 0; i < tamanhoLista; i++) {
+            Livro livro = gerador.livro(i);
+            livro.setId((long) i + 1);
+            livros.add(livro);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarListaJson() throws Exception {
+        return objectMapper.writeValueAsBytes(livros);
+    }
+}
@@ -0,0 +1,102 @@
+package com.biblioteca.benchmark.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumo de uma execução do {@link TesteCarga}: vazão, erros e latências por endpoint e
+ * no total. Gravado em JSON, serve de base (SLO) para as execuções seguintes.
+ */
+public record ResultadoCarga(String url,
+                             int clientes,
+                             long duracaoSegundos,
+                             int percentualEscritas,
+                             Map<String, Metricas> endpoints) {
+
+    public static final String TOTAL = "total";
+
+    // Diferenças de latência abaixo disso são ruído, qualquer que seja o percentual
+    private static final double FOLGA_MS = 1.0;
+
+    // Pontos percentuais de erro aceitos acima da base
+    private static final double FOLGA_ERROS = 0.005;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public record Metricas(long requisicoes,
+                           long erros,
+                           double reqPorSegundo,
+                           double p50Ms,
+                           double p95Ms,
+                           double p99Ms,
+                           double maximoMs) {
+
+        double taxaErros() {
+            return requisicoes == 0 ? 0 : erros / (double) requisicoes;
+        }
+    }
+
+    public static ResultadoCarga ler(File arquivo) throws IOException {
+        return MAPPER.readValue(arquivo, ResultadoCarga.class);
+    }
+
+    public void gravar(File arquivo) throws IOException {
+        File diretorio = arquivo.getAbsoluteFile().getParentFile();
+        if (diretorio != null) {
+            diretorio.mkdirs();
+        }
+        MAPPER.writeValue(arquivo, this);
+    }
+
+    public void imprimir() {
+        System.out.printf("%-32s %11s %8s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requisições", "erros",
+                "erros %", "req/s", "p50 ms", "p95 ms", "p99 ms", "máx ms");
+        endpoints.forEach((nome, metricas) -> System.out.printf("%-32s %11d %8d %8.2f %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                nome, metricas.requisicoes(), metricas.erros(), metricas.taxaErros() * 100, metricas.reqPorSegundo(),
+                metricas.p50Ms(), metricas.p95Ms(), metricas.p99Ms(), metricas.maximoMs()));
+    }
+
+    /**
+     * Compara com uma execução de referência e devolve as violações de SLO: p95 ou p99
+     * mais de {@code tolerancia}% acima da base (e mais de {@value #FOLGA_MS} ms), taxa de
+     * erros mais de meio ponto percentual acima, ou vazão total mais de {@code tolerancia}%
+     * abaixo. Endpoints ausentes em uma das execuções são ignorados.
+     */
+    public List<String> violacoes(ResultadoCarga base, double tolerancia) {
+        List<String> violacoes = new ArrayList<>();
+        double fator = tolerancia / 100.0;
+        Map<String, Metricas> comparaveis = new LinkedHashMap<>(endpoints);
+        comparaveis.keySet().retainAll(base.endpoints().keySet());
+        comparaveis.forEach((nome, atual) -> {
+            Metricas anterior = base.endpoints().get(nome);
+            if (anterior.requisicoes() == 0 || atual.requisicoes() == 0) {
+                return;
+            }
+            latencia(violacoes, nome, "p95", anterior.p95Ms(), atual.p95Ms(), fator);
+            latencia(violacoes, nome, "p99", anterior.p99Ms(), atual.p99Ms(), fator);
+            if (atual.taxaErros() > anterior.taxaErros() + FOLGA_ERROS) {
+                violacoes.add(String.format("%s: erros %.2f%% (base %.2f%%)",
+                        nome, atual.taxaErros() * 100, anterior.taxaErros() * 100));
+            }
+            if (TOTAL.equals(nome) && atual.reqPorSegundo() < anterior.reqPorSegundo() * (1 - fator)) {
+                violacoes.add(String.format("%s: %.1f req/s (base %.1f req/s)",
+                        nome, atual.reqPorSegundo(), anterior.reqPorSegundo()));
+            }
+        });
+        return violacoes;
+    }
+
+    private static void latencia(List<String> violacoes, String nome, String percentil,
+                                 double base, double atual, double fator) {
+        if (atual > base * (1 + fator) && atual - base > FOLGA_MS) {
+            violacoes.add(String.format("%s: %s %.2f ms (base %.2f ms)", nome, percentil, atual, base));
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.biblioteca.benchmark.carga;
+
+import com.biblioteca.benchmark.AmbienteCatalogo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Gerador de carga HTTP para os endpoints {@code /api/livros}.
+ *
+ * Cada cliente virtual repete requisições em laço fechado (envia, espera a resposta,
+ * envia a próxima), escolhendo o endpoint pelos pesos de {@link #endpoints(int)}: leituras
+ * por id, paginação, busca e estatísticas e, numa fração configurável, criações,
+ * atualizações e remoções. As escritas só alteram livros criados pelo próprio cliente, então
+ * o catálogo existente não é modificado. Ao final mostra vazão, taxa de erros e latências
+ * p50/p95/p99 por endpoint e, com {@code --base}, compara com uma execução anterior e
+ * termina com código 1 se algum SLO piorou além da tolerância.
+ *
+ * Com {@code embutido} no lugar da url, o backend sobe neste mesmo processo sobre um H2 em
+ * memória populado com {@code --catalogo} livros. Cada cliente virtual envia um
+ * {@code X-Real-IP} próprio, e o backend embutido o usa para o balde de tokens do controle
+ * de admissão; contra uma url, os clientes contam como um só, exceto atrás do nginx.
+ * Requisições recusadas pela admissão (429/503) contam como erros.
+ *
+ * Uso: {@code TesteCarga [url|embutido] [clientes] [duracao-segundos] [aquecimento-segundos]
+ * [--escritas=percentual] [--catalogo=livros] [--resultado=arquivo.json] [--base=arquivo.json]
+ * [--tolerancia=percentual]}
+ */
+public final class TesteCarga {
+
+    private static final String[] TERMOS = {"machado", "memorias", "sertao", "amor", "cidade", "historia"};
+
+    // Quantidade de ids reais amostrados do catálogo para as consultas por id
+    private static final int MAXIMO_IDS = 10_000;
+
+    private static final String POST = "POST /api/livros";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record Endpoint(String nome, int peso, boolean exigeCriado, Function<Cliente, HttpRequest> requisicao) {
+    }
+
+    private TesteCarga() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> posicionais = new ArrayList<>();
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int igual = arg.indexOf('=');
+                opcoes.put(igual < 0 ? arg.substring(2) : arg.substring(2, igual), igual < 0 ? "" : arg.substring(igual + 1));
+            } else {
+                posicionais.add(arg);
+            }
+        }
+        String url = posicionais.size() > 0 ? posicionais.get(0) : "http://localhost:8080";
+        int clientes = posicionais.size() > 1 ? Integer.parseInt(posicionais.get(1)) : 200;
+        Duration duracao = Duration.ofSeconds(posicionais.size() > 2 ? Long.parseLong(posicionais.get(2)) : 30);
+        Duration aquecimento = Duration.ofSeconds(posicionais.size() > 3 ? Long.parseLong(posicionais.get(3)) : 5);
+        int escritas = Integer.parseInt(opcoes.getOrDefault("escritas", "20"));
+        if (escritas < 0 || escritas > 100) {
+            throw new IllegalArgumentException("--escritas deve estar entre 0 e 100");
+        }
+
+        AmbienteCatalogo ambiente = null;
+        if ("embutido".equals(url)) {
+            ambiente = AmbienteCatalogo.iniciarServidor(Integer.parseInt(opcoes.getOrDefault("catalogo", "10000")));
+            url = ambiente.url();
+        }
+        try {
+            ResultadoCarga resultado = executar(url, clientes, duracao, aquecimento, escritas);
+            resultado.imprimir();
+            if (opcoes.containsKey("resultado")) {
+                resultado.gravar(new File(opcoes.get("resultado")));
+            }
+            if (opcoes.containsKey("base")) {
+                double tolerancia = Double.parseDouble(opcoes.getOrDefault("tolerancia", "20"));
+                ResultadoCarga base = ResultadoCarga.ler(new File(opcoes.get("base")));
+                if (base.clientes() != clientes || base.percentualEscritas() != escritas) {
+                    System.err.printf("Aviso: a base foi medida com %d clientes e %d%% de escritas%n",
+                            base.clientes(), base.percentualEscritas());
+                }
+                List<String> violacoes = resultado.violacoes(base, tolerancia);
+                if (!violacoes.isEmpty()) {
+                    System.err.printf("%d SLO(s) pioraram mais de %.1f%% em relação a %s:%n",
+                            violacoes.size(), tolerancia, opcoes.get("base"));
+                    violacoes.forEach(violacao -> System.err.println("  " + violacao));
+                    System.exit(1);
+                }
+                System.out.printf("SLOs dentro de %.1f%% da base %s%n", tolerancia, opcoes.get("base"));
+            }
+        } finally {
+            if (ambiente != null) {
+                ambiente.close();
+            }
+        }
+    }
+
+    private static ResultadoCarga executar(String url, int clientes, Duration duracao, Duration aquecimento,
+                                           int escritas) throws IOException, InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        long[] ids = carregarIds(http, url);
+        if (ids.length == 0) {
+            System.err.println("Catálogo vazio em " + url);
+            System.exit(2);
+        }
+
+        List<Endpoint> endpoints = endpoints(escritas);
+        System.out.printf("Carga em %s: %d clientes, %ds (+%ds de aquecimento), %d%% de escritas, %d ids amostrados%n",
+                url, clientes, duracao.toSeconds(), aquecimento.toSeconds(), escritas, ids.length);
+        rodar(http, url, clientes, aquecimento, ids, endpoints);
+        List<Medicoes> medicoes = rodar(http, url, clientes, duracao, ids, endpoints);
+        return resumir(url, clientes, duracao, escritas, endpoints, medicoes);
+    }
+
+    /**
+     * Mistura de endpoints com {@code escritas}% de criações, atualizações e remoções; os
+     * pesos somam 10.000.
+     */
+    private static List<Endpoint> endpoints(int escritas) {
+        int leituras = 100 - escritas;
+        List<Endpoint> endpoints = List.of(
+                new Endpoint("GET /api/livros/{id}", leituras * 45, false,
+                        cliente -> cliente.get("/api/livros/" + sortear(cliente.ids))),
+                new Endpoint("GET /api/livros?limite=50", leituras * 25, false,
+                        cliente -> cliente.get("/api/livros?limite=50")),
+                new Endpoint("GET /api/livros/buscar", leituras * 25, false,
+                        cliente -> cliente.get("/api/livros/buscar?termo="
+                                + TERMOS[ThreadLocalRandom.current().nextInt(TERMOS.length)])),
+                new Endpoint("GET /api/livros/estatisticas", leituras * 5, false,
+                        cliente -> cliente.get("/api/livros/estatisticas")),
+                new Endpoint(POST, escritas * 50, false, Cliente::criar),
+                new Endpoint("PUT /api/livros/{id}", escritas * 35, true, Cliente::atualizar),
+                new Endpoint("DELETE /api/livros/{id}", escritas * 15, true, Cliente::remover));
+        return endpoints.stream().filter(endpoint -> endpoint.peso() > 0).toList();
+    }
+
+    private static long[] carregarIds(HttpClient http, String url) throws IOException, InterruptedException {
+        long[] ids = new long[MAXIMO_IDS];
+        int quantidade = 0;
+        String cursor = "";
+        while (quantidade < MAXIMO_IDS && cursor != null) {
+            HttpRequest requisicao = HttpRequest.newBuilder(URI.create(url + "/api/livros?limite=1000&apos=" + cursor))
+                    .timeout(Duration.ofSeconds(30)).GET().build();
+            JsonNode pagina = MAPPER.readTree(http.send(requisicao, HttpResponse.BodyHandlers.ofString()).body());
+            for (JsonNode livro : pagina.path("itens")) {
+                if (quantidade < MAXIMO_IDS) {
+                    ids[quantidade++] = livro.path("id").asLong();
+                }
+            }
+            cursor = pagina.path("proximoCursor").isTextual() ? pagina.path("proximoCursor").asText() : null;
+        }
+        return Arrays.copyOf(ids, quantidade);
+    }
+
+    private static List<Medicoes> rodar(HttpClient http, String url, int clientes, Duration duracao, long[] ids,
+                                        List<Endpoint> endpoints) throws InterruptedException {
+        long fim = System.nanoTime() + duracao.toNanos();
+        // Prefixo de ISBN único por rodada: as criações nunca colidem com o catálogo nem entre si
+        String rodada = Long.toString(System.currentTimeMillis(), 36);
+        List<Medicoes> medicoes = new ArrayList<>(clientes);
+        List<Thread> threads = new ArrayList<>(clientes);
+        for (int i = 0; i < clientes; i++) {
+            Medicoes doCliente = new Medicoes();
+            medicoes.add(doCliente);
+            Cliente cliente = new Cliente(url, ids, "carga-" + rodada + "-" + i + "-", enderecoVirtual(i));
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < fim) {
+                    Endpoint endpoint = sortear(endpoints);
+                    if (endpoint.exigeCriado() && cliente.criados.isEmpty()) {
+                        endpoint = endpoints.stream().filter(e -> e.nome().equals(POST)).findFirst().orElseThrow();
+                    }
+                    HttpRequest requisicao = endpoint.requisicao().apply(cliente);
+                    long inicio = System.nanoTime();
+                    boolean sucesso;
+                    try {
+                        HttpResponse<String> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+                        sucesso = resposta.statusCode() < 400;
+                        if (sucesso && endpoint.nome().equals(POST)) {
+                            cliente.criados.add(MAPPER.readTree(resposta.body()).path("id").asLong());
+                        }
+                    } catch (IOException e) {
+                        sucesso = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    doCliente.registrar(endpoint.nome(), System.nanoTime() - inicio, sucesso);
+                }
+            }, "carga-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return medicoes;
+    }
+
+    private static Endpoint sortear(List<Endpoint> endpoints) {
+        int total = endpoints.stream().mapToInt(Endpoint::peso).sum();
+        int sorteio = ThreadLocalRandom.current().nextInt(total);
+        for (Endpoint endpoint : endpoints) {
+            sorteio -= endpoint.peso();
+            if (sorteio < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(0);
+    }
+
+    private static long sortear(long[] ids) {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static ResultadoCarga resumir(String url, int clientes, Duration duracao, int escritas,
+                                          List<Endpoint> endpoints, List<Medicoes> medicoes) {
+        Map<String, Medicoes.Serie> porEndpoint = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> porEndpoint.put(endpoint.nome(), new Medicoes.Serie()));
+        Medicoes.Serie geral = new Medicoes.Serie();
+        for (Medicoes doCliente : medicoes) {
+            doCliente.series.forEach((nome, serie) -> {
+                porEndpoint.get(nome).juntar(serie);
+                geral.juntar(serie);
+            });
+        }
+        Map<String, ResultadoCarga.Metricas> metricas = new LinkedHashMap<>();
+        porEndpoint.forEach((nome, serie) -> metricas.put(nome, serie.metricas(duracao)));
+        metricas.put(ResultadoCarga.TOTAL, geral.metricas(duracao));
+        return new ResultadoCarga(url, clientes, duracao.toSeconds(), escritas, metricas);
+    }
+
+    private static double percentil(long[] ordenadas, double fracao) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicao = (int) Math.ceil(fracao * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, posicao)] / 1_000_000.0;
+    }
+
+    // Endereço do cliente virtual na faixa 198.18.0.0/15, reservada para testes de desempenho
+    private static String enderecoVirtual(int cliente) {
+        return "198." + (18 + cliente / 65_536 % 2) + "." + (cliente / 256 % 256) + "." + (cliente % 256);
+    }
+
+    /**
+     * Estado de um cliente virtual: os livros que ele criou e ainda não removeu são os
+     * alvos das suas atualizações e remoções. Usado por uma única thread.
+     */
+    private static final class Cliente {
+
+        private final String url;
+        private final long[] ids;
+        private final String prefixoIsbn;
+        private final String endereco;
+        private final List<Long> criados = new ArrayList<>();
+        private long sequencia;
+
+        Cliente(String url, long[] ids, String prefixoIsbn, String endereco) {
+            this.url = url;
+            this.ids = ids;
+            this.prefixoIsbn = prefixoIsbn;
+            this.endereco = endereco;
+        }
+
+        HttpRequest get(String caminho) {
+            return requisicao(caminho).GET().build();
+        }
+
+        HttpRequest criar() {
+            return requisicao("/api/livros")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo(prefixoIsbn + sequencia++, "Carga")))
+                    .build();
+        }
+
+        HttpRequest atualizar() {
+            long id = criados.get(ThreadLocalRandom.current().nextInt(criados.size()));
+            return requisicao("/api/livros/" + id)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(corpo(prefixoIsbn + "a" + id, "Carga atualizado")))
+                    .build();
+        }
+
+        HttpRequest remover() {
+            long id = criados.remove(criados.size() - 1);
+            return requisicao("/api/livros/" + id).DELETE().build();
+        }
+
+        private HttpRequest.Builder requisicao(String caminho) {
+            return HttpRequest.newBuilder(URI.create(url + caminho))
+                    .header("X-Real-IP", endereco)
+                    .timeout(Duration.ofSeconds(30));
+        }
+
+        private static String corpo(String isbn, String titulo) {
+            Map<String, Object> livro = new LinkedHashMap<>();
+            livro.put("titulo", titulo + " " + isbn);
+            livro.put("autor", "Teste de Carga");
+            livro.put("isbn", isbn);
+            livro.put("anoPublicacao", 2024);
+            livro.put("disponivel", true);
+            try {
+                return MAPPER.writeValueAsString(livro);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Latências de um cliente; cada thread escreve só nas suas, sem sincronização.
+     */
+    private static final class Medicoes {
+
+        private final Map<String, Serie> series = new LinkedHashMap<>();
+
+        void registrar(String endpoint, long nanos, boolean sucesso) {
+            series.computeIfAbsent(endpoint, chave -> new Serie()).adicionar(nanos, sucesso);
+        }
+
+        private static final class Serie {
+
+            private long[] latencias = new long[1024];
+            private int tamanho;
+            private long erros;
+
+            void adicionar(long nanos, boolean sucesso) {
+                if (tamanho == latencias.length) {
+                    latencias = Arrays.copyOf(latencias, tamanho * 2);
+                }
+                latencias[tamanho++] = nanos;
+                if (!sucesso) {
+                    erros++;
+                }
+            }
+
+            void juntar(Serie outra) {
+                for (int i = 0; i < outra.tamanho; i++) {
+                    adicionar(outra.latencias[i], true);
+                }
+                erros += outra.erros;
+            }
+
+            ResultadoCarga.Metricas metricas(Duration duracao) {
+                long[] ordenadas = Arrays.copyOf(latencias, tamanho);
+                Arrays.sort(ordenadas);
+                return new ResultadoCarga.Metricas(tamanho, erros, tamanho / (double) duracao.toSeconds(),
+                        percentil(ordenadas, 0.50), percentil(ordenadas, 0.95), percentil(ordenadas, 0.99),
+                        percentil(ordenadas, 1.0));
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.biblioteca.benchmark.inicializacao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a inicialização do backend nos dois modos de empacotamento, sempre em processos novos.
+ *
+ * <ul>
+ *   <li>{@code padrao}: o jar executável ({@code *-exec.jar}), sem aquecimento da API;</li>
+ *   <li>{@code rapido}: o jar do perfil Maven {@code inicio-rapido}, com as dependências em
+ *       {@code lib/}, o código do Spring AOT ({@code -Dspring.aot.enabled=true}), o arquivo CDS
+ *       ({@code app.jsa}) e o aquecimento da API antes da prontidão.</li>
+ * </ul>
+ *
+ * Para cada execução mede o tempo desde o início do processo até
+ * {@code /actuator/health/readiness} responder 200 e, a partir daí, faz {@code --requisicoes}
+ * consultas em sequência a quatro endpoints de leitura. A latência de referência de cada
+ * endpoint é a menor, entre todas as execuções, das medianas do último quarto das suas
+ * consultas; uma consulta é rápida se ficar abaixo do dobro da referência mais 1 ms. O
+ * tempo até a primeira requisição rápida vai do início do processo até o fim da primeira
+ * consulta que abre uma sequência de {@value #JANELA_RAPIDA} consultas rápidas. Os modos se
+ * alternam a cada rodada e o resumo traz a mediana das rodadas.
+ *
+ * Termina com código 1 se a mediana do modo rápido até a primeira requisição rápida passar de
+ * {@code --rapida-maxima-ms} (quando informado).
+ *
+ * Uso: {@code TesteInicializacao <diretorio-target-do-backend> [rodadas] [--requisicoes=N]
+ * [--perfis=docker] [--aquecimento-iteracoes=N] [--rapida-maxima-ms=N] [--resultado=arquivo.json]
+ * [--logs=diretorio]}
+ */
+public final class TesteInicializacao {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Duration ESPERA_PRONTIDAO = Duration.ofSeconds(180);
+    private static final int JANELA_RAPIDA = 10;
+
+    private static final List<String> CONSULTAS = List.of(
+            "/api/livros/pesquisa?termo=a&limite=10",
+            "/api/livros/buscar?termo=o",
+            "/api/livros?limite=20",
+            "/api/livros/estatisticas");
+
+    private record Execucao(String modo, long prontoMs, long[] latenciasUs, long[] concluidaMs) {
+
+        long primeiraRequisicaoMs() {
+            return latenciasUs[0] / 1_000;
+        }
+
+        long finalP50Us() {
+            return mediana(Arrays.copyOfRange(latenciasUs, latenciasUs.length - latenciasUs.length / 4, latenciasUs.length));
+        }
+
+        /**
+         * Fim da primeira consulta que abre uma sequência de consultas abaixo do limite de
+         * cada endpoint; sem nenhuma, o fim da última.
+         */
+        long rapidaMs(long[] limiteUs) {
+            for (int i = 0; i + JANELA_RAPIDA <= latenciasUs.length; i++) {
+                boolean janelaRapida = true;
+                for (int j = i; j < i + JANELA_RAPIDA && janelaRapida; j++) {
+                    janelaRapida = latenciasUs[j] <= limiteUs[j % CONSULTAS.size()];
+                }
+                if (janelaRapida) {
+                    return concluidaMs[i];
+                }
+            }
+            return concluidaMs[concluidaMs.length - 1];
+        }
+    }
+
+    private TesteInicializacao() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> posicionais = new ArrayList<>();
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int igual = arg.indexOf('=');
+                opcoes.put(igual < 0 ? arg.substring(2) : arg.substring(2, igual), igual < 0 ? "" : arg.substring(igual + 1));
+            } else {
+                posicionais.add(arg);
+            }
+        }
+        if (posicionais.isEmpty()) {
+            System.err.println("Uso: TesteInicializacao <diretorio-target-do-backend> [rodadas] [opções]");
+            System.exit(2);
+        }
+        File target = new File(posicionais.get(0)).getAbsoluteFile();
+        int rodadas = posicionais.size() > 1 ? Integer.parseInt(posicionais.get(1)) : 3;
+        int requisicoes = Integer.parseInt(opcoes.getOrDefault("requisicoes", "1000"));
+        long rapidaMaxima = Long.parseLong(opcoes.getOrDefault("rapida-maxima-ms", "0"));
+        File executavel = arquivo(target, "-exec.jar");
+        File fino = arquivo(target, ".jar");
+        if (executavel == null || fino == null || !new File(target, "app.jsa").isFile() || !new File(target, "lib").isDirectory()) {
+            System.err.println("Jars, lib/ ou app.jsa não encontrados em " + target
+                    + " (rode mvn -f backend -Pinicio-rapido package)");
+            System.exit(2);
+        }
+        if (requisicoes < JANELA_RAPIDA * 4) {
+            throw new IllegalArgumentException("São necessárias pelo menos " + JANELA_RAPIDA * 4 + " requisições");
+        }
+        Path logs = Path.of(opcoes.getOrDefault("logs", "target/inicializacao"));
+        logs.toFile().mkdirs();
+        System.out.printf("Inicialização: %d rodadas por modo, %d requisições depois da prontidão (logs em %s)%n",
+                rodadas, requisicoes, logs.toAbsolutePath());
+
+        List<Execucao> execucoes = new ArrayList<>();
+        for (int rodada = 0; rodada < rodadas; rodada++) {
+            for (String modo : List.of("padrao", "rapido")) {
+                List<String> jvm = modo.equals("padrao")
+                        ? List.of("-jar", executavel.getName(), "--biblioteca.aquecimento.iteracoes=0")
+                        : comandoRapido(fino, opcoes);
+                Execucao execucao = medir(modo, target, jvm, opcoes, requisicoes,
+                        logs.resolve(modo + "-" + rodada + ".log").toFile());
+                System.out.printf("%-7s rodada %d: pronto em %5d ms, primeira requisição %4d ms, p50 do último quarto %d µs%n",
+                        modo, rodada + 1, execucao.prontoMs(), execucao.primeiraRequisicaoMs(), execucao.finalP50Us());
+                execucoes.add(execucao);
+            }
+        }
+
+        // Referência de cada endpoint: a melhor mediana do último quarto entre todas as execuções,
+        // para que os dois modos sejam comparados com o mesmo estado aquecido
+        long[] limiteUs = new long[CONSULTAS.size()];
+        for (int c = 0; c < CONSULTAS.size(); c++) {
+            long referencia = Long.MAX_VALUE;
+            for (Execucao execucao : execucoes) {
+                long[] latencias = execucao.latenciasUs();
+                List<Long> finais = new ArrayList<>();
+                for (int i = latencias.length - latencias.length / 4; i < latencias.length; i++) {
+                    if (i % CONSULTAS.size() == c) {
+                        finais.add(latencias[i]);
+                    }
+                }
+                referencia = Math.min(referencia, mediana(finais.stream().mapToLong(Long::longValue).toArray()));
+            }
+            limiteUs[c] = 2 * referencia + 1_000;
+        }
+        System.out.println("Limite de uma requisição rápida por endpoint (µs): " + Arrays.toString(limiteUs));
+
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("rodadas", rodadas);
+        resumo.put("requisicoes", requisicoes);
+        for (String modo : List.of("padrao", "rapido")) {
+            List<Execucao> doModo = execucoes.stream().filter(execucao -> execucao.modo().equals(modo)).toList();
+            Map<String, Object> medianas = new LinkedHashMap<>();
+            medianas.put("prontoMs", mediana(doModo.stream().mapToLong(Execucao::prontoMs).toArray()));
+            medianas.put("primeiraRequisicaoMs", mediana(doModo.stream().mapToLong(Execucao::primeiraRequisicaoMs).toArray()));
+            medianas.put("primeiraRapidaMs", mediana(doModo.stream().mapToLong(execucao -> execucao.rapidaMs(limiteUs)).toArray()));
+            medianas.put("finalP50Us", mediana(doModo.stream().mapToLong(Execucao::finalP50Us).toArray()));
+            resumo.put(modo, medianas);
+        }
+        System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(resumo));
+        String resultado = opcoes.get("resultado");
+        if (resultado != null) {
+            File arquivo = new File(resultado);
+            if (arquivo.getParentFile() != null) {
+                arquivo.getParentFile().mkdirs();
+            }
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(arquivo, resumo);
+        }
+
+        @SuppressWarnings("unchecked")
+        long rapida = (long) ((Map<String, Object>) resumo.get("rapido")).get("primeiraRapidaMs");
+        if (rapidaMaxima > 0 && rapida > rapidaMaxima) {
+            System.err.println("Falhou: modo rápido só atendeu rápido em " + rapida + " ms (limite " + rapidaMaxima + " ms)");
+            System.exit(1);
+        }
+    }
+
+    private static List<String> comandoRapido(File fino, Map<String, String> opcoes) {
+        List<String> comando = new ArrayList<>(List.of(
+                "-XX:SharedArchiveFile=app.jsa", "-Xlog:cds=error", "-Dspring.aot.enabled=true", "-jar", fino.getName()));
+        if (opcoes.containsKey("aquecimento-iteracoes")) {
+            comando.add("--biblioteca.aquecimento.iteracoes=" + opcoes.get("aquecimento-iteracoes"));
+        }
+        return comando;
+    }
+
+    private static Execucao medir(String modo, File target, List<String> jvm, Map<String, String> opcoes,
+                                  int requisicoes, File log) throws Exception {
+        int porta = portaLivre();
+        String url = "http://localhost:" + porta;
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.add("-Xmx512m");
+        comando.addAll(jvm);
+        comando.addAll(List.of(
+                "--server.port=" + porta,
+                "--spring.profiles.active=" + opcoes.getOrDefault("perfis", "docker"),
+                "--biblioteca.dados.diretorio=" + new File(log.getParentFile(), modo + "-dados").getAbsolutePath()));
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // O diretório de trabalho é o target: o CDS confere o classpath como foi gravado no treino
+        long inicio = System.nanoTime();
+        Process processo = new ProcessBuilder(comando)
+                .directory(target)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            long prontoMs = aguardarProntidao(http, url, processo, inicio);
+
+            long[] latenciasUs = new long[requisicoes];
+            long[] concluidaMs = new long[requisicoes];
+            for (int i = 0; i < requisicoes; i++) {
+                long antes = System.nanoTime();
+                int status = http.send(get(url, CONSULTAS.get(i % CONSULTAS.size())),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+                long depois = System.nanoTime();
+                if (status != 200) {
+                    throw new IllegalStateException(CONSULTAS.get(i % CONSULTAS.size()) + " respondeu " + status + " (" + modo + ")");
+                }
+                latenciasUs[i] = (depois - antes) / 1_000;
+                concluidaMs[i] = (depois - inicio) / 1_000_000;
+            }
+            return new Execucao(modo, prontoMs, latenciasUs, concluidaMs);
+        } finally {
+            processo.destroy();
+            if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+                processo.destroyForcibly();
+            }
+        }
+    }
+
+    private static long aguardarProntidao(HttpClient http, String url, Process processo, long inicio)
+            throws InterruptedException {
+        long limite = inicio + ESPERA_PRONTIDAO.toNanos();
+        while (System.nanoTime() < limite) {
+            if (!processo.isAlive()) {
+                throw new IllegalStateException("Backend terminou com código " + processo.exitValue());
+            }
+            try {
+                if (http.send(get(url, "/actuator/health/readiness"), HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return (System.nanoTime() - inicio) / 1_000_000;
+                }
+            } catch (IOException e) {
+                // Servidor ainda não abriu a porta
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("Backend não ficou pronto em " + ESPERA_PRONTIDAO.toSeconds() + "s");
+    }
+
+    private static File arquivo(File target, String sufixo) {
+        File[] encontrados = target.listFiles((diretorio, nome) -> nome.startsWith("biblioteca-backend-")
+                && nome.endsWith(sufixo) && (sufixo.equals("-exec.jar") || !nome.endsWith("-exec.jar")));
+        return encontrados == null || encontrados.length == 0 ? null : encontrados[0];
+    }
+
+    private static HttpRequest get(String url, String caminho) {
+        return HttpRequest.newBuilder(URI.create(url + caminho)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static long mediana(long[] valores) {
+        if (valores.length == 0) {
+            return 0;
+        }
+        long[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        return ordenados[(ordenados.length - 1) / 2];
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.biblioteca.benchmark.replicacao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.tools.Server;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de integração da replicação com vários processos na mesma máquina.
+ *
+ * Sobe um servidor H2 TCP neste processo e {@code nos} JVMs do backend (o jar executável)
+ * apontando para o mesmo banco, com {@code biblioteca.replicacao.barramento=outbox}.
+ * Durante {@code duracao} segundos, {@code escritores} threads criam e atualizam livros
+ * alternando entre os nós; cada escrita leva no título um termo único. Uma amostra das
+ * escritas é acompanhada nos outros nós pela busca ({@code /api/livros/buscar}), que só
+ * consulta o índice em memória: o tempo até todos os nós encontrarem o livro é o tempo de
+ * convergência. No fim, os totais de {@code /api/livros/estatisticas} precisam ser iguais em
+ * todos os nós e o cursor de {@code /changes} de um nó precisa valer nos outros.
+ *
+ * Termina com código 1 se o p99 da convergência passar de {@code --convergencia-maxima-ms}
+ * ou se algum nó não convergir.
+ *
+ * Uso: {@code TesteReplicacao <jar> [nos] [escritores] [duracao-segundos]
+ * [--convergencia-maxima-ms=N] [--amostragem=N] [--intervalo=PT0.25S] [--margem=PT2S] [--logs=diretorio]}
+ */
+public final class TesteReplicacao {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Duration ESPERA_INICIALIZACAO = Duration.ofSeconds(180);
+    private static final Duration ESPERA_CONVERGENCIA = Duration.ofSeconds(30);
+    private static final int VERIFICADORES = 8;
+
+    private record Escrita(String termo, long id, int no, long concluidaEm) {
+    }
+
+    private TesteReplicacao() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> posicionais = new ArrayList<>();
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int igual = arg.indexOf('=');
+                opcoes.put(igual < 0 ? arg.substring(2) : arg.substring(2, igual), igual < 0 ? "" : arg.substring(igual + 1));
+            } else {
+                posicionais.add(arg);
+            }
+        }
+        if (posicionais.isEmpty()) {
+            System.err.println("Uso: TesteReplicacao <jar> [nos] [escritores] [duracao-segundos] [opções]");
+            System.exit(2);
+        }
+        File jar = new File(posicionais.get(0));
+        int nos = posicionais.size() > 1 ? Integer.parseInt(posicionais.get(1)) : 3;
+        int escritores = posicionais.size() > 2 ? Integer.parseInt(posicionais.get(2)) : 8;
+        Duration duracao = Duration.ofSeconds(posicionais.size() > 3 ? Long.parseLong(posicionais.get(3)) : 20);
+        long convergenciaMaxima = Long.parseLong(opcoes.getOrDefault("convergencia-maxima-ms", "2000"));
+        int amostragem = Integer.parseInt(opcoes.getOrDefault("amostragem", "5"));
+        if (!jar.isFile()) {
+            System.err.println("Jar do backend não encontrado: " + jar + " (rode mvn -f backend package)");
+            System.exit(2);
+        }
+        if (nos < 2) {
+            throw new IllegalArgumentException("São necessários pelo menos 2 nós");
+        }
+
+        Server h2 = Server.createTcpServer("-tcpPort", Integer.toString(portaLivre()), "-ifNotExists").start();
+        List<Process> processos = new ArrayList<>();
+        boolean aprovado;
+        try {
+            String banco = "jdbc:h2:tcp://localhost:" + h2.getPort() + "/mem:replicacao;DB_CLOSE_DELAY=-1";
+            Path logs = Path.of(opcoes.getOrDefault("logs", "target/replicacao"));
+            logs.toFile().mkdirs();
+            List<String> urls = new ArrayList<>();
+            // O primeiro nó aplica as migrações do Flyway antes de os outros subirem
+            for (int i = 0; i < nos; i++) {
+                int porta = portaLivre();
+                processos.add(iniciarNo(jar, i, porta, banco, opcoes, logs.resolve("no-" + i + ".log").toFile()));
+                urls.add("http://localhost:" + porta);
+                if (i == 0) {
+                    aguardarNo(urls.get(0), processos.get(0));
+                }
+            }
+            for (int i = 1; i < nos; i++) {
+                aguardarNo(urls.get(i), processos.get(i));
+            }
+            System.out.printf("Replicação: %d nós sobre %s, %d escritores por %ds, 1 em %d escritas acompanhada (logs em %s)%n",
+                    nos, banco, escritores, duracao.toSeconds(), amostragem, logs.toAbsolutePath());
+
+            aprovado = executar(urls, escritores, duracao, amostragem, convergenciaMaxima);
+        } finally {
+            processos.forEach(Process::destroy);
+            for (Process processo : processos) {
+                if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+                    processo.destroyForcibly();
+                }
+            }
+            h2.stop();
+        }
+        if (!aprovado) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean executar(List<String> urls, int escritores, Duration duracao, int amostragem,
+                                    long convergenciaMaxima) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String cursorInicial = http.send(get(urls.get(0), "/api/livros/pesquisa?limite=1"),
+                HttpResponse.BodyHandlers.discarding()).headers().firstValue("X-Catalogo-Cursor").orElseThrow();
+
+        ConcurrentLinkedQueue<Long> convergencias = new ConcurrentLinkedQueue<>();
+        AtomicLong naoConvergidas = new AtomicLong();
+        AtomicLong escritas = new AtomicLong();
+        AtomicLong falhas = new AtomicLong();
+        ExecutorService verificadores = Executors.newFixedThreadPool(VERIFICADORES);
+        String rodada = Long.toString(System.currentTimeMillis(), 36);
+
+        long inicio = System.nanoTime();
+        long fim = inicio + duracao.toNanos();
+        List<Thread> threads = new ArrayList<>(escritores);
+        for (int t = 0; t < escritores; t++) {
+            int escritor = t;
+            Thread thread = new Thread(() -> {
+                List<Long> criados = new ArrayList<>();
+                long sequencia = 0;
+                while (System.nanoTime() < fim) {
+                    int no = (int) ((escritor + sequencia) % urls.size());
+                    // Termina em letra para não ser prefixo de outro termo na busca
+                    String termo = "r" + rodada + "e" + escritor + "n" + sequencia++ + "x";
+                    // Duas criações para cada atualização de um livro já criado por este escritor;
+                    // cada livro é atualizado no máximo uma vez, para o termo acompanhado não mudar
+                    boolean atualizar = !criados.isEmpty() && sequencia % 3 == 0;
+                    boolean acompanhar = (escritas.get() + 1) % amostragem == 0;
+                    try {
+                        HttpRequest requisicao = atualizar
+                                ? put(urls.get(no), criados.remove(0), termo)
+                                : post(urls.get(no), termo);
+                        HttpResponse<String> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+                        if (resposta.statusCode() >= 400) {
+                            falhas.incrementAndGet();
+                            continue;
+                        }
+                        long id = MAPPER.readTree(resposta.body()).path("id").asLong();
+                        escritas.incrementAndGet();
+                        if (!atualizar && !acompanhar) {
+                            criados.add(id);
+                        }
+                        if (acompanhar) {
+                            Escrita escrita = new Escrita(termo, id, no, System.nanoTime());
+                            verificadores.execute(() -> verificar(http, urls, escrita, convergencias, naoConvergidas));
+                        }
+                    } catch (IOException e) {
+                        falhas.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "escritor-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long fimEscritas = System.nanoTime();
+        verificadores.shutdown();
+        verificadores.awaitTermination(ESPERA_CONVERGENCIA.toSeconds() * 2, TimeUnit.SECONDS);
+
+        // Todos os nós com o mesmo total, contado pelas estatísticas em memória
+        long inicioConferencia = System.nanoTime();
+        long[] totais = new long[urls.size()];
+        long limite = System.nanoTime() + ESPERA_CONVERGENCIA.toNanos();
+        boolean iguais;
+        do {
+            for (int i = 0; i < urls.size(); i++) {
+                totais[i] = MAPPER.readTree(http.send(get(urls.get(i), "/api/livros/estatisticas"),
+                        HttpResponse.BodyHandlers.ofString()).body()).path("total").asLong();
+            }
+            iguais = Arrays.stream(totais).distinct().count() == 1;
+            if (!iguais) {
+                Thread.sleep(50);
+            }
+        } while (!iguais && System.nanoTime() < limite);
+        long convergenciaFinal = (System.nanoTime() - inicioConferencia) / 1_000_000;
+
+        // O cursor obtido no primeiro nó vale em todos (mesma época, ids globais)
+        Set<Integer> cursorRecusado = new HashSet<>();
+        for (int i = 0; i < urls.size(); i++) {
+            int status = http.send(get(urls.get(i), "/api/livros/changes?limite=1&since=" + cursorInicial),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status != 200) {
+                cursorRecusado.add(i);
+            }
+        }
+
+        double segundos = (fimEscritas - inicio) / 1e9;
+        long[] amostras = convergencias.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("escritas", escritas.get());
+        resumo.put("falhas", falhas.get());
+        resumo.put("escritasPorSegundo", Math.round(escritas.get() / segundos));
+        resumo.put("amostras", amostras.length);
+        resumo.put("naoConvergidas", naoConvergidas.get());
+        resumo.put("convergenciaP50Ms", percentil(amostras, 0.50));
+        resumo.put("convergenciaP95Ms", percentil(amostras, 0.95));
+        resumo.put("convergenciaP99Ms", percentil(amostras, 0.99));
+        resumo.put("convergenciaMaximaMs", amostras.length == 0 ? 0 : amostras[amostras.length - 1]);
+        resumo.put("totaisPorNo", totais);
+        resumo.put("convergenciaFinalMs", convergenciaFinal);
+        System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(resumo));
+
+        List<String> violacoes = new ArrayList<>();
+        if (amostras.length == 0) {
+            violacoes.add("nenhuma escrita acompanhada");
+        }
+        if (naoConvergidas.get() > 0) {
+            violacoes.add(naoConvergidas.get() + " escritas não apareceram em todos os nós em " + ESPERA_CONVERGENCIA.toSeconds() + "s");
+        }
+        if (percentil(amostras, 0.99) > convergenciaMaxima) {
+            violacoes.add("p99 da convergência acima de " + convergenciaMaxima + " ms");
+        }
+        if (!iguais) {
+            violacoes.add("totais diferentes entre os nós: " + Arrays.toString(totais));
+        }
+        if (!cursorRecusado.isEmpty()) {
+            violacoes.add("cursor de /changes recusado pelos nós " + cursorRecusado);
+        }
+        violacoes.forEach(violacao -> System.err.println("Falhou: " + violacao));
+        return violacoes.isEmpty();
+    }
+
+    /**
+     * Consulta os outros nós até todos encontrarem o livro pelo termo da escrita.
+     */
+    private static void verificar(HttpClient http, List<String> urls, Escrita escrita,
+                                  ConcurrentLinkedQueue<Long> convergencias, AtomicLong naoConvergidas) {
+        long limite = escrita.concluidaEm() + ESPERA_CONVERGENCIA.toNanos();
+        try {
+            for (int i = 0; i < urls.size(); i++) {
+                if (i == escrita.no()) {
+                    continue;
+                }
+                while (!encontrado(http, urls.get(i), escrita)) {
+                    if (System.nanoTime() > limite) {
+                        naoConvergidas.incrementAndGet();
+                        return;
+                    }
+                    Thread.sleep(10);
+                }
+            }
+            convergencias.add((System.nanoTime() - escrita.concluidaEm()) / 1_000_000);
+        } catch (IOException e) {
+            naoConvergidas.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean encontrado(HttpClient http, String url, Escrita escrita) throws IOException, InterruptedException {
+        JsonNode itens = MAPPER.readTree(http.send(get(url, "/api/livros/buscar?fields=id&termo=" + escrita.termo()),
+                HttpResponse.BodyHandlers.ofString()).body());
+        for (JsonNode item : itens) {
+            if (item.path("id").asLong() == escrita.id()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Process iniciarNo(File jar, int numero, int porta, String banco, Map<String, String> opcoes,
+                                     File log) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> comando = List.of(java, "-Xmx384m", "-jar", jar.getAbsolutePath(),
+                "--server.port=" + porta,
+                "--spring.profiles.active=persistente",
+                "--spring.datasource.url=" + banco,
+                "--biblioteca.snapshot.arquivo=",
+                "--biblioteca.replicacao.barramento=outbox",
+                "--biblioteca.replicacao.no=no-" + numero,
+                "--biblioteca.replicacao.intervalo=" + opcoes.getOrDefault("intervalo", "PT0.25S"),
+                "--biblioteca.replicacao.margem=" + opcoes.getOrDefault("margem", "PT2S"),
+                "--biblioteca.alteracoes.epoca=replicacao",
+                "--spring.jpa.show-sql=false",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.com.biblioteca=INFO",
+                "--logging.level.org.springframework.web=WARN");
+        return new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+    }
+
+    private static void aguardarNo(String url, Process processo) throws InterruptedException {
+        HttpClient http = HttpClient.newHttpClient();
+        long limite = System.nanoTime() + ESPERA_INICIALIZACAO.toNanos();
+        while (System.nanoTime() < limite) {
+            if (!processo.isAlive()) {
+                throw new IllegalStateException("Nó " + url + " terminou com código " + processo.exitValue());
+            }
+            try {
+                if (http.send(get(url, "/actuator/health"), HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Ainda subindo
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Nó " + url + " não ficou pronto em " + ESPERA_INICIALIZACAO.toSeconds() + "s");
+    }
+
+    private static HttpRequest get(String url, String caminho) {
+        return HttpRequest.newBuilder(URI.create(url + caminho)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String termo) {
+        return HttpRequest.newBuilder(URI.create(url + "/api/livros"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo(termo)))
+                .build();
+    }
+
+    private static HttpRequest put(String url, long id, String termo) {
+        return HttpRequest.newBuilder(URI.create(url + "/api/livros/" + id))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(corpo(termo)))
+                .build();
+    }
+
+    private static String corpo(String termo) {
+        Map<String, Object> livro = new LinkedHashMap<>();
+        livro.put("titulo", "Replicado " + termo);
+        livro.put("autor", "Teste de Replicação");
+        livro.put("isbn", termo);
+        livro.put("anoPublicacao", 2024);
+        livro.put("disponivel", true);
+        try {
+            return MAPPER.writeValueAsString(livro);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long percentil(long[] ordenadas, double fracao) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicao = (int) Math.ceil(fracao * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, posicao)];
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
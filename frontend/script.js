@@ -4,8 +4,21 @@ const API_BASE_URL = `http://${window.location.hostname}:8080/api`;
 
 // Estado da aplicação
 let currentEditId = null;
+let currentEditVersao = null;
+// Livros exibidos: as páginas da pesquisa atual já carregadas
 let livros = [];
-let filteredLivros = [];
+let totalEncontrados = 0;
+const TAMANHO_PAGINA = 50;
+// Cursor de sincronização: a partir dele /livros/changes traz só o que mudou
+let syncCursor = null;
+const SYNC_INTERVAL_MS = 30000;
+// Só os campos exibidos nos cards; o registro completo é carregado ao editar
+const CAMPOS_LISTA = 'titulo,autor,isbn,anoPublicacao,editora,disponivel';
+// Sugestões da busca: espera o usuário parar de digitar e cancela a consulta anterior
+const SUGESTOES_ESPERA_MS = 150;
+const SUGESTOES_MINIMO = 2;
+let sugestoesTimer = null;
+let sugestoesPedido = null;
 
 // Elementos DOM
 const elements = {
@@ -17,9 +30,17 @@ const elements = {
     loading: document.getElementById('loading'),
     emptyState: document.getElementById('emptyState'),
     searchInput: document.getElementById('searchInput'),
+    sugestoesBusca: document.getElementById('sugestoesBusca'),
     searchBtn: document.getElementById('searchBtn'),
     clearSearchBtn: document.getElementById('clearSearchBtn'),
     filterDisponiveis: document.getElementById('filterDisponiveis'),
+    filterAutor: document.getElementById('filterAutor'),
+    filterEditora: document.getElementById('filterEditora'),
+    filterAnoMin: document.getElementById('filterAnoMin'),
+    filterAnoMax: document.getElementById('filterAnoMax'),
+    ordenar: document.getElementById('ordenar'),
+    totalEncontrados: document.getElementById('totalEncontrados'),
+    loadMoreBtn: document.getElementById('loadMoreBtn'),
     totalLivros: document.getElementById('totalLivros'),
     livrosDisponiveis: document.getElementById('livrosDisponiveis'),
     confirmModal: document.getElementById('confirmModal'),
@@ -33,6 +54,7 @@ document.addEventListener('DOMContentLoaded', function() {
     initializeEventListeners();
     loadLivros();
     loadEstatisticas();
+    setInterval(syncLivros, SYNC_INTERVAL_MS);
 });
 
 // Event Listeners
@@ -41,7 +63,12 @@ function initializeEventListeners() {
     elements.cancelBtn.addEventListener('click', cancelEdit);
     elements.searchBtn.addEventListener('click', handleSearch);
     elements.clearSearchBtn.addEventListener('click', clearSearch);
-    elements.filterDisponiveis.addEventListener('change', applyFilters);
+    [elements.filterDisponiveis, elements.filterAutor, elements.filterEditora,
+     elements.filterAnoMin, elements.filterAnoMax, elements.ordenar].forEach(filtro => {
+        filtro.addEventListener('change', applyFilters);
+    });
+    elements.loadMoreBtn.addEventListener('click', loadMore);
+    elements.searchInput.addEventListener('input', agendarSugestoes);
     elements.searchInput.addEventListener('keypress', function(e) {
         if (e.key === 'Enter') {
             handleSearch();
@@ -58,7 +85,7 @@ function initializeEventListeners() {
 }
 
 // API Functions
-async function apiRequest(endpoint, options = {}) {
+async function apiResponse(endpoint, options = {}) {
     const url = `${API_BASE_URL}${endpoint}`;
     const config = {
         headers: {
@@ -73,23 +100,56 @@ async function apiRequest(endpoint, options = {}) {
         
         if (!response.ok) {
             const errorData = await response.json().catch(() => ({}));
-            throw new Error(errorData.erro || `HTTP error! status: ${response.status}`);
+            const error = new Error(errorData.erro || `HTTP error! status: ${response.status}`);
+            error.status = response.status;
+            throw error;
         }
         
-        return await response.json();
+        return response;
     } catch (error) {
         console.error('API Error:', error);
         throw error;
     }
 }
 
-async function loadLivros() {
+async function apiRequest(endpoint, options = {}) {
+    const response = await apiResponse(endpoint, options);
+    return await response.json();
+}
+
+// Monta a consulta de /livros/pesquisa a partir da busca e dos filtros da tela
+function pesquisaParams(limite, deslocamento) {
+    const params = new URLSearchParams({ fields: CAMPOS_LISTA, limite, deslocamento });
+    const filtros = {
+        termo: elements.searchInput.value.trim(),
+        autor: elements.filterAutor.value,
+        editora: elements.filterEditora.value,
+        anoMin: elements.filterAnoMin.value,
+        anoMax: elements.filterAnoMax.value,
+        ordenar: elements.ordenar.value
+    };
+    Object.entries(filtros).forEach(([nome, valor]) => {
+        if (valor) {
+            params.set(nome, valor);
+        }
+    });
+    if (elements.filterDisponiveis.checked) {
+        params.set('disponivel', 'true');
+    }
+    return params;
+}
+
+// Refaz a pesquisa desde o início, mantendo ao menos as páginas já exibidas
+async function loadLivros(limite = TAMANHO_PAGINA) {
     showLoading(true);
     try {
-        livros = await apiRequest('/livros');
-        filteredLivros = [...livros];
+        const response = await apiResponse(`/livros/pesquisa?${pesquisaParams(limite, 0)}`);
+        syncCursor = response.headers.get('X-Catalogo-Cursor');
+        const resultado = await response.json();
+        livros = resultado.itens;
+        totalEncontrados = resultado.total;
         renderLivros();
-        updateEstatisticas();
+        renderFacetas(resultado.facetas);
     } catch (error) {
         showToast('Erro ao carregar livros: ' + error.message, 'error');
     } finally {
@@ -97,6 +157,44 @@ async function loadLivros() {
     }
 }
 
+async function loadMore() {
+    try {
+        const resultado = await apiRequest(`/livros/pesquisa?${pesquisaParams(TAMANHO_PAGINA, livros.length)}`);
+        livros = livros.concat(resultado.itens);
+        totalEncontrados = resultado.total;
+        renderLivros();
+    } catch (error) {
+        showToast('Erro ao carregar livros: ' + error.message, 'error');
+    }
+}
+
+// Se algo mudou desde o último cursor, refaz a pesquisa exibida
+async function syncLivros() {
+    if (!syncCursor) {
+        return loadLivros();
+    }
+    try {
+        let changed = false;
+        let temMais = true;
+        while (temMais) {
+            const delta = await apiRequest(`/livros/changes?since=${encodeURIComponent(syncCursor)}`);
+            changed = changed || delta.alterados.length > 0 || delta.removidos.length > 0;
+            syncCursor = delta.cursor;
+            temMais = delta.temMais;
+        }
+        if (changed) {
+            loadLivros(Math.max(TAMANHO_PAGINA, livros.length));
+            loadEstatisticas();
+        }
+    } catch (error) {
+        if (error.status === 410) {
+            // Cursor expirado (compactação ou reinício do servidor): refaz a pesquisa
+            return loadLivros(Math.max(TAMANHO_PAGINA, livros.length));
+        }
+        console.error('Erro ao sincronizar livros:', error);
+    }
+}
+
 async function loadEstatisticas() {
     try {
         const stats = await apiRequest('/livros/estatisticas');
@@ -123,10 +221,15 @@ async function saveLivro(livroData) {
         );
         
         resetForm();
-        loadLivros();
+        syncLivros();
         loadEstatisticas();
     } catch (error) {
         showToast('Erro ao salvar livro: ' + error.message, 'error');
+        if (error.status === 409) {
+            // Outra pessoa alterou o livro: descarta a edição e recarrega a lista
+            resetForm();
+            syncLivros();
+        }
     }
 }
 
@@ -134,7 +237,7 @@ async function deleteLivro(id) {
     try {
         await apiRequest(`/livros/${id}`, { method: 'DELETE' });
         showToast('Livro excluído com sucesso!', 'success');
-        loadLivros();
+        syncLivros();
         loadEstatisticas();
     } catch (error) {
         showToast('Erro ao excluir livro: ' + error.message, 'error');
@@ -156,6 +259,11 @@ function handleFormSubmit(e) {
         disponivel: formData.get('disponivel') === 'true'
     };
     
+    // Versão lida ao abrir a edição: o backend recusa (409) se o livro mudou desde então
+    if (currentEditId) {
+        livroData.versao = currentEditVersao;
+    }
+    
     // Validação básica
     if (!livroData.titulo || !livroData.autor || !livroData.isbn || !livroData.anoPublicacao) {
         showToast('Por favor, preencha todos os campos obrigatórios.', 'warning');
@@ -170,8 +278,16 @@ function handleFormSubmit(e) {
     saveLivro(livroData);
 }
 
-function editLivro(livro) {
+async function editLivro(id) {
+    let livro;
+    try {
+        livro = await apiRequest(`/livros/${id}`);
+    } catch (error) {
+        showToast('Erro ao carregar livro: ' + error.message, 'error');
+        return;
+    }
     currentEditId = livro.id;
+    currentEditVersao = livro.versao ?? null;
     
     // Preencher formulário
     document.getElementById('titulo').value = livro.titulo;
@@ -197,6 +313,7 @@ function cancelEdit() {
 
 function resetForm() {
     currentEditId = null;
+    currentEditVersao = null;
     elements.form.reset();
     elements.formTitle.textContent = 'Adicionar Novo Livro';
     elements.submitBtnText.textContent = 'Salvar';
@@ -204,56 +321,59 @@ function resetForm() {
 }
 
 // Search and Filter Functions
-function handleSearch() {
-    const searchTerm = elements.searchInput.value.trim();
-    if (searchTerm) {
-        searchLivros(searchTerm);
-    } else {
-        applyFilters();
-    }
+function agendarSugestoes() {
+    clearTimeout(sugestoesTimer);
+    sugestoesTimer = setTimeout(loadSugestoes, SUGESTOES_ESPERA_MS);
 }
 
-async function searchLivros(termo) {
-    showLoading(true);
+async function loadSugestoes() {
+    const prefixo = elements.searchInput.value.trim();
+    if (sugestoesPedido) {
+        sugestoesPedido.abort();
+    }
+    if (prefixo.length < SUGESTOES_MINIMO) {
+        elements.sugestoesBusca.replaceChildren();
+        return;
+    }
+    sugestoesPedido = new AbortController();
     try {
-        const results = await apiRequest(`/livros/buscar?termo=${encodeURIComponent(termo)}`);
-        filteredLivros = results;
-        renderLivros();
+        const sugestoes = await apiRequest(`/livros/sugestoes?prefixo=${encodeURIComponent(prefixo)}&limite=8`,
+            { signal: sugestoesPedido.signal });
+        elements.sugestoesBusca.replaceChildren(...sugestoes.map(sugestao => {
+            const opcao = document.createElement('option');
+            opcao.value = sugestao.texto;
+            opcao.label = `${sugestao.tipo === 'autor' ? 'Autor' : 'Título'} · ${sugestao.livros} livro(s)`;
+            return opcao;
+        }));
     } catch (error) {
-        showToast('Erro na busca: ' + error.message, 'error');
-    } finally {
-        showLoading(false);
+        // Sugestões são opcionais: uma falha ou um pedido cancelado não interrompe a digitação
     }
 }
 
+function handleSearch() {
+    applyFilters();
+}
+
 function clearSearch() {
     elements.searchInput.value = '';
     elements.filterDisponiveis.checked = false;
-    filteredLivros = [...livros];
-    renderLivros();
+    elements.filterAutor.value = '';
+    elements.filterEditora.value = '';
+    elements.filterAnoMin.value = '';
+    elements.filterAnoMax.value = '';
+    elements.ordenar.value = '';
+    applyFilters();
 }
 
 function applyFilters() {
-    const searchTerm = elements.searchInput.value.trim().toLowerCase();
-    const onlyAvailable = elements.filterDisponiveis.checked;
-    
-    filteredLivros = livros.filter(livro => {
-        const matchesSearch = !searchTerm || 
-            livro.titulo.toLowerCase().includes(searchTerm) ||
-            livro.autor.toLowerCase().includes(searchTerm) ||
-            (livro.editora && livro.editora.toLowerCase().includes(searchTerm));
-        
-        const matchesAvailability = !onlyAvailable || livro.disponivel;
-        
-        return matchesSearch && matchesAvailability;
-    });
-    
-    renderLivros();
+    loadLivros();
 }
 
 // Render Functions
 function renderLivros() {
-    if (filteredLivros.length === 0) {
+    elements.totalEncontrados.textContent = `(${totalEncontrados} encontrados)`;
+    elements.loadMoreBtn.style.display = livros.length < totalEncontrados ? 'inline-flex' : 'none';
+    if (livros.length === 0) {
         elements.livrosList.style.display = 'none';
         elements.emptyState.style.display = 'block';
         return;
@@ -262,7 +382,7 @@ function renderLivros() {
     elements.livrosList.style.display = 'block';
     elements.emptyState.style.display = 'none';
     
-    elements.livrosList.innerHTML = filteredLivros.map(livro => `
+    elements.livrosList.innerHTML = livros.map(livro => `
         <div class="livro-card">
             <div class="livro-header">
                 <div>
@@ -291,14 +411,8 @@ function renderLivros() {
                 ` : ''}
             </div>
             
-            ${livro.descricao ? `
-            <div class="livro-description">
-                ${escapeHtml(livro.descricao)}
-            </div>
-            ` : ''}
-            
             <div class="livro-actions">
-                <button class="btn btn-warning btn-small" onclick="editLivro(${JSON.stringify(livro).replace(/"/g, '&quot;')})">
+                <button class="btn btn-warning btn-small" onclick="editLivro(${livro.id})">
                     <i class="fas fa-edit"></i> Editar
                 </button>
                 <button class="btn btn-danger btn-small" onclick="confirmDeleteLivro(${livro.id})">
@@ -309,12 +423,23 @@ function renderLivros() {
     `).join('');
 }
 
-function updateEstatisticas() {
-    const total = livros.length;
-    const disponiveis = livros.filter(livro => livro.disponivel).length;
-    
-    elements.totalLivros.textContent = total;
-    elements.livrosDisponiveis.textContent = disponiveis;
+// Opções de autor e editora com as contagens do resultado atual
+function renderFacetas(facetas) {
+    renderOpcoesFaceta(elements.filterAutor, 'Todos os autores', facetas.porAutor);
+    renderOpcoesFaceta(elements.filterEditora, 'Todas as editoras', facetas.porEditora);
+}
+
+function renderOpcoesFaceta(select, rotulo, contagens) {
+    const selecionado = select.value;
+    const opcoes = [new Option(rotulo, '')];
+    if (selecionado && !(selecionado in contagens)) {
+        opcoes.push(new Option(selecionado, selecionado));
+    }
+    Object.entries(contagens).forEach(([valor, quantidade]) => {
+        opcoes.push(new Option(`${valor} (${quantidade})`, valor));
+    });
+    select.replaceChildren(...opcoes);
+    select.value = selecionado;
 }
 
 // Delete Confirmation